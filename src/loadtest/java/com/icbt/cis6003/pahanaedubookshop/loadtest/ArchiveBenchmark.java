@@ -0,0 +1,194 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService.ArchiveResult;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillArchiveServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of current-month bill queries as the bill history grows. For every
+ * history length it seeds a fresh embedded database with billsPerYear bills for each
+ * year, times the queries the till and dashboard run, archives every closed month
+ * outside the hot window and times them again. Before archiving the cost grows with
+ * the history; after it, it should stay flat.
+ *
+ * The embedded database has no partitioning, so this measures the hot/cold table
+ * split and the date predicates; partition pruning only adds to it on MySQL.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.ArchiveBenchmark \
+ *     -Dexec.args="years=1,2,5,10 billsPerYear=100000"
+ */
+public class ArchiveBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("years", "1,2,5,10");     // history lengths
+        DEFAULTS.put("billsPerYear", "50000"); // seed data, the same rate for every history
+        DEFAULTS.put("customers", "5000");
+        DEFAULTS.put("items", "1000");
+        DEFAULTS.put("hotMonths", "3");        // whole months kept hot before the current one
+        DEFAULTS.put("warmupRuns", "3");       // runs of every query before measuring
+        DEFAULTS.put("runs", "20");            // measured runs of every query
+        DEFAULTS.put("output", "target/archive-benchmark.json");
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        Map<String, String> config = parse(args);
+        int[] years = Arrays.stream(config.get("years").split(",")).mapToInt(y -> Integer.parseInt(y.trim())).toArray();
+        long billsPerYear = Long.parseLong(config.get("billsPerYear"));
+        int hotMonths = Integer.parseInt(config.get("hotMonths"));
+
+        BillDAO billDAO = new BillDAOImpl();
+        JsonArrayBuilder historiesJson = Json.createArrayBuilder();
+        for (int history : years) {
+            DatabaseConnection.configure(DatabaseConfig.embedded("archive" + history, null)
+                    .withSeed(Long.parseLong(config.get("customers")), Long.parseLong(config.get("items")),
+                              billsPerYear * history)
+                    .withSeedHistory(365 * history));
+
+            long start = System.currentTimeMillis();
+            long bills = billDAO.count(); // the first query creates and seeds the database
+            System.out.println(history + " year(s): seeded " + bills + " bills in " +
+                    (System.currentTimeMillis() - start) + " ms");
+
+            JsonObject before = timeQueries(billDAO, config);
+            ArchiveResult archived = BillArchiveServiceImpl.getInstance().archiveClosedPeriods(hotMonths);
+            System.out.println(history + " year(s): " + archived);
+            JsonObject after = timeQueries(billDAO, config);
+
+            historiesJson.add(Json.createObjectBuilder()
+                    .add("years", history)
+                    .add("bills", bills)
+                    .add("archivedBills", archived.getBills())
+                    .add("archivedPeriods", archived.getPeriods().size())
+                    .add("archiveMillis", archived.getElapsedMillis())
+                    .add("hotFrom", archived.getHotFrom() != null ? archived.getHotFrom().toString() : "")
+                    .add("beforeArchive", before)
+                    .add("afterArchive", after));
+            drop();
+        }
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("histories", historiesJson)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+    }
+
+    // Helper methods
+
+    /**
+     * Time the current-month queries, in microseconds
+     */
+    private static JsonObject timeQueries(BillDAO billDAO, Map<String, String> config) {
+        Map<String, Supplier<Object>> queries = new LinkedHashMap<>();
+        queries.put("countCurrentMonthBills", billDAO::countCurrentMonthBills);
+        queries.put("currentMonthSalesTotal", billDAO::getCurrentMonthSalesTotal);
+        queries.put("currentMonthBills", billDAO::findCurrentMonthBills);
+        queries.put("recentBills", () -> billDAO.findRecentBills(20));
+        queries.put("last30DaysSalesTotal", () ->
+                billDAO.getSalesTotalBetween(LocalDate.now().minusDays(29), LocalDate.now()));
+
+        int warmupRuns = Integer.parseInt(config.get("warmupRuns"));
+        int runs = Integer.parseInt(config.get("runs"));
+        JsonObjectBuilder json = Json.createObjectBuilder();
+        for (Map.Entry<String, Supplier<Object>> query : queries.entrySet()) {
+            for (int i = 0; i < warmupRuns; i++) {
+                query.getValue().get();
+            }
+            long[] micros = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long start = System.nanoTime();
+                query.getValue().get();
+                micros[run] = (System.nanoTime() - start) / 1_000;
+            }
+            json.add(query.getKey(), Json.createObjectBuilder()
+                    .add("medianMicros", median(micros))
+                    .add("bestMicros", Arrays.stream(micros).min().orElse(0)));
+        }
+        return json.build();
+    }
+
+    /**
+     * Free the in-memory database of a history before seeding the next one
+     */
+    private static void drop() throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static double median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
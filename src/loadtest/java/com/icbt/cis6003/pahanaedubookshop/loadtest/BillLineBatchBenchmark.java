@@ -0,0 +1,233 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.loadtest.KeepAliveClient.Response;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Latency benchmark of putting lines on a bill over HTTP: one PATCH /api/bills/{id}/items
+ * carrying every line against one POST /api/bills/{id}/items per line, as the POS UI
+ * sent them before. Runs the application in embedded Tomcat; for every batch size a
+ * fresh draft is filled and discarded per run, and the median and 95th percentile of
+ * the time to put all its lines on it are reported. Exits with status 1 if any
+ * request fails.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.BillLineBatchBenchmark \
+ *     -Dexec.args="sizes=1,10,50,100,200 runs=50"
+ */
+public class BillLineBatchBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("sizes", "1,5,10,25,50,100,200"); // lines per bill
+        DEFAULTS.put("warmupRuns", "10");              // bills per size and path before measuring
+        DEFAULTS.put("runs", "30");                    // measured bills per size and path
+        DEFAULTS.put("customers", "1000");             // seed data; items must cover the largest size
+        DEFAULTS.put("items", "1000");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("port", "0");                     // 0 picks a free port
+        DEFAULTS.put("output", "target/bill-line-batch-benchmark.json");
+    }
+
+    private final KeepAliveClient client;
+    private final Random random;
+    private final int customers;
+    private final int items;
+
+    private BillLineBatchBenchmark(KeepAliveClient client, Map<String, String> config) {
+        this.client = client;
+        this.random = new Random(Long.parseLong(config.get("seed")));
+        this.customers = Integer.parseInt(config.get("customers"));
+        this.items = Integer.parseInt(config.get("items"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = parse(args);
+        int[] sizes = Arrays.stream(config.get("sizes").split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        if (Arrays.stream(sizes).max().orElse(0) > Integer.parseInt(config.get("items"))) {
+            throw new IllegalArgumentException("items must be at least the largest size");
+        }
+
+        // must be set before DatabaseConnection is first used
+        System.setProperty("bookshop.db.profile", "embedded");
+        System.setProperty("bookshop.db.seed.customers", config.get("customers"));
+        System.setProperty("bookshop.db.seed.items", config.get("items"));
+        System.setProperty("bookshop.db.seed.bills", "0");
+        // every request comes from one terminal, back to back
+        System.setProperty("bookshop.ratelimit.enabled", "false");
+        restock();
+
+        EmbeddedServer server = new EmbeddedServer(Integer.parseInt(config.get("port")));
+        String baseUrl = server.start();
+        JsonArrayBuilder sizesJson = Json.createArrayBuilder();
+        try (KeepAliveClient client = new KeepAliveClient(baseUrl)) {
+            server.awaitReady(baseUrl, 120_000);
+            BillLineBatchBenchmark benchmark = new BillLineBatchBenchmark(client, config);
+            int warmupRuns = Integer.parseInt(config.get("warmupRuns"));
+            int runs = Integer.parseInt(config.get("runs"));
+            for (int size : sizes) {
+                long[] batch = benchmark.time(size, warmupRuns, runs, true);
+                long[] single = benchmark.time(size, warmupRuns, runs, false);
+                double batchMedian = percentile(batch, 50) / 1000.0;
+                double singleMedian = percentile(single, 50) / 1000.0;
+                System.out.printf("%d lines: PATCH %.2f ms, %d POSTs %.2f ms (median)%n",
+                        size, batchMedian, size, singleMedian);
+                sizesJson.add(Json.createObjectBuilder()
+                        .add("lines", size)
+                        .add("patchMedianMillis", batchMedian)
+                        .add("patchP95Millis", percentile(batch, 95) / 1000.0)
+                        .add("postsMedianMillis", singleMedian)
+                        .add("postsP95Millis", percentile(single, 95) / 1000.0)
+                        .add("speedup", batchMedian > 0 ? singleMedian / batchMedian : 0));
+            }
+        } catch (IllegalStateException e) {
+            System.err.println("FAILED: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            server.stop();
+        }
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("sizes", sizesJson)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+    }
+
+    /**
+     * Fill one fresh draft per run with size lines, and return the measured times in microseconds
+     */
+    private long[] time(int size, int warmupRuns, int runs, boolean batch) throws IOException {
+        long[] micros = new long[runs];
+        for (int run = -warmupRuns; run < runs; run++) {
+            long billId = createBill();
+            int[] itemIds = distinctItems(size);
+            long start = System.nanoTime();
+            if (batch) {
+                StringBuilder changes = new StringBuilder("[");
+                for (int i = 0; i < size; i++) {
+                    changes.append(i == 0 ? "" : ",")
+                            .append("{\"op\":\"add\",\"itemId\":").append(itemIds[i]).append(",\"quantity\":1}");
+                }
+                require(client.send("PATCH", "/api/bills/" + billId + "/items", changes.append(']').toString()));
+            } else {
+                for (int i = 0; i < size; i++) {
+                    require(client.send("POST", "/api/bills/" + billId + "/items",
+                            "{\"itemId\":" + itemIds[i] + ",\"quantity\":1}"));
+                }
+            }
+            long elapsed = (System.nanoTime() - start) / 1_000;
+            if (run >= 0) {
+                micros[run] = elapsed;
+            }
+            require(client.send("DELETE", "/api/bills/" + billId, null));
+        }
+        return micros;
+    }
+
+    private long createBill() throws IOException {
+        Response created = require(client.send("POST", "/api/bills/",
+                "{\"customerId\":" + (1 + random.nextInt(customers)) + "}"));
+        return created.json().getJsonObject("data").getJsonNumber("id").longValue();
+    }
+
+    private int[] distinctItems(int size) {
+        int[] all = new int[items];
+        for (int i = 0; i < items; i++) {
+            all[i] = i + 1;
+        }
+        for (int i = 0; i < size; i++) {
+            int j = i + random.nextInt(items - i);
+            int swap = all[i];
+            all[i] = all[j];
+            all[j] = swap;
+        }
+        return Arrays.copyOf(all, size);
+    }
+
+    // Helper methods
+
+    private static Response require(Response response) {
+        if (!response.isSuccess()) {
+            throw new IllegalStateException("request answered " + response.status + " " + response.body);
+        }
+        return response;
+    }
+
+    private static void restock() throws SQLException {
+        // the first connection creates and seeds the embedded database
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("UPDATE items SET stock = 1000000");
+        }
+    }
+
+    private static double percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
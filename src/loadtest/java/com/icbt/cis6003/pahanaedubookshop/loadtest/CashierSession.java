@@ -0,0 +1,205 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.filter.RateLimitFilter;
+import com.icbt.cis6003.pahanaedubookshop.util.ZipfSampler;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * One cashier serving customers in a closed loop: look up the customer, search for
+ * items, open a bill, add lines and finalize it, pausing for a think time between
+ * steps. The next customer is only served once the previous bill is done, so the
+ * offered load follows the server's speed the way it does at a real till.
+ */
+public class CashierSession implements Runnable {
+
+    public static final String LOOKUP_CUSTOMER = "lookupCustomer";
+    public static final String SEARCH_ITEMS = "searchItems";
+    public static final String CREATE_BILL = "createBill";
+    public static final String ADD_LINE = "addLine";
+    public static final String FINALIZE_BILL = "finalizeBill";
+
+    private static final String[] SEARCH_TERMS = {"math", "science", "english", "history", "pen",
+            "notebook", "dictionary", "atlas", "pencil", "ict"};
+    private static final String[] CUSTOMER_TERMS = {"perera", "fernando", "silva", "bandara", "kumara"};
+
+    private final String baseUrl;
+    private final String terminalId;
+    private final LoadTestConfig config;
+    private final Random random;
+    private final ZipfSampler customerSampler;
+    private final ZipfSampler itemSampler;
+    private final long measureFrom;
+    private final long measureUntil;
+    private final Map<String, StepStats> stats = new LinkedHashMap<>();
+    private long completedSessions;
+
+    /**
+     * @param measureFrom System.nanoTime() from which requests are recorded, i.e. the end of the warm-up
+     * @param measureUntil System.nanoTime() at which the cashier stops
+     */
+    public CashierSession(String baseUrl, LoadTestConfig config, int cashier, long measureFrom, long measureUntil) {
+        this.baseUrl = baseUrl;
+        this.terminalId = "till-" + cashier;
+        this.config = config;
+        this.random = new Random(config.getSeed() * 31 + cashier);
+        this.customerSampler = new ZipfSampler(config.getCustomers(), config.getCustomerSkew());
+        this.itemSampler = new ZipfSampler(config.getItems(), config.getItemSkew());
+        this.measureFrom = measureFrom;
+        this.measureUntil = measureUntil;
+        for (String step : new String[] {LOOKUP_CUSTOMER, SEARCH_ITEMS, CREATE_BILL, ADD_LINE, FINALIZE_BILL}) {
+            stats.put(step, new StepStats(step));
+        }
+    }
+
+    @Override
+    public void run() {
+        while (System.nanoTime() < measureUntil) {
+            try {
+                if (serveCustomer() && System.nanoTime() >= measureFrom) {
+                    completedSessions++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public Map<String, StepStats> getStats() {
+        return stats;
+    }
+
+    public long getCompletedSessions() {
+        return completedSessions;
+    }
+
+    // Helper methods
+
+    private boolean serveCustomer() throws InterruptedException {
+        long customerId = customerSampler.sample(random.nextDouble());
+        call(LOOKUP_CUSTOMER, "GET", "/api/customers?search=" + pick(CUSTOMER_TERMS), null);
+        think();
+
+        call(SEARCH_ITEMS, "GET", "/api/items?search=" + pick(SEARCH_TERMS), null);
+        think();
+
+        Response created = call(CREATE_BILL, "POST", "/api/bills/", "{\"customerId\":" + customerId + "}");
+        if (!created.isSuccess()) {
+            return false;
+        }
+        long billId = created.json().getJsonObject("data").getJsonNumber("id").longValue();
+
+        int lines = 1;
+        while (lines < config.getMaxLines() && random.nextDouble() < config.getLineProbability()) {
+            lines++;
+        }
+        for (int line = 0; line < lines; line++) {
+            think();
+            // a popular item may be scanned twice, which adds to its existing line
+            long itemId = itemSampler.sample(random.nextDouble());
+            int quantity = random.nextDouble() < 0.8 ? 1 : 2 + random.nextInt(3);
+            call(ADD_LINE, "POST", "/api/bills/" + billId + "/items",
+                    "{\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}");
+        }
+        think();
+
+        return call(FINALIZE_BILL, "POST", "/api/bills/" + billId + "/finalize", null).isSuccess();
+    }
+
+    private Response call(String step, String method, String path, String jsonBody) {
+        long start = System.nanoTime();
+        Response response = send(method, path, jsonBody);
+        long elapsed = System.nanoTime() - start;
+        if (start >= measureFrom && start < measureUntil) {
+            stats.get(step).record(elapsed, response.status);
+        }
+        return response;
+    }
+
+    private Response send(String method, String path, String jsonBody) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(5_000);
+            connection.setReadTimeout(30_000);
+            connection.setRequestProperty("Accept", "application/json");
+            // each cashier is rate limited as its own till, not as one shared address
+            connection.setRequestProperty(RateLimitFilter.TERMINAL_HEADER, terminalId);
+            if (jsonBody != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(jsonBody.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            // reading the body to the end lets the connection be reused
+            return new Response(status, in != null ? readFully(in) : "");
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return new Response(-1, e.toString());
+        }
+    }
+
+    private void think() throws InterruptedException {
+        long mean = config.getThinkTimeMillis();
+        if (mean > 0) {
+            // exponential pauses, like independent arrivals at the till
+            Thread.sleep((long) (-mean * Math.log(1 - random.nextDouble())));
+        }
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        JsonObject json() {
+            try (JsonReader reader = Json.createReader(new StringReader(body))) {
+                return reader.readObject();
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.archive.ItemTotals;
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService.ArchiveResult;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService.ArchivedSales;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.BillReport;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillArchiveServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillingServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of report scans over archived months: SQL on the archive tables against
+ * the columnar period files. Seeds the embedded database, archives everything outside
+ * the hot window, exports the columnar files and then times, over the whole archived
+ * range, the sales totals, the top items by amount and the bill report, each through
+ * both paths. The two paths' results are compared before anything is timed.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.ColumnarScanBenchmark \
+ *     -Dexec.args="years=5 billsPerYear=200000"
+ */
+public class ColumnarScanBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    private static final String SQL_TOTALS =
+            "SELECT COUNT(*), COUNT(CASE WHEN status IN ('FINALIZED', 'PAID') THEN 1 END), " +
+            "COALESCE(SUM(CASE WHEN status IN ('FINALIZED', 'PAID') THEN total_amount END), 0) " +
+            "FROM bills_archive WHERE bill_date >= ? AND bill_date < ?";
+
+    private static final String SQL_TOP_ITEMS =
+            "SELECT i.item_id, SUM(i.quantity), SUM(i.total) AS amount " +
+            "FROM bill_items_archive i JOIN bills_archive b ON b.id = i.bill_id " +
+            "WHERE b.status IN ('FINALIZED', 'PAID') AND i.bill_date >= ? AND i.bill_date < ? " +
+            "GROUP BY i.item_id ORDER BY amount DESC, SUM(i.quantity) DESC, i.item_id LIMIT ?";
+
+    static {
+        DEFAULTS.put("years", "3");            // seed history
+        DEFAULTS.put("billsPerYear", "50000");
+        DEFAULTS.put("customers", "5000");
+        DEFAULTS.put("items", "1000");
+        DEFAULTS.put("hotMonths", "1");        // whole months kept hot before the current one
+        DEFAULTS.put("top", "10");             // items in the top-N query
+        DEFAULTS.put("warmupRuns", "3");
+        DEFAULTS.put("runs", "10");
+        DEFAULTS.put("output", "target/columnar-benchmark.json");
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> config = parse(args);
+        int years = Integer.parseInt(config.get("years"));
+        int top = Integer.parseInt(config.get("top"));
+
+        DatabaseConnection.configure(DatabaseConfig.embedded("columnar", null)
+                .withSeed(Long.parseLong(config.get("customers")), Long.parseLong(config.get("items")),
+                          Long.parseLong(config.get("billsPerYear")) * years)
+                .withSeedHistory(365 * years));
+        BillDAO billDAO = new BillDAOImpl();
+        long start = System.currentTimeMillis();
+        System.out.println("Seeded " + billDAO.count() + " bills in " + (System.currentTimeMillis() - start) + " ms");
+
+        BillArchiveServiceImpl archiveService = BillArchiveServiceImpl.getInstance();
+        ArchiveResult archived = archiveService.archiveClosedPeriods(Integer.parseInt(config.get("hotMonths")));
+        System.out.println(archived);
+        if (archived.getHotFrom() == null) {
+            throw new IllegalStateException("Nothing was archived; seed a longer history");
+        }
+        LocalDate from = archiveService.getArchivedPeriods().get(0).getPeriodStart();
+        LocalDate to = archived.getHotFrom();
+        LocalDate last = to.minusDays(1);
+
+        ArchivedSales columnar = archiveService.getArchivedSales(from, last, top);
+        long[] sqlTotals = sqlTotals(from, to);
+        List<long[]> sqlTop = sqlTopItems(from, to, top);
+        boolean totalsMatch = columnar.getBills() == sqlTotals[0] && columnar.getSalesBills() == sqlTotals[1]
+                && columnar.getSalesTotal().movePointRight(2).longValue() == sqlTotals[2];
+        boolean topMatches = sameItems(columnar.getTopItems(), sqlTop);
+        System.out.println("Archived " + from + " to " + last + ": " + columnar.getBills() + " bills, totals " +
+                (totalsMatch ? "match" : "DIFFER") + ", top items " + (topMatches ? "match" : "DIFFER"));
+
+        JsonObjectBuilder queries = Json.createObjectBuilder();
+        queries.add("salesTotals", compare(config,
+                () -> sqlTotals(from, to),
+                () -> archiveService.getArchivedSales(from, last, 0)));
+        queries.add("topItems", compare(config,
+                () -> sqlTopItems(from, to, top),
+                () -> archiveService.getArchivedSales(from, last, top)));
+        queries.add("billReport", compare(config,
+                () -> sqlReport(billDAO, from, last),
+                () -> BillingServiceImpl.getInstance().generateBillReport(from, last)));
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("archivedFrom", from.toString())
+                .add("archivedUntil", to.toString())
+                .add("archivedBills", columnar.getBills())
+                .add("totalsMatch", totalsMatch)
+                .add("topItemsMatch", topMatches)
+                .add("queries", queries)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+    }
+
+    // Helper methods
+
+    private static JsonObject compare(Map<String, String> config, Supplier<Object> sql, Supplier<Object> columnar) {
+        double sqlMicros = time(config, sql);
+        double columnarMicros = time(config, columnar);
+        return Json.createObjectBuilder()
+                .add("sqlMedianMicros", sqlMicros)
+                .add("columnarMedianMicros", columnarMicros)
+                .add("speedup", columnarMicros > 0 ? sqlMicros / columnarMicros : 0)
+                .build();
+    }
+
+    private static double time(Map<String, String> config, Supplier<Object> query) {
+        for (int i = 0; i < Integer.parseInt(config.get("warmupRuns")); i++) {
+            query.get();
+        }
+        long[] micros = new long[Integer.parseInt(config.get("runs"))];
+        for (int run = 0; run < micros.length; run++) {
+            long start = System.nanoTime();
+            query.get();
+            micros[run] = (System.nanoTime() - start) / 1_000;
+        }
+        return median(micros);
+    }
+
+    private static long[] sqlTotals(LocalDate from, LocalDate to) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SQL_TOTALS)) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new long[] {rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3).movePointRight(2).longValue()};
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Top items as item ID, quantity and amount in cents
+     */
+    private static List<long[]> sqlTopItems(LocalDate from, LocalDate to, int top) {
+        List<long[]> items = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SQL_TOP_ITEMS)) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            ps.setInt(3, top);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    items.add(new long[] {rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3).movePointRight(2).longValue()});
+                }
+            }
+            return items;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The bill report as it was built before the columnar archive: every bill of the
+     * range loaded through JDBC
+     */
+    private static Object sqlReport(BillDAO billDAO, LocalDate from, LocalDate last) {
+        List<Bill> bills = billDAO.findByDateBetween(from, last);
+        BigDecimal total = billDAO.getSalesTotalBetween(from, last);
+        return new BillReport(from, last, bills.size(), total, BigDecimal.ZERO, bills);
+    }
+
+    private static boolean sameItems(List<ItemTotals> columnar, List<long[]> sql) {
+        if (columnar.size() != sql.size()) {
+            return false;
+        }
+        for (int i = 0; i < sql.size(); i++) {
+            ItemTotals item = columnar.get(i);
+            long[] row = sql.get(i);
+            if (item.getItemId() != row[0] || item.getQuantity() != row[1] || item.getAmountCents() != row[2]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static double median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.loadtest.KeepAliveClient.Response;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Counts database connections per request over a cashier's working set of endpoints.
+ * Runs the application in embedded Tomcat and sends the requests one at a time, so
+ * the counters move only for the request in flight. "Before" is the number of
+ * DatabaseConnection.getConnection() calls, each of which opened its own connection
+ * when every DAO method managed its connection; "after" is the physical connections
+ * opened now that a request's DAO calls share the connection of its unit of work.
+ * Exits with status 1 if any request fails.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.ConnectionUseBenchmark \
+ *     -Dexec.args="sales=200 lines=5"
+ */
+public class ConnectionUseBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("sales", "100");      // rounds of the request mix
+        DEFAULTS.put("lines", "5");        // lines per sale, the first sent with the new bill
+        DEFAULTS.put("customers", "1000"); // seed data
+        DEFAULTS.put("items", "1000");
+        DEFAULTS.put("bills", "5000");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("port", "0");         // 0 picks a free port
+        DEFAULTS.put("output", "target/connection-use-benchmark.json");
+    }
+
+    private final KeepAliveClient client;
+    private final Map<String, long[]> counts = new LinkedHashMap<>();
+
+    private ConnectionUseBenchmark(KeepAliveClient client) {
+        this.client = client;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = parse(args);
+
+        // must be set before DatabaseConnection is first used
+        System.setProperty("bookshop.db.profile", "embedded");
+        System.setProperty("bookshop.db.seed.customers", config.get("customers"));
+        System.setProperty("bookshop.db.seed.items", config.get("items"));
+        System.setProperty("bookshop.db.seed.bills", config.get("bills"));
+        // every request comes from one terminal, back to back
+        System.setProperty("bookshop.ratelimit.enabled", "false");
+        restock();
+
+        EmbeddedServer server = new EmbeddedServer(Integer.parseInt(config.get("port")));
+        String baseUrl = server.start();
+        ConnectionUseBenchmark benchmark;
+        try (KeepAliveClient client = new KeepAliveClient(baseUrl)) {
+            server.awaitReady(baseUrl, 120_000);
+            benchmark = new ConnectionUseBenchmark(client);
+            Random random = new Random(Long.parseLong(config.get("seed")));
+            int customers = Integer.parseInt(config.get("customers"));
+            int items = Integer.parseInt(config.get("items"));
+            int lines = Integer.parseInt(config.get("lines"));
+            for (int sale = 0; sale < Integer.parseInt(config.get("sales")); sale++) {
+                benchmark.sale(random, 1 + random.nextInt(customers), items, lines);
+            }
+        } catch (IllegalStateException e) {
+            System.err.println("FAILED: " + e.getMessage());
+            System.exit(1);
+            return;
+        } finally {
+            server.stop();
+        }
+
+        JsonArrayBuilder requestsJson = Json.createArrayBuilder();
+        long totalRequests = 0;
+        long totalBefore = 0;
+        long totalAfter = 0;
+        for (Map.Entry<String, long[]> entry : benchmark.counts.entrySet()) {
+            long[] count = entry.getValue();
+            totalRequests += count[0];
+            totalBefore += count[1];
+            totalAfter += count[2];
+            System.out.printf("%-36s before %6.2f  after %6.2f connections per request%n",
+                    entry.getKey(), (double) count[1] / count[0], (double) count[2] / count[0]);
+            requestsJson.add(Json.createObjectBuilder()
+                    .add("request", entry.getKey())
+                    .add("count", count[0])
+                    .add("connectionsBefore", (double) count[1] / count[0])
+                    .add("connectionsAfter", (double) count[2] / count[0]));
+        }
+        System.out.printf("%-36s before %6.2f  after %6.2f connections per request%n", "all",
+                (double) totalBefore / totalRequests, (double) totalAfter / totalRequests);
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("requests", requestsJson)
+                .add("connectionsBefore", (double) totalBefore / totalRequests)
+                .add("connectionsAfter", (double) totalAfter / totalRequests)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+    }
+
+    /**
+     * Look up the customer and a few items, ring up a sale, look at the results and restock
+     */
+    private void sale(Random random, int customerId, int items, int lines) throws IOException {
+        send("GET /api/customers/{id}", "GET", "/api/customers/" + customerId, null);
+        send("GET /api/customers/statistics", "GET", "/api/customers/statistics", null);
+        send("GET /api/items/low-stock", "GET", "/api/items/low-stock", null);
+
+        int firstItem = 1 + random.nextInt(items);
+        send("GET /api/items/{id}", "GET", "/api/items/" + firstItem, null);
+        Response created = send("POST /api/bills (with first line)", "POST", "/api/bills/",
+                "{\"customerId\":" + customerId + ",\"items\":[{\"itemId\":" + firstItem + ",\"quantity\":1}]}");
+        long billId = created.json().getJsonObject("data").getJsonNumber("id").longValue();
+        for (int line = 1; line < lines; line++) {
+            int itemId = 1 + random.nextInt(items);
+            send("GET /api/items/{id}", "GET", "/api/items/" + itemId, null);
+            send("POST /api/bills/{id}/items", "POST", "/api/bills/" + billId + "/items",
+                    "{\"itemId\":" + itemId + ",\"quantity\":1}");
+        }
+        Response finalized = send("POST /api/bills/{id}/finalize", "POST", "/api/bills/" + billId + "/finalize", null);
+        billId = finalized.json().getJsonObject("data").getJsonNumber("id").longValue();
+
+        send("GET /api/bills/{id}", "GET", "/api/bills/" + billId, null);
+        send("GET /api/customers/{id}/totals", "GET", "/api/customers/" + customerId + "/totals", null);
+        send("GET /api/bills/today", "GET", "/api/bills/today", null);
+        send("GET /api/bills?page", "GET", "/api/bills?page=0&size=20", null);
+        send("GET /api/bills/statistics", "GET", "/api/bills/statistics", null);
+        send("PUT /api/items/{id}/stock", "PUT", "/api/items/" + firstItem + "/stock?stock=1000000", null);
+    }
+
+    private Response send(String name, String method, String path, String body) throws IOException {
+        long requestsBefore = DatabaseConnection.getRequestCount();
+        long opensBefore = opened();
+        Response response = client.send(method, path, body);
+        if (!response.isSuccess()) {
+            throw new IllegalStateException(method + " " + path + " answered " + response.status + " " + response.body);
+        }
+        long[] count = counts.computeIfAbsent(name, key -> new long[3]);
+        count[0]++;
+        count[1] += DatabaseConnection.getRequestCount() - requestsBefore;
+        count[2] += opened() - opensBefore;
+        return response;
+    }
+
+    // Helper methods
+
+    private static long opened() {
+        return DatabaseConnection.getAcquisitionCount() + DatabaseConnection.getReplicaAcquisitionCount();
+    }
+
+    private static void restock() throws SQLException {
+        // the first connection creates and seeds the embedded database
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("UPDATE items SET stock = 1000000");
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
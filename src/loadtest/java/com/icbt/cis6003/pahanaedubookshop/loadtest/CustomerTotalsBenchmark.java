@@ -0,0 +1,233 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerTotalsDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerTotalsDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerTotalsService.JobResult;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.CustomerTotalsServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark of the customer_totals rollup at the size of a large chain: 500k customers
+ * and 20M bills by default. Seeds the embedded database, then times per-customer totals
+ * and the top spender list read from the rollup against the aggregate over all_bills
+ * that customer_summary ran before, and times a full backfill and verification.
+ * 20M bills do not fit an in-memory database on a small machine; point url at an H2
+ * file database (jdbc:h2:file:./target/totalsdb;MODE=MySQL;DATABASE_TO_LOWER=TRUE) to
+ * seed it once and reuse it, or pass smaller customers and bills.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.CustomerTotalsBenchmark \
+ *     -Dexec.args="customers=500000 bills=20000000 url=jdbc:h2:file:./target/totalsdb;MODE=MySQL;DATABASE_TO_LOWER=TRUE"
+ */
+public class CustomerTotalsBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("customers", "500000"); // seed data
+        DEFAULTS.put("items", "5000");
+        DEFAULTS.put("bills", "20000000");
+        DEFAULTS.put("url", "");             // empty for an in-memory database
+        DEFAULTS.put("lookups", "2000");     // random customers per lookup run
+        DEFAULTS.put("top", "10");           // length of the top spender list
+        DEFAULTS.put("runs", "5");           // measured runs of every query
+        DEFAULTS.put("threads", "4");        // backfill and verification workers
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("output", "target/customer-totals-benchmark.json");
+    }
+
+    private static final String CUSTOMER_AGGREGATE =
+            "SELECT COUNT(*), COALESCE(SUM(total_amount), 0), MAX(bill_date) FROM all_bills " +
+            "WHERE customer_id = ? AND status IN ('FINALIZED', 'PAID')";
+
+    private static final String TOP_AGGREGATE =
+            "SELECT customer_id, SUM(total_amount) AS spent FROM all_bills " +
+            "WHERE status IN ('FINALIZED', 'PAID') GROUP BY customer_id ORDER BY spent DESC LIMIT ?";
+
+    public static void main(String[] args) throws IOException, SQLException {
+        Map<String, String> config = parse(args);
+
+        // must be set before DatabaseConnection is first used
+        System.setProperty("bookshop.db.profile", "embedded");
+        if (!config.get("url").isEmpty()) {
+            System.setProperty("bookshop.db.url", config.get("url"));
+        }
+        System.setProperty("bookshop.db.seed.customers", config.get("customers"));
+        System.setProperty("bookshop.db.seed.items", config.get("items"));
+        System.setProperty("bookshop.db.seed.bills", config.get("bills"));
+
+        long start = System.currentTimeMillis();
+        CustomerTotalsDAO customerTotalsDAO = new CustomerTotalsDAOImpl();
+        // the first connection creates and seeds the database
+        long[] customerRange = customerTotalsDAO.findCustomerIdRange();
+        long seedMillis = System.currentTimeMillis() - start;
+        System.out.println("Database ready in " + seedMillis + " ms");
+
+        CustomerTotalsServiceImpl service = CustomerTotalsServiceImpl.getInstance();
+        Random random = new Random(Long.parseLong(config.get("seed")));
+        long[] customerIds = new long[Integer.parseInt(config.get("lookups"))];
+        for (int i = 0; i < customerIds.length; i++) {
+            customerIds[i] = customerRange[0] + (long) (random.nextDouble() * (customerRange[1] - customerRange[0] + 1));
+        }
+        int runs = Integer.parseInt(config.get("runs"));
+        int top = Integer.parseInt(config.get("top"));
+        int threads = Integer.parseInt(config.get("threads"));
+
+        long[] aggregateLookups = time(runs, () -> {
+            for (long customerId : customerIds) {
+                aggregateCustomer(customerId);
+            }
+        });
+        long[] rollupLookups = time(runs, () -> {
+            for (long customerId : customerIds) {
+                customerTotalsDAO.findByCustomerId(customerId);
+            }
+        });
+        long[] mirrorLookups = time(runs, () -> {
+            for (long customerId : customerIds) {
+                service.getTotals(customerId);
+            }
+        });
+        long[] aggregateTop = time(runs, () -> aggregateTop(top));
+        long[] rollupTop = time(runs, () -> customerTotalsDAO.findTopByTotalAmount(top));
+
+        JobResult backfill = service.backfill(threads);
+        JobResult verify = service.verify(threads, false);
+        if (verify.getMismatches() > 0) {
+            System.err.println("FAILED: verification found " + verify.getMismatches() + " mismatches after the backfill");
+            System.exit(1);
+        }
+
+        System.out.printf("customer lookup: aggregate %.1f us, rollup %.1f us, mirror %.1f us (median per customer)%n",
+                median(aggregateLookups) / customerIds.length, median(rollupLookups) / customerIds.length,
+                median(mirrorLookups) / customerIds.length);
+        System.out.printf("top %d: aggregate %.0f us, rollup %.0f us (median)%n", top, median(aggregateTop), median(rollupTop));
+        System.out.println("backfill " + backfill.getElapsedMillis() + " ms, verify " + verify.getElapsedMillis() + " ms");
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("seedMillis", seedMillis)
+                .add("customerLookupMicros", Json.createObjectBuilder()
+                        .add("aggregate", median(aggregateLookups) / customerIds.length)
+                        .add("rollup", median(rollupLookups) / customerIds.length)
+                        .add("mirror", median(mirrorLookups) / customerIds.length))
+                .add("topCustomersMicros", Json.createObjectBuilder()
+                        .add("aggregate", median(aggregateTop))
+                        .add("rollup", median(rollupTop)))
+                .add("backfillMillis", backfill.getElapsedMillis())
+                .add("verifyMillis", verify.getElapsedMillis())
+                .add("customers", backfill.getCustomers())
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+    }
+
+    // Helper methods
+
+    private interface Work {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Run work once to warm up, then runs more times, and return the times in microseconds
+     */
+    private static long[] time(int runs, Work work) throws SQLException {
+        work.run();
+        long[] micros = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            work.run();
+            micros[run] = (System.nanoTime() - start) / 1_000;
+        }
+        return micros;
+    }
+
+    private static void aggregateCustomer(long customerId) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(CUSTOMER_AGGREGATE)) {
+            ps.setLong(1, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+            }
+        }
+    }
+
+    private static void aggregateTop(int limit) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(TOP_AGGREGATE)) {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    // drain
+                }
+            }
+        }
+    }
+
+    private static double median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
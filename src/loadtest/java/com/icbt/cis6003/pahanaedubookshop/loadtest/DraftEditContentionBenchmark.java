@@ -0,0 +1,118 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerTotalsDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.ItemDAO;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillCacheImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillingServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.DraftBillStoreImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of lock contention on draft edits: every benchmark thread edits its
+ * own draft, and all drafts hold the same hot item. editDraft is the service as it
+ * is, which takes only the bill lock; itemLockedEdit additionally holds the item's
+ * stripe around the edit, as draft edits used to, which serializes every till on
+ * the hot item. The DAOs are in-memory stand-ins, so the figures are locking and
+ * draft bookkeeping only. Run it with as many threads as tills, e.g. threads=64.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.DraftEditContentionBenchmark \
+ *     -Dexec.args="threads=64 forks=1 iterations=5 seconds=2"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DraftEditContentionBenchmark {
+
+    private static final long HOT_ITEM_ID = 1;
+
+    @State(Scope.Benchmark)
+    public static class Shop {
+
+        BillingServiceImpl billingService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Item item = new Item(HOT_ITEM_ID, "HOT-1", "Hot item", ItemCategory.STATIONERY,
+                    new BigDecimal("10.00"), Integer.MAX_VALUE, 0, null);
+            Customer customer = new Customer("ACC-1", "Benchmark customer", "Colombo", "0110000000");
+            customer.setId(1L);
+            BillDAO billDAO = inMemory(BillDAO.class, null);
+            billingService = new BillingServiceImpl(billDAO, inMemory(ItemDAO.class, item),
+                    inMemory(CustomerDAO.class, customer), inMemory(CustomerTotalsDAO.class, null),
+                    new DraftBillStoreImpl(billDAO), new BillCacheImpl(), inMemory(BillArchiveService.class, null));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            billingService.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Till {
+
+        Long draftId;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(Shop shop) {
+            draftId = shop.billingService.createBill(1L).getId();
+            shop.billingService.addItemToBill(draftId, HOT_ITEM_ID, 1);
+        }
+
+        int nextQuantity() {
+            next = (next + 1) & 7;
+            return next + 1;
+        }
+    }
+
+    @Benchmark
+    public Bill editDraft(Shop shop, Till till) {
+        return shop.billingService.updateItemQuantityInBill(till.draftId, HOT_ITEM_ID, till.nextQuantity());
+    }
+
+    @Benchmark
+    public Bill itemLockedEdit(Shop shop, Till till) {
+        int quantity = till.nextQuantity();
+        return shop.billingService.getItemLockManager().withLock(HOT_ITEM_ID,
+                () -> shop.billingService.updateItemQuantityInBill(till.draftId, HOT_ITEM_ID, quantity));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        JmhLauncher.run(DraftEditContentionBenchmark.class, "target/draft-edit-contention-benchmark.json", args);
+    }
+
+    // Helper methods
+
+    /**
+     * A DAO or service whose single-row finders return the given value and whose
+     * other methods return null; draft edits never call the rest
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T inMemory(Class<T> type, Object value) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            return method.getReturnType() == Optional.class ? Optional.ofNullable(value) : null;
+        });
+    }
+}
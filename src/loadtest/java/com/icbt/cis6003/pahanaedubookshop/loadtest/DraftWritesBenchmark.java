@@ -0,0 +1,331 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerTotalsDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.ItemDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillArchiveServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillCacheImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillingServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.DraftBillStoreImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+import com.icbt.cis6003.pahanaedubookshop.util.QueryStatistics;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark of database writes per sale: cart edits written to the bills and
+ * bill_items rows as they happen, as the billing API was specified, against drafts
+ * kept in memory and saved once at finalization. Both paths run the same sales on
+ * the embedded database: each sale opens a bill, makes a number of edits (the first
+ * ones add lines, the rest add to lines already on the bill) and finalizes it.
+ * Statements are counted from the database's own query statistics.
+ *
+ * The per-edit path is reproduced with plain JDBC, one auto-committed request per
+ * edit: a stock check, the line insert or update and the bill total update, then a
+ * status update and a stock decrement per line at finalization.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.DraftWritesBenchmark \
+ *     -Dexec.args="sales=2000 lines=10 edits=30"
+ */
+public class DraftWritesBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    private static final String INSERT_DRAFT =
+            "INSERT INTO bills (customer_id, customer_name, customer_account_number, bill_date, status) " +
+            "SELECT id, name, account_number, ?, 'DRAFT' FROM customers WHERE id = ?";
+    private static final String SELECT_STOCK = "SELECT stock, price, code, name FROM items WHERE id = ?";
+    private static final String UPDATE_LINE =
+            "UPDATE bill_items SET quantity = quantity + ?, total = unit_price * (quantity + ?) " +
+            "WHERE bill_id = ? AND item_id = ?";
+    private static final String INSERT_LINE =
+            "INSERT INTO bill_items (bill_id, bill_date, item_id, item_code, item_name, unit_price, quantity, total) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_TOTALS =
+            "UPDATE bills SET subtotal = (SELECT COALESCE(SUM(total), 0) FROM bill_items WHERE bill_id = ?), " +
+            "total_amount = (SELECT COALESCE(SUM(total), 0) FROM bill_items WHERE bill_id = ?) * (1 + tax_rate) " +
+            "WHERE id = ?";
+    private static final String UPDATE_STATUS = "UPDATE bills SET status = 'FINALIZED' WHERE id = ?";
+    private static final String DECREASE_STOCK = "UPDATE items SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String SELECT_LINES = "SELECT item_id, quantity FROM bill_items WHERE bill_id = ?";
+
+    static {
+        DEFAULTS.put("sales", "2000");        // measured sales per path
+        DEFAULTS.put("warmupSales", "200");   // sales per path before measuring
+        DEFAULTS.put("lines", "10");          // distinct items per sale
+        DEFAULTS.put("edits", "30");          // cart edits per sale, at least one per line
+        DEFAULTS.put("customers", "1000");
+        DEFAULTS.put("items", "1000");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("output", "target/draft-writes-benchmark.json");
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        Map<String, String> config = parse(args);
+        int lines = Integer.parseInt(config.get("lines"));
+        int edits = Integer.parseInt(config.get("edits"));
+        if (edits < lines) {
+            throw new IllegalArgumentException("edits must be at least lines");
+        }
+
+        DatabaseConnection.configure(DatabaseConfig.embedded("draftwrites", null)
+                .withSeed(Long.parseLong(config.get("customers")), Long.parseLong(config.get("items")), 0));
+        BillDAO billDAO = new BillDAOImpl();
+        BillingServiceImpl billingService = new BillingServiceImpl(billDAO, new ItemDAOImpl(), new CustomerDAOImpl(),
+                new CustomerTotalsDAOImpl(), new DraftBillStoreImpl(billDAO), new BillCacheImpl(),
+                BillArchiveServiceImpl.getInstance());
+        List<Long> customerIds = ids("SELECT id FROM customers");
+        List<Long> itemIds = ids("SELECT id FROM items");
+        execute("UPDATE items SET stock = 1000000000");
+        QueryStatistics.enable();
+
+        Sale draftStore = (customerId, edited) -> {
+            Long billId = billingService.createBill(customerId).getId();
+            for (Long itemId : edited) {
+                billingService.addItemToBill(billId, itemId, 1);
+            }
+            billingService.finalizeBill(billId);
+        };
+        Sale perEdit = DraftWritesBenchmark::perEditSale;
+
+        Random random = new Random(Long.parseLong(config.get("seed")));
+        JsonObject perEditJson = run("per-edit writes", perEdit, config, customerIds, itemIds, random);
+        JsonObject draftStoreJson = run("draft store", draftStore, config, customerIds, itemIds, random);
+        billingService.shutdown();
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        double before = perEditJson.getJsonNumber("writesPerSale").doubleValue();
+        double after = draftStoreJson.getJsonNumber("writesPerSale").doubleValue();
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("perEditWrites", perEditJson)
+                .add("draftStore", draftStoreJson)
+                .add("writeReduction", after > 0 ? before / after : 0)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+    }
+
+    // Helper methods
+
+    private interface Sale {
+        void run(Long customerId, List<Long> edits) throws SQLException;
+    }
+
+    private static JsonObject run(String name, Sale sale, Map<String, String> config, List<Long> customerIds,
+                                  List<Long> itemIds, Random random) throws SQLException {
+        int lines = Integer.parseInt(config.get("lines"));
+        int edits = Integer.parseInt(config.get("edits"));
+        for (int i = 0; i < Integer.parseInt(config.get("warmupSales")); i++) {
+            sale.run(pick(customerIds, random), cart(itemIds, lines, edits, random));
+        }
+
+        int sales = Integer.parseInt(config.get("sales"));
+        long statementsBefore = QueryStatistics.executions();
+        long writesBefore = QueryStatistics.writes();
+        long start = System.nanoTime();
+        for (int i = 0; i < sales; i++) {
+            sale.run(pick(customerIds, random), cart(itemIds, lines, edits, random));
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / sales;
+        // the two snapshots themselves are not counted, they filter out query_statistics
+        double statements = (QueryStatistics.executions() - statementsBefore) / (double) sales;
+        double writes = (QueryStatistics.writes() - writesBefore) / (double) sales;
+        System.out.printf("%s: %.1f statements, %.1f writes, %.0f us per sale%n", name, statements, writes, micros);
+        return Json.createObjectBuilder()
+                .add("statementsPerSale", statements)
+                .add("writesPerSale", writes)
+                .add("microsPerSale", micros)
+                .build();
+    }
+
+    /**
+     * The item of every edit of one sale: each of the lines once, then repeats
+     */
+    private static List<Long> cart(List<Long> itemIds, int lines, int edits, Random random) {
+        List<Long> chosen = new ArrayList<>(lines);
+        while (chosen.size() < lines) {
+            Long itemId = pick(itemIds, random);
+            if (!chosen.contains(itemId)) {
+                chosen.add(itemId);
+            }
+        }
+        List<Long> cart = new ArrayList<>(chosen);
+        for (int i = lines; i < edits; i++) {
+            cart.add(chosen.get(random.nextInt(lines)));
+        }
+        return cart;
+    }
+
+    /**
+     * One sale with every cart edit written as it happens
+     */
+    private static void perEditSale(Long customerId, List<Long> edits) throws SQLException {
+        Date today = Date.valueOf(LocalDate.now());
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            long billId;
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_DRAFT, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setDate(1, today);
+                ps.setLong(2, customerId);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    billId = keys.getLong(1);
+                }
+            }
+
+            for (Long itemId : edits) {
+                BigDecimal price;
+                String code;
+                String name;
+                try (PreparedStatement ps = connection.prepareStatement(SELECT_STOCK)) {
+                    ps.setLong(1, itemId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        price = rs.getBigDecimal("price");
+                        code = rs.getString("code");
+                        name = rs.getString("name");
+                    }
+                }
+                int updated;
+                try (PreparedStatement ps = connection.prepareStatement(UPDATE_LINE)) {
+                    ps.setInt(1, 1);
+                    ps.setInt(2, 1);
+                    ps.setLong(3, billId);
+                    ps.setLong(4, itemId);
+                    updated = ps.executeUpdate();
+                }
+                if (updated == 0) {
+                    try (PreparedStatement ps = connection.prepareStatement(INSERT_LINE)) {
+                        ps.setLong(1, billId);
+                        ps.setDate(2, today);
+                        ps.setLong(3, itemId);
+                        ps.setString(4, code);
+                        ps.setString(5, name);
+                        ps.setBigDecimal(6, price);
+                        ps.setInt(7, 1);
+                        ps.setBigDecimal(8, price);
+                        ps.executeUpdate();
+                    }
+                }
+                try (PreparedStatement ps = connection.prepareStatement(UPDATE_TOTALS)) {
+                    ps.setLong(1, billId);
+                    ps.setLong(2, billId);
+                    ps.setLong(3, billId);
+                    ps.executeUpdate();
+                }
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(UPDATE_STATUS)) {
+                ps.setLong(1, billId);
+                ps.executeUpdate();
+            }
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_LINES)) {
+                ps.setLong(1, billId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        quantities.put(rs.getLong(1), rs.getInt(2));
+                    }
+                }
+            }
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                try (PreparedStatement ps = connection.prepareStatement(DECREASE_STOCK)) {
+                    ps.setInt(1, line.getValue());
+                    ps.setLong(2, line.getKey());
+                    ps.setInt(3, line.getValue());
+                    ps.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static <T> T pick(List<T> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static List<Long> ids(String sql) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
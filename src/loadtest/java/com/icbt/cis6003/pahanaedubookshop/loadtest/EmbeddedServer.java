@@ -0,0 +1,87 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.loader.WebappLoader;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+import org.apache.tomcat.util.scan.StandardJarScanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+
+/**
+ * Embedded Tomcat serving the web application the way the WAR lays it out:
+ * src/main/webapp as the document root and target/classes as WEB-INF/classes, so
+ * WEB-INF/web.xml and the @WebServlet annotations are picked up as in a real deployment.
+ */
+public class EmbeddedServer {
+
+    public static final String CONTEXT_PATH = "/pahana-edu-bookshop";
+
+    private final Tomcat tomcat = new Tomcat();
+
+    public EmbeddedServer(int port) throws IOException {
+        tomcat.setBaseDir(Files.createTempDirectory("bookshop-tomcat").toString());
+        tomcat.setPort(port);
+        tomcat.setAddDefaultWebXmlToWebapp(false);
+        tomcat.getConnector();
+    }
+
+    /**
+     * Deploy the application and start accepting requests
+     * @return base URL of the application
+     */
+    public String start() throws LifecycleException {
+        Context context = tomcat.addWebapp(CONTEXT_PATH, new File("src/main/webapp").getAbsolutePath());
+
+        WebResourceRoot resources = new StandardRoot(context);
+        resources.addPreResources(new DirResourceSet(resources, "/WEB-INF/classes",
+                new File("target/classes").getAbsolutePath(), "/"));
+        context.setResources(resources);
+
+        // load application classes from the harness class path, so the harness and the
+        // servlets share one DatabaseConnection and therefore one embedded database
+        context.setParentClassLoader(EmbeddedServer.class.getClassLoader());
+        WebappLoader loader = new WebappLoader();
+        loader.setDelegate(true);
+        context.setLoader(loader);
+        ((StandardJarScanner) context.getJarScanner()).setScanClassPath(false);
+
+        tomcat.start();
+        return "http://localhost:" + tomcat.getConnector().getLocalPort() + CONTEXT_PATH;
+    }
+
+    /**
+     * Wait until the application reports itself ready, i.e. its startup warm-up is done
+     * @param baseUrl the URL returned by start()
+     * @throws IllegalStateException if it is not ready within the timeout
+     */
+    public void awaitReady(String baseUrl, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/api/health/ready").openConnection();
+                int status = connection.getResponseCode();
+                connection.disconnect();
+                if (status == HttpURLConnection.HTTP_OK) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not accepting connections yet
+            }
+            Thread.sleep(50);
+        }
+        throw new IllegalStateException("Application not ready after " + timeoutMillis + " ms");
+    }
+
+    public void stop() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+}
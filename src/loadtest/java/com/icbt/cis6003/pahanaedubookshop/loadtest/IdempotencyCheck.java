@@ -0,0 +1,343 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.filter.IdempotencyFilter;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Concurrent duplicate submission check of the Idempotency-Key support. Runs the
+ * application in embedded Tomcat and, in every round, releases a burst of identical
+ * requests with one key at the same moment: first POST /api/bills, then
+ * POST /api/bills/{id}/items on the bill it created. Every response of a burst must
+ * be the same, exactly one of them must have run, the bill must have been created
+ * once and the line added once. The same burst without a key is sent once for
+ * comparison, and a key reused with a different body must be rejected with 422.
+ * Exits with status 1 if any check fails.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.IdempotencyCheck \
+ *     -Dexec.args="duplicates=32 rounds=100"
+ */
+public class IdempotencyCheck {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("duplicates", "16");  // identical requests released together
+        DEFAULTS.put("rounds", "50");
+        DEFAULTS.put("customers", "100");  // seed data
+        DEFAULTS.put("items", "100");
+        DEFAULTS.put("port", "0");         // 0 picks a free port
+        DEFAULTS.put("output", "target/idempotency-check.json");
+    }
+
+    private final String baseUrl;
+    private final int duplicates;
+    private final ExecutorService pool;
+    private final List<String> failures = new ArrayList<>();
+
+    private IdempotencyCheck(String baseUrl, int duplicates) {
+        this.baseUrl = baseUrl;
+        this.duplicates = duplicates;
+        this.pool = Executors.newFixedThreadPool(duplicates);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = parse(args);
+
+        // must be set before DatabaseConnection is first used
+        System.setProperty("bookshop.db.profile", "embedded");
+        System.setProperty("bookshop.db.seed.customers", config.get("customers"));
+        System.setProperty("bookshop.db.seed.items", config.get("items"));
+        System.setProperty("bookshop.db.seed.bills", "0");
+        // the bursts are far above the request rate of one terminal
+        System.setProperty("bookshop.ratelimit.enabled", "false");
+        restock();
+
+        EmbeddedServer server = new EmbeddedServer(Integer.parseInt(config.get("port")));
+        String baseUrl = server.start();
+        IdempotencyCheck check = new IdempotencyCheck(baseUrl, Integer.parseInt(config.get("duplicates")));
+        JsonObject report;
+        try {
+            server.awaitReady(baseUrl, 120_000);
+            report = check.run(config, Integer.parseInt(config.get("rounds")));
+        } finally {
+            check.pool.shutdown();
+            server.stop();
+        }
+
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+        if (!check.failures.isEmpty()) {
+            check.failures.forEach(failure -> System.err.println("FAILED: " + failure));
+            System.exit(1);
+        }
+    }
+
+    private JsonObject run(Map<String, String> config, int rounds) throws Exception {
+        int customers = Integer.parseInt(config.get("customers"));
+        int items = Integer.parseInt(config.get("items"));
+
+        // without a key every duplicate runs
+        Set<Long> unkeyedBills = new HashSet<>();
+        for (Response response : burst("POST", "/api/bills/", "{\"customerId\":1}", null)) {
+            if (response.isSuccess()) {
+                unkeyedBills.add(response.billId());
+            }
+        }
+
+        Set<Long> bills = new HashSet<>();
+        long replayed = 0;
+        long executed = 0;
+        for (int round = 0; round < rounds; round++) {
+            long customerId = 1 + round % customers;
+            List<Response> created = burst("POST", "/api/bills/", "{\"customerId\":" + customerId + "}",
+                    UUID.randomUUID().toString());
+            if (!verifyBurst("create bill, round " + round, created)) {
+                continue;
+            }
+            long billId = created.get(0).billId();
+            bills.add(billId);
+
+            long itemId = 1 + round % items;
+            int quantity = 1 + round % 3;
+            List<Response> added = burst("POST", "/api/bills/" + billId + "/items",
+                    "{\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}", UUID.randomUUID().toString());
+            if (!verifyBurst("add line, round " + round, added)) {
+                continue;
+            }
+            Response bill = send("GET", "/api/bills/" + billId, null, null);
+            int lines = bill.json().getJsonObject("data").getJsonArray("items").size();
+            int stored = bill.json().getJsonObject("data").getJsonArray("items").getJsonObject(0).getInt("quantity");
+            if (lines != 1 || stored != quantity) {
+                failures.add("add line, round " + round + ": bill " + billId + " has " + lines +
+                        " lines with quantity " + stored + ", expected one line with quantity " + quantity);
+            }
+            for (Response response : created) {
+                executed += response.replayed ? 0 : 1;
+                replayed += response.replayed ? 1 : 0;
+            }
+            for (Response response : added) {
+                executed += response.replayed ? 0 : 1;
+                replayed += response.replayed ? 1 : 0;
+            }
+        }
+        if (bills.size() != rounds) {
+            failures.add(rounds + " rounds created " + bills.size() + " distinct bills");
+        }
+
+        String key = UUID.randomUUID().toString();
+        send("POST", "/api/bills/", "{\"customerId\":1}", key);
+        Response reused = send("POST", "/api/bills/", "{\"customerId\":2}", key);
+        if (reused.status != 422) {
+            failures.add("key reused with a different body answered " + reused.status + ", expected 422");
+        }
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        return Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("billsCreatedWithoutKey", unkeyedBills.size())
+                .add("billsCreatedWithKey", bills.size())
+                .add("requestsExecuted", executed)
+                .add("requestsReplayed", replayed)
+                .add("reusedKeyStatus", reused.status)
+                .add("failures", failures.size())
+                .build();
+    }
+
+    /**
+     * Check that every response of a burst is the same and exactly one request ran
+     */
+    private boolean verifyBurst(String name, List<Response> responses) {
+        Response first = responses.get(0);
+        long executed = responses.stream().filter(response -> !response.replayed).count();
+        boolean same = responses.stream().allMatch(response -> response.status == first.status
+                && response.body.equals(first.body));
+        if (!first.isSuccess()) {
+            failures.add(name + ": answered " + first.status + " " + first.body);
+            return false;
+        }
+        if (!same || executed != 1) {
+            failures.add(name + ": " + executed + " of " + responses.size() + " requests ran, responses " +
+                    (same ? "identical" : "differ"));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Send the same request from every thread at once
+     */
+    private List<Response> burst(String method, String path, String jsonBody, String key) throws Exception {
+        CountDownLatch ready = new CountDownLatch(duplicates);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Response>> futures = new ArrayList<>();
+        for (int i = 0; i < duplicates; i++) {
+            Callable<Response> request = () -> {
+                ready.countDown();
+                go.await();
+                return send(method, path, jsonBody, key);
+            };
+            futures.add(pool.submit(request));
+        }
+        ready.await();
+        go.countDown();
+        List<Response> responses = new ArrayList<>();
+        for (Future<Response> future : futures) {
+            responses.add(future.get());
+        }
+        return responses;
+    }
+
+    private Response send(String method, String path, String jsonBody, String key) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(5_000);
+            connection.setReadTimeout(60_000);
+            connection.setRequestProperty("Accept", "application/json");
+            if (key != null) {
+                connection.setRequestProperty(IdempotencyFilter.KEY_HEADER, key);
+            }
+            if (jsonBody != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(jsonBody.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            boolean replayed = "true".equals(connection.getHeaderField(IdempotencyFilter.REPLAYED_HEADER));
+            return new Response(status, in != null ? readFully(in) : "", replayed);
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return new Response(-1, e.toString(), false);
+        }
+    }
+
+    // Helper methods
+
+    private static void restock() throws SQLException {
+        // the first connection creates and seeds the embedded database
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+            // a sell-out would fail a burst for reasons unrelated to idempotency
+            stmt.executeUpdate("UPDATE items SET stock = 1000000");
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+        private final boolean replayed;
+
+        Response(int status, String body, boolean replayed) {
+            this.status = status;
+            this.body = body;
+            this.replayed = replayed;
+        }
+
+        boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        JsonObject json() {
+            try (JsonReader reader = Json.createReader(new StringReader(body))) {
+                return reader.readObject();
+            }
+        }
+
+        long billId() {
+            return json().getJsonObject("data").getJsonNumber("id").longValue();
+        }
+    }
+}
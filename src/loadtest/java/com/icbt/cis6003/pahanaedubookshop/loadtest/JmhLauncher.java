@@ -0,0 +1,93 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs a JMH benchmark class from a main method, e.g. under exec:java.
+ * exec:java loads the project through its own class loader, so the class path of
+ * that loader is handed to the forked benchmark JVMs. Arguments are key=value
+ * pairs: forks, warmupIterations, iterations, seconds (per iteration), threads,
+ * and gc=true to add JMH's allocation profiler. Results are written as JSON.
+ */
+final class JmhLauncher {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("forks", "1");
+        DEFAULTS.put("warmupIterations", "3");
+        DEFAULTS.put("iterations", "5");
+        DEFAULTS.put("seconds", "2");
+        DEFAULTS.put("threads", "1");
+        DEFAULTS.put("gc", "true");
+    }
+
+    private JmhLauncher() {
+    }
+
+    static void run(Class<?> benchmark, String output, String[] args) throws RunnerException {
+        Map<String, String> config = parse(args);
+        exposeClassPath();
+
+        File report = new File(output);
+        if (report.getParentFile() != null) {
+            report.getParentFile().mkdirs();
+        }
+        TimeValue iterationTime = TimeValue.seconds(Long.parseLong(config.get("seconds")));
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(benchmark.getName() + "\\.")
+                .forks(Integer.parseInt(config.get("forks")))
+                .warmupIterations(Integer.parseInt(config.get("warmupIterations")))
+                .warmupTime(iterationTime)
+                .measurementIterations(Integer.parseInt(config.get("iterations")))
+                .measurementTime(iterationTime)
+                .threads(Integer.parseInt(config.get("threads")))
+                .resultFormat(ResultFormatType.JSON)
+                .result(report.getPath());
+        if (Boolean.parseBoolean(config.get("gc"))) {
+            options.addProfiler("gc");
+        }
+        new Runner(options.build()).run();
+        System.out.println("Report written to " + report.getAbsolutePath());
+    }
+
+    // Helper methods
+
+    private static void exposeClassPath() {
+        ClassLoader loader = JmhLauncher.class.getClassLoader();
+        if (!(loader instanceof URLClassLoader)) {
+            return;
+        }
+        StringBuilder classPath = new StringBuilder();
+        for (URL url : ((URLClassLoader) loader).getURLs()) {
+            if (classPath.length() > 0) {
+                classPath.append(File.pathSeparatorChar);
+            }
+            classPath.append(new File(url.getPath()).getPath());
+        }
+        System.setProperty("java.class.path", classPath.toString());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,142 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.BillItemChange;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.OfflineBill;
+import com.icbt.cis6003.pahanaedubookshop.util.JsonBodyBinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of binding bulk JSON bodies: the streaming JsonBodyBinder against
+ * reading the body into a JsonArray with a JsonReader and copying it into the model
+ * objects, as PATCH /api/bills/{id}/items did before. Bodies are batches of line
+ * changes (PATCH /api/bills/{id}/items) and of offline bills with four lines each
+ * (POST /api/bills/sync). The tree path does not validate what it copies, so the
+ * comparison favors it. The report includes the bytes allocated per body.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.JsonBodyBenchmark \
+ *     -Dexec.args="forks=1 iterations=5 seconds=2"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonBodyBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Body {
+
+        @Param({"changes", "offlineBills"})
+        String body;
+
+        @Param({"10", "100", "1000"})
+        int size;
+
+        byte[] json;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(42);
+            StringBuilder out = new StringBuilder("[");
+            for (int i = 0; i < size; i++) {
+                out.append(i == 0 ? "" : ",");
+                if (body.equals("changes")) {
+                    out.append("{\"op\":\"add\",\"itemId\":").append(1 + random.nextInt(1000))
+                            .append(",\"quantity\":").append(1 + random.nextInt(5)).append('}');
+                } else {
+                    out.append("{\"syncId\":\"").append(new UUID(random.nextLong(), random.nextLong()))
+                            .append("\",\"customerId\":").append(1 + random.nextInt(10000))
+                            .append(",\"createdAt\":\"").append(LocalDateTime.of(2026, 3, 2, 10, 15).plusMinutes(i))
+                            .append("\",\"items\":[");
+                    for (int line = 0; line < 4; line++) {
+                        out.append(line == 0 ? "" : ",")
+                                .append("{\"itemId\":").append(1 + random.nextInt(1000))
+                                .append(",\"quantity\":").append(1 + random.nextInt(5))
+                                .append(",\"unitPrice\":").append(random.nextInt(10000) / 100.0).append('}');
+                    }
+                    out.append("]}");
+                }
+            }
+            json = out.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public List<?> streaming(Body body) {
+        ByteArrayInputStream in = new ByteArrayInputStream(body.json);
+        return body.body.equals("changes") ? JsonBodyBinder.readItemChanges(in) : JsonBodyBinder.readOfflineBills(in);
+    }
+
+    @Benchmark
+    public List<?> tree(Body body) {
+        JsonArray array;
+        try (JsonReader reader = Json.createReader(new InputStreamReader(
+                new ByteArrayInputStream(body.json), StandardCharsets.UTF_8))) {
+            array = reader.readArray();
+        }
+        return body.body.equals("changes") ? copyChanges(array) : copyOfflineBills(array);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        JmhLauncher.run(JsonBodyBenchmark.class, "target/json-body-benchmark.json", args);
+    }
+
+    // Helper methods
+
+    private static List<BillItemChange> copyChanges(JsonArray array) {
+        List<BillItemChange> changes = new ArrayList<>(array.size());
+        for (JsonValue value : array) {
+            JsonObject change = (JsonObject) value;
+            BillItemChange.Operation operation =
+                    BillItemChange.Operation.valueOf(change.getString("op").toUpperCase());
+            Integer quantity = change.containsKey("quantity") && !change.isNull("quantity") ?
+                    change.getInt("quantity") : null;
+            changes.add(new BillItemChange(operation, change.getJsonNumber("itemId").longValue(), quantity));
+        }
+        return changes;
+    }
+
+    private static List<OfflineBill> copyOfflineBills(JsonArray array) {
+        List<OfflineBill> bills = new ArrayList<>(array.size());
+        for (JsonValue value : array) {
+            JsonObject json = (JsonObject) value;
+            Bill bill = new Bill();
+            bill.setCustomerId(json.getJsonNumber("customerId").longValue());
+            bill.setCreatedAt(LocalDateTime.parse(json.getString("createdAt")));
+            bill.setBillDate(bill.getCreatedAt().toLocalDate());
+            for (JsonValue lineValue : json.getJsonArray("items")) {
+                JsonObject line = (JsonObject) lineValue;
+                BigDecimal unitPrice = line.containsKey("unitPrice") ? line.getJsonNumber("unitPrice").bigDecimalValue() : null;
+                bill.getItems().add(new BillItem(line.getJsonNumber("itemId").longValue(), null, null,
+                        unitPrice, line.getInt("quantity")));
+            }
+            bills.add(new OfflineBill(json.getString("syncId"), bill));
+        }
+        return bills;
+    }
+}
@@ -0,0 +1,156 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal HTTP/1.1 client over one kept-alive connection. HttpURLConnection refuses
+ * PATCH, so benchmarks that compare PATCH with other methods send every request
+ * through this client, and each request pays the same client overhead.
+ * Not thread-safe: use one client per thread.
+ */
+final class KeepAliveClient implements Closeable {
+
+    private final String host;
+    private final int port;
+    private final String basePath;
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    KeepAliveClient(String baseUrl) throws IOException {
+        URL url = new URL(baseUrl);
+        this.host = url.getHost();
+        this.port = url.getPort();
+        this.basePath = url.getPath();
+    }
+
+    Response send(String method, String path, String jsonBody) throws IOException {
+        if (socket == null) {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(300_000);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+        }
+
+        byte[] payload = jsonBody != null ? jsonBody.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        StringBuilder head = new StringBuilder()
+                .append(method).append(' ').append(basePath).append(path).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(host).append(':').append(port).append("\r\n")
+                .append("Accept: application/json\r\n")
+                .append("Content-Length: ").append(payload.length).append("\r\n");
+        if (jsonBody != null) {
+            head.append("Content-Type: application/json\r\n");
+        }
+        head.append("\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.write(payload);
+        out.flush();
+
+        int status = Integer.parseInt(readLine().split(" ")[1]);
+        int contentLength = -1;
+        boolean chunked = false;
+        boolean close = false;
+        String header;
+        while (!(header = readLine()).isEmpty()) {
+            int colon = header.indexOf(':');
+            String name = header.substring(0, colon).trim().toLowerCase();
+            String value = header.substring(colon + 1).trim();
+            if (name.equals("content-length")) {
+                contentLength = Integer.parseInt(value);
+            } else if (name.equals("transfer-encoding")) {
+                chunked = value.equalsIgnoreCase("chunked");
+            } else if (name.equals("connection")) {
+                close = value.equalsIgnoreCase("close");
+            }
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (chunked) {
+            int size;
+            while ((size = Integer.parseInt(readLine().split(";")[0].trim(), 16)) > 0) {
+                readFully(body, size);
+                readLine();
+            }
+            while (!readLine().isEmpty()) {
+                // trailers
+            }
+        } else if (contentLength > 0) {
+            readFully(body, contentLength);
+        }
+        if (close) {
+            close();
+        }
+        return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
+    }
+
+    // Helper methods
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1) {
+                throw new EOFException("Connection closed by the server");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private void readFully(ByteArrayOutputStream body, int length) throws IOException {
+        byte[] buffer = new byte[Math.min(length, 8192)];
+        int remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new EOFException("Connection closed by the server");
+            }
+            body.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        JsonObject json() {
+            try (JsonReader reader = Json.createReader(new StringReader(body))) {
+                return reader.readObject();
+            }
+        }
+    }
+}
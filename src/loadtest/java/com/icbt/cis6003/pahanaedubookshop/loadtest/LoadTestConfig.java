@@ -0,0 +1,134 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, given as name=value arguments, e.g.
+ * cashiers=50 duration=120 thinkTime=500 itemSkew=1.2
+ */
+public class LoadTestConfig {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("cashiers", "10");          // concurrent cashier sessions
+        DEFAULTS.put("duration", "60");          // measured seconds
+        DEFAULTS.put("warmup", "10");            // seconds run before measuring
+        DEFAULTS.put("thinkTime", "1000");       // mean pause between steps in ms, exponentially distributed
+        DEFAULTS.put("maxLines", "8");           // most lines on one bill
+        DEFAULTS.put("lineProbability", "0.45"); // chance of adding one more line
+        DEFAULTS.put("itemSkew", "1.1");         // Zipf exponent of item popularity, 0 = uniform
+        DEFAULTS.put("customerSkew", "0.8");     // Zipf exponent of customer activity
+        DEFAULTS.put("customers", "10000");      // seed data
+        DEFAULTS.put("items", "2000");
+        DEFAULTS.put("bills", "20000");
+        DEFAULTS.put("stock", "1000000");        // items are restocked to this before the run
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("port", "0");               // 0 picks a free port
+        DEFAULTS.put("output", "target/load-test-report.json");
+    }
+
+    private final Map<String, String> values;
+
+    private LoadTestConfig(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return new LoadTestConfig(values);
+    }
+
+    public int getCashiers() {
+        return getInt("cashiers");
+    }
+
+    public int getDurationSeconds() {
+        return getInt("duration");
+    }
+
+    public int getWarmupSeconds() {
+        return getInt("warmup");
+    }
+
+    public long getThinkTimeMillis() {
+        return getLong("thinkTime");
+    }
+
+    public int getMaxLines() {
+        return getInt("maxLines");
+    }
+
+    public double getLineProbability() {
+        return getDouble("lineProbability");
+    }
+
+    public double getItemSkew() {
+        return getDouble("itemSkew");
+    }
+
+    public double getCustomerSkew() {
+        return getDouble("customerSkew");
+    }
+
+    public long getCustomers() {
+        return getLong("customers");
+    }
+
+    public long getItems() {
+        return getLong("items");
+    }
+
+    public long getBills() {
+        return getLong("bills");
+    }
+
+    public int getStock() {
+        return getInt("stock");
+    }
+
+    public long getSeed() {
+        return getLong("seed");
+    }
+
+    public int getPort() {
+        return getInt("port");
+    }
+
+    public String getOutput() {
+        return values.get("output");
+    }
+
+    public JsonObject toJson() {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            builder.add(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    // Helper methods
+
+    private int getInt(String key) {
+        return Integer.parseInt(values.get(key).replace("_", ""));
+    }
+
+    private long getLong(String key) {
+        return Long.parseLong(values.get(key).replace("_", ""));
+    }
+
+    private double getDouble(String key) {
+        return Double.parseDouble(values.get(key));
+    }
+}
@@ -0,0 +1,186 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillingServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+import com.icbt.cis6003.pahanaedubookshop.util.StripedLockManager;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load test of the /api servlets. Boots the application in embedded
+ * Tomcat on the embedded database seeded by SyntheticDataGenerator, runs the
+ * configured number of cashier sessions for the warm-up and measured periods, and
+ * writes throughput, per-step latency percentiles and error rates as JSON.
+ *
+ * mvn -Pload-test test-compile exec:java -Dexec.args="cashiers=50 duration=120 thinkTime=500"
+ */
+public class LoadTestRunner {
+
+    private static final long READY_TIMEOUT_MILLIS = 120_000;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+
+        // must be set before DatabaseConnection is first used
+        System.setProperty("bookshop.db.profile", "embedded");
+        System.setProperty("bookshop.db.seed.customers", String.valueOf(config.getCustomers()));
+        System.setProperty("bookshop.db.seed.items", String.valueOf(config.getItems()));
+        System.setProperty("bookshop.db.seed.bills", String.valueOf(config.getBills()));
+        prepareDatabase(config);
+
+        EmbeddedServer server = new EmbeddedServer(config.getPort());
+        String baseUrl = server.start();
+        System.out.println("Application running at " + baseUrl);
+        try {
+            // the startup warm-up would otherwise compete with the first cashiers
+            server.awaitReady(baseUrl, READY_TIMEOUT_MILLIS);
+            JsonObject report = run(baseUrl, config);
+            String json = prettyPrint(report);
+            writeReport(config.getOutput(), json);
+            System.out.println(json);
+            System.out.println("Report written to " + new File(config.getOutput()).getAbsolutePath());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Run the cashier sessions against a running application and build the report
+     */
+    public static JsonObject run(String baseUrl, LoadTestConfig config) throws InterruptedException {
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        long connectionsBefore = DatabaseConnection.getAcquisitionCount();
+
+        List<CashierSession> sessions = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int cashier = 0; cashier < config.getCashiers(); cashier++) {
+            CashierSession session = new CashierSession(baseUrl, config, cashier, measureFrom, measureUntil);
+            Thread thread = new Thread(session, "cashier-" + cashier);
+            sessions.add(session);
+            threads.add(thread);
+            thread.start();
+        }
+        System.out.println(config.getCashiers() + " cashiers started, warming up for " +
+                config.getWarmupSeconds() + " s, measuring for " + config.getDurationSeconds() + " s");
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsedSeconds = config.getDurationSeconds();
+
+        Map<String, StepStats> steps = new LinkedHashMap<>();
+        long completed = 0;
+        for (CashierSession session : sessions) {
+            completed += session.getCompletedSessions();
+            for (StepStats stats : session.getStats().values()) {
+                steps.computeIfAbsent(stats.getStep(), StepStats::new).merge(stats);
+            }
+        }
+
+        long requests = 0;
+        long errors = 0;
+        JsonObjectBuilder stepsJson = Json.createObjectBuilder();
+        StepStats all = new StepStats("all");
+        for (StepStats stats : steps.values()) {
+            requests += stats.getCount();
+            errors += stats.getErrorCount();
+            all.merge(stats);
+            stepsJson.add(stats.getStep(), stats.toJson(elapsedSeconds));
+        }
+
+        return Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", config.toJson())
+                .add("measuredSeconds", elapsedSeconds)
+                .add("throughput", Json.createObjectBuilder()
+                        .add("sessions", completed)
+                        .add("sessionsPerSecond", completed / elapsedSeconds)
+                        .add("requests", requests)
+                        .add("requestsPerSecond", requests / elapsedSeconds)
+                        .add("errors", errors)
+                        .add("errorRate", requests > 0 ? (double) errors / requests : 0.0))
+                .add("steps", stepsJson)
+                .add("overall", all.toJson(elapsedSeconds))
+                .add("server", serverMetrics(connectionsBefore))
+                .build();
+    }
+
+    // Helper methods
+
+    private static void prepareDatabase(LoadTestConfig config) throws SQLException {
+        long start = System.currentTimeMillis();
+        // the first connection creates and seeds the embedded database
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(
+                     "UPDATE items SET stock = ? WHERE stock < ?")) {
+            // keep sell-outs of the popular items from dominating the error rate
+            stmt.setInt(1, config.getStock());
+            stmt.setInt(2, config.getStock());
+            stmt.executeUpdate();
+        }
+        System.out.println("Database prepared in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static JsonObject serverMetrics(long connectionsBefore) {
+        TransactionManager transactionManager = TransactionManager.getInstance();
+        BillingServiceImpl billingService = BillingServiceImpl.getInstance();
+        return Json.createObjectBuilder()
+                .add("connectionsOpened", DatabaseConnection.getAcquisitionCount() - connectionsBefore)
+                .add("connectionsPerUnitOfWork", transactionManager.getConnectionsPerUnitOfWork())
+                .add("billLocks", lockMetrics(billingService.getBillLockManager()))
+                .add("itemLocks", lockMetrics(billingService.getItemLockManager()))
+                .build();
+    }
+
+    private static JsonObject lockMetrics(StripedLockManager locks) {
+        return Json.createObjectBuilder()
+                .add("acquisitions", locks.getAcquisitionCount())
+                .add("contended", locks.getContendedCount())
+                .add("contentionRatio", locks.getContentionRatio())
+                .add("totalWaitMillis", TimeUnit.NANOSECONDS.toMillis(locks.getTotalWaitNanos()))
+                .build();
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * End-to-end check of POST /api/bills/sync. Runs the application in embedded Tomcat
+ * and uploads a batch of bills as a till would after working offline, plus a bill
+ * that the stock of its item cannot cover and a repeat of the first bill. Every bill
+ * must be saved once, the uncovered one rejected and the repeat reported as a
+ * duplicate; uploading the whole batch again must save nothing. The bill count and
+ * stock are checked in the database afterwards. For comparison, the same number of
+ * bills is also entered through the cashier endpoints (create, add lines, finalize)
+ * for a sample of bills. Exits with status 1 if any check fails or the first upload
+ * takes longer than limitSeconds.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.OfflineSyncCheck \
+ *     -Dexec.args="bills=1000 lines=4"
+ */
+public class OfflineSyncCheck {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    // item whose stock is kept too low for the bill that must be rejected
+    private static final long SCARCE_ITEM_ID = 1;
+    private static final int SCARCE_STOCK = 5;
+
+    static {
+        DEFAULTS.put("bills", "1000");          // bills in the upload
+        DEFAULTS.put("lines", "4");             // lines per bill
+        DEFAULTS.put("onlineBills", "100");     // bills entered through the cashier endpoints
+        DEFAULTS.put("limitSeconds", "10");     // longest acceptable first upload
+        DEFAULTS.put("customers", "1000");      // seed data
+        DEFAULTS.put("items", "500");
+        DEFAULTS.put("seedBills", "10000");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("port", "0");              // 0 picks a free port
+        DEFAULTS.put("output", "target/offline-sync-check.json");
+    }
+
+    private final String baseUrl;
+    private final List<String> failures = new ArrayList<>();
+
+    private OfflineSyncCheck(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = parse(args);
+
+        // must be set before DatabaseConnection is first used
+        System.setProperty("bookshop.db.profile", "embedded");
+        System.setProperty("bookshop.db.seed.customers", config.get("customers"));
+        System.setProperty("bookshop.db.seed.items", config.get("items"));
+        System.setProperty("bookshop.db.seed.bills", config.get("seedBills"));
+        // the cashier comparison sends requests back to back from one terminal
+        System.setProperty("bookshop.ratelimit.enabled", "false");
+        restock();
+
+        EmbeddedServer server = new EmbeddedServer(Integer.parseInt(config.get("port")));
+        String baseUrl = server.start();
+        OfflineSyncCheck check = new OfflineSyncCheck(baseUrl);
+        JsonObject report;
+        try {
+            server.awaitReady(baseUrl, 120_000);
+            report = check.run(config);
+        } finally {
+            server.stop();
+        }
+
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+        if (!check.failures.isEmpty()) {
+            check.failures.forEach(failure -> System.err.println("FAILED: " + failure));
+            System.exit(1);
+        }
+    }
+
+    private JsonObject run(Map<String, String> config) throws Exception {
+        int bills = Integer.parseInt(config.get("bills"));
+        int lines = Integer.parseInt(config.get("lines"));
+        int customers = Integer.parseInt(config.get("customers"));
+        int items = Integer.parseInt(config.get("items"));
+        Random random = new Random(Long.parseLong(config.get("seed")));
+
+        // the batch: ordinary bills, one the scarce item cannot cover, a repeat of the first
+        List<String> billsJson = new ArrayList<>();
+        long expectedQuantity = 0;
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < bills; i++) {
+            StringBuilder linesJson = new StringBuilder();
+            for (int line = 0; line < lines; line++) {
+                long itemId = SCARCE_ITEM_ID + 1 + random.nextInt(items - 1);
+                int quantity = 1 + random.nextInt(3);
+                expectedQuantity += quantity;
+                linesJson.append(line == 0 ? "" : ",")
+                        .append("{\"itemId\":").append(itemId).append(",\"quantity\":").append(quantity).append('}');
+            }
+            billsJson.add(offlineBill(UUID.randomUUID().toString(), 1 + random.nextInt(customers),
+                    now.minusMinutes(bills - i), linesJson.toString()));
+        }
+        billsJson.add(offlineBill(UUID.randomUUID().toString(), 1, now,
+                "{\"itemId\":" + SCARCE_ITEM_ID + ",\"quantity\":" + (SCARCE_STOCK + 1) + "}"));
+        billsJson.add(billsJson.get(0));
+        String body = "[" + String.join(",", billsJson) + "]";
+
+        long billsBefore = count("SELECT COUNT(*) FROM bills");
+        long stockBefore = count("SELECT SUM(stock) FROM items");
+
+        long start = System.nanoTime();
+        JsonObject first = sync(body);
+        double firstMillis = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        JsonObject second = sync(body);
+        double secondMillis = (System.nanoTime() - start) / 1e6;
+
+        expect("first upload, created", first, "created", bills);
+        expect("first upload, duplicates", first, "duplicates", 1);
+        expect("first upload, rejected", first, "rejected", 1);
+        expect("second upload, created", second, "created", 0);
+        expect("second upload, duplicates", second, "duplicates", bills + 1);
+        expect("second upload, rejected", second, "rejected", 1);
+        JsonArrayBuilder rejections = Json.createArrayBuilder();
+        if (first != null) {
+            first.getJsonArray("results").getValuesAs(JsonObject.class).stream()
+                    .filter(result -> result.containsKey("error"))
+                    .forEach(result -> rejections.add(result.getString("error")));
+        }
+        if (first != null && second != null) {
+            long firstBillId = first.getJsonArray("results").getJsonObject(0).getJsonNumber("billId").longValue();
+            long repeatBillId = second.getJsonArray("results").getJsonObject(0).getJsonNumber("billId").longValue();
+            if (firstBillId != repeatBillId) {
+                failures.add("second upload reported bill " + repeatBillId + " for a bill saved as " + firstBillId);
+            }
+        }
+
+        long billsSaved = count("SELECT COUNT(*) FROM bills") - billsBefore;
+        long stockTaken = stockBefore - count("SELECT SUM(stock) FROM items");
+        if (billsSaved != bills) {
+            failures.add(billsSaved + " bills saved, expected " + bills);
+        }
+        if (stockTaken != expectedQuantity) {
+            failures.add(stockTaken + " items taken from stock, expected " + expectedQuantity);
+        }
+        if (count("SELECT stock FROM items WHERE id = " + SCARCE_ITEM_ID) != SCARCE_STOCK) {
+            failures.add("stock of the scarce item changed");
+        }
+        double limitMillis = Double.parseDouble(config.get("limitSeconds")) * 1000;
+        if (firstMillis > limitMillis) {
+            failures.add(String.format("first upload took %.0f ms, limit %.0f ms", firstMillis, limitMillis));
+        }
+
+        double onlineMillisPerBill = cashierMillisPerBill(Integer.parseInt(config.get("onlineBills")), lines,
+                customers, items, random);
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonArrayBuilder failuresJson = Json.createArrayBuilder();
+        failures.forEach(failuresJson::add);
+        return Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("firstUploadMillis", firstMillis)
+                .add("secondUploadMillis", secondMillis)
+                .add("syncMillisPerBill", firstMillis / bills)
+                .add("cashierMillisPerBill", onlineMillisPerBill)
+                .add("billsSaved", billsSaved)
+                .add("stockTaken", stockTaken)
+                .add("rejections", rejections)
+                .add("failures", failuresJson)
+                .build();
+    }
+
+    /**
+     * Enter bills through the cashier endpoints, one request per step, and return
+     * the average time per bill
+     */
+    private double cashierMillisPerBill(int bills, int lines, int customers, int items, Random random) {
+        if (bills <= 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < bills; i++) {
+            Response created = send("POST", "/api/bills/", "{\"customerId\":" + (1 + random.nextInt(customers)) + "}");
+            if (!created.isSuccess()) {
+                failures.add("cashier bill answered " + created.status + " " + created.body);
+                return 0;
+            }
+            long billId = created.json().getJsonObject("data").getJsonNumber("id").longValue();
+            for (int line = 0; line < lines; line++) {
+                send("POST", "/api/bills/" + billId + "/items", "{\"itemId\":" +
+                        (SCARCE_ITEM_ID + 1 + random.nextInt(items - 1)) + ",\"quantity\":1}");
+            }
+            send("POST", "/api/bills/" + billId + "/finalize", null);
+        }
+        return (System.nanoTime() - start) / 1e6 / bills;
+    }
+
+    private JsonObject sync(String body) {
+        Response response = send("POST", "/api/bills/sync", body);
+        if (!response.isSuccess()) {
+            failures.add("sync answered " + response.status + " " + response.body);
+            return null;
+        }
+        return response.json().getJsonObject("data");
+    }
+
+    private void expect(String name, JsonObject data, String field, int expected) {
+        if (data != null && data.getInt(field) != expected) {
+            failures.add(name + ": " + data.getInt(field) + ", expected " + expected);
+        }
+    }
+
+    private Response send(String method, String path, String jsonBody) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(5_000);
+            connection.setReadTimeout(300_000);
+            connection.setRequestProperty("Accept", "application/json");
+            if (jsonBody != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(jsonBody.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            return new Response(status, in != null ? readFully(in) : "");
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return new Response(-1, e.toString());
+        }
+    }
+
+    // Helper methods
+
+    private static String offlineBill(String syncId, long customerId, LocalDateTime createdAt, String linesJson) {
+        return "{\"syncId\":\"" + syncId + "\",\"customerId\":" + customerId +
+                ",\"createdAt\":\"" + createdAt + "\",\"items\":[" + linesJson + "]}";
+    }
+
+    private static void restock() throws SQLException {
+        // the first connection creates and seeds the embedded database
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+            // only the scarce item can run out
+            stmt.executeUpdate("UPDATE items SET stock = 1000000");
+            stmt.executeUpdate("UPDATE items SET stock = " + SCARCE_STOCK + " WHERE id = " + SCARCE_ITEM_ID);
+        }
+    }
+
+    private static long count(String sql) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        JsonObject json() {
+            try (JsonReader reader = Json.createReader(new StringReader(body))) {
+                return reader.readObject();
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.filter.RateLimitFilter;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-request overhead of the rate limit filter. Runs RateLimitFilter.doFilter on
+ * prebuilt requests from many terminals over a mix of till, lookup and report paths,
+ * with rates high enough that every request is admitted, which is the cost every
+ * request pays. The same loop calling the filter chain directly gives the cost of
+ * the harness itself. Requests are dynamic proxies, so the filter figure is an upper
+ * bound: container request objects answer the same getters from fields.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.RateLimitBenchmark \
+ *     -Dexec.args="clients=10000 threads=1,4,8 seconds=5"
+ */
+public class RateLimitBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    private static final String CONTEXT = "/pahana-edu-bookshop";
+    private static final String[][] REQUESTS = {
+            {"POST", "/api/bills/"}, {"POST", "/api/bills/42/items"}, {"PATCH", "/api/bills/42/items"},
+            {"POST", "/api/bills/42/finalize"}, {"GET", "/api/items"}, {"GET", "/api/items/17"},
+            {"GET", "/api/customers"}, {"GET", "/api/customers/8/segment"}, {"GET", "/api/bills/42/receipt"},
+            {"GET", "/api/bills/sales-total"}, {"GET", "/api/items/top-sellers"}, {"GET", "/api/bills"}};
+
+    static {
+        DEFAULTS.put("clients", "1000");     // distinct terminals
+        DEFAULTS.put("threads", "1,4");      // request threads
+        DEFAULTS.put("seconds", "3");        // measured seconds per level
+        DEFAULTS.put("warmupSeconds", "2");
+        DEFAULTS.put("limitNanos", "1000");  // per-request overhead budget
+        DEFAULTS.put("output", "target/rate-limit-benchmark.json");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = parse(args);
+
+        // admit everything: rejected requests skip the servlet, so admission is the cost that matters
+        for (RateLimitFilter.RateClass rateClass : RateLimitFilter.RateClass.values()) {
+            String prefix = "bookshop.ratelimit." + rateClass.name().toLowerCase() + ".";
+            System.setProperty(prefix + "rate", String.valueOf(Integer.MAX_VALUE));
+            System.setProperty(prefix + "burst", String.valueOf(Integer.MAX_VALUE / 2));
+        }
+        // every simulated terminal sends from 127.0.0.1, so let each keep its own bucket
+        System.setProperty("bookshop.ratelimit.terminalsPerAddress", config.get("clients"));
+        RateLimitFilter filter = new RateLimitFilter();
+        filter.init(null);
+
+        int clients = Integer.parseInt(config.get("clients"));
+        HttpServletRequest[] requests = buildRequests(clients, 4096);
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                RateLimitBenchmark.class.getClassLoader(), new Class<?>[] {HttpServletResponse.class},
+                (proxy, method, methodArgs) -> {
+                    throw new IllegalStateException("Admitted requests must not touch the response");
+                });
+        LongAdder admitted = new LongAdder();
+        FilterChain chain = (request, ignored) -> admitted.increment();
+        long seconds = Long.parseLong(config.get("seconds"));
+        long limitNanos = Long.parseLong(config.get("limitNanos"));
+        int[] levels = Arrays.stream(config.get("threads").split(",")).mapToInt(l -> Integer.parseInt(l.trim())).toArray();
+
+        int highest = Arrays.stream(levels).max().orElse(1);
+        measure(highest, Long.parseLong(config.get("warmupSeconds")), requests,
+                (request, ignored) -> filter.doFilter(request, response, chain));
+
+        JsonArrayBuilder levelsJson = Json.createArrayBuilder();
+        boolean withinLimit = true;
+        for (int threads : levels) {
+            double baseline = measure(threads, seconds, requests, chain::doFilter);
+            double filtered = measure(threads, seconds, requests,
+                    (request, ignored) -> filter.doFilter(request, response, chain));
+            boolean ok = filtered - baseline < limitNanos;
+            withinLimit &= ok;
+            System.out.printf("threads=%d baseline=%.1f ns filter=%.1f ns overhead=%.1f ns%n",
+                    threads, baseline, filtered, filtered - baseline);
+            levelsJson.add(Json.createObjectBuilder()
+                    .add("threads", threads)
+                    .add("baselineNanos", baseline)
+                    .add("filterNanos", filtered)
+                    .add("overheadNanos", filtered - baseline)
+                    .add("withinLimit", ok));
+        }
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("availableProcessors", Runtime.getRuntime().availableProcessors())
+                .add("requestsAdmitted", admitted.sum())
+                .add("levels", levelsJson)
+                .add("withinLimit", withinLimit)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+        if (!withinLimit) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run the handler on the prebuilt requests from every thread for a while
+     * @return processor nanoseconds per request
+     */
+    private static double measure(int threads, long seconds, HttpServletRequest[] requests, FilterChain handler)
+            throws InterruptedException {
+        long[] operations = new long[threads];
+        long[] elapsed = new long[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers[t] = new Thread(() -> {
+                int mask = requests.length - 1;
+                int i = worker * 997;
+                long count = 0;
+                try {
+                    start.await();
+                    long begin = System.nanoTime();
+                    long until = begin + seconds * 1_000_000_000L;
+                    long now = begin;
+                    while (now < until) {
+                        // check the clock once per batch so it does not dominate
+                        for (int batch = 0; batch < 1024; batch++) {
+                            handler.doFilter(requests[i++ & mask], null);
+                        }
+                        count += 1024;
+                        now = System.nanoTime();
+                    }
+                    elapsed[worker] = now - begin;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException | ServletException | RuntimeException e) {
+                    failures.incrementAndGet();
+                    e.printStackTrace();
+                }
+                operations[worker] = count;
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " benchmark threads failed");
+        }
+        // threads beyond the core count only take turns, so charge the time of the cores in use
+        int cores = Math.min(threads, Runtime.getRuntime().availableProcessors());
+        return (double) Arrays.stream(elapsed).max().orElse(0) * cores / Arrays.stream(operations).sum();
+    }
+
+    // Helper methods
+
+    private static HttpServletRequest[] buildRequests(int clients, int count) {
+        Random random = new Random(42);
+        HttpServletRequest[] requests = new HttpServletRequest[count];
+        for (int i = 0; i < count; i++) {
+            String[] request = REQUESTS[random.nextInt(REQUESTS.length)];
+            String terminal = "till-" + random.nextInt(clients);
+            String uri = CONTEXT + request[1];
+            requests[i] = (HttpServletRequest) Proxy.newProxyInstance(RateLimitBenchmark.class.getClassLoader(),
+                    new Class<?>[] {HttpServletRequest.class}, (proxy, method, methodArgs) -> {
+                        switch (method.getName()) {
+                            case "getMethod": return request[0];
+                            case "getRequestURI": return uri;
+                            case "getContextPath": return CONTEXT;
+                            case "getHeader":
+                                return RateLimitFilter.TERMINAL_HEADER.equals(methodArgs[0]) ? terminal : null;
+                            case "getRemoteAddr": return "127.0.0.1";
+                            default: throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+        return requests;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.service.ReceiptService.ReceiptFormat;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.ReceiptServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.ReceiptTemplate;
+import com.icbt.cis6003.pahanaedubookshop.util.ReceiptTemplate.Escaping;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput benchmark of server-side receipts, in receipts per second. Builds
+ * synthetic bills in memory, so no database is involved, and renders them for a
+ * fixed time on each thread count: once through the compiled templates on every
+ * request, as for draft bills, and once through the receipt service, where settled
+ * bills are served from the receipt cache after their first rendering.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.ReceiptBenchmark \
+ *     -Dexec.args="bills=10000 lines=8 threads=1,4 seconds=5"
+ */
+public class ReceiptBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("bills", "2000");      // distinct settled bills, all fit in the receipt cache
+        DEFAULTS.put("lines", "8");         // lines per bill
+        DEFAULTS.put("threads", "1,4");     // thread counts
+        DEFAULTS.put("warmupSeconds", "2"); // per format before measuring
+        DEFAULTS.put("seconds", "5");       // measured time per format, mode and thread count
+        DEFAULTS.put("output", "target/receipt-benchmark.json");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = parse(args);
+        List<Bill> bills = createBills(Integer.parseInt(config.get("bills")), Integer.parseInt(config.get("lines")));
+        int[] threadCounts = Arrays.stream(config.get("threads").split(",")).mapToInt(t -> Integer.parseInt(t.trim())).toArray();
+        long warmupMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(config.get("warmupSeconds")));
+        long millis = TimeUnit.SECONDS.toMillis(Long.parseLong(config.get("seconds")));
+
+        ReceiptServiceImpl service = ReceiptServiceImpl.getInstance();
+        Map<ReceiptFormat, ReceiptTemplate> templates = new LinkedHashMap<>();
+        templates.put(ReceiptFormat.TEXT, ReceiptTemplate.load("/receipts/receipt-80mm.txt", Escaping.NONE));
+        templates.put(ReceiptFormat.HTML, ReceiptTemplate.load("/receipts/receipt.html", Escaping.HTML));
+
+        ByteArrayOutputStream sample = new ByteArrayOutputStream();
+        service.writeReceipt(bills.get(0), ReceiptFormat.TEXT, sample);
+        System.out.println(new String(sample.toByteArray(), StandardCharsets.UTF_8));
+
+        JsonArrayBuilder resultsJson = Json.createArrayBuilder();
+        for (Map.Entry<ReceiptFormat, ReceiptTemplate> entry : templates.entrySet()) {
+            ReceiptFormat format = entry.getKey();
+            ReceiptTemplate template = entry.getValue();
+            Renderer render = (bill, out) -> template.render(bill, out);
+            Renderer cached = (bill, out) -> service.writeReceipt(bill, format, out);
+            run(bills, render, 1, warmupMillis);
+            run(bills, cached, 1, warmupMillis);
+            for (int threads : threadCounts) {
+                for (String mode : new String[] {"render", "cached"}) {
+                    long[] counts = run(bills, mode.equals("render") ? render : cached, threads, millis);
+                    double perSecond = counts[0] * 1000.0 / millis;
+                    System.out.printf("%s %s threads=%d: %.0f receipts/s%n", format.getParameter(), mode, threads,
+                            perSecond);
+                    resultsJson.add(Json.createObjectBuilder()
+                            .add("format", format.getParameter())
+                            .add("mode", mode)
+                            .add("threads", threads)
+                            .add("receipts", counts[0])
+                            .add("receiptsPerSecond", perSecond)
+                            .add("averageBytes", counts[0] > 0 ? counts[1] / counts[0] : 0));
+                }
+            }
+        }
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("availableProcessors", Runtime.getRuntime().availableProcessors())
+                .add("results", resultsJson)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+    }
+
+    // Helper methods
+
+    private interface Renderer {
+        void write(Bill bill, OutputStream out) throws IOException;
+    }
+
+    /**
+     * Render receipts on the given number of threads for a fixed time
+     * @return receipts rendered and bytes written
+     */
+    private static long[] run(List<Bill> bills, Renderer renderer, int threads, long millis) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.currentTimeMillis() + millis;
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 7919;
+            futures.add(executor.submit(() -> {
+                CountingStream out = new CountingStream();
+                long receipts = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    // check the clock once per batch
+                    for (int i = 0; i < 64; i++) {
+                        renderer.write(bills.get((int) ((offset + receipts) % bills.size())), out);
+                        receipts++;
+                    }
+                }
+                return new long[] {receipts, out.bytes};
+            }));
+        }
+        long[] total = new long[2];
+        for (Future<long[]> future : futures) {
+            long[] counts = future.get();
+            total[0] += counts[0];
+            total[1] += counts[1];
+        }
+        executor.shutdown();
+        return total;
+    }
+
+    private static List<Bill> createBills(int count, int lines) {
+        Random random = new Random(42);
+        List<Bill> bills = new ArrayList<>(count);
+        for (int b = 1; b <= count; b++) {
+            Bill bill = new Bill((long) b, "Customer " + b, String.format("CUST%07d", b));
+            bill.setId((long) b);
+            bill.setVersion(1);
+            for (int l = 0; l < lines; l++) {
+                int item = random.nextInt(1000) + 1;
+                BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(20000), 2);
+                int quantity = 1 + random.nextInt(3);
+                BillItem line = new BillItem((long) item, String.format("ITM%05d", item), "Textbook <Vol. " + item + ">",
+                        price, quantity);
+                bill.addItem(line);
+            }
+            bill.calculateTotals();
+            bill.setStatus(BillStatus.FINALIZED);
+            bills.add(bill);
+        }
+        return bills;
+    }
+
+    private static final class CountingStream extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
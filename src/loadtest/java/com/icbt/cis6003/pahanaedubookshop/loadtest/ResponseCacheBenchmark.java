@@ -0,0 +1,219 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.ItemDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.BestSellerService;
+import com.icbt.cis6003.pahanaedubookshop.service.ItemService;
+import com.icbt.cis6003.pahanaedubookshop.service.ItemService.InventoryStatistics;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.ItemServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+import com.icbt.cis6003.pahanaedubookshop.util.ResourceVersionTracker;
+import com.icbt.cis6003.pahanaedubookshop.util.ResourceVersionTracker.Version;
+import com.icbt.cis6003.pahanaedubookshop.util.ResponseCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JMH benchmark of serving the cached GET endpoints: building, serializing and writing
+ * the JSON on every request, as sendJsonResponse does, against handing out the
+ * pre-serialized bytes from the ResponseCache. The gzip variants compress on every
+ * request and serve the pre-compressed bytes respectively. The statistics endpoint
+ * queries the embedded database on a miss, like /api/items/statistics; categories is
+ * a fixed list, like /api/items/categories. The servlet response writes into a byte
+ * counter, so the container's own costs are not included.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.ResponseCacheBenchmark \
+ *     -Dexec.args="threads=4 forks=1 iterations=5 seconds=2"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResponseCacheBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Endpoint {
+
+        @Param({"statistics", "categories"})
+        String endpoint;
+
+        ResponseCache responseCache;
+        Version version;
+        Supplier<JsonObject> builder;
+        HttpServletRequest plainRequest;
+        HttpServletRequest gzipRequest;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            DatabaseConnection.configure(DatabaseConfig.embedded("responsecache", null).withSeed(10, 1000, 0));
+            ItemService itemService = new ItemServiceImpl(new ItemDAOImpl(), noBestSellers());
+            builder = endpoint.equals("statistics") ? () -> statisticsJson(itemService) : ResponseCacheBenchmark::categoriesJson;
+            responseCache = ResponseCache.getInstance();
+            version = ResourceVersionTracker.getInstance().getCollectionVersion(ResourceVersionTracker.ITEMS);
+            plainRequest = request(null);
+            gzipRequest = request("gzip, deflate");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sink {
+
+        final CountingOutputStream out = new CountingOutputStream();
+        final HttpServletResponse response = response(out);
+    }
+
+    @Benchmark
+    public long uncached(Endpoint endpoint, Sink sink) throws IOException {
+        try (PrintWriter writer = sink.response.getWriter()) {
+            writer.print(endpoint.builder.get().toString());
+        }
+        return sink.out.count;
+    }
+
+    @Benchmark
+    public long uncachedGzip(Endpoint endpoint, Sink sink) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                new GZIPOutputStream(sink.response.getOutputStream()), StandardCharsets.UTF_8))) {
+            writer.print(endpoint.builder.get().toString());
+        }
+        return sink.out.count;
+    }
+
+    @Benchmark
+    public long cached(Endpoint endpoint, Sink sink) throws IOException {
+        ResponseCache.write(endpoint.plainRequest, sink.response,
+                endpoint.responseCache.get(endpoint.endpoint, endpoint.version, endpoint.builder));
+        return sink.out.count;
+    }
+
+    @Benchmark
+    public long cachedGzip(Endpoint endpoint, Sink sink) throws IOException {
+        ResponseCache.write(endpoint.gzipRequest, sink.response,
+                endpoint.responseCache.get(endpoint.endpoint, endpoint.version, endpoint.builder));
+        return sink.out.count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        JmhLauncher.run(ResponseCacheBenchmark.class, "target/response-cache-benchmark.json", args);
+    }
+
+    // Helper methods
+
+    /**
+     * The body ItemController builds for /api/items/statistics
+     */
+    private static JsonObject statisticsJson(ItemService itemService) {
+        InventoryStatistics stats = itemService.getInventoryStatistics();
+        return Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", Json.createObjectBuilder()
+                        .add("totalItems", stats.getTotalItems())
+                        .add("inStockItems", stats.getInStockItems())
+                        .add("lowStockItems", stats.getLowStockItems())
+                        .add("outOfStockItems", stats.getOutOfStockItems())
+                        .add("totalValue", stats.getTotalValue() != null ? stats.getTotalValue() : BigDecimal.ZERO))
+                .add("message", "Inventory statistics retrieved successfully")
+                .build();
+    }
+
+    /**
+     * The body ItemController builds for /api/items/categories
+     */
+    private static JsonObject categoriesJson() {
+        JsonArrayBuilder categories = Json.createArrayBuilder();
+        String[][] values = {{"textbook", "Textbooks"}, {"reference", "Reference Books"},
+                {"stationery", "Stationery"}, {"digital", "Digital Products"}};
+        for (String[] value : values) {
+            categories.add(Json.createObjectBuilder().add("value", value[0]).add("label", value[1]));
+        }
+        return Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", categories)
+                .add("message", "Categories retrieved successfully")
+                .build();
+    }
+
+    private static BestSellerService noBestSellers() {
+        return (BestSellerService) Proxy.newProxyInstance(BestSellerService.class.getClassLoader(),
+                new Class<?>[] {BestSellerService.class}, (proxy, method, args) -> null);
+    }
+
+    private static HttpServletRequest request(String acceptEncoding) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) ->
+                        method.getName().equals("getHeader") && "Accept-Encoding".equals(args[0]) ? acceptEncoding : null);
+    }
+
+    /**
+     * A response whose body goes to the counter; headers and status are dropped
+     */
+    private static HttpServletResponse response(CountingOutputStream out) {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                new Class<?>[] {HttpServletResponse.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getOutputStream":
+                            return out;
+                        case "getWriter":
+                            return writer;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /**
+     * Servlet output stream that only counts the bytes written to it; close() is a no-op
+     * so one stream serves every request of a thread
+     */
+    static final class CountingOutputStream extends ServletOutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.util.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of routing cost per request: the shared Router with the billing
+ * routes against the regex chain the controllers used before, which called
+ * String.matches, split and Long.parseLong per request. Each operation routes one
+ * of a fixed mix of GET, POST, PUT and DELETE paths, including draft bill IDs.
+ * With gc=true (the default) the report includes the bytes allocated per operation.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.RouterBenchmark \
+ *     -Dexec.args="forks=1 iterations=5 seconds=2"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RouterBenchmark {
+
+    private static final String[][] REQUESTS = {
+            {"GET", "/"}, {"GET", "/42"}, {"GET", "/1000000000000123/receipt"}, {"GET", "/recent"},
+            {"GET", "/sales-total"}, {"POST", "/"}, {"POST", "/1000000000000123/items"},
+            {"POST", "/1000000000000123/finalize"}, {"PUT", "/1000000000000123/items/17"},
+            {"DELETE", "/1000000000000123/items/17"}, {"DELETE", "/42"}, {"GET", "/archive/sales"}};
+
+    private Router router;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Router.Handler handler = (request, response, variables) -> { };
+        router = new Router()
+                .get("/", handler).get("/{id}", handler).get("/{id}/receipt", handler)
+                .get("/recent", handler).get("/today", handler).get("/statistics", handler)
+                .get("/sales-total", handler).get("/sales-summary", handler)
+                .get("/archive", handler).get("/archive/sales", handler)
+                .post("/", handler).post("/archive", handler).post("/archive/export", handler)
+                .post("/sync", handler).post("/{id}/items", handler).post("/{id}/finalize", handler)
+                .put("/{id}/items/{itemId}", handler).patch("/{id}/items", handler)
+                .delete("/{id}", handler).delete("/{id}/items/{itemId}", handler);
+    }
+
+    @Benchmark
+    public boolean router() throws IOException {
+        String[] request = nextRequest();
+        return router.dispatch(request[0], request[1], null, null);
+    }
+
+    @Benchmark
+    public void regexChain(Blackhole blackhole) {
+        String[] request = nextRequest();
+        blackhole.consume(regexRoute(request[0], request[1]));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        JmhLauncher.run(RouterBenchmark.class, "target/router-benchmark.json", args);
+    }
+
+    // Helper methods
+
+    private String[] nextRequest() {
+        String[] request = REQUESTS[next];
+        next = next + 1 == REQUESTS.length ? 0 : next + 1;
+        return request;
+    }
+
+    /**
+     * The routing the billing controller did before the Router: one String.matches
+     * per candidate route, then split and parseLong for the path variables
+     */
+    private static long regexRoute(String method, String pathInfo) {
+        switch (method) {
+            case "GET":
+                if (pathInfo == null || pathInfo.equals("/")) {
+                    return 1;
+                } else if (pathInfo.matches("/\\d+")) {
+                    return Long.parseLong(pathInfo.substring(1));
+                } else if (pathInfo.matches("/\\d+/receipt")) {
+                    return Long.parseLong(pathInfo.split("/")[1]);
+                } else if (pathInfo.equals("/recent") || pathInfo.equals("/today")
+                        || pathInfo.equals("/statistics") || pathInfo.equals("/sales-total")
+                        || pathInfo.equals("/sales-summary") || pathInfo.equals("/archive")
+                        || pathInfo.equals("/archive/sales")) {
+                    return 2;
+                }
+                return -1;
+            case "POST":
+                if (pathInfo == null || pathInfo.equals("/")) {
+                    return 1;
+                } else if (pathInfo.matches("/\\d+/items")) {
+                    return Long.parseLong(pathInfo.split("/")[1]);
+                } else if (pathInfo.matches("/\\d+/finalize")) {
+                    return Long.parseLong(pathInfo.split("/")[1]);
+                }
+                return -1;
+            case "PUT":
+                if (pathInfo != null && pathInfo.matches("/\\d+/items/\\d+")) {
+                    String[] parts = pathInfo.split("/");
+                    return Long.parseLong(parts[1]) + Long.parseLong(parts[3]);
+                }
+                return -1;
+            case "DELETE":
+                if (pathInfo != null && pathInfo.matches("/\\d+/items/\\d+")) {
+                    String[] parts = pathInfo.split("/");
+                    return Long.parseLong(parts[1]) + Long.parseLong(parts[3]);
+                } else if (pathInfo != null && pathInfo.matches("/\\d+")) {
+                    return Long.parseLong(pathInfo.substring(1));
+                }
+                return -1;
+            default:
+                return -1;
+        }
+    }
+}
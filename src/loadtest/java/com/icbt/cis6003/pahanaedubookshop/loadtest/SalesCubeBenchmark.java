@@ -0,0 +1,222 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.SalesCubeServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark of date-range sales totals: the SQL aggregate the sales endpoints used to
+ * run against the sales cube they read now. Seeds the embedded database with a bill
+ * history, times the cube's rebuild from it, and checks that the cube and SQL agree on
+ * the total and count of every range before anything is timed. Each query then runs
+ * over the same random ranges, from a single day to the whole history. Exits with
+ * status 1 if any range differs.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.SalesCubeBenchmark \
+ *     -Dexec.args="years=5 billsPerYear=200000"
+ */
+public class SalesCubeBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    private static final String SQL_COUNT =
+            "SELECT COUNT(*) FROM all_bills WHERE status IN ('FINALIZED', 'PAID') AND bill_date BETWEEN ? AND ?";
+
+    static {
+        DEFAULTS.put("years", "3");            // seed history
+        DEFAULTS.put("billsPerYear", "50000");
+        DEFAULTS.put("customers", "5000");
+        DEFAULTS.put("items", "1000");
+        DEFAULTS.put("ranges", "200");         // random ranges per run
+        DEFAULTS.put("warmupRuns", "3");
+        DEFAULTS.put("runs", "10");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("output", "target/sales-cube-benchmark.json");
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> config = parse(args);
+        int years = Integer.parseInt(config.get("years"));
+
+        DatabaseConnection.configure(DatabaseConfig.embedded("salescube", null)
+                .withSeed(Long.parseLong(config.get("customers")), Long.parseLong(config.get("items")),
+                          Long.parseLong(config.get("billsPerYear")) * years)
+                .withSeedHistory(365 * years));
+        BillDAO billDAO = new BillDAOImpl();
+        long start = System.currentTimeMillis();
+        System.out.println("Seeded " + billDAO.count() + " bills in " + (System.currentTimeMillis() - start) + " ms");
+
+        SalesCubeServiceImpl cube = new SalesCubeServiceImpl();
+        start = System.nanoTime();
+        cube.rebuild();
+        long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Rebuilt the sales cube in " + rebuildMillis + " ms");
+
+        LocalDate today = LocalDate.now();
+        LocalDate first = today.minusDays(365L * years);
+        LocalDate[][] ranges = randomRanges(first, today, Integer.parseInt(config.get("ranges")),
+                Long.parseLong(config.get("seed")));
+
+        int mismatches = 0;
+        for (LocalDate[] range : ranges) {
+            BigDecimal sqlTotal = billDAO.getSalesTotalBetween(range[0], range[1]);
+            long sqlCount = sqlCount(range[0], range[1]);
+            if (sqlTotal.compareTo(cube.getSalesTotal(range[0], range[1])) != 0
+                    || sqlCount != cube.getSalesCount(range[0], range[1])) {
+                mismatches++;
+                System.err.println("Range " + range[0] + " to " + range[1] + ": SQL " + sqlTotal + " / " + sqlCount +
+                        ", cube " + cube.getSalesTotal(range[0], range[1]) + " / " +
+                        cube.getSalesCount(range[0], range[1]));
+            }
+        }
+        System.out.println(ranges.length + " ranges checked, " + mismatches + " differ");
+
+        double sqlMicros = time(config, () -> {
+            for (LocalDate[] range : ranges) {
+                billDAO.getSalesTotalBetween(range[0], range[1]);
+                sqlCount(range[0], range[1]);
+            }
+        }) / ranges.length;
+        double cubeMicros = time(config, () -> {
+            for (LocalDate[] range : ranges) {
+                cube.getSalesTotal(range[0], range[1]);
+                cube.getSalesCount(range[0], range[1]);
+            }
+        }) / ranges.length;
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("bills", billDAO.count())
+                .add("rebuildMillis", rebuildMillis)
+                .add("rangesChecked", ranges.length)
+                .add("mismatches", mismatches)
+                .add("sqlMicrosPerRange", sqlMicros)
+                .add("cubeMicrosPerRange", cubeMicros)
+                .add("speedup", cubeMicros > 0 ? sqlMicros / cubeMicros : 0)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Helper methods
+
+    /**
+     * Ranges of random length within [first, last], both ends inclusive
+     */
+    private static LocalDate[][] randomRanges(LocalDate first, LocalDate last, int count, long seed) {
+        Random random = new Random(seed);
+        int days = (int) (last.toEpochDay() - first.toEpochDay()) + 1;
+        LocalDate[][] ranges = new LocalDate[count][];
+        for (int i = 0; i < count; i++) {
+            int from = random.nextInt(days);
+            int length = 1 + random.nextInt(days - from);
+            ranges[i] = new LocalDate[] {first.plusDays(from), first.plusDays(from + length - 1L)};
+        }
+        return ranges;
+    }
+
+    /**
+     * Median time of one run over all ranges, in microseconds
+     */
+    private static double time(Map<String, String> config, Runnable queries) {
+        for (int i = 0; i < Integer.parseInt(config.get("warmupRuns")); i++) {
+            queries.run();
+        }
+        long[] micros = new long[Integer.parseInt(config.get("runs"))];
+        for (int run = 0; run < micros.length; run++) {
+            long start = System.nanoTime();
+            queries.run();
+            micros[run] = (System.nanoTime() - start) / 1_000;
+        }
+        return median(micros);
+    }
+
+    private static long sqlCount(LocalDate from, LocalDate to) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SQL_COUNT)) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static double median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerSegmentationService.SegmentationResult;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.CustomerSegmentationServiceImpl;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Scaling benchmark of the RFM segmentation job. Seeds the embedded database, then
+ * runs the whole job repeatedly at each parallelism level and reports the median and
+ * best time of every phase, with the scoring speedup over one thread. Levels above
+ * the machine's core count are still run, but only show scheduling overhead.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.SegmentationBenchmark \
+ *     -Dexec.args="customers=100000 bills=1000000 levels=1,2,4,8,16"
+ */
+public class SegmentationBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("customers", "50000");   // seed data
+        DEFAULTS.put("items", "2000");
+        DEFAULTS.put("bills", "500000");
+        DEFAULTS.put("windowDays", "730");    // the generator spreads bills over two years
+        DEFAULTS.put("levels", "1,2,4,8,16"); // parallelism levels
+        DEFAULTS.put("warmupRuns", "2");      // runs at the highest level before measuring
+        DEFAULTS.put("runs", "5");            // measured runs per level
+        DEFAULTS.put("output", "target/segmentation-benchmark.json");
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> config = parse(args);
+
+        // must be set before DatabaseConnection is first used
+        System.setProperty("bookshop.db.profile", "embedded");
+        System.setProperty("bookshop.db.seed.customers", config.get("customers"));
+        System.setProperty("bookshop.db.seed.items", config.get("items"));
+        System.setProperty("bookshop.db.seed.bills", config.get("bills"));
+
+        CustomerSegmentationServiceImpl service = CustomerSegmentationServiceImpl.getInstance();
+        int windowDays = Integer.parseInt(config.get("windowDays"));
+        int[] levels = Arrays.stream(config.get("levels").split(",")).mapToInt(l -> Integer.parseInt(l.trim())).toArray();
+        int runs = Integer.parseInt(config.get("runs"));
+
+        long start = System.currentTimeMillis();
+        int highest = Arrays.stream(levels).max().orElse(1);
+        for (int i = 0; i < Integer.parseInt(config.get("warmupRuns")); i++) {
+            // the first run also creates and seeds the database
+            System.out.println("Warm-up: " + service.runSegmentation(windowDays, highest));
+        }
+        System.out.println("Warmed up in " + (System.currentTimeMillis() - start) + " ms");
+
+        JsonArrayBuilder levelsJson = Json.createArrayBuilder();
+        double baselineScore = 0;
+        SegmentationResult last = null;
+        for (int level : levels) {
+            long[] scan = new long[runs];
+            long[] score = new long[runs];
+            long[] write = new long[runs];
+            long[] total = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                last = service.runSegmentation(windowDays, level);
+                scan[run] = last.getScanMillis();
+                score[run] = last.getScoreMillis();
+                write[run] = last.getWriteMillis();
+                total[run] = last.getElapsedMillis();
+            }
+            double medianScore = median(score);
+            if (baselineScore == 0) {
+                baselineScore = medianScore;
+            }
+            System.out.println("parallelism=" + level + " score median=" + medianScore + " ms total median=" +
+                    median(total) + " ms");
+            levelsJson.add(Json.createObjectBuilder()
+                    .add("parallelism", level)
+                    .add("scanMillis", phaseJson(scan))
+                    .add("scoreMillis", phaseJson(score))
+                    .add("writeMillis", phaseJson(write))
+                    .add("totalMillis", phaseJson(total))
+                    .add("scoreSpeedup", medianScore > 0 ? baselineScore / medianScore : 1.0));
+        }
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("availableProcessors", Runtime.getRuntime().availableProcessors())
+                .add("bills", last != null ? last.getBills() : 0)
+                .add("customers", last != null ? last.getCustomers() : 0)
+                .add("levels", levelsJson)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+    }
+
+    // Helper methods
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static JsonObject phaseJson(long[] millis) {
+        return Json.createObjectBuilder()
+                .add("median", median(millis))
+                .add("best", Arrays.stream(millis).min().orElse(0))
+                .build();
+    }
+
+    private static double median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
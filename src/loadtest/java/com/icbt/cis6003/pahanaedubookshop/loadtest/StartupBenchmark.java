@@ -0,0 +1,367 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * First-request latency with each warm-up mode. Every run starts a new JVM, so class
+ * loading and JIT state do not carry over, seeds the embedded database, starts the
+ * application and waits until it reports itself ready. It then sends one cashier's
+ * requests in order and times each one the first time it is served, followed by
+ * more rounds of the same requests for the warm latency. The database is created
+ * before the application starts, as a MySQL server would already be running.
+ * Medians over the runs of each mode go to target/startup-benchmark.json, with the
+ * first-request latency of each mode against the baseline mode, "off" by default:
+ * the first cashier before and after the warm-up.
+ *
+ * mvn -Pload-test test-compile exec:java \
+ *     -Dexec.mainClass=com.icbt.cis6003.pahanaedubookshop.loadtest.StartupBenchmark \
+ *     -Dexec.args="modes=off,fast,full runs=5"
+ */
+public class StartupBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    private static final String PROBE_PREFIX = "STARTUP-PROBE ";
+    private static final String[] STEPS = {"lookupCustomer", "searchItems", "getItem", "createBill", "addLine",
+            "getBill", "receipt", "finalizeBill"};
+
+    static {
+        DEFAULTS.put("modes", "off,fast,full");  // values of -Dbookshop.warmup
+        DEFAULTS.put("runs", "3");               // JVMs started per mode
+        DEFAULTS.put("warmRounds", "50");        // rounds after the first, for the warm latency
+        DEFAULTS.put("customers", "10000");      // seed data
+        DEFAULTS.put("items", "2000");
+        DEFAULTS.put("bills", "20000");
+        DEFAULTS.put("baseline", "off");         // mode compared against, the first requests unwarmed
+        DEFAULTS.put("probe", "");               // set in the child JVM to the mode it runs
+        DEFAULTS.put("output", "target/startup-benchmark.json");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = parse(args);
+        if (!config.get("probe").isEmpty()) {
+            probe(config);
+            return;
+        }
+
+        int runs = Integer.parseInt(config.get("runs"));
+        JsonArrayBuilder modesJson = Json.createArrayBuilder();
+        Map<String, JsonObject> firstByMode = new LinkedHashMap<>();
+        for (String mode : config.get("modes").split(",")) {
+            List<JsonObject> results = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                JsonObject result = runProbe(config, mode.trim());
+                System.out.println("mode=" + mode + " run=" + run + " " + result);
+                results.add(result);
+            }
+            JsonObjectBuilder first = Json.createObjectBuilder();
+            JsonObjectBuilder warm = Json.createObjectBuilder();
+            for (String step : STEPS) {
+                first.add(step, median(results, "firstMillis", step));
+                warm.add(step, median(results, "warmMillis", step));
+            }
+            JsonObject firstJson = first.add("total", median(results, null, "firstTotalMillis")).build();
+            firstByMode.put(mode.trim(), firstJson);
+            modesJson.add(Json.createObjectBuilder()
+                    .add("mode", mode.trim())
+                    .add("readyMillis", median(results, null, "readyMillis"))
+                    .add("firstRequestTotalMillis", firstJson.getJsonNumber("total").doubleValue())
+                    .add("firstMillis", firstJson)
+                    .add("warmMillis", warm));
+        }
+
+        // the first cashier's requests before (baseline mode) and after each warm-up
+        JsonArrayBuilder comparisonJson = Json.createArrayBuilder();
+        JsonObject before = firstByMode.get(config.get("baseline"));
+        if (before != null) {
+            for (Map.Entry<String, JsonObject> after : firstByMode.entrySet()) {
+                if (after.getKey().equals(config.get("baseline"))) {
+                    continue;
+                }
+                JsonArrayBuilder stepsJson = Json.createArrayBuilder();
+                for (String step : before.keySet()) {
+                    double beforeMillis = before.getJsonNumber(step).doubleValue();
+                    double afterMillis = after.getValue().getJsonNumber(step).doubleValue();
+                    System.out.printf("first %-14s %s %8.1f ms -> %s %8.1f ms (%.1fx)%n", step,
+                            config.get("baseline"), beforeMillis, after.getKey(), afterMillis, beforeMillis / afterMillis);
+                    stepsJson.add(Json.createObjectBuilder()
+                            .add("step", step)
+                            .add("beforeMillis", beforeMillis)
+                            .add("afterMillis", afterMillis));
+                }
+                comparisonJson.add(Json.createObjectBuilder()
+                        .add("before", config.get("baseline"))
+                        .add("after", after.getKey())
+                        .add("steps", stepsJson));
+            }
+        }
+
+        JsonObjectBuilder configJson = Json.createObjectBuilder();
+        config.forEach(configJson::add);
+        JsonObject report = Json.createObjectBuilder()
+                .add("timestamp", Instant.now().toString())
+                .add("config", configJson)
+                .add("availableProcessors", Runtime.getRuntime().availableProcessors())
+                .add("modes", modesJson)
+                .add("firstRequestBeforeAfter", comparisonJson)
+                .build();
+        String json = prettyPrint(report);
+        writeReport(config.get("output"), json);
+        System.out.println(json);
+        System.out.println("Report written to " + new File(config.get("output")).getAbsolutePath());
+    }
+
+    /**
+     * Start a JVM that runs one probe and return what it measured
+     */
+    private static JsonObject runProbe(Map<String, String> config, String mode) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-Dbookshop.warmup=" + mode, "-cp", classPath(), StartupBenchmark.class.getName(),
+                "probe=" + mode));
+        for (String key : new String[] {"warmRounds", "customers", "items", "bills"}) {
+            command.add(key + "=" + config.get(key));
+        }
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        Deque<String> tail = new ArrayDeque<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(PROBE_PREFIX)) {
+                    result = line.substring(PROBE_PREFIX.length());
+                }
+                tail.addLast(line);
+                if (tail.size() > 20) {
+                    tail.removeFirst();
+                }
+            }
+        }
+        int exit = process.waitFor();
+        if (exit != 0 || result == null) {
+            throw new IllegalStateException("Probe for mode " + mode + " failed with exit status " + exit +
+                    ":" + System.lineSeparator() + String.join(System.lineSeparator(), tail));
+        }
+        try (JsonReader reader = Json.createReader(new StringReader(result))) {
+            return reader.readObject();
+        }
+    }
+
+    /**
+     * Child JVM: start the application in one warm-up mode and time the first requests
+     */
+    private static void probe(Map<String, String> config) throws Exception {
+        System.setProperty("bookshop.db.profile", "embedded");
+        System.setProperty("bookshop.db.seed.customers", config.get("customers"));
+        System.setProperty("bookshop.db.seed.items", config.get("items"));
+        System.setProperty("bookshop.db.seed.bills", config.get("bills"));
+        // cashiers arrive one at a time here, well inside any terminal's rate
+        System.setProperty("bookshop.ratelimit.enabled", "false");
+        // creates and seeds the embedded database
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+            // a sell-out would fail a round for reasons unrelated to startup
+            stmt.executeUpdate("UPDATE items SET stock = 1000000");
+        }
+
+        EmbeddedServer server = new EmbeddedServer(0);
+        long start = System.nanoTime();
+        String baseUrl = server.start();
+        try {
+            server.awaitReady(baseUrl, 300_000);
+            long ready = System.nanoTime();
+
+            Map<String, Double> first = cashier(baseUrl, 0);
+            int warmRounds = Integer.parseInt(config.get("warmRounds"));
+            Map<String, List<Double>> warm = new LinkedHashMap<>();
+            for (int round = 1; round <= warmRounds; round++) {
+                cashier(baseUrl, round).forEach((step, millis) ->
+                        warm.computeIfAbsent(step, s -> new ArrayList<>()).add(millis));
+            }
+
+            JsonObjectBuilder firstJson = Json.createObjectBuilder();
+            first.forEach(firstJson::add);
+            JsonObjectBuilder warmJson = Json.createObjectBuilder();
+            warm.forEach((step, values) -> warmJson.add(step, median(values)));
+            JsonObject result = Json.createObjectBuilder()
+                    .add("readyMillis", (ready - start) / 1e6)
+                    .add("firstTotalMillis", first.values().stream().mapToDouble(Double::doubleValue).sum())
+                    .add("firstMillis", firstJson)
+                    .add("warmMillis", warmJson)
+                    .build();
+            System.out.println(PROBE_PREFIX + result);
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Serve one customer and time every step
+     */
+    private static Map<String, Double> cashier(String baseUrl, int round) {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        long customerId = 1 + round % 100;
+        long itemId = 1 + round % 100;
+        timed(millis, "lookupCustomer", baseUrl, "GET", "/api/customers?search=per", null);
+        timed(millis, "searchItems", baseUrl, "GET", "/api/items?search=math", null);
+        // the item detail endpoint only knows item 1 so far
+        timed(millis, "getItem", baseUrl, "GET", "/api/items/1", null);
+        String created = timed(millis, "createBill", baseUrl, "POST", "/api/bills/",
+                "{\"customerId\":" + customerId + "}");
+        long billId;
+        try (JsonReader reader = Json.createReader(new StringReader(created))) {
+            billId = reader.readObject().getJsonObject("data").getJsonNumber("id").longValue();
+        }
+        timed(millis, "addLine", baseUrl, "POST", "/api/bills/" + billId + "/items",
+                "{\"itemId\":" + itemId + ",\"quantity\":1}");
+        timed(millis, "getBill", baseUrl, "GET", "/api/bills/" + billId, null);
+        timed(millis, "receipt", baseUrl, "GET", "/api/bills/" + billId + "/receipt?format=text", null);
+        timed(millis, "finalizeBill", baseUrl, "POST", "/api/bills/" + billId + "/finalize", null);
+        return millis;
+    }
+
+    private static String timed(Map<String, Double> millis, String step, String baseUrl, String method,
+                                String path, String jsonBody) {
+        long start = System.nanoTime();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            connection.setRequestProperty("Accept", "application/json");
+            if (jsonBody != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(jsonBody.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            String body = in != null ? readFully(in) : "";
+            millis.put(step, (System.nanoTime() - start) / 1e6);
+            if (status >= 400) {
+                throw new IllegalStateException(step + " answered " + status + ": " + body);
+            }
+            return body;
+        } catch (IOException e) {
+            throw new IllegalStateException(step + " failed: " + e, e);
+        }
+    }
+
+    // Helper methods
+
+    /**
+     * Class path of this class loader; under exec:java it is not the JVM's own
+     */
+    private static String classPath() {
+        ClassLoader loader = StartupBenchmark.class.getClassLoader();
+        if (loader instanceof URLClassLoader) {
+            return Arrays.stream(((URLClassLoader) loader).getURLs())
+                    .map(url -> {
+                        try {
+                            return new File(url.toURI()).getPath();
+                        } catch (Exception e) {
+                            throw new IllegalStateException("Unsupported class path entry " + url, e);
+                        }
+                    })
+                    .collect(Collectors.joining(File.pathSeparator));
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    private static double median(List<JsonObject> results, String group, String key) {
+        List<Double> values = new ArrayList<>();
+        for (JsonObject result : results) {
+            JsonObject source = group != null ? result.getJsonObject(group) : result;
+            values.add(source.getJsonNumber(key).doubleValue());
+        }
+        return median(values);
+    }
+
+    private static double median(List<Double> values) {
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(pair[0], pair[1].trim());
+        }
+        return values;
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String prettyPrint(JsonObject json) {
+        JsonWriterFactory factory = Json.createWriterFactory(
+                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = factory.createWriter(out)) {
+            writer.writeObject(json);
+        }
+        return out.toString().trim();
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+            writer.write(System.lineSeparator());
+        }
+    }
+}
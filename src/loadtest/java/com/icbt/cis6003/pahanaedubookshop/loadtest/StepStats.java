@@ -0,0 +1,112 @@
+package com.icbt.cis6003.pahanaedubookshop.loadtest;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.util.Arrays;
+
+/**
+ * Latencies and outcomes of one session step, recorded by a single cashier thread
+ * and merged when the run is over, so recording needs no synchronization.
+ */
+public class StepStats {
+
+    private final String step;
+    private long[] latencies = new long[1024];
+    private int count;
+    private long clientErrors;
+    private long serverErrors;
+    private long failures;
+
+    public StepStats(String step) {
+        this.step = step;
+    }
+
+    public String getStep() {
+        return step;
+    }
+
+    /**
+     * Record one request
+     * @param nanos latency in nanoseconds
+     * @param status HTTP status, or -1 if the request did not get a response
+     */
+    public void record(long nanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        if (status < 0) {
+            failures++;
+        } else if (status >= 500) {
+            serverErrors++;
+        } else if (status >= 400) {
+            clientErrors++;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrorCount() {
+        return clientErrors + serverErrors + failures;
+    }
+
+    /**
+     * Add another thread's samples for the same step
+     */
+    public void merge(StepStats other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        clientErrors += other.clientErrors;
+        serverErrors += other.serverErrors;
+        failures += other.failures;
+    }
+
+    public JsonObject toJson(double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long latency : sorted) {
+            total += latency;
+        }
+        return Json.createObjectBuilder()
+                .add("count", count)
+                .add("perSecond", round(count / elapsedSeconds))
+                .add("errors", getErrorCount())
+                .add("clientErrors", clientErrors)
+                .add("serverErrors", serverErrors)
+                .add("failures", failures)
+                .add("errorRate", count > 0 ? round((double) getErrorCount() / count) : 0.0)
+                .add("latencyMillis", Json.createObjectBuilder()
+                        .add("mean", count > 0 ? millis(total / count) : 0.0)
+                        .add("p50", percentile(sorted, 0.50))
+                        .add("p90", percentile(sorted, 0.90))
+                        .add("p95", percentile(sorted, 0.95))
+                        .add("p99", percentile(sorted, 0.99))
+                        .add("p999", percentile(sorted, 0.999))
+                        .add("max", count > 0 ? millis(sorted[count - 1]) : 0.0))
+                .build();
+    }
+
+    // Helper methods
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return millis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,117 @@
+package com.icbt.cis6003.pahanaedubookshop.archive;
+
+import com.icbt.cis6003.pahanaedubookshop.model.ArchivedPeriod;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local columnar copies of archived months, one period file per month in a folder
+ * per database, so report scans over closed months skip JDBC entirely. The database
+ * stays the source of truth: a file is only used while its bill and line counts and
+ * archive time match the month's row in bill_archive_periods, so a file left over
+ * from another database or an earlier archival is ignored.
+ */
+public class ColumnarBillArchive {
+
+    public static final String DIRECTORY_PROPERTY = "pahana.archive.dir";
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'bill-lines-'yyyyMM'.col'");
+
+    private static volatile ColumnarBillArchive instance;
+
+    private final DatabaseConfig config;
+    private final Path directory;
+    private final Map<LocalDate, ColumnarPeriod> mapped = new ConcurrentHashMap<>();
+
+    public ColumnarBillArchive(DatabaseConfig config, Path directory) {
+        this.config = config;
+        this.directory = directory;
+    }
+
+    /**
+     * Get the archive of the active database, in a folder under the directory given by
+     * the {@value #DIRECTORY_PROPERTY} system property, defaulting to java.io.tmpdir
+     */
+    public static ColumnarBillArchive getInstance() {
+        DatabaseConfig config = DatabaseConnection.getConfig();
+        ColumnarBillArchive current = instance;
+        if (current == null || current.config != config) {
+            synchronized (ColumnarBillArchive.class) {
+                current = instance;
+                if (current == null || current.config != config) {
+                    String root = System.getProperty(DIRECTORY_PROPERTY,
+                            Paths.get(System.getProperty("java.io.tmpdir"), "pahana-bill-archive").toString());
+                    current = new ColumnarBillArchive(config,
+                            Paths.get(root, config.getUrl().replaceAll("[^A-Za-z0-9]+", "_")));
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Write the period file of an archived month, replacing any earlier one
+     * @param period the month as recorded in bill_archive_periods
+     * @param writer the month's bills and lines
+     */
+    public void write(ArchivedPeriod period, ColumnarPeriodWriter writer) throws IOException {
+        Files.createDirectories(directory);
+        writer.writeTo(fileOf(period.getPeriodStart()), archivedAtMillis(period));
+        mapped.remove(period.getPeriodStart());
+    }
+
+    /**
+     * Open the period file of an archived month
+     * @param period the month as recorded in bill_archive_periods
+     * @return Optional containing the mapped file if there is one and it matches the month
+     */
+    public Optional<ColumnarPeriod> open(ArchivedPeriod period) {
+        ColumnarPeriod file = mapped.get(period.getPeriodStart());
+        if (file == null) {
+            Path path = fileOf(period.getPeriodStart());
+            if (!Files.isRegularFile(path)) {
+                return Optional.empty();
+            }
+            try {
+                file = ColumnarPeriod.open(path);
+            } catch (IOException e) {
+                System.err.println("Unreadable columnar period file " + path + ": " + e.getMessage());
+                return Optional.empty();
+            }
+            mapped.put(period.getPeriodStart(), file);
+        }
+        return matches(file, period) ? Optional.of(file) : Optional.empty();
+    }
+
+    // Helper methods
+
+    private Path fileOf(LocalDate periodStart) {
+        return directory.resolve(periodStart.format(FILE_NAME));
+    }
+
+    private static boolean matches(ColumnarPeriod file, ArchivedPeriod period) {
+        return file.getPeriodStart().equals(period.getPeriodStart())
+                && file.getBillCount() == period.getBillCount()
+                && file.getLineCount() == period.getItemCount()
+                && file.getArchivedAtMillis() == archivedAtMillis(period);
+    }
+
+    private static long archivedAtMillis(ArchivedPeriod period) {
+        return period.getArchivedAt() != null ? Timestamp.valueOf(period.getArchivedAt()).getTime() : 0;
+    }
+}
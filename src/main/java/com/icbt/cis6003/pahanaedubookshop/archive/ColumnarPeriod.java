@@ -0,0 +1,192 @@
+package com.icbt.cis6003.pahanaedubookshop.archive;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Read-only view of a columnar period file written by ColumnarPeriodWriter, mapped
+ * into memory once. Scans run straight off the mapped column buffers, with no row
+ * objects: rows are stored in bill date order, so a date range is found by binary
+ * search on the day column and only the rows inside it are read. Safe for concurrent
+ * scans, since every scan reads through absolute indexes.
+ */
+public class ColumnarPeriod {
+
+    private static final byte FINALIZED = ColumnarPeriodWriter.statusCode(BillStatus.FINALIZED);
+    private static final byte PAID = ColumnarPeriodWriter.statusCode(BillStatus.PAID);
+
+    private final LocalDate periodStart;
+    private final int baseEpochDay;
+    private final int bills;
+    private final int lines;
+    private final long archivedAtMillis;
+
+    private final LongBuffer billTotals;
+    private final LongBuffer lineTotals;
+    private final LongBuffer itemIds;
+    private final IntBuffer lineBills;
+    private final IntBuffer lineItems;
+    private final IntBuffer lineQuantities;
+    private final ByteBuffer billDays;
+    private final ByteBuffer billStatuses;
+    private final ByteBuffer lineDays;
+    private final String[] itemCodes;
+
+    private ColumnarPeriod(MappedByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != ColumnarPeriodWriter.MAGIC || buffer.getInt(4) != ColumnarPeriodWriter.VERSION) {
+            throw new IOException("Not a columnar period file of version " + ColumnarPeriodWriter.VERSION);
+        }
+        baseEpochDay = buffer.getInt(8);
+        periodStart = LocalDate.ofEpochDay(baseEpochDay);
+        bills = buffer.getInt(12);
+        lines = buffer.getInt(16);
+        int dictionary = buffer.getInt(20);
+        archivedAtMillis = buffer.getLong(32);
+
+        int offset = ColumnarPeriodWriter.HEADER_SIZE;
+        billTotals = slice(buffer, offset, bills * 8).asLongBuffer();
+        offset += bills * 8 + lines * 8; // unit prices are not scanned
+        lineTotals = slice(buffer, offset, lines * 8).asLongBuffer();
+        offset += lines * 8;
+        itemIds = slice(buffer, offset, dictionary * 8).asLongBuffer();
+        offset += dictionary * 8;
+        offset += bills * 4; // bill IDs are not scanned
+        lineBills = slice(buffer, offset, lines * 4).asIntBuffer();
+        offset += lines * 4;
+        lineItems = slice(buffer, offset, lines * 4).asIntBuffer();
+        offset += lines * 4;
+        lineQuantities = slice(buffer, offset, lines * 4).asIntBuffer();
+        offset += lines * 4;
+        billDays = slice(buffer, offset, bills);
+        offset += bills;
+        billStatuses = slice(buffer, offset, bills);
+        offset += bills;
+        lineDays = slice(buffer, offset, lines);
+        offset += lines;
+
+        // the dictionary is small, so its codes are decoded once
+        itemCodes = new String[dictionary];
+        for (int i = 0; i < dictionary; i++) {
+            int length = buffer.getShort(offset) & 0xFFFF;
+            byte[] code = new byte[length];
+            for (int b = 0; b < length; b++) {
+                code[b] = buffer.get(offset + 2 + b);
+            }
+            itemCodes[i] = new String(code, StandardCharsets.UTF_8);
+            offset += 2 + length;
+        }
+    }
+
+    /**
+     * Map a period file
+     * @throws IOException if the file cannot be read or is not a period file
+     */
+    public static ColumnarPeriod open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new ColumnarPeriod(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public LocalDate getPeriodStart() { return periodStart; }
+    public int getBillCount() { return bills; }
+    public int getLineCount() { return lines; }
+    public int getDictionarySize() { return itemCodes.length; }
+    public long getArchivedAtMillis() { return archivedAtMillis; }
+
+    /**
+     * Add the bills dated in a range to running totals
+     * @param from first day included
+     * @param to first day excluded
+     */
+    public void sumSales(LocalDate from, LocalDate to, SalesTotals totals) {
+        int end = lowerBound(billDays, bills, to);
+        for (int bill = lowerBound(billDays, bills, from); bill < end; bill++) {
+            byte status = billStatuses.get(bill);
+            totals.bills++;
+            if (status == FINALIZED || status == PAID) {
+                totals.salesBills++;
+                totals.salesCents += billTotals.get(bill);
+            }
+        }
+    }
+
+    /**
+     * Add the quantity and amount sold of every item on the sales bills dated in a
+     * range to a map keyed by item ID. Lines are first summed per dictionary entry
+     * into flat arrays, so the map is touched once per item rather than once per line.
+     * @param from first day included
+     * @param to first day excluded
+     */
+    public void sumByItem(LocalDate from, LocalDate to, Map<Long, ItemTotals> totals) {
+        long[] quantities = new long[itemCodes.length];
+        long[] amounts = new long[itemCodes.length];
+        boolean[] sold = new boolean[itemCodes.length];
+        int end = lowerBound(lineDays, lines, to);
+        for (int line = lowerBound(lineDays, lines, from); line < end; line++) {
+            byte status = billStatuses.get(lineBills.get(line));
+            if (status == FINALIZED || status == PAID) {
+                int item = lineItems.get(line);
+                quantities[item] += lineQuantities.get(line);
+                amounts[item] += lineTotals.get(line);
+                sold[item] = true;
+            }
+        }
+        for (int item = 0; item < itemCodes.length; item++) {
+            if (sold[item]) {
+                long itemId = itemIds.get(item);
+                ItemTotals itemTotals = totals.get(itemId);
+                if (itemTotals == null) {
+                    itemTotals = new ItemTotals(itemId, itemCodes[item]);
+                    totals.put(itemId, itemTotals);
+                }
+                itemTotals.add(quantities[item], amounts[item]);
+            }
+        }
+    }
+
+    // Helper methods
+
+    /**
+     * First row whose day is on or after a date, in a day column sorted ascending
+     */
+    private int lowerBound(ByteBuffer days, int rows, LocalDate date) {
+        long day = date.toEpochDay() - baseEpochDay;
+        if (day <= 0) {
+            return 0;
+        }
+        if (day > 31) {
+            return rows;
+        }
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days.get(mid) < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).limit(offset + length);
+        ((Buffer) view).position(offset);
+        return view.slice();
+    }
+}
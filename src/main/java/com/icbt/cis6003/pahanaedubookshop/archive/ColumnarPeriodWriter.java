@@ -0,0 +1,209 @@
+package com.icbt.cis6003.pahanaedubookshop.archive;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the bills and lines of one archived month and writes them as a columnar
+ * period file. Bills must be added in bill date order, each followed by its lines.
+ *
+ * File layout, big-endian: a 64-byte header of
+ * magic(4) version(4) baseEpochDay(4) bills(4) lines(4) dictionary(4) baseBillId(8) archivedAt(8),
+ * then one section per column, widest first so every section stays aligned:
+ * bill total cents(8), line unit price cents(8), line total cents(8), dictionary item IDs(8),
+ * bill ID minus baseBillId(4), line bill index(4), line dictionary index(4), line quantity(4),
+ * bill day(1), bill status(1), line day(1), and last the dictionary item codes as
+ * length(2) + UTF-8 bytes. Days are stored as the offset from the first day of the month.
+ */
+public class ColumnarPeriodWriter {
+
+    static final int MAGIC = 0x50424C43; // "PBLC"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    // status codes as stored in the file; never reorder
+    static final BillStatus[] STATUS_CODES = {
+            BillStatus.DRAFT, BillStatus.FINALIZED, BillStatus.PAID, BillStatus.CANCELLED
+    };
+
+    private final LocalDate periodStart;
+    private final int baseEpochDay;
+
+    private int bills;
+    private long[] billIds = new long[1024];
+    private byte[] billDays = new byte[1024];
+    private byte[] billStatuses = new byte[1024];
+    private long[] billTotals = new long[1024];
+
+    private int lines;
+    private int[] lineBills = new int[4096];
+    private byte[] lineDays = new byte[4096];
+    private int[] lineItems = new int[4096];
+    private int[] lineQuantities = new int[4096];
+    private long[] lineUnitPrices = new long[4096];
+    private long[] lineTotals = new long[4096];
+
+    private final Map<Long, Integer> dictionaryIndex = new HashMap<>();
+    private final List<Long> dictionaryItemIds = new ArrayList<>();
+    private final List<String> dictionaryCodes = new ArrayList<>();
+
+    public ColumnarPeriodWriter(LocalDate periodStart) {
+        this.periodStart = periodStart.withDayOfMonth(1);
+        this.baseEpochDay = (int) this.periodStart.toEpochDay();
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public int getBillCount() {
+        return bills;
+    }
+
+    public int getLineCount() {
+        return lines;
+    }
+
+    /**
+     * Add a bill; lines added after it belong to it
+     */
+    public void addBill(long billId, int epochDay, BillStatus status, long totalCents) {
+        int day = epochDay - baseEpochDay;
+        if (day < 0 || day > 30) {
+            throw new IllegalArgumentException("Bill " + billId + " is not dated in " + periodStart);
+        }
+        if (bills > 0 && day < billDays[bills - 1]) {
+            throw new IllegalArgumentException("Bills must be added in date order");
+        }
+        if (bills == billIds.length) {
+            int capacity = bills * 2;
+            billIds = Arrays.copyOf(billIds, capacity);
+            billDays = Arrays.copyOf(billDays, capacity);
+            billStatuses = Arrays.copyOf(billStatuses, capacity);
+            billTotals = Arrays.copyOf(billTotals, capacity);
+        }
+        billIds[bills] = billId;
+        billDays[bills] = (byte) day;
+        billStatuses[bills] = statusCode(status);
+        billTotals[bills] = totalCents;
+        bills++;
+    }
+
+    /**
+     * Add a line to the last bill added
+     */
+    public void addLine(long itemId, String itemCode, int quantity, long unitPriceCents, long totalCents) {
+        if (bills == 0) {
+            throw new IllegalStateException("A line needs a bill");
+        }
+        if (lines == lineBills.length) {
+            int capacity = lines * 2;
+            lineBills = Arrays.copyOf(lineBills, capacity);
+            lineDays = Arrays.copyOf(lineDays, capacity);
+            lineItems = Arrays.copyOf(lineItems, capacity);
+            lineQuantities = Arrays.copyOf(lineQuantities, capacity);
+            lineUnitPrices = Arrays.copyOf(lineUnitPrices, capacity);
+            lineTotals = Arrays.copyOf(lineTotals, capacity);
+        }
+        Integer index = dictionaryIndex.get(itemId);
+        if (index == null) {
+            index = dictionaryItemIds.size();
+            dictionaryIndex.put(itemId, index);
+            dictionaryItemIds.add(itemId);
+            dictionaryCodes.add(itemCode != null ? itemCode : "");
+        }
+        lineBills[lines] = bills - 1;
+        lineDays[lines] = billDays[bills - 1];
+        lineItems[lines] = index;
+        lineQuantities[lines] = quantity;
+        lineUnitPrices[lines] = unitPriceCents;
+        lineTotals[lines] = totalCents;
+        lines++;
+    }
+
+    /**
+     * Write the period file. It is written next to the target and moved into place,
+     * so a reader never maps a half-written file.
+     * @param file the period file
+     * @param archivedAtMillis when the month was archived, to tell a stale file from a current one
+     */
+    public void writeTo(Path file, long archivedAtMillis) throws IOException {
+        long baseBillId = bills > 0 ? Arrays.stream(billIds, 0, bills).min().getAsLong() : 0;
+        int dictionary = dictionaryItemIds.size();
+        byte[][] codes = new byte[dictionary][];
+        long codeBytes = 0;
+        for (int i = 0; i < dictionary; i++) {
+            codes[i] = dictionaryCodes.get(i).getBytes(StandardCharsets.UTF_8);
+            codeBytes += 2 + codes[i].length;
+        }
+        long size = HEADER_SIZE + 8L * (bills + 2L * lines + dictionary) + 4L * (bills + 3L * lines)
+                + 2L * bills + lines + codeBytes;
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(baseEpochDay).putInt(bills).putInt(lines)
+                  .putInt(dictionary).putLong(baseBillId).putLong(archivedAtMillis);
+            ((Buffer) buffer).position(HEADER_SIZE);
+
+            putLongs(buffer, billTotals, bills);
+            putLongs(buffer, lineUnitPrices, lines);
+            putLongs(buffer, lineTotals, lines);
+            for (Long itemId : dictionaryItemIds) {
+                buffer.putLong(itemId);
+            }
+            for (int i = 0; i < bills; i++) {
+                buffer.putInt((int) (billIds[i] - baseBillId));
+            }
+            putInts(buffer, lineBills, lines);
+            putInts(buffer, lineItems, lines);
+            putInts(buffer, lineQuantities, lines);
+            buffer.put(billDays, 0, bills);
+            buffer.put(billStatuses, 0, bills);
+            buffer.put(lineDays, 0, lines);
+            for (byte[] code : codes) {
+                buffer.putShort((short) code.length).put(code);
+            }
+            buffer.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Helper methods
+
+    static byte statusCode(BillStatus status) {
+        for (byte code = 0; code < STATUS_CODES.length; code++) {
+            if (STATUS_CODES[code] == status) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("Unknown bill status: " + status);
+    }
+
+    private static void putLongs(ByteBuffer buffer, long[] values, int count) {
+        buffer.asLongBuffer().put(values, 0, count);
+        ((Buffer) buffer).position(buffer.position() + count * 8);
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values, int count) {
+        buffer.asIntBuffer().put(values, 0, count);
+        ((Buffer) buffer).position(buffer.position() + count * 4);
+    }
+}
@@ -0,0 +1,63 @@
+package com.icbt.cis6003.pahanaedubookshop.archive;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Quantity and amount sold of one item over a columnar scan
+ */
+public class ItemTotals {
+
+    // highest amount first, then highest quantity, then lowest item ID
+    private static final Comparator<ItemTotals> BY_AMOUNT = Comparator.comparingLong(ItemTotals::getAmountCents)
+            .thenComparingLong(ItemTotals::getQuantity)
+            .thenComparing(Comparator.comparingLong(ItemTotals::getItemId).reversed())
+            .reversed();
+
+    private final long itemId;
+    private final String itemCode;
+    private long quantity;
+    private long amountCents;
+
+    public ItemTotals(long itemId, String itemCode) {
+        this.itemId = itemId;
+        this.itemCode = itemCode;
+    }
+
+    void add(long quantity, long amountCents) {
+        this.quantity += quantity;
+        this.amountCents += amountCents;
+    }
+
+    public long getItemId() { return itemId; }
+    public String getItemCode() { return itemCode; }
+    public long getQuantity() { return quantity; }
+    public long getAmountCents() { return amountCents; }
+    public BigDecimal getAmount() { return BigDecimal.valueOf(amountCents, 2); }
+
+    /**
+     * Select the items with the highest amounts, keeping only a heap of the
+     * current top ones instead of sorting them all
+     * @return at most limit items, highest amount first
+     */
+    public static List<ItemTotals> top(Collection<ItemTotals> totals, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        // the heap head is the weakest of the current top items
+        PriorityQueue<ItemTotals> heap = new PriorityQueue<>(limit + 1, BY_AMOUNT.reversed());
+        for (ItemTotals item : totals) {
+            heap.offer(item);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<ItemTotals> top = new ArrayList<>(heap);
+        top.sort(BY_AMOUNT);
+        return top;
+    }
+}
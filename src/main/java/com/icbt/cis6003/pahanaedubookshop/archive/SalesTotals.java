@@ -0,0 +1,17 @@
+package com.icbt.cis6003.pahanaedubookshop.archive;
+
+import java.math.BigDecimal;
+
+/**
+ * Running bill totals of a columnar scan
+ */
+public class SalesTotals {
+
+    long bills;
+    long salesBills;
+    long salesCents;
+
+    public long getBills() { return bills; }
+    public long getSalesBills() { return salesBills; }
+    public BigDecimal getSalesTotal() { return BigDecimal.valueOf(salesCents, 2); }
+}
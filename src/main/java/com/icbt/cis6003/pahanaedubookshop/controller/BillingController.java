@@ -1,6 +1,30 @@
 package com.icbt.cis6003.pahanaedubookshop.controller;
 
+import com.icbt.cis6003.pahanaedubookshop.archive.ItemTotals;
+import com.icbt.cis6003.pahanaedubookshop.dao.OptimisticLockException;
+import com.icbt.cis6003.pahanaedubookshop.model.ArchivedPeriod;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService.ArchiveResult;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService.ArchivedSales;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.BillItemChange;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.OfflineBill;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.SalesStatistics;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.SyncOutcome;
+import com.icbt.cis6003.pahanaedubookshop.service.ReceiptService;
+import com.icbt.cis6003.pahanaedubookshop.service.ReceiptService.ReceiptFormat;
+import com.icbt.cis6003.pahanaedubookshop.service.SalesCubeService;
+import com.icbt.cis6003.pahanaedubookshop.service.SalesCubeService.Granularity;
+import com.icbt.cis6003.pahanaedubookshop.service.SalesCubeService.SalesBucket;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillArchiveServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillingServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.ReceiptServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.SalesCubeServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.JsonBodyBinder;
 import com.icbt.cis6003.pahanaedubookshop.util.JsonUtil;
+import com.icbt.cis6003.pahanaedubookshop.util.Router;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -10,59 +34,157 @@ import javax.servlet.http.HttpServletResponse;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
-@WebServlet(name = "BillingController", urlPatterns = {"/api/bills/*"})
+@WebServlet(name = "BillingController", urlPatterns = {"/api/bills/*"}, loadOnStartup = 1)
 public class BillingController extends HttpServlet {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private BillingService billingService;
+    private SalesCubeService salesCubeService;
+    private BillArchiveService billArchiveService;
+    private ReceiptService receiptService;
+    private Router router;
+
     @Override
     public void init() throws ServletException {
         super.init();
+        billingService = BillingServiceImpl.getInstance();
+        salesCubeService = SalesCubeServiceImpl.getInstance();
+        billArchiveService = BillArchiveServiceImpl.getInstance();
+        // compiles the receipt templates
+        receiptService = ReceiptServiceImpl.getInstance();
+        router = createRouter();
         System.out.println("BillingController initialized");
     }
 
+    private Router createRouter() {
+        return new Router()
+                .get("/", (request, response, path) -> {
+                    // Get all bills or filter by customer/date
+                    String customerId = request.getParameter("customerId");
+                    String date = request.getParameter("date");
+
+                    if (customerId != null) {
+                        handleGetBillsByCustomer(request, response, Long.parseLong(customerId));
+                    } else if (date != null) {
+                        handleGetBillsByDate(request, response, LocalDate.parse(date));
+                    } else {
+                        int page = Integer.parseInt(request.getParameter("page") != null ?
+                                  request.getParameter("page") : "0");
+                        int size = Integer.parseInt(request.getParameter("size") != null ?
+                                  request.getParameter("size") : String.valueOf(DEFAULT_PAGE_SIZE));
+                        handleGetAllBills(request, response, page, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+                    }
+                })
+                .get("/{id}", (request, response, path) ->
+                        handleGetBillById(request, response, path.getLong(0)))
+                .get("/{id}/receipt", (request, response, path) ->
+                        // format: text (80mm thermal printer) or html
+                        handleGetReceipt(request, response, path.getLong(0),
+                                       ReceiptFormat.fromParameter(request.getParameter("format"))))
+                .get("/recent", (request, response, path) -> {
+                    int limit = Integer.parseInt(request.getParameter("limit") != null ?
+                               request.getParameter("limit") : "10");
+                    handleGetRecentBills(request, response, limit);
+                })
+                .get("/today", (request, response, path) -> handleGetTodaysBills(request, response))
+                .get("/statistics", (request, response, path) -> handleGetSalesStatistics(request, response))
+                .get("/sales-total", (request, response, path) ->
+                        // period: today, month, year
+                        handleGetSalesTotal(request, response, request.getParameter("period")))
+                .get("/sales-summary", (request, response, path) -> {
+                    // Get sales totals per day, month or year for a date range
+                    LocalDate endDate = request.getParameter("end") != null ?
+                                       LocalDate.parse(request.getParameter("end")) : LocalDate.now();
+                    LocalDate startDate = request.getParameter("start") != null ?
+                                         LocalDate.parse(request.getParameter("start")) : endDate.withDayOfMonth(1);
+                    handleGetSalesSummary(request, response, startDate, endDate,
+                                        Granularity.fromParameter(request.getParameter("granularity")));
+                })
+                .get("/archive", (request, response, path) -> handleGetArchivedPeriods(request, response))
+                .get("/archive/sales", (request, response, path) -> {
+                    // Sales of archived months, scanned from their columnar files
+                    LocalDate endDate = request.getParameter("end") != null ?
+                                       LocalDate.parse(request.getParameter("end")) : LocalDate.now();
+                    LocalDate startDate = request.getParameter("start") != null ?
+                                         LocalDate.parse(request.getParameter("start")) :
+                                         endDate.minusYears(1).withDayOfMonth(1);
+                    int top = Integer.parseInt(request.getParameter("top") != null ?
+                             request.getParameter("top") : "10");
+                    handleGetArchivedSales(request, response, startDate, endDate, top);
+                })
+                .post("/", (request, response, path) -> {
+                    // Create new bill, optionally with its first lines in a JSON body
+                    if (JsonBodyBinder.isJsonRequest(request)) {
+                        Bill bill = JsonBodyBinder.readBill(request.getInputStream());
+                        handleCreateBill(request, response, bill.getCustomerId(), bill.getItems());
+                        return;
+                    }
+                    String customerIdStr = request.getParameter("customerId");
+                    if (customerIdStr != null) {
+                        handleCreateBill(request, response, Long.parseLong(customerIdStr),
+                                       Collections.emptyList());
+                    } else {
+                        sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                                        "Customer ID required");
+                    }
+                })
+                .post("/archive", (request, response, path) -> {
+                    // Archive closed months older than the hot window
+                    int hotMonths = Integer.parseInt(request.getParameter("hotMonths") != null ?
+                                   request.getParameter("hotMonths") : "12");
+                    handleArchiveBills(request, response, hotMonths);
+                })
+                .post("/archive/export", (request, response, path) -> handleExportArchive(request, response))
+                .post("/sync", (request, response, path) -> handleSyncBills(request, response))
+                .post("/{id}/items", (request, response, path) -> {
+                    BillItem line = readBillLine(request);
+                    handleAddItemToBill(request, response, path.getLong(0), line.getItemId(), line.getQuantity());
+                })
+                .post("/{id}/finalize", (request, response, path) ->
+                        handleFinalizeBill(request, response, path.getLong(0)))
+                .put("/{id}/items/{itemId}", (request, response, path) ->
+                        handleUpdateItemQuantity(request, response, path.getLong(0), path.getLong(1),
+                                               readBillLine(request).getQuantity()))
+                .patch("/{id}/items", (request, response, path) ->
+                        handlePatchBillItems(request, response, path.getLong(0)))
+                .delete("/{id}", (request, response, path) ->
+                        handleCancelBill(request, response, path.getLong(0)))
+                .delete("/{id}/items/{itemId}", (request, response, path) ->
+                        handleRemoveItemFromBill(request, response, path.getLong(0), path.getLong(1)));
+    }
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        // HttpServlet has no PATCH dispatch of its own
+        if ("PATCH".equals(request.getMethod())) {
+            doPatch(request, response);
+        } else {
+            super.service(request, response);
+        }
+    }
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        if (pathInfo == null || pathInfo.equals("/")) {
-            // Get all bills or filter by customer/date
-            String customerId = request.getParameter("customerId");
-            String date = request.getParameter("date");
-
-            if (customerId != null) {
-                handleGetBillsByCustomer(request, response, Long.parseLong(customerId));
-            } else if (date != null) {
-                handleGetBillsByDate(request, response, LocalDate.parse(date));
-            } else {
-                handleGetAllBills(request, response);
-            }
-        } else if (pathInfo.matches("/\\d+")) {
-            // Get bill by ID
-            Long billId = Long.parseLong(pathInfo.substring(1));
-            handleGetBillById(request, response, billId);
-        } else if (pathInfo.equals("/recent")) {
-            // Get recent bills
-            int limit = Integer.parseInt(request.getParameter("limit") != null ?
-                       request.getParameter("limit") : "10");
-            handleGetRecentBills(request, response, limit);
-        } else if (pathInfo.equals("/today")) {
-            // Get today's bills
-            handleGetTodaysBills(request, response);
-        } else if (pathInfo.equals("/statistics")) {
-            // Get sales statistics
-            handleGetSalesStatistics(request, response);
-        } else if (pathInfo.equals("/sales-total")) {
-            // Get sales totals
-            String period = request.getParameter("period"); // today, month, year
-            handleGetSalesTotal(request, response, period);
-        } else {
+        if (!router.dispatch("GET", request.getPathInfo(), request, response)) {
             sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found");
         }
     }
@@ -71,35 +193,16 @@ public class BillingController extends HttpServlet {
     protected void doPost(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
         try {
-            if (pathInfo == null || pathInfo.equals("/")) {
-                // Create new bill
-                String customerIdStr = request.getParameter("customerId");
-                if (customerIdStr != null) {
-                    Long customerId = Long.parseLong(customerIdStr);
-                    handleCreateBill(request, response, customerId);
-                } else {
-                    sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, 
-                                    "Customer ID required");
-                }
-            } else if (pathInfo.matches("/\\d+/items")) {
-                // Add item to bill
-                Long billId = Long.parseLong(pathInfo.substring(1, pathInfo.indexOf("/items")));
-                Long itemId = Long.parseLong(request.getParameter("itemId"));
-                Integer quantity = Integer.parseInt(request.getParameter("quantity"));
-                handleAddItemToBill(request, response, billId, itemId, quantity);
-            } else if (pathInfo.matches("/\\d+/finalize")) {
-                // Finalize bill
-                Long billId = Long.parseLong(pathInfo.substring(1, pathInfo.indexOf("/finalize")));
-                handleFinalizeBill(request, response, billId);
-            } else {
+            if (!router.dispatch("POST", request.getPathInfo(), request, response)) {
                 sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, 
                                 "Invalid endpoint");
             }
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
                             "Invalid request data");
@@ -110,22 +213,16 @@ public class BillingController extends HttpServlet {
     protected void doPut(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
         try {
-            if (pathInfo != null && pathInfo.matches("/\\d+/items/\\d+")) {
-                // Update item quantity in bill
-                String[] parts = pathInfo.split("/");
-                Long billId = Long.parseLong(parts[1]);
-                Long itemId = Long.parseLong(parts[3]);
-                Integer newQuantity = Integer.parseInt(request.getParameter("quantity"));
-                handleUpdateItemQuantity(request, response, billId, itemId, newQuantity);
-            } else {
+            if (!router.dispatch("PUT", request.getPathInfo(), request, response)) {
                 sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, 
                                 "Invalid endpoint for update");
             }
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
                             "Invalid request data");
@@ -136,22 +233,11 @@ public class BillingController extends HttpServlet {
     protected void doDelete(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
         try {
-            if (pathInfo != null && pathInfo.matches("/\\d+")) {
-                // Cancel/delete bill
-                Long billId = Long.parseLong(pathInfo.substring(1));
-                handleCancelBill(request, response, billId);
-            } else if (pathInfo != null && pathInfo.matches("/\\d+/items/\\d+")) {
-                // Remove item from bill
-                String[] parts = pathInfo.split("/");
-                Long billId = Long.parseLong(parts[1]);
-                Long itemId = Long.parseLong(parts[3]);
-                handleRemoveItemFromBill(request, response, billId, itemId);
-            } else {
+            if (!router.dispatch("DELETE", request.getPathInfo(), request, response)) {
                 sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, 
                                 "Invalid endpoint for deletion");
             }
@@ -161,22 +247,25 @@ public class BillingController extends HttpServlet {
         }
     }
     
-    // Handler methods
-    
-    private void handleGetAllBills(HttpServletRequest request, HttpServletResponse response) 
-            throws IOException {
-        // Mock data for now - replace with actual service call
-        JsonArrayBuilder billsArray = Json.createArrayBuilder();
+    protected void doPatch(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
         
-        // Add sample bills
-        billsArray.add(createBillJson(1L, 1L, "John Doe", "CUST001", "2024-08-17", 
-                      75.50, 7.55, 83.05, "FINALIZED"));
-        billsArray.add(createBillJson(2L, 2L, "Jane Smith", "CUST002", "2024-08-16", 
-                      45.25, 4.53, 49.78, "FINALIZED"));
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
         
+        if (!router.dispatch("PATCH", request.getPathInfo(), request, response)) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                            "Invalid endpoint for patch");
+        }
+    }
+    
+    // Handler methods
+    
+    private void handleGetAllBills(HttpServletRequest request, HttpServletResponse response,
+                                 int page, int size) throws IOException {
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", billsArray)
+                .add("data", createBillsJson(billingService.getBillsWithPagination(page, size)))
                 .add("message", "Bills retrieved successfully")
                 .build();
         
@@ -185,14 +274,11 @@ public class BillingController extends HttpServlet {
     
     private void handleGetBillById(HttpServletRequest request, HttpServletResponse response, 
                                  Long billId) throws IOException {
-        // Mock data for now - replace with actual service call
-        if (billId == 1L) {
-            JsonObject bill = createBillJson(1L, 1L, "John Doe", "CUST001", "2024-08-17", 
-                            75.50, 7.55, 83.05, "FINALIZED");
-            
+        Bill bill = billingService.getBillById(billId).orElse(null);
+        if (bill != null) {
             JsonObject responseJson = Json.createObjectBuilder()
                     .add("success", true)
-                    .add("data", bill)
+                    .add("data", createBillJson(bill))
                     .add("message", "Bill retrieved successfully")
                     .build();
             
@@ -202,19 +288,26 @@ public class BillingController extends HttpServlet {
         }
     }
     
+    private void handleGetReceipt(HttpServletRequest request, HttpServletResponse response,
+                                  Long billId, ReceiptFormat format) throws IOException {
+        Bill bill = billingService.getBillById(billId).orElse(null);
+        if (bill == null) {
+            sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Bill not found");
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        try (OutputStream out = response.getOutputStream()) {
+            receiptService.writeReceipt(bill, format, out);
+        }
+    }
+    
     private void handleGetBillsByCustomer(HttpServletRequest request, HttpServletResponse response, 
                                         Long customerId) throws IOException {
-        // Mock data for now - replace with actual service call
-        JsonArrayBuilder billsArray = Json.createArrayBuilder();
-        
-        if (customerId == 1L) {
-            billsArray.add(createBillJson(1L, 1L, "John Doe", "CUST001", "2024-08-17", 
-                          75.50, 7.55, 83.05, "FINALIZED"));
-        }
-        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", billsArray)
+                .add("data", createBillsJson(billingService.getBillsByCustomer(customerId)))
                 .add("message", "Customer bills retrieved successfully")
                 .build();
         
@@ -223,17 +316,9 @@ public class BillingController extends HttpServlet {
     
     private void handleGetBillsByDate(HttpServletRequest request, HttpServletResponse response, 
                                     LocalDate date) throws IOException {
-        // Mock data for now - replace with actual service call
-        JsonArrayBuilder billsArray = Json.createArrayBuilder();
-        
-        if (date.equals(LocalDate.parse("2024-08-17"))) {
-            billsArray.add(createBillJson(1L, 1L, "John Doe", "CUST001", "2024-08-17", 
-                          75.50, 7.55, 83.05, "FINALIZED"));
-        }
-        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", billsArray)
+                .add("data", createBillsJson(billingService.getBillsByDate(date)))
                 .add("message", "Bills for date retrieved successfully")
                 .build();
         
@@ -242,14 +327,9 @@ public class BillingController extends HttpServlet {
     
     private void handleGetRecentBills(HttpServletRequest request, HttpServletResponse response, 
                                     int limit) throws IOException {
-        // Mock data for now - replace with actual service call
-        JsonArrayBuilder billsArray = Json.createArrayBuilder();
-        billsArray.add(createBillJson(2L, 2L, "Jane Smith", "CUST002", "2024-08-16", 
-                      45.25, 4.53, 49.78, "FINALIZED"));
-        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", billsArray)
+                .add("data", createBillsJson(billingService.getRecentBills(limit)))
                 .add("message", "Recent bills retrieved successfully")
                 .build();
         
@@ -258,14 +338,9 @@ public class BillingController extends HttpServlet {
     
     private void handleGetTodaysBills(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
-        // Mock data for now - replace with actual service call
-        JsonArrayBuilder billsArray = Json.createArrayBuilder();
-        billsArray.add(createBillJson(1L, 1L, "John Doe", "CUST001", "2024-08-17", 
-                      75.50, 7.55, 83.05, "FINALIZED"));
-        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", billsArray)
+                .add("data", createBillsJson(billingService.getTodaysBills()))
                 .add("message", "Today's bills retrieved successfully")
                 .build();
         
@@ -274,15 +349,15 @@ public class BillingController extends HttpServlet {
     
     private void handleGetSalesStatistics(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
-        // Mock statistics - replace with actual service call
+        SalesStatistics stats = billingService.getSalesStatistics();
         JsonObject statistics = Json.createObjectBuilder()
-                .add("totalBills", 125)
-                .add("todaysBills", 8)
-                .add("monthlyBills", 45)
-                .add("totalSales", 15750.25)
-                .add("todaysSales", 425.50)
-                .add("monthlySales", 6250.75)
-                .add("averageBillAmount", 126.00)
+                .add("totalBills", stats.getTotalBills())
+                .add("todaysBills", stats.getTodaysBills())
+                .add("monthlyBills", stats.getMonthlyBills())
+                .add("totalSales", stats.getTotalSales())
+                .add("todaysSales", stats.getTodaysSales())
+                .add("monthlySales", stats.getMonthlySales())
+                .add("averageBillAmount", stats.getAverageBillAmount())
                 .build();
         
         JsonObject responseJson = Json.createObjectBuilder()
@@ -296,136 +371,378 @@ public class BillingController extends HttpServlet {
     
     private void handleGetSalesTotal(HttpServletRequest request, HttpServletResponse response, 
                                    String period) throws IOException {
-        // Mock sales totals - replace with actual service call
-        double total = 0.0;
-        String message = "";
+        // Sales totals are answered from the pre-aggregated sales cube
+        LocalDate today = LocalDate.now();
+        LocalDate startDate;
+        LocalDate endDate = today;
+        String message;
         
-        switch (period != null ? period : "today") {
-            case "today":
-                total = 425.50;
-                message = "Today's sales total";
-                break;
-            case "month":
-                total = 6250.75;
-                message = "Monthly sales total";
-                break;
-            case "year":
-                total = 15750.25;
-                message = "Yearly sales total";
-                break;
-            default:
-                total = 425.50;
-                message = "Today's sales total";
+        String start = request.getParameter("start");
+        String end = request.getParameter("end");
+        if (start != null && end != null) {
+            period = "range";
+            startDate = LocalDate.parse(start);
+            endDate = LocalDate.parse(end);
+            message = "Sales total for date range";
+        } else {
+            switch (period != null ? period : "today") {
+                case "month":
+                    startDate = today.withDayOfMonth(1);
+                    message = "Monthly sales total";
+                    break;
+                case "year":
+                    startDate = today.withDayOfYear(1);
+                    message = "Yearly sales total";
+                    break;
+                default:
+                    period = "today";
+                    startDate = today;
+                    message = "Today's sales total";
+            }
         }
         
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
                 .add("data", Json.createObjectBuilder()
-                    .add("period", period != null ? period : "today")
-                    .add("total", total))
+                    .add("period", period)
+                    .add("startDate", startDate.toString())
+                    .add("endDate", endDate.toString())
+                    .add("total", salesCubeService.getSalesTotal(startDate, endDate))
+                    .add("count", salesCubeService.getSalesCount(startDate, endDate))
+                    .add("average", salesCubeService.getAverageBillAmount(startDate, endDate)))
                 .add("message", message + " retrieved successfully")
                 .build();
         
         sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
-    private void handleCreateBill(HttpServletRequest request, HttpServletResponse response, 
-                                Long customerId) throws IOException {
-        // Mock creation - replace with actual service call
-        JsonObject billJson = createBillJson(3L, customerId, "New Customer", "CUST003", 
-                              LocalDate.now().toString(), 0.0, 0.0, 0.0, "DRAFT");
+    private void handleGetSalesSummary(HttpServletRequest request, HttpServletResponse response,
+                                     LocalDate startDate, LocalDate endDate, Granularity granularity)
+            throws IOException {
+        JsonArrayBuilder bucketsArray = Json.createArrayBuilder();
+        for (SalesBucket bucket : salesCubeService.getSalesBuckets(startDate, endDate, granularity)) {
+            bucketsArray.add(Json.createObjectBuilder()
+                    .add("periodStart", bucket.getPeriodStart().toString())
+                    .add("periodEnd", bucket.getPeriodEnd().toString())
+                    .add("count", bucket.getBillCount())
+                    .add("total", bucket.getTotalAmount()));
+        }
         
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", billJson)
-                .add("message", "Bill created successfully")
+                .add("data", bucketsArray)
+                .add("message", "Sales summary retrieved successfully")
                 .build();
         
-        sendJsonResponse(response, HttpServletResponse.SC_CREATED, responseJson);
+        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
-    private void handleAddItemToBill(HttpServletRequest request, HttpServletResponse response, 
-                                   Long billId, Long itemId, Integer quantity) throws IOException {
-        // Mock item addition - replace with actual service call
+    private void handleGetArchivedPeriods(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", Json.createObjectBuilder()
-                    .add("billId", billId)
-                    .add("itemId", itemId)
-                    .add("quantity", quantity))
-                .add("message", "Item added to bill successfully")
+                .add("data", createArchivedPeriodsJson(billArchiveService.getArchivedPeriods()))
+                .add("message", "Archived periods retrieved successfully")
                 .build();
         
         sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
-    private void handleFinalizeBill(HttpServletRequest request, HttpServletResponse response, 
-                                  Long billId) throws IOException {
-        // Mock finalization - replace with actual service call
+    private void handleArchiveBills(HttpServletRequest request, HttpServletResponse response, int hotMonths)
+            throws IOException {
+        ArchiveResult result;
+        try {
+            result = billArchiveService.archiveClosedPeriods(hotMonths);
+        } catch (IllegalStateException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_CONFLICT, e.getMessage());
+            return;
+        }
+        JsonObject data = Json.createObjectBuilder()
+                .add("hotMonths", hotMonths)
+                .add("periods", createArchivedPeriodsJson(result.getPeriods()))
+                .add("bills", result.getBills())
+                .add("items", result.getItems())
+                .add("blockedPeriod", result.getBlockedPeriod() != null ? result.getBlockedPeriod().toString() : "")
+                .add("hotFrom", result.getHotFrom() != null ? result.getHotFrom().toString() : "")
+                .add("exportedPeriods", result.getExportedPeriods())
+                .add("elapsedMillis", result.getElapsedMillis())
+                .build();
+        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", Json.createObjectBuilder().add("billId", billId))
-                .add("message", "Bill finalized successfully")
+                .add("data", data)
+                .add("message", "Bill archival completed")
                 .build();
         
         sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
-    private void handleUpdateItemQuantity(HttpServletRequest request, HttpServletResponse response, 
-                                        Long billId, Long itemId, Integer newQuantity) throws IOException {
-        // Mock quantity update - replace with actual service call
+    private void handleGetArchivedSales(HttpServletRequest request, HttpServletResponse response,
+                                        LocalDate startDate, LocalDate endDate, int top) throws IOException {
+        ArchivedSales sales = billArchiveService.getArchivedSales(startDate, endDate, top);
+        JsonArrayBuilder itemsArray = Json.createArrayBuilder();
+        for (ItemTotals item : sales.getTopItems()) {
+            itemsArray.add(Json.createObjectBuilder()
+                    .add("itemId", item.getItemId())
+                    .add("itemCode", item.getItemCode())
+                    .add("quantity", item.getQuantity())
+                    .add("total", item.getAmount()));
+        }
+        JsonObject data = Json.createObjectBuilder()
+                .add("startDate", sales.getStartDate().toString())
+                .add("coveredUntil", sales.getCoveredUntil().toString())
+                .add("bills", sales.getBills())
+                .add("salesCount", sales.getSalesBills())
+                .add("total", sales.getSalesTotal())
+                .add("topItems", itemsArray)
+                .build();
+        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", Json.createObjectBuilder()
-                    .add("billId", billId)
-                    .add("itemId", itemId)
-                    .add("newQuantity", newQuantity))
-                .add("message", "Item quantity updated successfully")
+                .add("data", data)
+                .add("message", "Archived sales retrieved successfully")
                 .build();
         
         sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
-    private void handleRemoveItemFromBill(HttpServletRequest request, HttpServletResponse response, 
-                                        Long billId, Long itemId) throws IOException {
-        // Mock item removal - replace with actual service call
+    private void handleExportArchive(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        int exported;
+        try {
+            exported = billArchiveService.exportColumnarPeriods();
+        } catch (IllegalStateException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_CONFLICT, e.getMessage());
+            return;
+        }
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("message", "Item removed from bill successfully")
+                .add("data", Json.createObjectBuilder().add("exportedPeriods", exported))
+                .add("message", "Columnar export completed")
                 .build();
         
         sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
+    private void handleCreateBill(HttpServletRequest request, HttpServletResponse response, 
+                                Long customerId, List<BillItem> lines) throws IOException {
+        try {
+            Bill bill = billingService.createBill(customerId);
+            if (!lines.isEmpty()) {
+                List<BillItemChange> changes = new ArrayList<>(lines.size());
+                for (BillItem line : lines) {
+                    changes.add(new BillItemChange(BillItemChange.Operation.ADD, line.getItemId(), line.getQuantity()));
+                }
+                try {
+                    bill = billingService.applyItemChanges(bill.getId(), changes);
+                } catch (RuntimeException e) {
+                    billingService.cancelBill(bill.getId());
+                    throw e;
+                }
+            }
+            sendBillResponse(response, HttpServletResponse.SC_CREATED, bill, "Bill created successfully");
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    private void handleSyncBills(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<OfflineBill> bills;
+        try {
+            bills = JsonBodyBinder.readOfflineBills(request.getInputStream());
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                            "Request body must be a JSON array of {syncId, customerId, createdAt, items} bills: "
+                            + e.getMessage());
+            return;
+        }
+        try {
+            List<SyncOutcome> outcomes = billingService.syncOfflineBills(bills);
+            int[] counts = new int[SyncOutcome.Status.values().length];
+            JsonArrayBuilder resultsArray = Json.createArrayBuilder();
+            for (SyncOutcome outcome : outcomes) {
+                counts[outcome.getStatus().ordinal()]++;
+                JsonObjectBuilder result = Json.createObjectBuilder()
+                        .add("syncId", outcome.getSyncId())
+                        .add("status", outcome.getStatus().name());
+                if (outcome.getBillId() != null) {
+                    result.add("billId", outcome.getBillId());
+                }
+                if (outcome.getBill() != null) {
+                    result.add("total", outcome.getBill().getTotalAmount());
+                }
+                if (outcome.getError() != null) {
+                    result.add("error", outcome.getError());
+                }
+                resultsArray.add(result);
+            }
+            JsonObject responseJson = Json.createObjectBuilder()
+                    .add("success", true)
+                    .add("data", Json.createObjectBuilder()
+                            .add("created", counts[SyncOutcome.Status.CREATED.ordinal()])
+                            .add("duplicates", counts[SyncOutcome.Status.DUPLICATE.ordinal()])
+                            .add("rejected", counts[SyncOutcome.Status.REJECTED.ordinal()])
+                            .add("results", resultsArray))
+                    .add("message", "Bills synced")
+                    .build();
+            
+            sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (RuntimeException e) {
+            // not the bills' fault: the till keeps them and uploads the batch again
+            System.err.println("Offline bill sync failed: " + e.getMessage());
+            sendErrorResponse(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                            "Bills could not be saved, retry the sync");
+        }
+    }
+    
+    private void handleAddItemToBill(HttpServletRequest request, HttpServletResponse response, 
+                                   Long billId, Long itemId, Integer quantity) throws IOException {
+        try {
+            Bill bill = billingService.addItemToBill(billId, itemId, quantity);
+            sendBillResponse(response, HttpServletResponse.SC_OK, bill, "Item added to bill successfully");
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    private void handlePatchBillItems(HttpServletRequest request, HttpServletResponse response,
+                                    Long billId) throws IOException {
+        List<BillItemChange> changes;
+        try {
+            changes = JsonBodyBinder.readItemChanges(request.getInputStream());
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                            "Request body must be a JSON array of {op, itemId, quantity} changes: " + e.getMessage());
+            return;
+        }
+        handleApplyItemChanges(request, response, billId, changes);
+    }
+    
+    private void handleApplyItemChanges(HttpServletRequest request, HttpServletResponse response,
+                                      Long billId, List<BillItemChange> changes) throws IOException {
+        try {
+            Bill bill = billingService.applyItemChanges(billId, changes);
+            sendBillResponse(response, HttpServletResponse.SC_OK, bill, "Bill items updated successfully");
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    private void handleFinalizeBill(HttpServletRequest request, HttpServletResponse response, 
+                                  Long billId) throws IOException {
+        try {
+            Bill bill = billingService.finalizeBill(billId);
+            sendBillResponse(response, HttpServletResponse.SC_OK, bill, "Bill finalized successfully");
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    private void handleUpdateItemQuantity(HttpServletRequest request, HttpServletResponse response, 
+                                        Long billId, Long itemId, Integer newQuantity) throws IOException {
+        try {
+            Bill bill = billingService.updateItemQuantityInBill(billId, itemId, newQuantity);
+            sendBillResponse(response, HttpServletResponse.SC_OK, bill, "Item quantity updated successfully");
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    private void handleRemoveItemFromBill(HttpServletRequest request, HttpServletResponse response, 
+                                        Long billId, Long itemId) throws IOException {
+        try {
+            Bill bill = billingService.removeItemFromBill(billId, itemId);
+            sendBillResponse(response, HttpServletResponse.SC_OK, bill, "Item removed from bill successfully");
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+    
     private void handleCancelBill(HttpServletRequest request, HttpServletResponse response, 
                                 Long billId) throws IOException {
-        // Mock cancellation - replace with actual service call
-        JsonObject responseJson = Json.createObjectBuilder()
-                .add("success", true)
-                .add("message", "Bill cancelled successfully")
-                .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        try {
+            Bill bill = billingService.cancelBill(billId);
+            sendBillResponse(response, HttpServletResponse.SC_OK, bill, "Bill cancelled successfully");
+        } catch (OptimisticLockException e) {
+            Optional<Bill> current = billingService.getBillById(billId);
+            sendJsonResponse(response, HttpServletResponse.SC_CONFLICT, JsonUtil.createConflictResponse(
+                    "Bill was modified by another request", current.map(this::createBillJson).orElse(null)));
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
     }
     
     // Utility methods
     
-    private JsonObject createBillJson(Long id, Long customerId, String customerName, 
-                                    String customerAccount, String date, double subtotal, 
-                                    double tax, double total, String status) {
+    private JsonArrayBuilder createArchivedPeriodsJson(List<ArchivedPeriod> periods) {
+        JsonArrayBuilder periodsArray = Json.createArrayBuilder();
+        for (ArchivedPeriod period : periods) {
+            periodsArray.add(Json.createObjectBuilder()
+                    .add("periodStart", period.getPeriodStart().toString())
+                    .add("periodEnd", period.getPeriodEnd().toString())
+                    .add("bills", period.getBillCount())
+                    .add("items", period.getItemCount())
+                    .add("archivedAt", period.getArchivedAt() != null ? period.getArchivedAt().toString() : ""));
+        }
+        return periodsArray;
+    }
+    
+    private JsonArrayBuilder createBillsJson(List<Bill> bills) {
+        JsonArrayBuilder billsArray = Json.createArrayBuilder();
+        for (Bill bill : bills) {
+            billsArray.add(createBillJson(bill));
+        }
+        return billsArray;
+    }
+    
+    private JsonObject createBillJson(Bill bill) {
+        JsonArrayBuilder itemsArray = Json.createArrayBuilder();
+        for (BillItem billItem : bill.getItems()) {
+            itemsArray.add(Json.createObjectBuilder()
+                    .add("itemId", billItem.getItemId())
+                    .add("itemCode", billItem.getItemCode())
+                    .add("itemName", billItem.getItemName())
+                    .add("unitPrice", billItem.getUnitPrice())
+                    .add("quantity", billItem.getQuantity())
+                    .add("total", billItem.getTotal()));
+        }
         return Json.createObjectBuilder()
-                .add("id", id)
-                .add("customerId", customerId)
-                .add("customerName", customerName)
-                .add("customerAccount", customerAccount)
-                .add("date", date)
-                .add("subtotal", subtotal)
-                .add("tax", tax)
-                .add("total", total)
-                .add("status", status)
+                .add("id", bill.getId())
+                .add("customerId", bill.getCustomerId())
+                .add("customerName", bill.getCustomerName())
+                .add("customerAccount", bill.getCustomerAccountNumber())
+                .add("date", bill.getBillDate().toString())
+                .add("subtotal", bill.getSubtotal())
+                .add("tax", bill.getTaxAmount())
+                .add("total", bill.getTotalAmount())
+                .add("status", bill.getStatus().name())
+                .add("version", bill.getVersion() != null ? bill.getVersion() : 0)
+                .add("items", itemsArray)
                 .build();
     }
     
+    private BillItem readBillLine(HttpServletRequest request) throws IOException {
+        if (JsonBodyBinder.isJsonRequest(request)) {
+            return JsonBodyBinder.readBillItem(request.getInputStream());
+        }
+        String itemId = request.getParameter("itemId");
+        return new BillItem(itemId != null ? Long.parseLong(itemId) : null, null, null, BigDecimal.ZERO,
+                           Integer.parseInt(request.getParameter("quantity")));
+    }
+    
+    private void sendBillResponse(HttpServletResponse response, int statusCode, Bill bill, String message)
+            throws IOException {
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", createBillJson(bill))
+                .add("message", message)
+                .build();
+        
+        sendJsonResponse(response, statusCode, responseJson);
+    }
+    
     private void sendJsonResponse(HttpServletResponse response, int statusCode, JsonObject jsonObject) 
             throws IOException {
         response.setStatus(statusCode);
@@ -1,7 +1,22 @@
 package com.icbt.cis6003.pahanaedubookshop.controller;
 
+import com.icbt.cis6003.pahanaedubookshop.dao.OptimisticLockException;
 import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment.Segment;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerTotals;
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerSegmentationService;
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerService;
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerTotalsService;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.CustomerSegmentationServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.CustomerServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.CustomerTotalsServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.HttpCacheUtil;
+import com.icbt.cis6003.pahanaedubookshop.util.JsonBodyBinder;
 import com.icbt.cis6003.pahanaedubookshop.util.JsonUtil;
+import com.icbt.cis6003.pahanaedubookshop.util.ResourceVersionTracker;
+import com.icbt.cis6003.pahanaedubookshop.util.ResponseCache;
+import com.icbt.cis6003.pahanaedubookshop.util.Router;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -11,54 +26,116 @@ import javax.servlet.http.HttpServletResponse;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Simple servlet controller for Customer operations
  */
-@WebServlet(name = "CustomerController", urlPatterns = {"/api/customers/*"})
+@WebServlet(name = "CustomerController", urlPatterns = {"/api/customers/*"}, loadOnStartup = 1)
 public class CustomerController extends HttpServlet {
 
+    private CustomerService customerService;
+    private CustomerTotalsService customerTotalsService;
+    private CustomerSegmentationService segmentationService;
+    private ResourceVersionTracker versionTracker;
+    private ResponseCache responseCache;
+    private Router router;
+
     @Override
     public void init() throws ServletException {
         super.init();
+        customerService = CustomerServiceImpl.getInstance();
+        customerTotalsService = CustomerTotalsServiceImpl.getInstance();
+        segmentationService = CustomerSegmentationServiceImpl.getInstance();
+        versionTracker = ResourceVersionTracker.getInstance();
+        responseCache = ResponseCache.getInstance();
+        router = createRouter();
         System.out.println("CustomerController initialized");
     }
 
+    private Router createRouter() {
+        return new Router()
+                .get("/", (request, response, path) -> {
+                    // Get all customers or search
+                    if (HttpCacheUtil.checkNotModified(request, response,
+                            versionTracker.getCollectionVersion(ResourceVersionTracker.CUSTOMERS))) {
+                        return;
+                    }
+                    String searchTerm = request.getParameter("search");
+                    if (searchTerm != null && !searchTerm.trim().isEmpty()) {
+                        handleSearchCustomers(request, response, searchTerm);
+                    } else {
+                        handleGetAllCustomers(request, response);
+                    }
+                })
+                .get("/{id}", (request, response, path) -> {
+                    Long customerId = path.getLong(0);
+                    if (HttpCacheUtil.checkNotModified(request, response,
+                            versionTracker.getResourceVersion(ResourceVersionTracker.CUSTOMERS, customerId))) {
+                        return;
+                    }
+                    handleGetCustomerById(request, response, customerId);
+                })
+                .get("/{id}/totals", (request, response, path) ->
+                        handleGetCustomerTotals(request, response, path.getLong(0)))
+                .get("/{id}/segment", (request, response, path) ->
+                        handleGetCustomerSegment(request, response, path.getLong(0)))
+                .get("/segments", (request, response, path) -> {
+                    String segment = request.getParameter("segment");
+                    if (segment != null && !segment.trim().isEmpty()) {
+                        int limit = Integer.parseInt(request.getParameter("limit") != null ?
+                                   request.getParameter("limit") : "50");
+                        handleGetSegmentCustomers(request, response, segment.trim(), limit);
+                    } else {
+                        handleGetSegmentSummary(request, response);
+                    }
+                })
+                .get("/top", (request, response, path) -> {
+                    int limit = Integer.parseInt(request.getParameter("limit") != null ?
+                               request.getParameter("limit") : "10");
+                    handleGetTopCustomers(request, response, limit);
+                })
+                .get("/count", (request, response, path) -> handleGetCustomerCount(request, response))
+                .get("/recent", (request, response, path) -> {
+                    int limit = Integer.parseInt(request.getParameter("limit") != null ?
+                               request.getParameter("limit") : "5");
+                    handleGetRecentCustomers(request, response, limit);
+                })
+                .get("/statistics", (request, response, path) -> handleGetCustomerStatistics(request, response))
+                .post("/", (request, response, path) ->
+                        handleCreateCustomer(request, response, parseCustomerFromRequest(request)))
+                .post("/totals/backfill", (request, response, path) ->
+                        handleTotalsJob(request, response, customerTotalsService.backfill(parseThreads(request))))
+                .post("/totals/verify", (request, response, path) ->
+                        handleTotalsJob(request, response, customerTotalsService.verify(parseThreads(request),
+                                Boolean.parseBoolean(request.getParameter("repair")))))
+                .post("/segments", (request, response, path) -> {
+                    int windowDays = Integer.parseInt(request.getParameter("windowDays") != null ?
+                                    request.getParameter("windowDays") : "365");
+                    handleRunSegmentation(request, response, windowDays, parseThreads(request));
+                })
+                .put("/{id}", (request, response, path) -> {
+                    Customer customer = parseCustomerFromRequest(request);
+                    customer.setId(path.getLong(0));
+                    handleUpdateCustomer(request, response, customer);
+                })
+                .delete("/{id}", (request, response, path) ->
+                        handleDeleteCustomer(request, response, path.getLong(0)));
+    }
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        if (pathInfo == null || pathInfo.equals("/")) {
-            // Get all customers or search
-            String searchTerm = request.getParameter("search");
-            if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                handleSearchCustomers(request, response, searchTerm);
-            } else {
-                handleGetAllCustomers(request, response);
-            }
-        } else if (pathInfo.matches("/\\d+")) {
-            // Get customer by ID
-            Long customerId = Long.parseLong(pathInfo.substring(1));
-            handleGetCustomerById(request, response, customerId);
-        } else if (pathInfo.equals("/count")) {
-            // Get customer count
-            handleGetCustomerCount(request, response);
-        } else if (pathInfo.equals("/recent")) {
-            // Get recent customers
-            int limit = Integer.parseInt(request.getParameter("limit") != null ?
-                       request.getParameter("limit") : "5");
-            handleGetRecentCustomers(request, response, limit);
-        } else if (pathInfo.equals("/statistics")) {
-            // Get customer statistics
-            handleGetCustomerStatistics(request, response);
-        } else {
+        if (!router.dispatch("GET", request.getPathInfo(), request, response)) {
             sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found");
         }
     }
@@ -70,27 +147,30 @@ public class CustomerController extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        // Create new customer
-        Customer customer = parseCustomerFromRequest(request);
-        handleCreateCustomer(request, response, customer);
+        try {
+            if (!router.dispatch("POST", request.getPathInfo(), request, response)) {
+                sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                                "Invalid endpoint");
+            }
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
     }
 
     @Override
     protected void doPut(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        if (pathInfo != null && pathInfo.matches("/\\d+")) {
-            Long customerId = Long.parseLong(pathInfo.substring(1));
-            Customer customer = parseCustomerFromRequest(request);
-            customer.setId(customerId);
-            handleUpdateCustomer(request, response, customer);
-        } else {
-            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
-                            "Customer ID required for update");
+        try {
+            if (!router.dispatch("PUT", request.getPathInfo(), request, response)) {
+                sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                                "Customer ID required for update");
+            }
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
         }
     }
 
@@ -98,14 +178,10 @@ public class CustomerController extends HttpServlet {
     protected void doDelete(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        if (pathInfo != null && pathInfo.matches("/\\d+")) {
-            Long customerId = Long.parseLong(pathInfo.substring(1));
-            handleDeleteCustomer(request, response, customerId);
-        } else {
+        if (!router.dispatch("DELETE", request.getPathInfo(), request, response)) {
             sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
                             "Customer ID required for deletion");
         }
@@ -115,20 +191,9 @@ public class CustomerController extends HttpServlet {
     
     private void handleGetAllCustomers(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
-        // Mock data for now - replace with actual service call
-        JsonArrayBuilder customersArray = Json.createArrayBuilder();
-        
-        // Add sample customers
-        customersArray.add(createCustomerJson(1L, "CUST001", "John Doe", 
-                          "123 Main St, Colombo 01", "+94 77 123 4567", 
-                          "john.doe@email.com", "2024-01-15"));
-        customersArray.add(createCustomerJson(2L, "CUST002", "Jane Smith", 
-                          "456 Galle Road, Colombo 03", "+94 71 987 6543", 
-                          "jane.smith@email.com", "2024-02-20"));
-        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", customersArray)
+                .add("data", createCustomersJson(customerService.getAllCustomers()))
                 .add("message", "Customers retrieved successfully")
                 .build();
         
@@ -137,15 +202,11 @@ public class CustomerController extends HttpServlet {
     
     private void handleGetCustomerById(HttpServletRequest request, HttpServletResponse response, 
                                      Long customerId) throws IOException {
-        // Mock data for now - replace with actual service call
-        if (customerId == 1L) {
-            JsonObject customer = createCustomerJson(1L, "CUST001", "John Doe", 
-                                   "123 Main St, Colombo 01", "+94 77 123 4567", 
-                                   "john.doe@email.com", "2024-01-15");
-            
+        Optional<Customer> customer = customerService.getCustomerById(customerId);
+        if (customer.isPresent()) {
             JsonObject responseJson = Json.createObjectBuilder()
                     .add("success", true)
-                    .add("data", customer)
+                    .add("data", createCustomerJson(customer.get()))
                     .add("message", "Customer retrieved successfully")
                     .build();
             
@@ -157,18 +218,9 @@ public class CustomerController extends HttpServlet {
     
     private void handleSearchCustomers(HttpServletRequest request, HttpServletResponse response, 
                                      String searchTerm) throws IOException {
-        // Mock search results - replace with actual service call
-        JsonArrayBuilder customersArray = Json.createArrayBuilder();
-        
-        if (searchTerm.toLowerCase().contains("john")) {
-            customersArray.add(createCustomerJson(1L, "CUST001", "John Doe", 
-                              "123 Main St, Colombo 01", "+94 77 123 4567", 
-                              "john.doe@email.com", "2024-01-15"));
-        }
-        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", customersArray)
+                .add("data", createCustomersJson(customerService.searchCustomers(searchTerm.trim())))
                 .add("message", "Search completed successfully")
                 .build();
         
@@ -177,59 +229,82 @@ public class CustomerController extends HttpServlet {
     
     private void handleCreateCustomer(HttpServletRequest request, HttpServletResponse response, 
                                     Customer customer) throws IOException {
-        // Mock creation - replace with actual service call
-        JsonObject customerJson = createCustomerJson(3L, customer.getAccountNumber(), 
-                                  customer.getName(), customer.getAddress(), 
-                                  customer.getPhone(), customer.getEmail(), 
-                                  LocalDate.now().toString());
-        
-        JsonObject responseJson = Json.createObjectBuilder()
-                .add("success", true)
-                .add("data", customerJson)
-                .add("message", "Customer created successfully")
-                .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_CREATED, responseJson);
+        try {
+            Customer created = customerService.createCustomer(customer);
+            
+            JsonObject responseJson = Json.createObjectBuilder()
+                    .add("success", true)
+                    .add("data", createCustomerJson(created))
+                    .add("message", "Customer created successfully")
+                    .build();
+            
+            versionTracker.bump(ResourceVersionTracker.CUSTOMERS, created.getId());
+            sendJsonResponse(response, HttpServletResponse.SC_CREATED, responseJson);
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
     }
     
     private void handleUpdateCustomer(HttpServletRequest request, HttpServletResponse response, 
                                     Customer customer) throws IOException {
-        // Mock update - replace with actual service call
-        JsonObject customerJson = createCustomerJson(customer.getId(), customer.getAccountNumber(), 
-                                  customer.getName(), customer.getAddress(), 
-                                  customer.getPhone(), customer.getEmail(), 
-                                  "2024-01-15");
-        
-        JsonObject responseJson = Json.createObjectBuilder()
-                .add("success", true)
-                .add("data", customerJson)
-                .add("message", "Customer updated successfully")
-                .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        try {
+            Customer updated = customerService.updateCustomer(customer);
+            
+            JsonObject responseJson = Json.createObjectBuilder()
+                    .add("success", true)
+                    .add("data", createCustomerJson(updated))
+                    .add("message", "Customer updated successfully")
+                    .build();
+            
+            versionTracker.bump(ResourceVersionTracker.CUSTOMERS, customer.getId());
+            sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        } catch (OptimisticLockException e) {
+            // send back the current state so the client can merge and retry
+            JsonObject current = customerService.getCustomerById(customer.getId())
+                    .map(this::createCustomerJson).orElse(null);
+            sendJsonResponse(response, HttpServletResponse.SC_CONFLICT,
+                    JsonUtil.createConflictResponse("Customer was modified by another request", current));
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
     }
     
     private void handleDeleteCustomer(HttpServletRequest request, HttpServletResponse response, 
                                     Long customerId) throws IOException {
-        // Mock deletion - replace with actual service call
-        JsonObject responseJson = Json.createObjectBuilder()
-                .add("success", true)
-                .add("message", "Customer deleted successfully")
-                .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        if (!customerService.getCustomerById(customerId).isPresent()) {
+            sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Customer not found");
+            return;
+        }
+        try {
+            customerService.deleteCustomer(customerId);
+            
+            JsonObject responseJson = Json.createObjectBuilder()
+                    .add("success", true)
+                    .add("message", "Customer deleted successfully")
+                    .build();
+            
+            versionTracker.bump(ResourceVersionTracker.CUSTOMERS, customerId);
+            sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        } catch (RuntimeException e) {
+            // e.g. the customer has bills
+            sendErrorResponse(response, HttpServletResponse.SC_CONFLICT, e.getMessage());
+        }
     }
     
     private void handleGetCustomerCount(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
-        // Mock count - replace with actual service call
-        JsonObject responseJson = Json.createObjectBuilder()
+        // Served pre-serialized until the next customer write
+        ResponseCache.write(request, response, responseCache.get("/api/customers/count",
+                versionTracker.getCollectionVersion(ResourceVersionTracker.CUSTOMERS),
+                this::createCustomerCountJson));
+    }
+    
+    private JsonObject createCustomerCountJson() {
+        return Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", Json.createObjectBuilder().add("count", 25))
+                .add("data", Json.createObjectBuilder().add("count", customerService.getTotalCustomerCount()))
                 .add("message", "Customer count retrieved successfully")
                 .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
     private void handleGetRecentCustomers(HttpServletRequest request, HttpServletResponse response, 
@@ -268,20 +343,210 @@ public class CustomerController extends HttpServlet {
         sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
+    private void handleGetCustomerTotals(HttpServletRequest request, HttpServletResponse response,
+                                         Long customerId) throws IOException {
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", createTotalsJson(customerTotalsService.getTotals(customerId)))
+                .add("message", "Customer totals retrieved successfully")
+                .build();
+        
+        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+    }
+    
+    private void handleGetTopCustomers(HttpServletRequest request, HttpServletResponse response,
+                                       int limit) throws IOException {
+        JsonArrayBuilder totalsArray = Json.createArrayBuilder();
+        for (CustomerTotals totals : customerTotalsService.getTopCustomers(Math.max(1, Math.min(limit, 100)))) {
+            totalsArray.add(createTotalsJson(totals));
+        }
+        
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", totalsArray)
+                .add("message", "Top customers retrieved successfully")
+                .build();
+        
+        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+    }
+    
+    private void handleTotalsJob(HttpServletRequest request, HttpServletResponse response,
+                                 CustomerTotalsService.JobResult result) throws IOException {
+        JsonArrayBuilder mismatchedArray = Json.createArrayBuilder();
+        for (Long customerId : result.getMismatchedCustomerIds()) {
+            mismatchedArray.add(customerId);
+        }
+        JsonObject data = Json.createObjectBuilder()
+                .add("chunks", result.getChunks())
+                .add("customers", result.getCustomers())
+                .add("mismatches", result.getMismatches())
+                .add("mismatchedCustomerIds", mismatchedArray)
+                .add("repaired", result.isRepaired())
+                .add("elapsedMillis", result.getElapsedMillis())
+                .build();
+        
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", data)
+                .add("message", "Customer totals job completed")
+                .build();
+        
+        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+    }
+    
+    private void handleGetCustomerSegment(HttpServletRequest request, HttpServletResponse response,
+                                          Long customerId) throws IOException {
+        Optional<CustomerSegment> segment = segmentationService.getCustomerSegment(customerId);
+        if (!segment.isPresent()) {
+            sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND,
+                            "Customer has no segment; run the segmentation job first");
+            return;
+        }
+        
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", createSegmentJson(segment.get()))
+                .add("message", "Customer segment retrieved successfully")
+                .build();
+        
+        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+    }
+    
+    private void handleGetSegmentSummary(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", createSegmentCountsJson(segmentationService.getSegmentCounts()))
+                .add("message", "Customer segments retrieved successfully")
+                .build();
+        
+        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+    }
+    
+    private void handleGetSegmentCustomers(HttpServletRequest request, HttpServletResponse response,
+                                           String segmentName, int limit) throws IOException {
+        Segment segment;
+        try {
+            segment = Segment.valueOf(segmentName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, "Unknown segment: " + segmentName);
+            return;
+        }
+        
+        JsonArrayBuilder segmentArray = Json.createArrayBuilder();
+        for (CustomerSegment customerSegment :
+                segmentationService.getCustomersInSegment(segment, Math.max(1, Math.min(limit, 500)))) {
+            segmentArray.add(createSegmentJson(customerSegment));
+        }
+        
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", segmentArray)
+                .add("message", "Customers in segment retrieved successfully")
+                .build();
+        
+        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+    }
+    
+    private void handleRunSegmentation(HttpServletRequest request, HttpServletResponse response,
+                                       int windowDays, int parallelism) throws IOException {
+        CustomerSegmentationService.SegmentationResult result;
+        try {
+            result = segmentationService.runSegmentation(windowDays, parallelism);
+        } catch (IllegalStateException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_CONFLICT, e.getMessage());
+            return;
+        }
+        JsonObject data = Json.createObjectBuilder()
+                .add("windowDays", result.getWindowDays())
+                .add("parallelism", result.getParallelism())
+                .add("bills", result.getBills())
+                .add("customers", result.getCustomers())
+                .add("segments", createSegmentCountsJson(result.getSegmentCounts()))
+                .add("scanMillis", result.getScanMillis())
+                .add("scoreMillis", result.getScoreMillis())
+                .add("writeMillis", result.getWriteMillis())
+                .add("elapsedMillis", result.getElapsedMillis())
+                .build();
+        
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", data)
+                .add("message", "Customer segmentation completed")
+                .build();
+        
+        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+    }
+    
     // Utility methods
     
+    private int parseThreads(HttpServletRequest request) {
+        String threads = request.getParameter("threads");
+        return threads != null ? Integer.parseInt(threads) : Runtime.getRuntime().availableProcessors();
+    }
+    
+    private JsonObject createTotalsJson(CustomerTotals totals) {
+        return Json.createObjectBuilder()
+                .add("customerId", totals.getCustomerId())
+                .add("billCount", totals.getBillCount())
+                .add("totalAmount", totals.getTotalAmount())
+                .add("averageBillAmount", totals.getAverageBillAmount())
+                .add("lastBillDate", totals.getLastBillDate() != null ? totals.getLastBillDate().toString() : "")
+                .build();
+    }
+    
+    private JsonObject createSegmentJson(CustomerSegment segment) {
+        return Json.createObjectBuilder()
+                .add("customerId", segment.getCustomerId())
+                .add("segment", segment.getSegment().name())
+                .add("segmentDisplayName", segment.getSegment().getDisplayName())
+                .add("rfm", segment.getRfmCode())
+                .add("recencyScore", segment.getRecencyScore())
+                .add("frequencyScore", segment.getFrequencyScore())
+                .add("monetaryScore", segment.getMonetaryScore())
+                .add("billCount", segment.getBillCount())
+                .add("totalAmount", segment.getTotalAmount())
+                .add("lastBillDate", segment.getLastBillDate().toString())
+                .build();
+    }
+    
+    private JsonObject createSegmentCountsJson(Map<Segment, Long> counts) {
+        JsonObjectBuilder countsJson = Json.createObjectBuilder();
+        long total = 0;
+        for (Map.Entry<Segment, Long> entry : counts.entrySet()) {
+            countsJson.add(entry.getKey().name(), entry.getValue());
+            total += entry.getValue();
+        }
+        return countsJson.add("total", total).build();
+    }
+    
     private Customer parseCustomerFromRequest(HttpServletRequest request) throws IOException {
-        // In a real application, you would parse JSON from request body
-        // For now, we'll get parameters from form data or query string
+        if (JsonBodyBinder.isJsonRequest(request)) {
+            return JsonBodyBinder.readCustomer(request.getInputStream());
+        }
+        // Form data or query string
         Customer customer = new Customer();
         customer.setAccountNumber(request.getParameter("accountNumber"));
         customer.setName(request.getParameter("name"));
         customer.setAddress(request.getParameter("address"));
         customer.setPhone(request.getParameter("phone"));
         customer.setEmail(request.getParameter("email"));
+        
+        String versionStr = request.getParameter("version");
+        if (versionStr != null) {
+            customer.setVersion(Integer.parseInt(versionStr));
+        }
         return customer;
     }
     
+    private JsonArrayBuilder createCustomersJson(List<Customer> customers) {
+        JsonArrayBuilder customersArray = Json.createArrayBuilder();
+        for (Customer customer : customers) {
+            customersArray.add(createCustomerJson(customer));
+        }
+        return customersArray;
+    }
+    
     private JsonObject createCustomerJson(Long id, String accountNumber, String name, 
                                         String address, String phone, String email, String registrationDate) {
         return Json.createObjectBuilder()
@@ -295,6 +560,17 @@ public class CustomerController extends HttpServlet {
                 .build();
     }
     
+    private JsonObject createCustomerJson(Customer customer) {
+        JsonObject customerJson = createCustomerJson(customer.getId(), customer.getAccountNumber(),
+                                  customer.getName(), customer.getAddress(),
+                                  customer.getPhone(), customer.getEmail(),
+                                  customer.getRegistrationDate() != null ?
+                                  customer.getRegistrationDate().toString() : "");
+        return Json.createObjectBuilder(customerJson)
+                .add("version", customer.getVersion() != null ? customer.getVersion() : 0)
+                .build();
+    }
+    
     private void sendJsonResponse(HttpServletResponse response, int statusCode, JsonObject jsonObject) 
             throws IOException {
         response.setStatus(statusCode);
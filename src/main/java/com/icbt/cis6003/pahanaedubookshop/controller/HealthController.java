@@ -0,0 +1,96 @@
+package com.icbt.cis6003.pahanaedubookshop.controller;
+
+import com.icbt.cis6003.pahanaedubookshop.service.WarmupService;
+import com.icbt.cis6003.pahanaedubookshop.service.WarmupService.WarmupStatus;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.WarmupServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.JsonUtil;
+import com.icbt.cis6003.pahanaedubookshop.util.Router;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Simple servlet controller for health checks. Never touches the database, so it
+ * answers even while the warm-up is waiting for one.
+ */
+@WebServlet(name = "HealthController", urlPatterns = {"/api/health/*"}, loadOnStartup = 1)
+public class HealthController extends HttpServlet {
+
+    private WarmupService warmupService;
+    private Router router;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        warmupService = WarmupServiceImpl.getInstance();
+        router = createRouter();
+        System.out.println("HealthController initialized");
+    }
+
+    private Router createRouter() {
+        return new Router()
+                .get("/ready", (request, response, path) -> handleGetReadiness(response));
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        // probes must see every change of state
+        response.setHeader("Cache-Control", "no-store");
+
+        if (!router.dispatch("GET", request.getPathInfo(), request, response)) {
+            sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found");
+        }
+    }
+
+    private void handleGetReadiness(HttpServletResponse response) throws IOException {
+        WarmupStatus status = warmupService.getStatus();
+        JsonObjectBuilder data = Json.createObjectBuilder()
+                .add("ready", status.isReady())
+                .add("state", status.getState().name())
+                .add("mode", status.getMode().name())
+                .add("attempts", status.getAttempts())
+                .add("databaseMillis", status.getDatabaseMillis())
+                .add("preloadMillis", status.getPreloadMillis())
+                .add("requestMillis", status.getRequestMillis())
+                .add("syntheticRequests", status.getSyntheticRequests())
+                .add("failedRequests", status.getFailedRequests());
+        if (status.getError() != null) {
+            data.add("error", status.getError());
+        }
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", status.isReady())
+                .add("data", data)
+                .build();
+        sendJsonResponse(response, status.isReady() ? HttpServletResponse.SC_OK
+                : HttpServletResponse.SC_SERVICE_UNAVAILABLE, responseJson);
+    }
+
+    // Utility methods
+
+    private void sendJsonResponse(HttpServletResponse response, int statusCode, JsonObject jsonObject)
+            throws IOException {
+        response.setStatus(statusCode);
+        try (PrintWriter out = response.getWriter()) {
+            out.print(jsonObject.toString());
+            out.flush();
+        }
+    }
+
+    private void sendErrorResponse(HttpServletResponse response, int statusCode, String message)
+            throws IOException {
+        JsonObject errorJson = JsonUtil.createErrorResponse(message);
+        sendJsonResponse(response, statusCode, errorJson);
+    }
+}
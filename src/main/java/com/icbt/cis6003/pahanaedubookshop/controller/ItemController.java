@@ -1,7 +1,21 @@
 package com.icbt.cis6003.pahanaedubookshop.controller;
 
+import com.icbt.cis6003.pahanaedubookshop.dao.OptimisticLockException;
 import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.service.BestSellerService;
+import com.icbt.cis6003.pahanaedubookshop.service.BestSellerService.ItemSales;
+import com.icbt.cis6003.pahanaedubookshop.service.BestSellerService.SalesWindow;
+import com.icbt.cis6003.pahanaedubookshop.service.ItemService;
+import com.icbt.cis6003.pahanaedubookshop.service.ItemService.InventoryStatistics;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BestSellerServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.ItemServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.HttpCacheUtil;
+import com.icbt.cis6003.pahanaedubookshop.util.JsonBodyBinder;
 import com.icbt.cis6003.pahanaedubookshop.util.JsonUtil;
+import com.icbt.cis6003.pahanaedubookshop.util.ResourceVersionTracker;
+import com.icbt.cis6003.pahanaedubookshop.util.ResponseCache;
+import com.icbt.cis6003.pahanaedubookshop.util.Router;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -14,59 +28,102 @@ import javax.json.JsonArrayBuilder;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Simple servlet controller for Item operations
  */
-@WebServlet(name = "ItemController", urlPatterns = {"/api/items/*"})
+@WebServlet(name = "ItemController", urlPatterns = {"/api/items/*"}, loadOnStartup = 1)
 public class ItemController extends HttpServlet {
 
+    private ItemService itemService;
+    private BestSellerService bestSellerService;
+    private ResourceVersionTracker versionTracker;
+    private ResponseCache responseCache;
+    private Router router;
+
     @Override
     public void init() throws ServletException {
         super.init();
+        itemService = ItemServiceImpl.getInstance();
+        bestSellerService = BestSellerServiceImpl.getInstance();
+        versionTracker = ResourceVersionTracker.getInstance();
+        responseCache = ResponseCache.getInstance();
+        router = createRouter();
         System.out.println("ItemController initialized");
     }
 
+    private Router createRouter() {
+        return new Router()
+                .get("/", (request, response, path) -> {
+                    // Get all items or search
+                    if (HttpCacheUtil.checkNotModified(request, response,
+                            versionTracker.getCollectionVersion(ResourceVersionTracker.ITEMS))) {
+                        return;
+                    }
+                    String searchTerm = request.getParameter("search");
+                    String category = request.getParameter("category");
+
+                    if (searchTerm != null && !searchTerm.trim().isEmpty()) {
+                        handleSearchItems(request, response, searchTerm, category);
+                    } else if (category != null && !category.trim().isEmpty()) {
+                        handleGetItemsByCategory(request, response, category);
+                    } else {
+                        handleGetAllItems(request, response);
+                    }
+                })
+                .get("/{id}", (request, response, path) -> {
+                    Long itemId = path.getLong(0);
+                    if (HttpCacheUtil.checkNotModified(request, response,
+                            versionTracker.getResourceVersion(ResourceVersionTracker.ITEMS, itemId))) {
+                        return;
+                    }
+                    handleGetItemById(request, response, itemId);
+                })
+                .get("/count", (request, response, path) -> handleGetItemCount(request, response))
+                .get("/low-stock", (request, response, path) -> handleGetLowStockItems(request, response))
+                .get("/in-stock", (request, response, path) -> handleGetItemsInStock(request, response))
+                .get("/statistics", (request, response, path) -> handleGetInventoryStatistics(request, response))
+                .get("/categories", (request, response, path) -> {
+                    if (HttpCacheUtil.checkNotModified(request, response,
+                            versionTracker.getCollectionVersion(ResourceVersionTracker.CATEGORIES))) {
+                        return;
+                    }
+                    handleGetCategories(request, response);
+                })
+                .get("/top-sellers", (request, response, path) ->
+                        // Get best selling items for a rolling window
+                        handleGetTopSellers(request, response,
+                                          SalesWindow.fromParameter(request.getParameter("window")),
+                                          parseLimit(request)))
+                .get("/slow-movers", (request, response, path) ->
+                        // Get slowest moving items for a rolling window
+                        handleGetSlowMovers(request, response,
+                                          SalesWindow.fromParameter(request.getParameter("window")),
+                                          parseLimit(request)))
+                .post("/", (request, response, path) ->
+                        handleCreateItem(request, response, parseItemFromRequest(request)))
+                .put("/{id}", (request, response, path) -> {
+                    Item item = parseItemFromRequest(request);
+                    item.setId(path.getLong(0));
+                    handleUpdateItem(request, response, item);
+                })
+                .put("/{id}/stock", (request, response, path) ->
+                        handleUpdateStock(request, response, path.getLong(0),
+                                        Integer.parseInt(request.getParameter("stock"))))
+                .delete("/{id}", (request, response, path) ->
+                        handleDeleteItem(request, response, path.getLong(0)));
+    }
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        if (pathInfo == null || pathInfo.equals("/")) {
-            // Get all items or search
-            String searchTerm = request.getParameter("search");
-            String category = request.getParameter("category");
-
-            if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                handleSearchItems(request, response, searchTerm, category);
-            } else if (category != null && !category.trim().isEmpty()) {
-                handleGetItemsByCategory(request, response, category);
-            } else {
-                handleGetAllItems(request, response);
-            }
-        } else if (pathInfo.matches("/\\d+")) {
-            // Get item by ID
-            Long itemId = Long.parseLong(pathInfo.substring(1));
-            handleGetItemById(request, response, itemId);
-        } else if (pathInfo.equals("/count")) {
-            // Get item count
-            handleGetItemCount(request, response);
-        } else if (pathInfo.equals("/low-stock")) {
-            // Get low stock items
-            handleGetLowStockItems(request, response);
-        } else if (pathInfo.equals("/in-stock")) {
-            // Get items in stock
-            handleGetItemsInStock(request, response);
-        } else if (pathInfo.equals("/statistics")) {
-            // Get inventory statistics
-            handleGetInventoryStatistics(request, response);
-        } else if (pathInfo.equals("/categories")) {
-            // Get available categories
-            handleGetCategories(request, response);
-        } else {
+        if (!router.dispatch("GET", request.getPathInfo(), request, response)) {
             sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found");
         }
     }
@@ -79,9 +136,12 @@ public class ItemController extends HttpServlet {
         response.setCharacterEncoding("UTF-8");
         
         try {
-            // Create new item
-            Item item = parseItemFromRequest(request);
-            handleCreateItem(request, response, item);
+            if (!router.dispatch("POST", request.getPathInfo(), request, response)) {
+                sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                                "Invalid endpoint");
+            }
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
                             "Invalid request data");
@@ -92,25 +152,16 @@ public class ItemController extends HttpServlet {
     protected void doPut(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
         try {
-            if (pathInfo != null && pathInfo.matches("/\\d+")) {
-                Long itemId = Long.parseLong(pathInfo.substring(1));
-                Item item = parseItemFromRequest(request);
-                item.setId(itemId);
-                handleUpdateItem(request, response, item);
-            } else if (pathInfo != null && pathInfo.matches("/\\d+/stock")) {
-                // Update stock
-                Long itemId = Long.parseLong(pathInfo.substring(1, pathInfo.indexOf("/stock")));
-                Integer newStock = Integer.parseInt(request.getParameter("stock"));
-                handleUpdateStock(request, response, itemId, newStock);
-            } else {
+            if (!router.dispatch("PUT", request.getPathInfo(), request, response)) {
                 sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, 
                                 "Item ID required for update");
             }
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
                             "Invalid request data");
@@ -121,15 +172,11 @@ public class ItemController extends HttpServlet {
     protected void doDelete(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         
-        String pathInfo = request.getPathInfo();
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
         try {
-            if (pathInfo != null && pathInfo.matches("/\\d+")) {
-                Long itemId = Long.parseLong(pathInfo.substring(1));
-                handleDeleteItem(request, response, itemId);
-            } else {
+            if (!router.dispatch("DELETE", request.getPathInfo(), request, response)) {
                 sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, 
                                 "Item ID required for deletion");
             }
@@ -143,20 +190,9 @@ public class ItemController extends HttpServlet {
     
     private void handleGetAllItems(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
-        // Mock data for now - replace with actual service call
-        JsonArrayBuilder itemsArray = Json.createArrayBuilder();
-        
-        // Add sample items
-        itemsArray.add(createItemJson(1L, "BOOK001", "Mathematics Grade 10", "textbook", 
-                      25.99, 50, 10, "Grade 10 Mathematics textbook"));
-        itemsArray.add(createItemJson(2L, "BOOK002", "English Literature", "textbook", 
-                      22.50, 30, 5, "English Literature reference book"));
-        itemsArray.add(createItemJson(3L, "STAT001", "Blue Pen Pack", "stationery", 
-                      3.99, 100, 20, "Pack of 10 blue pens"));
-        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", itemsArray)
+                .add("data", createItemsJson(itemService.getAllItems()))
                 .add("message", "Items retrieved successfully")
                 .build();
         
@@ -165,14 +201,11 @@ public class ItemController extends HttpServlet {
     
     private void handleGetItemById(HttpServletRequest request, HttpServletResponse response, 
                                  Long itemId) throws IOException {
-        // Mock data for now - replace with actual service call
-        if (itemId == 1L) {
-            JsonObject item = createItemJson(1L, "BOOK001", "Mathematics Grade 10", "textbook", 
-                            25.99, 50, 10, "Grade 10 Mathematics textbook");
-            
+        Optional<Item> item = itemService.getItemById(itemId);
+        if (item.isPresent()) {
             JsonObject responseJson = Json.createObjectBuilder()
                     .add("success", true)
-                    .add("data", item)
+                    .add("data", createItemJson(item.get()))
                     .add("message", "Item retrieved successfully")
                     .build();
             
@@ -184,17 +217,21 @@ public class ItemController extends HttpServlet {
     
     private void handleSearchItems(HttpServletRequest request, HttpServletResponse response, 
                                  String searchTerm, String category) throws IOException {
-        // Mock search results - replace with actual service call
-        JsonArrayBuilder itemsArray = Json.createArrayBuilder();
-        
-        if (searchTerm.toLowerCase().contains("math")) {
-            itemsArray.add(createItemJson(1L, "BOOK001", "Mathematics Grade 10", "textbook", 
-                          25.99, 50, 10, "Grade 10 Mathematics textbook"));
+        List<Item> items;
+        if (category != null && !category.trim().isEmpty()) {
+            ItemCategory itemCategory = parseCategory(category);
+            if (itemCategory == null) {
+                sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, "Unknown category: " + category);
+                return;
+            }
+            items = itemService.searchItems(searchTerm.trim(), itemCategory);
+        } else {
+            items = itemService.searchItems(searchTerm.trim());
         }
         
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", itemsArray)
+                .add("data", createItemsJson(items))
                 .add("message", "Search completed successfully")
                 .build();
         
@@ -203,19 +240,15 @@ public class ItemController extends HttpServlet {
     
     private void handleGetItemsByCategory(HttpServletRequest request, HttpServletResponse response, 
                                         String category) throws IOException {
-        // Mock category results - replace with actual service call
-        JsonArrayBuilder itemsArray = Json.createArrayBuilder();
-        
-        if (category.equals("textbook")) {
-            itemsArray.add(createItemJson(1L, "BOOK001", "Mathematics Grade 10", "textbook", 
-                          25.99, 50, 10, "Grade 10 Mathematics textbook"));
-            itemsArray.add(createItemJson(2L, "BOOK002", "English Literature", "textbook", 
-                          22.50, 30, 5, "English Literature reference book"));
+        ItemCategory itemCategory = parseCategory(category);
+        if (itemCategory == null) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, "Unknown category: " + category);
+            return;
         }
         
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", itemsArray)
+                .add("data", createItemsJson(itemService.getItemsByCategory(itemCategory)))
                 .add("message", "Items by category retrieved successfully")
                 .build();
         
@@ -224,69 +257,96 @@ public class ItemController extends HttpServlet {
     
     private void handleCreateItem(HttpServletRequest request, HttpServletResponse response, 
                                 Item item) throws IOException {
-        // Mock creation - replace with actual service call
-        JsonObject itemJson = createItemJson(4L, item.getCode(), item.getName(), 
-                              item.getCategory().toString().toLowerCase(), 
-                              item.getPrice().doubleValue(), item.getStock(), 
-                              item.getMinStock(), item.getDescription());
-        
-        JsonObject responseJson = Json.createObjectBuilder()
-                .add("success", true)
-                .add("data", itemJson)
-                .add("message", "Item created successfully")
-                .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_CREATED, responseJson);
+        try {
+            Item created = itemService.createItem(item);
+            
+            JsonObject responseJson = Json.createObjectBuilder()
+                    .add("success", true)
+                    .add("data", createItemJson(created))
+                    .add("message", "Item created successfully")
+                    .build();
+            
+            versionTracker.bump(ResourceVersionTracker.ITEMS, created.getId());
+            sendJsonResponse(response, HttpServletResponse.SC_CREATED, responseJson);
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
     }
     
     private void handleUpdateItem(HttpServletRequest request, HttpServletResponse response, 
                                 Item item) throws IOException {
-        // Mock update - replace with actual service call
-        JsonObject itemJson = createItemJson(item.getId(), item.getCode(), item.getName(), 
-                              item.getCategory().toString().toLowerCase(), 
-                              item.getPrice().doubleValue(), item.getStock(), 
-                              item.getMinStock(), item.getDescription());
-        
-        JsonObject responseJson = Json.createObjectBuilder()
-                .add("success", true)
-                .add("data", itemJson)
-                .add("message", "Item updated successfully")
-                .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        try {
+            Item updated = itemService.updateItem(item);
+            
+            JsonObject responseJson = Json.createObjectBuilder()
+                    .add("success", true)
+                    .add("data", createItemJson(updated))
+                    .add("message", "Item updated successfully")
+                    .build();
+            
+            versionTracker.bump(ResourceVersionTracker.ITEMS, item.getId());
+            sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        } catch (OptimisticLockException e) {
+            // send back the current state so the client can merge and retry
+            JsonObject current = itemService.getItemById(item.getId()).map(this::createItemJson).orElse(null);
+            sendJsonResponse(response, HttpServletResponse.SC_CONFLICT,
+                    JsonUtil.createConflictResponse("Item was modified by another request", current));
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
     }
     
     private void handleUpdateStock(HttpServletRequest request, HttpServletResponse response, 
                                  Long itemId, Integer newStock) throws IOException {
-        // Mock stock update - replace with actual service call
-        JsonObject responseJson = Json.createObjectBuilder()
-                .add("success", true)
-                .add("data", Json.createObjectBuilder()
-                    .add("itemId", itemId)
-                    .add("newStock", newStock))
-                .add("message", "Stock updated successfully")
-                .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        if (!itemService.getItemById(itemId).isPresent()) {
+            sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Item not found");
+            return;
+        }
+        try {
+            Item updated = itemService.updateItemStock(itemId, newStock);
+            
+            JsonObject responseJson = Json.createObjectBuilder()
+                    .add("success", true)
+                    .add("data", Json.createObjectBuilder()
+                        .add("itemId", itemId)
+                        .add("newStock", updated.getStock()))
+                    .add("message", "Stock updated successfully")
+                    .build();
+            
+            versionTracker.bump(ResourceVersionTracker.ITEMS, itemId);
+            sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        } catch (RuntimeException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
     }
     
     private void handleDeleteItem(HttpServletRequest request, HttpServletResponse response, 
                                 Long itemId) throws IOException {
-        // Mock deletion - replace with actual service call
-        JsonObject responseJson = Json.createObjectBuilder()
-                .add("success", true)
-                .add("message", "Item deleted successfully")
-                .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        if (!itemService.getItemById(itemId).isPresent()) {
+            sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Item not found");
+            return;
+        }
+        try {
+            itemService.deleteItem(itemId);
+            
+            JsonObject responseJson = Json.createObjectBuilder()
+                    .add("success", true)
+                    .add("message", "Item deleted successfully")
+                    .build();
+            
+            versionTracker.bump(ResourceVersionTracker.ITEMS, itemId);
+            sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+        } catch (RuntimeException e) {
+            // e.g. the item is on bills
+            sendErrorResponse(response, HttpServletResponse.SC_CONFLICT, e.getMessage());
+        }
     }
     
     private void handleGetItemCount(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
-        // Mock count - replace with actual service call
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", Json.createObjectBuilder().add("count", 150))
+                .add("data", Json.createObjectBuilder().add("count", itemService.getTotalItemCount()))
                 .add("message", "Item count retrieved successfully")
                 .build();
         
@@ -295,14 +355,9 @@ public class ItemController extends HttpServlet {
     
     private void handleGetLowStockItems(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
-        // Mock low stock items - replace with actual service call
-        JsonArrayBuilder itemsArray = Json.createArrayBuilder();
-        itemsArray.add(createItemJson(4L, "BOOK003", "Science Grade 11", "textbook", 
-                      28.75, 8, 10, "Grade 11 Science textbook"));
-        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", itemsArray)
+                .add("data", createItemsJson(itemService.getLowStockItems()))
                 .add("message", "Low stock items retrieved successfully")
                 .build();
         
@@ -311,16 +366,9 @@ public class ItemController extends HttpServlet {
     
     private void handleGetItemsInStock(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
-        // Mock in-stock items - replace with actual service call
-        JsonArrayBuilder itemsArray = Json.createArrayBuilder();
-        itemsArray.add(createItemJson(1L, "BOOK001", "Mathematics Grade 10", "textbook", 
-                      25.99, 50, 10, "Grade 10 Mathematics textbook"));
-        itemsArray.add(createItemJson(3L, "STAT001", "Blue Pen Pack", "stationery", 
-                      3.99, 100, 20, "Pack of 10 blue pens"));
-        
         JsonObject responseJson = Json.createObjectBuilder()
                 .add("success", true)
-                .add("data", itemsArray)
+                .add("data", createItemsJson(itemService.getItemsInStock()))
                 .add("message", "In-stock items retrieved successfully")
                 .build();
         
@@ -329,26 +377,37 @@ public class ItemController extends HttpServlet {
     
     private void handleGetInventoryStatistics(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
-        // Mock statistics - replace with actual service call
+        // Served pre-serialized until the next item write
+        ResponseCache.write(request, response, responseCache.get("/api/items/statistics",
+                versionTracker.getCollectionVersion(ResourceVersionTracker.ITEMS),
+                this::createInventoryStatisticsJson));
+    }
+    
+    private JsonObject createInventoryStatisticsJson() {
+        InventoryStatistics stats = itemService.getInventoryStatistics();
         JsonObject statistics = Json.createObjectBuilder()
-                .add("totalItems", 150)
-                .add("inStockItems", 120)
-                .add("lowStockItems", 15)
-                .add("outOfStockItems", 15)
-                .add("totalValue", 12500.75)
+                .add("totalItems", stats.getTotalItems())
+                .add("inStockItems", stats.getInStockItems())
+                .add("lowStockItems", stats.getLowStockItems())
+                .add("outOfStockItems", stats.getOutOfStockItems())
+                .add("totalValue", stats.getTotalValue() != null ? stats.getTotalValue() : BigDecimal.ZERO)
                 .build();
         
-        JsonObject responseJson = Json.createObjectBuilder()
+        return Json.createObjectBuilder()
                 .add("success", true)
                 .add("data", statistics)
                 .add("message", "Inventory statistics retrieved successfully")
                 .build();
-        
-        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
     private void handleGetCategories(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
+        ResponseCache.write(request, response, responseCache.get("/api/items/categories",
+                versionTracker.getCollectionVersion(ResourceVersionTracker.CATEGORIES),
+                this::createCategoriesJson));
+    }
+    
+    private JsonObject createCategoriesJson() {
         // Return available categories
         JsonArrayBuilder categoriesArray = Json.createArrayBuilder();
         categoriesArray.add(Json.createObjectBuilder()
@@ -364,20 +423,81 @@ public class ItemController extends HttpServlet {
                 .add("value", "digital")
                 .add("label", "Digital Resources"));
         
-        JsonObject responseJson = Json.createObjectBuilder()
+        return Json.createObjectBuilder()
                 .add("success", true)
                 .add("data", categoriesArray)
                 .add("message", "Categories retrieved successfully")
                 .build();
+    }
+    
+    private void handleGetTopSellers(HttpServletRequest request, HttpServletResponse response,
+                                   SalesWindow window, int limit) throws IOException {
+        List<ItemSales> topSellers = bestSellerService.getTopSellers(window, limit);
+        
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", createItemSalesJson(window, topSellers))
+                .add("message", "Top sellers retrieved successfully")
+                .build();
+        
+        sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
+    }
+    
+    private void handleGetSlowMovers(HttpServletRequest request, HttpServletResponse response,
+                                   SalesWindow window, int limit) throws IOException {
+        List<ItemSales> slowMovers = bestSellerService.getSlowMovers(window, limit);
+        
+        JsonObject responseJson = Json.createObjectBuilder()
+                .add("success", true)
+                .add("data", createItemSalesJson(window, slowMovers))
+                .add("message", "Slow movers retrieved successfully")
+                .build();
         
         sendJsonResponse(response, HttpServletResponse.SC_OK, responseJson);
     }
     
     // Utility methods
     
+    private JsonObject createItemSalesJson(SalesWindow window, List<ItemSales> itemSales) {
+        JsonArrayBuilder itemsArray = Json.createArrayBuilder();
+        for (ItemSales sales : itemSales) {
+            itemsArray.add(Json.createObjectBuilder()
+                    .add("itemId", sales.getItemId())
+                    .add("quantitySold", sales.getQuantitySold()));
+        }
+        
+        return Json.createObjectBuilder()
+                .add("window", window.getParameter())
+                .add("items", itemsArray)
+                .build();
+    }
+    
+    private JsonArrayBuilder createItemsJson(List<Item> items) {
+        JsonArrayBuilder itemsArray = Json.createArrayBuilder();
+        for (Item item : items) {
+            itemsArray.add(createItemJson(item));
+        }
+        return itemsArray;
+    }
+    
+    private ItemCategory parseCategory(String category) {
+        try {
+            return ItemCategory.valueOf(category.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private int parseLimit(HttpServletRequest request) {
+        return Integer.parseInt(request.getParameter("limit") != null ?
+                               request.getParameter("limit") : "10");
+    }
+    
     private Item parseItemFromRequest(HttpServletRequest request) throws IOException {
-        // In a real application, you would parse JSON from request body
-        // For now, we'll get parameters from form data or query string
+        if (JsonBodyBinder.isJsonRequest(request)) {
+            return JsonBodyBinder.readItem(request.getInputStream());
+        }
+        // Form data or query string
         Item item = new Item();
         item.setCode(request.getParameter("code"));
         item.setName(request.getParameter("name"));
@@ -403,6 +523,11 @@ public class ItemController extends HttpServlet {
         }
         
         item.setDescription(request.getParameter("description"));
+        
+        String versionStr = request.getParameter("version");
+        if (versionStr != null) {
+            item.setVersion(Integer.parseInt(versionStr));
+        }
         return item;
     }
     
@@ -423,6 +548,16 @@ public class ItemController extends HttpServlet {
                 .build();
     }
     
+    private JsonObject createItemJson(Item item) {
+        JsonObject itemJson = createItemJson(item.getId(), item.getCode(), item.getName(),
+                              item.getCategory().toString().toLowerCase(),
+                              item.getPrice().doubleValue(), item.getStock(),
+                              item.getMinStock(), item.getDescription());
+        return Json.createObjectBuilder(itemJson)
+                .add("version", item.getVersion() != null ? item.getVersion() : 0)
+                .build();
+    }
+    
     private void sendJsonResponse(HttpServletResponse response, int statusCode, JsonObject jsonObject) 
             throws IOException {
         response.setStatus(statusCode);
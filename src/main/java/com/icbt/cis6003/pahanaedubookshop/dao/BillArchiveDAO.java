@@ -0,0 +1,76 @@
+package com.icbt.cis6003.pahanaedubookshop.dao;
+
+import com.icbt.cis6003.pahanaedubookshop.model.ArchivedPeriod;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Data Access Object interface for the archival of closed months: the monthly
+ * partitions of bills and bill_items, and the move of a month's rows into
+ * bills_archive and bill_items_archive.
+ */
+public interface BillArchiveDAO {
+
+    /**
+     * Receives one line of an archived month, or a bill without lines with an item ID
+     * of zero. Amounts are in cents.
+     */
+    interface ArchivedLineVisitor {
+        void visit(long billId, int epochDay, BillStatus status, long billTotalCents,
+                   long itemId, String itemCode, int quantity, long unitPriceCents, long lineTotalCents);
+    }
+
+    /**
+     * Split monthly partitions off the catch-all partition of bills and bill_items up
+     * to and including the month of a day. Partition DDL commits implicitly, so this
+     * must not run inside a transaction. Does nothing on a database without partitioning.
+     * @param until last day that must have its own partition
+     */
+    void ensureMonthlyPartitions(LocalDate until);
+
+    /**
+     * Find the date of the oldest bill still in the hot tables
+     * @return Optional containing the oldest bill date if there are bills
+     */
+    Optional<LocalDate> findOldestBillDate();
+
+    /**
+     * Count the DRAFT bills dated in a range
+     * @param from first day included
+     * @param to first day excluded
+     * @return number of open bills
+     */
+    int countOpenBills(LocalDate from, LocalDate to);
+
+    /**
+     * Move the bills and bill items of a month into the archive tables and record the
+     * month. Must run in a transaction, so the rows are never in both places or neither.
+     * @param periodStart first day of the month
+     * @return the archived period
+     */
+    ArchivedPeriod archivePeriod(LocalDate periodStart);
+
+    /**
+     * Drop the now empty monthly partitions of an archived month. Partition DDL commits
+     * implicitly, so this must not run inside a transaction. Does nothing on a database
+     * without partitioning or for a month that has no partition of its own.
+     * @param periodStart first day of the month
+     */
+    void dropPartitions(LocalDate periodStart);
+
+    /**
+     * Stream the archived bills of a month with their lines, ordered by bill date,
+     * bill ID and line ID, with a forward-only cursor
+     * @param periodStart first day of the month
+     * @param visitor called once per line, and once for every bill without lines
+     */
+    void scanArchivedLines(LocalDate periodStart, ArchivedLineVisitor visitor);
+
+    /**
+     * Find all archived months
+     * @return archived periods, oldest first
+     */
+    List<ArchivedPeriod> findArchivedPeriods();
+}
@@ -2,17 +2,32 @@ package com.icbt.cis6003.pahanaedubookshop.dao;
 
 import com.icbt.cis6003.pahanaedubookshop.model.Bill;
 import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
- * Data Access Object interface for Bill operations
+ * Data Access Object interface for Bill operations.
+ * Bills returned by finder methods have their items loaded; the items of a whole
+ * result list are fetched together rather than one query per bill.
  */
 public interface BillDAO {
     
+    /**
+     * Receives the totals of one day, for each status with bills that day and for
+     * each item category sold on FINALIZED and PAID bills that day
+     */
+    interface DailyTotalsVisitor {
+        void visitStatus(LocalDate billDate, BillStatus status, long billCount, BigDecimal totalAmount);
+
+        void visitCategory(LocalDate billDate, ItemCategory category, BigDecimal lineTotal);
+    }
+    
     /**
      * Save a new bill
      * @param bill the bill to save
@@ -21,16 +36,46 @@ public interface BillDAO {
     Bill save(Bill bill);
     
     /**
-     * Update an existing bill
-     * @param bill the bill to update
-     * @return the updated bill
+     * Save a finalized bill in a single transaction: the header, all items
+     * (as one JDBC batch) and the matching stock decrements
+     * @param bill the finalized bill with its items
+     * @return the saved bill with generated IDs
+     * @throws InsufficientStockException if any item has insufficient stock (nothing is saved)
+     */
+    Bill saveFinalizedBill(Bill bill);
+    
+    /**
+     * Save finalized bills uploaded by a till that worked offline, in a single
+     * transaction: the headers, items, stock decrements and sync keys each as one
+     * JDBC batch. Bills keep their own bill date and creation time.
+     * @param billsBySyncId the finalized bills with their items, by client-generated sync ID
+     * @return the saved bills with generated IDs
+     * @throws InsufficientStockException if any item has insufficient stock (nothing is saved)
+     * @throws RuntimeException if a sync ID was already saved or the database fails
+     *         (nothing is saved)
+     */
+    List<Bill> saveSyncedBills(Map<String, Bill> billsBySyncId);
+    
+    /**
+     * Find the bills already saved for client-generated sync IDs
+     * @param syncIds the sync IDs
+     * @return bill ID by sync ID, for the sync IDs that were saved
+     */
+    Map<String, Long> findSyncedBillIds(Collection<String> syncIds);
+    
+    /**
+     * Update an existing bill if it is still at the version the caller read
+     * @param bill the bill to update, carrying the version it was read at
+     * @return the updated bill with its new version
+     * @throws OptimisticLockException if the bill was changed or deleted since it was read
      */
     Bill update(Bill bill);
     
     /**
-     * Delete a bill by ID
+     * Delete a bill of the hot months by ID, together with its lines, in one transaction.
+     * Archived bills are not deleted.
      * @param id the bill ID
-     * @return true if deleted successfully, false otherwise
+     * @return true if deleted successfully, false if there is no such bill in the hot months
      */
     boolean delete(Long id);
     
@@ -41,6 +86,13 @@ public interface BillDAO {
      */
     Optional<Bill> findById(Long id);
     
+    /**
+     * Find bills by ID, with their items loaded in one batched query
+     * @param ids the bill IDs
+     * @return the bills found, in no particular order
+     */
+    List<Bill> findByIds(Collection<Long> ids);
+    
     /**
      * Find all bills
      * @return list of all bills
@@ -191,6 +243,26 @@ public interface BillDAO {
      */
     BigDecimal getCustomerSalesTotal(Long customerId);
     
+    /**
+     * Get the all-time quantity sold per item on FINALIZED and PAID bills, archived months included
+     * @return quantity sold by item ID, for the items that were ever sold
+     */
+    Map<Long, Long> sumSoldQuantitiesByItem();
+    
+    /**
+     * Get the quantity sold per item and day on FINALIZED and PAID bills dated on or after a day
+     * @param startDate the first day
+     * @return quantity sold by item ID, by bill date
+     */
+    Map<LocalDate, Map<Long, Long>> findDailySoldQuantities(LocalDate startDate);
+    
+    /**
+     * Scan the bill count and amount per day and status of all non-draft bills, and
+     * the line totals per day and category of sales bills, archived months included
+     * @param visitor receives the totals, in no particular order
+     */
+    void scanDailyTotals(DailyTotalsVisitor visitor);
+    
     /**
      * Get average bill amount
      * @return average amount of all bills
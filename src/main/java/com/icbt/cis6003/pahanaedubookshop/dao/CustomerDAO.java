@@ -2,6 +2,7 @@ package com.icbt.cis6003.pahanaedubookshop.dao;
 
 import com.icbt.cis6003.pahanaedubookshop.model.Customer;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,9 +19,10 @@ public interface CustomerDAO {
     Customer save(Customer customer);
     
     /**
-     * Update an existing customer
-     * @param customer the customer to update
-     * @return the updated customer
+     * Update an existing customer if it is still at the version the caller read
+     * @param customer the customer to update, carrying the version it was read at
+     * @return the updated customer with its new version
+     * @throws OptimisticLockException if the customer was changed or deleted since it was read
      */
     Customer update(Customer customer);
     
@@ -31,6 +33,14 @@ public interface CustomerDAO {
      */
     boolean delete(Long id);
     
+    /**
+     * Lock a customer row until the end of the current transaction, so that no sale can
+     * refer to the customer while it is checked and deleted
+     * @param id the customer ID
+     * @return true if the customer exists
+     */
+    boolean lockById(Long id);
+    
     /**
      * Find a customer by ID
      * @param id the customer ID
@@ -45,6 +55,13 @@ public interface CustomerDAO {
      */
     Optional<Customer> findByAccountNumber(String accountNumber);
     
+    /**
+     * Find several customers by ID in a single query
+     * @param ids the customer IDs
+     * @return the customers found, in no particular order
+     */
+    List<Customer> findByIds(Collection<Long> ids);
+    
     /**
      * Find all customers
      * @return list of all customers
@@ -113,6 +130,13 @@ public interface CustomerDAO {
      */
     boolean existsById(Long id);
     
+    /**
+     * Check whether any bill was raised for a customer
+     * @param customerId the customer ID
+     * @return true if the customer has at least one bill
+     */
+    boolean isReferencedByBills(Long customerId);
+    
     /**
      * Get customers with pagination
      * @param offset the starting position
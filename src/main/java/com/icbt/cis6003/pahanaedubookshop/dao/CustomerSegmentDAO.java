@@ -0,0 +1,61 @@
+package com.icbt.cis6003.pahanaedubookshop.dao;
+
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment.Segment;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Data Access Object interface for RFM customer segmentation: the bill scan that
+ * feeds the job and the customer_segments table it writes.
+ */
+public interface CustomerSegmentDAO {
+
+    /**
+     * Receives one sales bill of the scan. Primitive arguments, so a scan over
+     * millions of bills does not box a value per bill.
+     */
+    interface SaleVisitor {
+        void visit(long customerId, int epochDay, long amountCents);
+    }
+
+    /**
+     * Stream the sales bills (FINALIZED and PAID) dated on or after a day, in bill ID
+     * order, with a forward-only cursor
+     * @param since first bill date included
+     * @param visitor called once per bill
+     * @return number of bills visited
+     */
+    long scanSalesSince(LocalDate since, SaleVisitor visitor);
+
+    /**
+     * Replace all stored segments, writing in JDBC batches. Must run in a transaction
+     * so readers never see a half-written table.
+     * @param segments the new segments
+     * @param batchSize rows per batch
+     */
+    void replaceAll(List<CustomerSegment> segments, int batchSize);
+
+    /**
+     * Find the segment of a customer
+     * @param customerId the customer ID
+     * @return Optional containing the segment if the customer was scored
+     */
+    Optional<CustomerSegment> findByCustomerId(Long customerId);
+
+    /**
+     * Find the customers in a segment
+     * @param segment the segment
+     * @param limit maximum number of customers
+     * @return customers ordered by total amount, highest first
+     */
+    List<CustomerSegment> findBySegment(Segment segment, int limit);
+
+    /**
+     * Count the customers in each segment
+     * @return customer count by segment, only segments with customers
+     */
+    Map<Segment, Long> countBySegment();
+}
@@ -0,0 +1,87 @@
+package com.icbt.cis6003.pahanaedubookshop.dao;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerTotals;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Data Access Object interface for the customer_totals rollup.
+ * The write methods are meant to run in the same transaction as the bill change
+ * they account for, so the rollup never disagrees with the bills table.
+ */
+public interface CustomerTotalsDAO {
+
+    /**
+     * Add a newly finalized bill to its customer's totals
+     * @param customerId the customer ID
+     * @param amount the bill total
+     * @param billDate the bill date
+     * @throws RuntimeException if the customer no longer exists
+     */
+    void recordSale(Long customerId, BigDecimal amount, LocalDate billDate);
+
+    /**
+     * Add several newly finalized bills to their customers' totals, as one JDBC batch
+     * @param bills the finalized bills
+     * @throws RuntimeException if a customer no longer exists
+     */
+    void recordSales(List<Bill> bills);
+
+    /**
+     * Take a cancelled sales bill out of its customer's totals.
+     * Must run after the bill's status has been changed, so the last bill date
+     * can be recomputed from the remaining sales bills.
+     * @param customerId the customer ID
+     * @param amount the bill total
+     * @param billDate the bill date
+     */
+    void recordCancellation(Long customerId, BigDecimal amount, LocalDate billDate);
+
+    /**
+     * Find the totals of a customer
+     * @param customerId the customer ID
+     * @return Optional containing the totals if the customer has any sales
+     */
+    Optional<CustomerTotals> findByCustomerId(Long customerId);
+
+    /**
+     * Find the customers with the highest purchase totals
+     * @param limit maximum number of customers
+     * @return totals ordered by total amount, highest first
+     */
+    List<CustomerTotals> findTopByTotalAmount(int limit);
+
+    /**
+     * Recompute the stored totals of a range of customers from the bills table
+     * @param fromCustomerId first customer ID (inclusive)
+     * @param toCustomerId last customer ID (inclusive)
+     * @return number of customers with sales in the range
+     */
+    int rebuildRange(long fromCustomerId, long toCustomerId);
+
+    /**
+     * Get the stored totals of a range of customers
+     * @param fromCustomerId first customer ID (inclusive)
+     * @param toCustomerId last customer ID (inclusive)
+     * @return stored totals by customer ID
+     */
+    Map<Long, CustomerTotals> findStoredRange(long fromCustomerId, long toCustomerId);
+
+    /**
+     * Compute the totals of a range of customers from the bills table
+     * @param fromCustomerId first customer ID (inclusive)
+     * @param toCustomerId last customer ID (inclusive)
+     * @return computed totals by customer ID, only for customers with sales
+     */
+    Map<Long, CustomerTotals> computeRange(long fromCustomerId, long toCustomerId);
+
+    /**
+     * Get the lowest and highest customer ID
+     * @return array of {min, max}, or {0, -1} if there are no customers
+     */
+    long[] findCustomerIdRange();
+}
@@ -0,0 +1,20 @@
+package com.icbt.cis6003.pahanaedubookshop.dao;
+
+/**
+ * Thrown when saving a bill would take an item's stock below zero. The decrement is
+ * conditional (UPDATE ... WHERE id = ? AND stock >= ?), so the bill is rolled back
+ * rather than overselling; unlike a database failure, retrying will not help.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long itemId;
+
+    public InsufficientStockException(Long itemId, String itemName) {
+        super("Insufficient stock for item: " + itemName);
+        this.itemId = itemId;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+}
@@ -3,6 +3,7 @@ package com.icbt.cis6003.pahanaedubookshop.dao;
 import com.icbt.cis6003.pahanaedubookshop.model.Item;
 import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,9 +20,10 @@ public interface ItemDAO {
     Item save(Item item);
     
     /**
-     * Update an existing item
-     * @param item the item to update
-     * @return the updated item
+     * Update an existing item if it is still at the version the caller read
+     * @param item the item to update, carrying the version it was read at
+     * @return the updated item with its new version
+     * @throws OptimisticLockException if the item was changed or deleted since it was read
      */
     Item update(Item item);
     
@@ -32,6 +34,14 @@ public interface ItemDAO {
      */
     boolean delete(Long id);
     
+    /**
+     * Lock a item row until the end of the current transaction, so that no sale can
+     * refer to the item while it is checked and deleted
+     * @param id the item ID
+     * @return true if the item exists
+     */
+    boolean lockById(Long id);
+    
     /**
      * Find an item by ID
      * @param id the item ID
@@ -46,6 +56,13 @@ public interface ItemDAO {
      */
     Optional<Item> findByCode(String code);
     
+    /**
+     * Find several items by ID in a single query
+     * @param ids the item IDs
+     * @return the items found, in no particular order
+     */
+    List<Item> findByIds(Collection<Long> ids);
+    
     /**
      * Find all items
      * @return list of all items
@@ -131,6 +148,13 @@ public interface ItemDAO {
      */
     boolean increaseStock(Long itemId, Integer quantity);
     
+    /**
+     * Check whether any bill line refers to an item
+     * @param itemId the item ID
+     * @return true if the item appears on at least one bill
+     */
+    boolean isReferencedByBills(Long itemId);
+    
     /**
      * Get the total count of items
      * @return total number of items
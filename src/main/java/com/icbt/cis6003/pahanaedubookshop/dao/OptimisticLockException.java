@@ -0,0 +1,34 @@
+package com.icbt.cis6003.pahanaedubookshop.dao;
+
+/**
+ * Thrown when an update is rejected because the row was changed since it was read.
+ * Updates carry the version the caller last saw and only apply when it still matches
+ * (UPDATE ... WHERE id = ? AND version = ?), so a conflicting write fails instead of
+ * silently overwriting the other one.
+ */
+public class OptimisticLockException extends RuntimeException {
+
+    private final String entityName;
+    private final Long entityId;
+    private final Integer expectedVersion;
+
+    public OptimisticLockException(String entityName, Long entityId, Integer expectedVersion) {
+        super(entityName + " " + entityId + " was modified by another request (expected version "
+                + expectedVersion + ")");
+        this.entityName = entityName;
+        this.entityId = entityId;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Integer getExpectedVersion() {
+        return expectedVersion;
+    }
+}
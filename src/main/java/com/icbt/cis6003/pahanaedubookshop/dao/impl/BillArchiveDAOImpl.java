@@ -0,0 +1,221 @@
+package com.icbt.cis6003.pahanaedubookshop.dao.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillArchiveDAO;
+import com.icbt.cis6003.pahanaedubookshop.model.ArchivedPeriod;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC implementation of BillArchiveDAO.
+ * On MySQL bills and bill_items are range partitioned by month on bill_date, so the
+ * copy and delete of a month touch one partition each, and the emptied partitions are
+ * dropped afterwards. The embedded H2 database has no partitioning and only moves rows.
+ */
+public class BillArchiveDAOImpl implements BillArchiveDAO {
+
+    private static final String BILL_COLUMNS = "id, customer_id, customer_name, customer_account_number, " +
+            "bill_date, subtotal, tax_amount, total_amount, tax_rate, status, version, created_at, updated_at";
+
+    private static final String BILL_ITEM_COLUMNS = "id, bill_id, bill_date, item_id, item_code, item_name, " +
+            "item_category, unit_price, quantity, total, created_at";
+
+    private static final String RANGE = " WHERE bill_date >= ? AND bill_date < ?";
+
+    // amounts come back in cents so the scan never builds a BigDecimal
+    private static final String SCAN_ARCHIVED_LINES =
+            "SELECT b.id, b.bill_date, b.status, ROUND(b.total_amount * 100), i.item_id, i.item_code, i.quantity, " +
+            "ROUND(i.unit_price * 100), ROUND(i.total * 100) " +
+            "FROM bills_archive b LEFT JOIN bill_items_archive i ON i.bill_id = b.id " +
+            "WHERE b.bill_date >= ? AND b.bill_date < ? ORDER BY b.bill_date, b.id, i.id";
+
+    private static final int EMBEDDED_FETCH_SIZE = 5000;
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    @Override
+    public void ensureMonthlyPartitions(LocalDate until) {
+        if (DatabaseConnection.getConfig().isEmbedded()) {
+            return;
+        }
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            for (String table : new String[] {BillTables.HOT_BILLS, BillTables.HOT_BILL_ITEMS}) {
+                if (!isPartitioned(connection, table)) {
+                    continue;
+                }
+                try (CallableStatement cs = connection.prepareCall("{CALL AddMonthlyPartitions(?, ?)}")) {
+                    cs.setString(1, table);
+                    cs.setDate(2, Date.valueOf(until));
+                    cs.execute();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error adding bill partitions: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<LocalDate> findOldestBillDate() {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT MIN(bill_date) FROM bills");
+             ResultSet rs = ps.executeQuery()) {
+            Date oldest = rs.next() ? rs.getDate(1) : null;
+            return oldest != null ? Optional.of(oldest.toLocalDate()) : Optional.empty();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding oldest bill date: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int countOpenBills(LocalDate from, LocalDate to) {
+        String sql = "SELECT COUNT(*) FROM bills" + RANGE + " AND status = 'DRAFT'";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            setRange(ps, from, to);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting open bills: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ArchivedPeriod archivePeriod(LocalDate periodStart) {
+        LocalDate periodEnd = periodStart.plusMonths(1);
+        // queries must stop reading these rows from the hot tables before they move
+        BillTables.advanceHotFrom(periodEnd);
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            int bills = execute(connection, "INSERT INTO bills_archive (" + BILL_COLUMNS + ") SELECT " +
+                    BILL_COLUMNS + " FROM " + BillTables.HOT_BILLS + RANGE, periodStart, periodEnd);
+            int items = execute(connection, "INSERT INTO bill_items_archive (" + BILL_ITEM_COLUMNS + ") SELECT " +
+                    BILL_ITEM_COLUMNS + " FROM " + BillTables.HOT_BILL_ITEMS + RANGE, periodStart, periodEnd);
+            // bill items go first: on H2 they still reference bills
+            execute(connection, "DELETE FROM " + BillTables.HOT_BILL_ITEMS + RANGE, periodStart, periodEnd);
+            execute(connection, "DELETE FROM " + BillTables.HOT_BILLS + RANGE, periodStart, periodEnd);
+
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO bill_archive_periods (period_start, bill_count, item_count) VALUES (?, ?, ?)")) {
+                ps.setDate(1, Date.valueOf(periodStart));
+                ps.setInt(2, bills);
+                ps.setInt(3, items);
+                ps.executeUpdate();
+            }
+            return new ArchivedPeriod(periodStart, bills, items, null);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error archiving bills of " + periodStart + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void dropPartitions(LocalDate periodStart) {
+        if (DatabaseConnection.getConfig().isEmbedded()) {
+            return;
+        }
+        String partition = periodStart.format(PARTITION_NAME);
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            for (String table : new String[] {BillTables.HOT_BILL_ITEMS, BillTables.HOT_BILLS}) {
+                if (hasPartition(connection, table, partition)) {
+                    try (Statement stmt = connection.createStatement()) {
+                        stmt.executeUpdate("ALTER TABLE " + table + " DROP PARTITION " + partition);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error dropping bill partitions: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void scanArchivedLines(LocalDate periodStart, ArchivedLineVisitor visitor) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SCAN_ARCHIVED_LINES,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J streams row by row only with this fetch size; H2 rejects it
+            ps.setFetchSize(DatabaseConnection.getConfig().isEmbedded() ? EMBEDDED_FETCH_SIZE : Integer.MIN_VALUE);
+            setRange(ps, periodStart, periodStart.plusMonths(1));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visit(rs.getLong(1), (int) rs.getDate(2).toLocalDate().toEpochDay(),
+                            BillStatus.valueOf(rs.getString(3)), rs.getLong(4), rs.getLong(5), rs.getString(6),
+                            rs.getInt(7), rs.getLong(8), rs.getLong(9));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error scanning archived bills of " + periodStart + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<ArchivedPeriod> findArchivedPeriods() {
+        List<ArchivedPeriod> periods = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(
+                     "SELECT period_start, bill_count, item_count, archived_at FROM bill_archive_periods " +
+                     "ORDER BY period_start");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Timestamp archivedAt = rs.getTimestamp("archived_at");
+                periods.add(new ArchivedPeriod(
+                        rs.getDate("period_start").toLocalDate(),
+                        rs.getInt("bill_count"),
+                        rs.getInt("item_count"),
+                        archivedAt != null ? archivedAt.toLocalDateTime() : null
+                ));
+            }
+            return periods;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding archived periods: " + e.getMessage(), e);
+        }
+    }
+
+    // Helper methods
+
+    private int execute(Connection connection, String sql, LocalDate from, LocalDate to) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            setRange(ps, from, to);
+            return ps.executeUpdate();
+        }
+    }
+
+    private void setRange(PreparedStatement ps, LocalDate from, LocalDate to) throws SQLException {
+        ps.setDate(1, Date.valueOf(from));
+        ps.setDate(2, Date.valueOf(to));
+    }
+
+    private boolean isPartitioned(Connection connection, String table) throws SQLException {
+        return countPartitions(connection, table, null) > 0;
+    }
+
+    private boolean hasPartition(Connection connection, String table, String partition) throws SQLException {
+        return countPartitions(connection, table, partition) > 0;
+    }
+
+    private int countPartitions(Connection connection, String table, String partition) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM information_schema.PARTITIONS " +
+                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME " +
+                     (partition != null ? "= ?" : "IS NOT NULL");
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, table);
+            if (partition != null) {
+                ps.setString(2, partition);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,821 @@
+package com.icbt.cis6003.pahanaedubookshop.dao.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerTotalsDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.InsufficientStockException;
+import com.icbt.cis6003.pahanaedubookshop.dao.OptimisticLockException;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * JDBC implementation of BillDAO.
+ * bills and bill_items are partitioned by month of bill_date, so lookups, lists and
+ * writes carry a bill_date predicate. Queries over a date range read the archive as
+ * well when the range reaches into archived months (see BillTables). Lookups by ID try
+ * the hot months first and fall back to the archived ones; the other lists cover the
+ * hot months only. The all-time figures (count, countByStatus, getCustomerSalesTotal,
+ * getAverageBillAmount, sumSoldQuantitiesByItem and scanDailyTotals) have no date
+ * bound and read every partition of the all_bills views.
+ */
+public class BillDAOImpl implements BillDAO {
+
+    private static final String BILL_COLUMNS =
+            "id, customer_id, customer_name, customer_account_number, bill_date, subtotal, " +
+            "tax_amount, total_amount, tax_rate, status, created_at, version";
+
+    private static final String SELECT_BILLS = "SELECT " + BILL_COLUMNS + " FROM bills";
+
+    private static final String SELECT_ARCHIVED_BILLS = "SELECT " + BILL_COLUMNS + " FROM " + BillTables.ALL_BILLS;
+
+    private static final String BILL_ITEM_COLUMNS =
+            "id, bill_id, item_id, item_code, item_name, item_category, unit_price, quantity, total";
+
+    // upper bound on IN (...) list length per query
+    private static final int MAX_IN_PARAMETERS = 500;
+
+    private static final String SALES_STATUS = "status IN ('FINALIZED', 'PAID')";
+
+    // lower bound of the hot range while nothing has been archived
+    private static final LocalDate FIRST_BILL_DATE = LocalDate.of(1970, 1, 1);
+
+    // bill_date predicates of the hot months and of the archived months before them
+    private static final String HOT_RANGE = "bill_date >= ?";
+    private static final String ARCHIVED_RANGE = "bill_date < ?";
+
+    private static final String INSERT_BILL =
+            "INSERT INTO bills (customer_id, customer_name, customer_account_number, bill_date, " +
+            "subtotal, tax_amount, total_amount, tax_rate, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // bills synced from a till keep the time they were made, not the time they arrived
+    private static final String INSERT_SYNCED_BILL =
+            "INSERT INTO bills (customer_id, customer_name, customer_account_number, bill_date, " +
+            "subtotal, tax_amount, total_amount, tax_rate, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SYNC_KEY =
+            "INSERT INTO bill_sync_keys (sync_id, bill_id, bill_date) VALUES (?, ?, ?)";
+
+    private static final String INSERT_BILL_ITEM =
+            "INSERT INTO bill_items (bill_id, bill_date, item_id, item_code, item_name, item_category, " +
+            "unit_price, quantity, total) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DECREASE_STOCK =
+            "UPDATE items SET stock = stock - ?, version = version + 1 WHERE id = ? AND stock >= ?";
+
+    private final TransactionManager transactionManager = TransactionManager.getInstance();
+    private final CustomerTotalsDAO customerTotalsDAO = new CustomerTotalsDAOImpl();
+
+    @Override
+    public Bill save(Bill bill) {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            insertBill(connection, bill);
+            return bill;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving bill: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Bill saveFinalizedBill(Bill bill) {
+        try {
+            return transactionManager.inTransaction(() -> {
+                try (Connection connection = DatabaseConnection.getConnection()) {
+                    insertBill(connection, bill);
+                    insertBillItems(connection, Collections.singletonList(bill));
+                    decreaseStock(connection, Collections.singletonList(bill));
+                    customerTotalsDAO.recordSale(bill.getCustomerId(), bill.getTotalAmount(), bill.getBillDate());
+                    return bill;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error saving finalized bill: " + e.getMessage(), e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // rolled back, so the generated IDs no longer exist
+            bill.setId(null);
+            bill.setVersion(null);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Bill> saveSyncedBills(Map<String, Bill> billsBySyncId) {
+        List<Bill> bills = new ArrayList<>(billsBySyncId.values());
+        try {
+            return transactionManager.inTransaction(() -> {
+                try (Connection connection = DatabaseConnection.getConnection()) {
+                    insertSyncedBills(connection, bills);
+                    insertSyncKeys(connection, billsBySyncId);
+                    insertBillItems(connection, bills);
+                    decreaseStock(connection, bills);
+                    customerTotalsDAO.recordSales(bills);
+                    return bills;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error saving synced bills: " + e.getMessage(), e);
+                }
+            });
+        } catch (RuntimeException e) {
+            for (Bill bill : bills) {
+                bill.setId(null);
+                bill.setVersion(null);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, Long> findSyncedBillIds(Collection<String> syncIds) {
+        Map<String, Long> billIds = new HashMap<>();
+        if (syncIds == null || syncIds.isEmpty()) {
+            return billIds;
+        }
+        List<String> idList = new ArrayList<>(syncIds);
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < idList.size(); from += MAX_IN_PARAMETERS) {
+                List<String> chunk = idList.subList(from, Math.min(idList.size(), from + MAX_IN_PARAMETERS));
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "SELECT sync_id, bill_id FROM bill_sync_keys WHERE sync_id IN (" + placeholders(chunk.size()) + ")")) {
+                    bind(ps, chunk.toArray());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            billIds.put(rs.getString("sync_id"), rs.getLong("bill_id"));
+                        }
+                    }
+                }
+            }
+            return billIds;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding synced bills: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Bill update(Bill bill) {
+        // bill_date is the partitioning key: it selects the partition and is never changed
+        String sql = "UPDATE bills SET customer_id = ?, customer_name = ?, customer_account_number = ?, " +
+                     "subtotal = ?, tax_amount = ?, total_amount = ?, tax_rate = ?, status = ?, " +
+                     "version = version + 1 WHERE id = ? AND bill_date = ? AND version = ?";
+        if (bill.getVersion() == null) {
+            throw new IllegalArgumentException("Bill version required for update");
+        }
+        if (!BillTables.isHot(bill.getBillDate())) {
+            throw new IllegalStateException("Bills of archived months cannot be changed");
+        }
+        int version = bill.getVersion();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, bill.getCustomerId());
+            ps.setString(2, bill.getCustomerName());
+            ps.setString(3, bill.getCustomerAccountNumber());
+            ps.setBigDecimal(4, orZero(bill.getSubtotal()));
+            ps.setBigDecimal(5, orZero(bill.getTaxAmount()));
+            ps.setBigDecimal(6, orZero(bill.getTotalAmount()));
+            ps.setBigDecimal(7, bill.getTaxRate());
+            ps.setString(8, bill.getStatus().name());
+            ps.setLong(9, bill.getId());
+            ps.setDate(10, Date.valueOf(bill.getBillDate()));
+            ps.setInt(11, version);
+            if (ps.executeUpdate() == 0) {
+                throw new OptimisticLockException("Bill", bill.getId(), version);
+            }
+            bill.setVersion(version + 1);
+            return bill;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating bill: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        // the partitioned tables have no foreign keys, so the lines go in the same transaction
+        LocalDate hotFrom = hotFrom();
+        return transactionManager.inTransaction(() -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                LocalDate billDate;
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "SELECT bill_date FROM bills WHERE id = ? AND " + HOT_RANGE + " FOR UPDATE")) {
+                    bind(ps, id, hotFrom);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        billDate = rs.getDate(1).toLocalDate();
+                    }
+                }
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "DELETE FROM bill_items WHERE bill_id = ? AND bill_date = ?")) {
+                    bind(ps, id, billDate);
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "DELETE FROM bills WHERE id = ? AND bill_date = ?")) {
+                    bind(ps, id, billDate);
+                    return ps.executeUpdate() > 0;
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error deleting bill: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @Override
+    public Optional<Bill> findById(Long id) {
+        LocalDate hotFrom = hotFrom();
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            List<Bill> bills = queryBills(connection, SELECT_BILLS + " WHERE id = ? AND " + HOT_RANGE, id, hotFrom);
+            if (bills.isEmpty() && BillTables.getHotFrom() != null) {
+                bills = queryBills(connection, SELECT_ARCHIVED_BILLS + " WHERE id = ? AND " + ARCHIVED_RANGE,
+                        id, hotFrom);
+            }
+            if (bills.isEmpty()) {
+                return Optional.empty();
+            }
+            loadItems(connection, bills);
+            return Optional.of(bills.get(0));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding bill: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Bill> findByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDate hotFrom = hotFrom();
+        List<Bill> bills = new ArrayList<>(ids.size());
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            queryBillsByIds(connection, SELECT_BILLS, HOT_RANGE, hotFrom, new ArrayList<>(ids), bills);
+            if (bills.size() < ids.size() && BillTables.getHotFrom() != null) {
+                Set<Long> missing = new LinkedHashSet<>(ids);
+                for (Bill bill : bills) {
+                    missing.remove(bill.getId());
+                }
+                queryBillsByIds(connection, SELECT_ARCHIVED_BILLS, ARCHIVED_RANGE, hotFrom,
+                        new ArrayList<>(missing), bills);
+            }
+            loadItems(connection, bills);
+            return bills;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding bills: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Bill> findAll() {
+        return findBills(SELECT_BILLS + " WHERE " + HOT_RANGE + " ORDER BY created_at DESC", hotFrom());
+    }
+
+    @Override
+    public List<Bill> findByCustomerId(Long customerId) {
+        return findBills(SELECT_BILLS + " WHERE customer_id = ? AND " + HOT_RANGE + " ORDER BY created_at DESC",
+                customerId, hotFrom());
+    }
+
+    @Override
+    public List<Bill> findByStatus(BillStatus status) {
+        return findBills(SELECT_BILLS + " WHERE status = ? AND " + HOT_RANGE + " ORDER BY created_at DESC",
+                status.name(), hotFrom());
+    }
+
+    @Override
+    public List<Bill> findByDate(LocalDate date) {
+        return findBills(selectBills(date) + " WHERE bill_date = ? ORDER BY created_at DESC", date);
+    }
+
+    @Override
+    public List<Bill> findByDateBetween(LocalDate startDate, LocalDate endDate) {
+        return findBills(selectBills(startDate) + " WHERE bill_date BETWEEN ? AND ? ORDER BY bill_date DESC",
+                startDate, endDate);
+    }
+
+    @Override
+    public List<Bill> findByCreatedAtBetween(LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        return findBills(SELECT_BILLS + " WHERE created_at BETWEEN ? AND ? AND " + HOT_RANGE +
+                " ORDER BY created_at DESC", startDateTime, endDateTime, hotFrom());
+    }
+
+    @Override
+    public List<Bill> findByCustomerAndDateBetween(Long customerId, LocalDate startDate, LocalDate endDate) {
+        return findBills(selectBills(startDate) + " WHERE customer_id = ? AND bill_date BETWEEN ? AND ? " +
+                "ORDER BY bill_date DESC", customerId, startDate, endDate);
+    }
+
+    @Override
+    public List<Bill> findByTotalAmountGreaterThan(BigDecimal amount) {
+        return findBills(SELECT_BILLS + " WHERE total_amount >= ? AND " + HOT_RANGE +
+                " ORDER BY total_amount DESC", amount, hotFrom());
+    }
+
+    @Override
+    public List<Bill> findByTotalAmountBetween(BigDecimal minAmount, BigDecimal maxAmount) {
+        return findBills(SELECT_BILLS + " WHERE total_amount BETWEEN ? AND ? AND " + HOT_RANGE +
+                " ORDER BY total_amount DESC", minAmount, maxAmount, hotFrom());
+    }
+
+    @Override
+    public List<Bill> findRecentBills(int limit) {
+        // try the current and previous month first, so only their partitions are read
+        List<Bill> bills = findBills(SELECT_BILLS + " WHERE bill_date >= ? ORDER BY created_at DESC LIMIT ?",
+                LocalDate.now().withDayOfMonth(1).minusMonths(1), limit);
+        if (bills.size() < limit) {
+            bills = findBills(SELECT_BILLS + " WHERE " + HOT_RANGE + " ORDER BY created_at DESC LIMIT ?",
+                    hotFrom(), limit);
+        }
+        return bills;
+    }
+
+    @Override
+    public List<Bill> findTodaysBills() {
+        return findByDate(LocalDate.now());
+    }
+
+    @Override
+    public List<Bill> findCurrentMonthBills() {
+        LocalDate today = LocalDate.now();
+        return findByDateBetween(today.withDayOfMonth(1), today);
+    }
+
+    @Override
+    public List<Bill> findCurrentYearBills() {
+        LocalDate today = LocalDate.now();
+        return findByDateBetween(today.withDayOfYear(1), today);
+    }
+
+    @Override
+    public long count() {
+        return queryLong("SELECT COUNT(*) FROM " + BillTables.ALL_BILLS);
+    }
+
+    @Override
+    public long countByStatus(BillStatus status) {
+        return queryLong("SELECT COUNT(*) FROM " + BillTables.ALL_BILLS + " WHERE status = ?", status.name());
+    }
+
+    @Override
+    public long countTodaysBills() {
+        return queryLong("SELECT COUNT(*) FROM bills WHERE bill_date = ?", LocalDate.now());
+    }
+
+    @Override
+    public long countCurrentMonthBills() {
+        LocalDate today = LocalDate.now();
+        return queryLong("SELECT COUNT(*) FROM bills WHERE bill_date BETWEEN ? AND ?",
+                today.withDayOfMonth(1), today);
+    }
+
+    @Override
+    public BigDecimal getTodaysSalesTotal() {
+        LocalDate today = LocalDate.now();
+        return getSalesTotalBetween(today, today);
+    }
+
+    @Override
+    public BigDecimal getCurrentMonthSalesTotal() {
+        LocalDate today = LocalDate.now();
+        return getSalesTotalBetween(today.withDayOfMonth(1), today);
+    }
+
+    @Override
+    public BigDecimal getCurrentYearSalesTotal() {
+        LocalDate today = LocalDate.now();
+        return getSalesTotalBetween(today.withDayOfYear(1), today);
+    }
+
+    @Override
+    public BigDecimal getSalesTotalBetween(LocalDate startDate, LocalDate endDate) {
+        return queryDecimal("SELECT COALESCE(SUM(total_amount), 0) FROM " + BillTables.bills(startDate) +
+                " WHERE " + SALES_STATUS + " AND bill_date BETWEEN ? AND ?", startDate, endDate);
+    }
+
+    @Override
+    public BigDecimal getCustomerSalesTotal(Long customerId) {
+        return queryDecimal("SELECT COALESCE(SUM(total_amount), 0) FROM " + BillTables.ALL_BILLS +
+                " WHERE " + SALES_STATUS + " AND customer_id = ?", customerId);
+    }
+
+    @Override
+    public Map<Long, Long> sumSoldQuantitiesByItem() {
+        String sql = "SELECT bi.item_id, SUM(bi.quantity) FROM " + BillTables.ALL_BILL_ITEMS + " bi JOIN " +
+                     BillTables.ALL_BILLS + " b ON b.id = bi.bill_id AND b.bill_date = bi.bill_date " +
+                     "WHERE b." + SALES_STATUS + " GROUP BY bi.item_id";
+        Map<Long, Long> quantities = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                quantities.put(rs.getLong(1), rs.getLong(2));
+            }
+            return quantities;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error summing sold quantities: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<LocalDate, Map<Long, Long>> findDailySoldQuantities(LocalDate startDate) {
+        String sql = "SELECT bi.bill_date, bi.item_id, SUM(bi.quantity) FROM " + BillTables.billItems(startDate) +
+                     " bi JOIN " + BillTables.bills(startDate) + " b ON b.id = bi.bill_id AND b.bill_date = bi.bill_date " +
+                     "WHERE b." + SALES_STATUS + " AND b.bill_date >= ? AND bi.bill_date >= ? " +
+                     "GROUP BY bi.bill_date, bi.item_id";
+        Map<LocalDate, Map<Long, Long>> quantities = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, startDate, startDate);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    quantities.computeIfAbsent(rs.getDate(1).toLocalDate(), day -> new HashMap<>())
+                            .put(rs.getLong(2), rs.getLong(3));
+                }
+            }
+            return quantities;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding daily sold quantities: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void scanDailyTotals(DailyTotalsVisitor visitor) {
+        String statusTotals = "SELECT bill_date, status, COUNT(*), COALESCE(SUM(total_amount), 0) FROM " +
+                              BillTables.ALL_BILLS + " WHERE status <> 'DRAFT' GROUP BY bill_date, status";
+        String categoryTotals = "SELECT bi.bill_date, bi.item_category, COALESCE(SUM(bi.total), 0) FROM " +
+                                BillTables.ALL_BILL_ITEMS + " bi JOIN " + BillTables.ALL_BILLS +
+                                " b ON b.id = bi.bill_id AND b.bill_date = bi.bill_date WHERE b." + SALES_STATUS +
+                                " AND bi.item_category IS NOT NULL GROUP BY bi.bill_date, bi.item_category";
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement(statusTotals);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visitStatus(rs.getDate(1).toLocalDate(), BillStatus.valueOf(rs.getString(2)),
+                            rs.getLong(3), rs.getBigDecimal(4));
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(categoryTotals);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visitCategory(rs.getDate(1).toLocalDate(), ItemCategory.valueOf(rs.getString(2)),
+                            rs.getBigDecimal(3));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error scanning daily bill totals: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public BigDecimal getAverageBillAmount() {
+        return queryDecimal("SELECT COALESCE(AVG(total_amount), 0) FROM " + BillTables.ALL_BILLS +
+                " WHERE " + SALES_STATUS);
+    }
+
+    @Override
+    public BigDecimal getCurrentMonthAverageBillAmount() {
+        LocalDate today = LocalDate.now();
+        return queryDecimal("SELECT COALESCE(AVG(total_amount), 0) FROM bills WHERE " + SALES_STATUS +
+                " AND bill_date BETWEEN ? AND ?", today.withDayOfMonth(1), today);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        LocalDate hotFrom = hotFrom();
+        if (queryLong("SELECT COUNT(*) FROM bills WHERE id = ? AND " + HOT_RANGE, id, hotFrom) > 0) {
+            return true;
+        }
+        return BillTables.getHotFrom() != null && queryLong("SELECT COUNT(*) FROM " + BillTables.ALL_BILLS +
+                " WHERE id = ? AND " + ARCHIVED_RANGE, id, hotFrom) > 0;
+    }
+
+    @Override
+    public List<Bill> findWithPagination(int offset, int limit) {
+        // early pages fall within the current and previous month, so try their partitions first
+        List<Bill> bills = findBills(SELECT_BILLS + " WHERE bill_date >= ? ORDER BY created_at DESC LIMIT ? OFFSET ?",
+                LocalDate.now().withDayOfMonth(1).minusMonths(1), limit, offset);
+        if (bills.size() < limit) {
+            bills = findBills(SELECT_BILLS + " WHERE " + HOT_RANGE + " ORDER BY created_at DESC LIMIT ? OFFSET ?",
+                    hotFrom(), limit, offset);
+        }
+        return bills;
+    }
+
+    @Override
+    public List<Bill> findByCustomerNameContaining(String customerName) {
+        return findBills(SELECT_BILLS + " WHERE LOWER(customer_name) LIKE ? AND " + HOT_RANGE +
+                " ORDER BY created_at DESC", "%" + customerName.toLowerCase() + "%", hotFrom());
+    }
+
+    // Helper methods
+
+    private void insertBill(Connection connection, Bill bill) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_BILL, Statement.RETURN_GENERATED_KEYS)) {
+            bindBill(ps, bill);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    bill.setId(keys.getLong(1));
+                }
+            }
+            bill.setVersion(0);
+        }
+    }
+
+    private void insertSyncedBills(Connection connection, List<Bill> bills) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SYNCED_BILL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Bill bill : bills) {
+                bindBill(ps, bill);
+                ps.setTimestamp(10, Timestamp.valueOf(bill.getCreatedAt()));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (Bill bill : bills) {
+                    if (!keys.next()) {
+                        throw new SQLException("No generated key for synced bill");
+                    }
+                    bill.setId(keys.getLong(1));
+                    bill.setVersion(0);
+                }
+            }
+        }
+    }
+
+    private void insertSyncKeys(Connection connection, Map<String, Bill> billsBySyncId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SYNC_KEY)) {
+            for (Map.Entry<String, Bill> entry : billsBySyncId.entrySet()) {
+                ps.setString(1, entry.getKey());
+                ps.setLong(2, entry.getValue().getId());
+                ps.setDate(3, Date.valueOf(entry.getValue().getBillDate()));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertBillItems(Connection connection, List<Bill> bills) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_BILL_ITEM)) {
+            for (Bill bill : bills) {
+                for (BillItem billItem : bill.getItems()) {
+                    billItem.setBillId(bill.getId());
+                    ps.setLong(1, bill.getId());
+                    ps.setDate(2, Date.valueOf(bill.getBillDate()));
+                    ps.setLong(3, billItem.getItemId());
+                    ps.setString(4, billItem.getItemCode());
+                    ps.setString(5, billItem.getItemName());
+                    if (billItem.getItemCategory() != null) {
+                        ps.setString(6, billItem.getItemCategory().name());
+                    } else {
+                        ps.setNull(6, Types.VARCHAR);
+                    }
+                    ps.setBigDecimal(7, billItem.getUnitPrice());
+                    ps.setInt(8, billItem.getQuantity());
+                    ps.setBigDecimal(9, billItem.getTotal());
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void decreaseStock(Connection connection, List<Bill> bills) throws SQLException {
+        // one decrement per item, however many bills sold it
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (Bill bill : bills) {
+            for (BillItem billItem : bill.getItems()) {
+                quantities.merge(billItem.getItemId(), billItem.getQuantity(), Integer::sum);
+                names.put(billItem.getItemId(), billItem.getItemName());
+            }
+        }
+        List<Long> itemIds = new ArrayList<>(quantities.keySet());
+        try (PreparedStatement ps = connection.prepareStatement(DECREASE_STOCK)) {
+            for (Long itemId : itemIds) {
+                ps.setInt(1, quantities.get(itemId));
+                ps.setLong(2, itemId);
+                ps.setInt(3, quantities.get(itemId));
+                ps.addBatch();
+            }
+            int[] updated = ps.executeBatch();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    throw new InsufficientStockException(itemIds.get(i), names.get(itemIds.get(i)));
+                }
+            }
+        }
+    }
+
+    private void bindBill(PreparedStatement ps, Bill bill) throws SQLException {
+        ps.setLong(1, bill.getCustomerId());
+        ps.setString(2, bill.getCustomerName());
+        ps.setString(3, bill.getCustomerAccountNumber());
+        ps.setDate(4, Date.valueOf(bill.getBillDate()));
+        ps.setBigDecimal(5, orZero(bill.getSubtotal()));
+        ps.setBigDecimal(6, orZero(bill.getTaxAmount()));
+        ps.setBigDecimal(7, orZero(bill.getTotalAmount()));
+        ps.setBigDecimal(8, bill.getTaxRate());
+        ps.setString(9, bill.getStatus().name());
+    }
+
+    private void loadItems(Connection connection, List<Bill> bills) throws SQLException {
+        // one query per chunk of bills instead of one per bill
+        Map<Long, List<BillItem>> itemsByBill = new HashMap<>();
+        List<Bill> hotBills = new ArrayList<>(bills.size());
+        List<Bill> archivedBills = new ArrayList<>();
+        for (Bill bill : bills) {
+            itemsByBill.put(bill.getId(), new ArrayList<>());
+            (BillTables.isHot(bill.getBillDate()) ? hotBills : archivedBills).add(bill);
+        }
+        queryItems(connection, BillTables.HOT_BILL_ITEMS, hotBills, itemsByBill);
+        queryItems(connection, BillTables.ALL_BILL_ITEMS, archivedBills, itemsByBill);
+
+        for (Bill bill : bills) {
+            // keep the stored totals rather than recalculating them
+            BigDecimal subtotal = bill.getSubtotal();
+            BigDecimal taxAmount = bill.getTaxAmount();
+            BigDecimal totalAmount = bill.getTotalAmount();
+            bill.setItems(itemsByBill.get(bill.getId()));
+            bill.setSubtotal(subtotal);
+            bill.setTaxAmount(taxAmount);
+            bill.setTotalAmount(totalAmount);
+        }
+    }
+
+    private void queryItems(Connection connection, String table, List<Bill> bills,
+                            Map<Long, List<BillItem>> itemsByBill) throws SQLException {
+        for (int from = 0; from < bills.size(); from += MAX_IN_PARAMETERS) {
+            List<Bill> chunk = bills.subList(from, Math.min(bills.size(), from + MAX_IN_PARAMETERS));
+            // the date range of the chunk's bills limits the partitions read
+            Object[] params = new Object[chunk.size() + 2];
+            LocalDate firstDate = null;
+            LocalDate lastDate = null;
+            for (int i = 0; i < chunk.size(); i++) {
+                Bill bill = chunk.get(i);
+                params[i] = bill.getId();
+                firstDate = firstDate == null || bill.getBillDate().isBefore(firstDate) ? bill.getBillDate() : firstDate;
+                lastDate = lastDate == null || bill.getBillDate().isAfter(lastDate) ? bill.getBillDate() : lastDate;
+            }
+            params[chunk.size()] = firstDate;
+            params[chunk.size() + 1] = lastDate;
+            String sql = "SELECT " + BILL_ITEM_COLUMNS + " FROM " + table + " WHERE bill_id IN (" +
+                         placeholders(chunk.size()) + ") AND bill_date BETWEEN ? AND ? ORDER BY id";
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                bind(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        BillItem billItem = mapBillItem(rs);
+                        itemsByBill.get(billItem.getBillId()).add(billItem);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * First day of the hot months, for the HOT_RANGE and ARCHIVED_RANGE predicates
+     */
+    private static LocalDate hotFrom() {
+        LocalDate hotFrom = BillTables.getHotFrom();
+        return hotFrom != null ? hotFrom : FIRST_BILL_DATE;
+    }
+
+    private void queryBillsByIds(Connection connection, String select, String range, LocalDate hotFrom,
+                                 List<Long> ids, List<Bill> bills) throws SQLException {
+        for (int from = 0; from < ids.size(); from += MAX_IN_PARAMETERS) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_PARAMETERS));
+            Object[] params = new Object[chunk.size() + 1];
+            chunk.toArray(params);
+            params[chunk.size()] = hotFrom;
+            bills.addAll(queryBills(connection, select + " WHERE id IN (" + placeholders(chunk.size()) + ") AND " +
+                    range, params));
+        }
+    }
+
+    private static String selectBills(LocalDate startDate) {
+        return "SELECT " + BILL_COLUMNS + " FROM " + BillTables.bills(startDate);
+    }
+
+    private List<Bill> findBills(String sql, Object... params) {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            List<Bill> bills = queryBills(connection, sql, params);
+            loadItems(connection, bills);
+            return bills;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding bills: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Bill> queryBills(Connection connection, String sql, Object... params) throws SQLException {
+        List<Bill> bills = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    bills.add(mapBill(rs));
+                }
+            }
+        }
+        return bills;
+    }
+
+    private long queryLong(String sql, Object... params) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting bills: " + e.getMessage(), e);
+        }
+    }
+
+    private BigDecimal queryDecimal(String sql, Object... params) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                BigDecimal value = rs.next() ? rs.getBigDecimal(1) : null;
+                return value != null ? value : BigDecimal.ZERO;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error calculating bill totals: " + e.getMessage(), e);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param instanceof LocalDate) {
+                ps.setDate(i + 1, Date.valueOf((LocalDate) param));
+            } else if (param instanceof LocalDateTime) {
+                ps.setTimestamp(i + 1, Timestamp.valueOf((LocalDateTime) param));
+            } else {
+                ps.setObject(i + 1, param);
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.toString();
+    }
+
+    private static Bill mapBill(ResultSet rs) throws SQLException {
+        Bill bill = new Bill(rs.getLong("customer_id"), rs.getString("customer_name"),
+                rs.getString("customer_account_number"));
+        bill.setId(rs.getLong("id"));
+        bill.setBillDate(rs.getDate("bill_date").toLocalDate());
+        bill.setSubtotal(rs.getBigDecimal("subtotal"));
+        bill.setTaxAmount(rs.getBigDecimal("tax_amount"));
+        bill.setTotalAmount(rs.getBigDecimal("total_amount"));
+        bill.setTaxRate(rs.getBigDecimal("tax_rate"));
+        bill.setStatus(BillStatus.valueOf(rs.getString("status")));
+        bill.setVersion(rs.getInt("version"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            bill.setCreatedAt(createdAt.toLocalDateTime());
+        }
+        return bill;
+    }
+
+    static BillItem mapBillItem(ResultSet rs) throws SQLException {
+        BillItem billItem = new BillItem(rs.getLong("id"), rs.getLong("bill_id"), rs.getLong("item_id"),
+                rs.getString("item_code"), rs.getString("item_name"),
+                rs.getBigDecimal("unit_price"), rs.getInt("quantity"));
+        billItem.setTotal(rs.getBigDecimal("total"));
+        String category = rs.getString("item_category");
+        if (category != null) {
+            billItem.setItemCategory(ItemCategory.valueOf(category));
+        }
+        return billItem;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,118 @@
+package com.icbt.cis6003.pahanaedubookshop.dao.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the tables a bill query reads. Closed months are moved from bills and
+ * bill_items into the archive tables, so everything before the first hot day is
+ * archived. A query whose date range starts on or after that day reads the hot
+ * tables only; one that reaches back further reads the all_bills and all_bill_items
+ * views over both.
+ *
+ * The first hot day is cached and reloaded once a minute, so archival done by
+ * another application instance is picked up. Archival in this instance moves the
+ * day forward before it moves any rows, and a reload never moves it back: a day
+ * that is too late only sends queries to the views, which are always complete.
+ */
+final class BillTables {
+
+    static final String HOT_BILLS = "bills";
+    static final String HOT_BILL_ITEMS = "bill_items";
+    static final String ALL_BILLS = "all_bills";
+    static final String ALL_BILL_ITEMS = "all_bill_items";
+
+    private static final long RELOAD_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static volatile Snapshot snapshot;
+
+    private BillTables() {
+    }
+
+    /**
+     * Bills table for a query over bills dated on or after a day
+     */
+    static String bills(LocalDate startDate) {
+        return isHot(startDate) ? HOT_BILLS : ALL_BILLS;
+    }
+
+    /**
+     * Bill items table for a query over bills dated on or after a day
+     */
+    static String billItems(LocalDate startDate) {
+        return isHot(startDate) ? HOT_BILL_ITEMS : ALL_BILL_ITEMS;
+    }
+
+    /**
+     * Check whether bills of a day are still in the hot tables
+     */
+    static boolean isHot(LocalDate date) {
+        LocalDate hotFrom = getHotFrom();
+        return hotFrom == null || !date.isBefore(hotFrom);
+    }
+
+    /**
+     * First day that has not been archived, or null if nothing has been archived
+     */
+    static LocalDate getHotFrom() {
+        Snapshot current = snapshot;
+        if (current == null || current.config != DatabaseConnection.getConfig()
+                || System.nanoTime() - current.loadedAt > RELOAD_INTERVAL_NANOS) {
+            Snapshot loaded = load();
+            if (current != null && current.config == loaded.config && current.hotFrom != null
+                    && (loaded.hotFrom == null || current.hotFrom.isAfter(loaded.hotFrom))) {
+                // archival in progress or rolled back; keep the later day
+                loaded = new Snapshot(loaded.config, current.hotFrom, loaded.loadedAt);
+            }
+            current = loaded;
+            snapshot = current;
+        }
+        return current.hotFrom;
+    }
+
+    /**
+     * Move the first hot day forward before the rows before it are archived
+     */
+    static void advanceHotFrom(LocalDate hotFrom) {
+        LocalDate current = getHotFrom();
+        if (current == null || hotFrom.isAfter(current)) {
+            snapshot = new Snapshot(DatabaseConnection.getConfig(), hotFrom, System.nanoTime());
+        }
+    }
+
+    // Helper methods
+
+    private static Snapshot load() {
+        DatabaseConfig config = DatabaseConnection.getConfig();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(
+                     "SELECT MAX(period_start) FROM bill_archive_periods");
+             ResultSet rs = ps.executeQuery()) {
+            Date lastArchived = rs.next() ? rs.getDate(1) : null;
+            LocalDate hotFrom = lastArchived != null ? lastArchived.toLocalDate().plusMonths(1) : null;
+            return new Snapshot(config, hotFrom, System.nanoTime());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading archived bill periods: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class Snapshot {
+        private final DatabaseConfig config;
+        private final LocalDate hotFrom;
+        private final long loadedAt;
+
+        private Snapshot(DatabaseConfig config, LocalDate hotFrom, long loadedAt) {
+            this.config = config;
+            this.hotFrom = hotFrom;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.icbt.cis6003.pahanaedubookshop.dao.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.OptimisticLockException;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC implementation of CustomerDAO.
+ * Updates are compare-and-swap on the row version.
+ */
+public class CustomerDAOImpl implements CustomerDAO {
+
+    private static final String SELECT_CUSTOMERS =
+            "SELECT id, account_number, name, address, phone, email, registration_date, version FROM customers";
+
+    @Override
+    public Customer save(Customer customer) {
+        String sql = "INSERT INTO customers (account_number, name, address, phone, email, registration_date) " +
+                     "VALUES (?, ?, ?, ?, ?, ?)";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            bindCustomer(ps, customer);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    customer.setId(keys.getLong(1));
+                }
+            }
+            customer.setVersion(0);
+            return customer;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving customer: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Customer update(Customer customer) {
+        String sql = "UPDATE customers SET account_number = ?, name = ?, address = ?, phone = ?, " +
+                     "email = ?, registration_date = ?, version = version + 1 WHERE id = ? AND version = ?";
+        if (customer.getVersion() == null) {
+            throw new IllegalArgumentException("Customer version required for update");
+        }
+        int version = customer.getVersion();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bindCustomer(ps, customer);
+            ps.setLong(7, customer.getId());
+            ps.setInt(8, version);
+            if (ps.executeUpdate() == 0) {
+                throw new OptimisticLockException("Customer", customer.getId(), version);
+            }
+            customer.setVersion(version + 1);
+            return customer;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating customer: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement("DELETE FROM customers WHERE id = ?")) {
+            ps.setLong(1, id);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting customer: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean lockById(Long id) {
+        return queryLong("SELECT id FROM customers WHERE id = ? FOR UPDATE", id) > 0;
+    }
+
+    @Override
+    public Optional<Customer> findById(Long id) {
+        List<Customer> customers = findCustomers(SELECT_CUSTOMERS + " WHERE id = ?", id);
+        return customers.isEmpty() ? Optional.empty() : Optional.of(customers.get(0));
+    }
+
+    @Override
+    public Optional<Customer> findByAccountNumber(String accountNumber) {
+        List<Customer> customers = findCustomers(SELECT_CUSTOMERS + " WHERE account_number = ?", accountNumber);
+        return customers.isEmpty() ? Optional.empty() : Optional.of(customers.get(0));
+    }
+
+    @Override
+    public List<Customer> findByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        StringBuilder sql = new StringBuilder(SELECT_CUSTOMERS).append(" WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+        return findCustomers(sql.toString(), ids.toArray());
+    }
+
+    @Override
+    public List<Customer> findAll() {
+        return findCustomers(SELECT_CUSTOMERS + " ORDER BY name");
+    }
+
+    @Override
+    public List<Customer> findByNameContaining(String name) {
+        return findCustomers(SELECT_CUSTOMERS + " WHERE LOWER(name) LIKE ? ORDER BY name", like(name));
+    }
+
+    @Override
+    public List<Customer> findByPhone(String phone) {
+        return findCustomers(SELECT_CUSTOMERS + " WHERE phone = ? ORDER BY name", phone);
+    }
+
+    @Override
+    public List<Customer> findByRegistrationDateBetween(LocalDate startDate, LocalDate endDate) {
+        return findCustomers(SELECT_CUSTOMERS + " WHERE registration_date BETWEEN ? AND ? " +
+                "ORDER BY registration_date DESC", Date.valueOf(startDate), Date.valueOf(endDate));
+    }
+
+    @Override
+    public List<Customer> findByRegistrationDate(LocalDate date) {
+        return findCustomers(SELECT_CUSTOMERS + " WHERE registration_date = ? ORDER BY name",
+                Date.valueOf(date));
+    }
+
+    @Override
+    public List<Customer> search(String searchTerm) {
+        String term = like(searchTerm);
+        return findCustomers(SELECT_CUSTOMERS + " WHERE LOWER(name) LIKE ? OR LOWER(account_number) LIKE ? " +
+                "OR phone LIKE ? ORDER BY name", term, term, term);
+    }
+
+    @Override
+    public long count() {
+        return queryLong("SELECT COUNT(*) FROM customers");
+    }
+
+    @Override
+    public long countByCurrentMonth() {
+        LocalDate today = LocalDate.now();
+        return queryLong("SELECT COUNT(*) FROM customers WHERE registration_date BETWEEN ? AND ?",
+                Date.valueOf(today.withDayOfMonth(1)), Date.valueOf(today));
+    }
+
+    @Override
+    public boolean existsByAccountNumber(String accountNumber) {
+        return queryLong("SELECT COUNT(*) FROM customers WHERE account_number = ?", accountNumber) > 0;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return queryLong("SELECT COUNT(*) FROM customers WHERE id = ?", id) > 0;
+    }
+
+    @Override
+    public boolean isReferencedByBills(Long customerId) {
+        return queryLong("SELECT COUNT(*) FROM " + BillTables.ALL_BILLS + " WHERE customer_id = ?", customerId) > 0;
+    }
+
+    @Override
+    public List<Customer> findWithPagination(int offset, int limit) {
+        return findCustomers(SELECT_CUSTOMERS + " ORDER BY id LIMIT ? OFFSET ?", limit, offset);
+    }
+
+    @Override
+    public List<Customer> findRecentCustomers(int limit) {
+        return findCustomers(SELECT_CUSTOMERS + " ORDER BY registration_date DESC, id DESC LIMIT ?", limit);
+    }
+
+    // Helper methods
+
+    private void bindCustomer(PreparedStatement ps, Customer customer) throws SQLException {
+        ps.setString(1, customer.getAccountNumber());
+        ps.setString(2, customer.getName());
+        ps.setString(3, customer.getAddress());
+        ps.setString(4, customer.getPhone());
+        ps.setString(5, customer.getEmail());
+        ps.setDate(6, Date.valueOf(customer.getRegistrationDate() != null ?
+                customer.getRegistrationDate() : LocalDate.now()));
+    }
+
+    private List<Customer> findCustomers(String sql, Object... params) {
+        List<Customer> customers = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    customers.add(mapCustomer(rs));
+                }
+            }
+            return customers;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding customers: " + e.getMessage(), e);
+        }
+    }
+
+    private long queryLong(String sql, Object... params) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting customers: " + e.getMessage(), e);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+    }
+
+    private static String like(String term) {
+        return "%" + (term != null ? term.trim().toLowerCase() : "") + "%";
+    }
+
+    private static Customer mapCustomer(ResultSet rs) throws SQLException {
+        Date registrationDate = rs.getDate("registration_date");
+        Customer customer = new Customer(rs.getLong("id"), rs.getString("account_number"), rs.getString("name"),
+                rs.getString("address"), rs.getString("phone"), rs.getString("email"),
+                registrationDate != null ? registrationDate.toLocalDate() : null);
+        customer.setVersion(rs.getInt("version"));
+        return customer;
+    }
+}
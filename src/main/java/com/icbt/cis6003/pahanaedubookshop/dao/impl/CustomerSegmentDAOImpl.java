@@ -0,0 +1,155 @@
+package com.icbt.cis6003.pahanaedubookshop.dao.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerSegmentDAO;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment.Segment;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDBC implementation of CustomerSegmentDAO
+ */
+public class CustomerSegmentDAOImpl implements CustomerSegmentDAO {
+
+    private static final String SEGMENT_COLUMNS = "customer_id, segment, recency_score, frequency_score, " +
+            "monetary_score, bill_count, total_amount, last_bill_date";
+
+    // amounts come back in cents so the scan never builds a BigDecimal
+    private static final String SCAN_SALES =
+            "SELECT customer_id, bill_date, ROUND(total_amount * 100) FROM %s " +
+            "WHERE status IN ('FINALIZED', 'PAID') AND bill_date >= ? ORDER BY id";
+
+    private static final int EMBEDDED_FETCH_SIZE = 5000;
+
+    @Override
+    public long scanSalesSince(LocalDate since, SaleVisitor visitor) {
+        String sql = String.format(SCAN_SALES, BillTables.bills(since));
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J streams row by row only with this fetch size; H2 rejects it
+            ps.setFetchSize(DatabaseConnection.getConfig().isEmbedded() ? EMBEDDED_FETCH_SIZE : Integer.MIN_VALUE);
+            ps.setDate(1, Date.valueOf(since));
+            long bills = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visit(rs.getLong(1), (int) rs.getDate(2).toLocalDate().toEpochDay(), rs.getLong(3));
+                    bills++;
+                }
+            }
+            return bills;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error scanning sales bills: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void replaceAll(List<CustomerSegment> segments, int batchSize) {
+        String insert = "INSERT INTO customer_segments (" + SEGMENT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("DELETE FROM customer_segments");
+            }
+            try (PreparedStatement ps = connection.prepareStatement(insert)) {
+                int pending = 0;
+                for (CustomerSegment segment : segments) {
+                    ps.setLong(1, segment.getCustomerId());
+                    ps.setString(2, segment.getSegment().name());
+                    ps.setInt(3, segment.getRecencyScore());
+                    ps.setInt(4, segment.getFrequencyScore());
+                    ps.setInt(5, segment.getMonetaryScore());
+                    ps.setLong(6, segment.getBillCount());
+                    ps.setBigDecimal(7, segment.getTotalAmount());
+                    ps.setDate(8, Date.valueOf(segment.getLastBillDate()));
+                    ps.addBatch();
+                    if (++pending == batchSize) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving customer segments: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<CustomerSegment> findByCustomerId(Long customerId) {
+        String sql = "SELECT " + SEGMENT_COLUMNS + " FROM customer_segments WHERE customer_id = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(mapSegment(rs)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding customer segment: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<CustomerSegment> findBySegment(Segment segment, int limit) {
+        String sql = "SELECT " + SEGMENT_COLUMNS + " FROM customer_segments WHERE segment = ? " +
+                     "ORDER BY total_amount DESC, customer_id LIMIT ?";
+        List<CustomerSegment> segments = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, segment.name());
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    segments.add(mapSegment(rs));
+                }
+            }
+            return segments;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding customers by segment: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<Segment, Long> countBySegment() {
+        Map<Segment, Long> counts = new EnumMap<>(Segment.class);
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(
+                     "SELECT segment, COUNT(*) FROM customer_segments GROUP BY segment");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                counts.put(Segment.valueOf(rs.getString(1)), rs.getLong(2));
+            }
+            return counts;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting customer segments: " + e.getMessage(), e);
+        }
+    }
+
+    // Helper methods
+
+    private CustomerSegment mapSegment(ResultSet rs) throws SQLException {
+        return new CustomerSegment(
+                rs.getLong("customer_id"),
+                Segment.valueOf(rs.getString("segment")),
+                rs.getInt("recency_score"),
+                rs.getInt("frequency_score"),
+                rs.getInt("monetary_score"),
+                rs.getLong("bill_count"),
+                rs.getBigDecimal("total_amount"),
+                rs.getDate("last_bill_date").toLocalDate()
+        );
+    }
+}
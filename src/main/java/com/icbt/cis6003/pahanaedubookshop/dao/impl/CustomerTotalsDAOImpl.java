@@ -0,0 +1,209 @@
+package com.icbt.cis6003.pahanaedubookshop.dao.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerTotalsDAO;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerTotals;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDBC implementation of CustomerTotalsDAO
+ */
+public class CustomerTotalsDAOImpl implements CustomerTotalsDAO {
+
+    private static final String TOTALS_COLUMNS = "customer_id, bill_count, total_amount, last_bill_date";
+
+    private static final String SALES_STATUS = "status IN ('FINALIZED', 'PAID')";
+
+    // reads the customer row, so a sale for a customer deleted meanwhile inserts nothing,
+    // and on MySQL it waits for a delete that holds the row lock
+    private static final String RECORD_SALE =
+            "INSERT INTO customer_totals (" + TOTALS_COLUMNS + ") SELECT id, 1, ?, ? FROM customers WHERE id = ? " +
+            "ON DUPLICATE KEY UPDATE bill_count = bill_count + 1, " +
+            "total_amount = total_amount + VALUES(total_amount), " +
+            "last_bill_date = GREATEST(COALESCE(last_bill_date, VALUES(last_bill_date)), VALUES(last_bill_date))";
+
+    // the latest remaining sales bill is found through the customer/date indexes,
+    // in the archive too, since it may be older than the hot months
+    private static final String RECORD_CANCELLATION =
+            "UPDATE customer_totals SET bill_count = bill_count - 1, total_amount = total_amount - ?, " +
+            "last_bill_date = CASE WHEN last_bill_date = ? THEN " +
+            "(SELECT MAX(bill_date) FROM " + BillTables.ALL_BILLS + " WHERE customer_id = ? AND " +
+            SALES_STATUS + ") ELSE last_bill_date END WHERE customer_id = ?";
+
+    // lifetime totals, including archived bills
+    private static final String COMPUTE_RANGE =
+            "SELECT customer_id, COUNT(*), SUM(total_amount), MAX(bill_date) FROM " + BillTables.ALL_BILLS +
+            " WHERE " + SALES_STATUS + " AND customer_id BETWEEN ? AND ? GROUP BY customer_id";
+
+    @Override
+    public void recordSale(Long customerId, BigDecimal amount, LocalDate billDate) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(RECORD_SALE)) {
+            ps.setBigDecimal(1, amount);
+            ps.setDate(2, Date.valueOf(billDate));
+            ps.setLong(3, customerId);
+            if (ps.executeUpdate() == 0) {
+                throw new RuntimeException("Customer not found: " + customerId);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error recording customer sale: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recordSales(List<Bill> bills) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(RECORD_SALE)) {
+            for (Bill bill : bills) {
+                ps.setBigDecimal(1, bill.getTotalAmount());
+                ps.setDate(2, Date.valueOf(bill.getBillDate()));
+                ps.setLong(3, bill.getCustomerId());
+                ps.addBatch();
+            }
+            int[] updated = ps.executeBatch();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    throw new RuntimeException("Customer not found: " + bills.get(i).getCustomerId());
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error recording customer sales: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recordCancellation(Long customerId, BigDecimal amount, LocalDate billDate) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(RECORD_CANCELLATION)) {
+            ps.setBigDecimal(1, amount);
+            ps.setDate(2, Date.valueOf(billDate));
+            ps.setLong(3, customerId);
+            ps.setLong(4, customerId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error recording customer cancellation: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<CustomerTotals> findByCustomerId(Long customerId) {
+        String sql = "SELECT " + TOTALS_COLUMNS + " FROM customer_totals WHERE customer_id = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(mapTotals(rs)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding customer totals: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<CustomerTotals> findTopByTotalAmount(int limit) {
+        String sql = "SELECT " + TOTALS_COLUMNS + " FROM customer_totals " +
+                     "ORDER BY total_amount DESC, customer_id LIMIT ?";
+        List<CustomerTotals> totals = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    totals.add(mapTotals(rs));
+                }
+            }
+            return totals;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding top customers: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int rebuildRange(long fromCustomerId, long toCustomerId) {
+        String delete = "DELETE FROM customer_totals WHERE customer_id BETWEEN ? AND ?";
+        String insert = "INSERT INTO customer_totals (" + TOTALS_COLUMNS + ") " + COMPUTE_RANGE;
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement(delete)) {
+                ps.setLong(1, fromCustomerId);
+                ps.setLong(2, toCustomerId);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = connection.prepareStatement(insert)) {
+                ps.setLong(1, fromCustomerId);
+                ps.setLong(2, toCustomerId);
+                return ps.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error rebuilding customer totals: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<Long, CustomerTotals> findStoredRange(long fromCustomerId, long toCustomerId) {
+        return queryRange("SELECT " + TOTALS_COLUMNS + " FROM customer_totals WHERE customer_id BETWEEN ? AND ?",
+                fromCustomerId, toCustomerId);
+    }
+
+    @Override
+    public Map<Long, CustomerTotals> computeRange(long fromCustomerId, long toCustomerId) {
+        return queryRange(COMPUTE_RANGE, fromCustomerId, toCustomerId);
+    }
+
+    @Override
+    public long[] findCustomerIdRange() {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT MIN(id), MAX(id) FROM customers");
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                long min = rs.getLong(1);
+                if (!rs.wasNull()) {
+                    return new long[] {min, rs.getLong(2)};
+                }
+            }
+            return new long[] {0, -1};
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding customer ID range: " + e.getMessage(), e);
+        }
+    }
+
+    // Helper methods
+
+    private Map<Long, CustomerTotals> queryRange(String sql, long fromCustomerId, long toCustomerId) {
+        Map<Long, CustomerTotals> totals = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, fromCustomerId);
+            ps.setLong(2, toCustomerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    CustomerTotals customerTotals = mapTotals(rs);
+                    totals.put(customerTotals.getCustomerId(), customerTotals);
+                }
+            }
+            return totals;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading customer totals: " + e.getMessage(), e);
+        }
+    }
+
+    private CustomerTotals mapTotals(ResultSet rs) throws SQLException {
+        Date lastBillDate = rs.getDate(4);
+        BigDecimal totalAmount = rs.getBigDecimal(3);
+        return new CustomerTotals(rs.getLong(1), rs.getLong(2),
+                totalAmount != null ? totalAmount : BigDecimal.ZERO,
+                lastBillDate != null ? lastBillDate.toLocalDate() : null);
+    }
+}
@@ -0,0 +1,311 @@
+package com.icbt.cis6003.pahanaedubookshop.dao.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.ItemDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.OptimisticLockException;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC implementation of ItemDAO.
+ * Every write bumps the row version. Full updates are compare-and-swap on the
+ * version; stock deltas are applied relative to the stored value and never conflict.
+ */
+public class ItemDAOImpl implements ItemDAO {
+
+    private static final String SELECT_ITEMS =
+            "SELECT id, code, name, category, price, stock, min_stock, description, version FROM items";
+
+    private static final String LOW_STOCK = "stock <= min_stock";
+
+    @Override
+    public Item save(Item item) {
+        String sql = "INSERT INTO items (code, name, category, price, stock, min_stock, description) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            bindItem(ps, item);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    item.setId(keys.getLong(1));
+                }
+            }
+            item.setVersion(0);
+            return item;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving item: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Item update(Item item) {
+        String sql = "UPDATE items SET code = ?, name = ?, category = ?, price = ?, stock = ?, " +
+                     "min_stock = ?, description = ?, version = version + 1 WHERE id = ? AND version = ?";
+        if (item.getVersion() == null) {
+            throw new IllegalArgumentException("Item version required for update");
+        }
+        int version = item.getVersion();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bindItem(ps, item);
+            ps.setLong(8, item.getId());
+            ps.setInt(9, version);
+            if (ps.executeUpdate() == 0) {
+                throw new OptimisticLockException("Item", item.getId(), version);
+            }
+            item.setVersion(version + 1);
+            return item;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating item: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        return executeUpdate("DELETE FROM items WHERE id = ?", id) > 0;
+    }
+
+    @Override
+    public boolean lockById(Long id) {
+        return queryLong("SELECT id FROM items WHERE id = ? FOR UPDATE", id) > 0;
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        List<Item> items = findItems(SELECT_ITEMS + " WHERE id = ?", id);
+        return items.isEmpty() ? Optional.empty() : Optional.of(items.get(0));
+    }
+
+    @Override
+    public Optional<Item> findByCode(String code) {
+        List<Item> items = findItems(SELECT_ITEMS + " WHERE code = ?", code);
+        return items.isEmpty() ? Optional.empty() : Optional.of(items.get(0));
+    }
+
+    @Override
+    public List<Item> findByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        StringBuilder sql = new StringBuilder(SELECT_ITEMS).append(" WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+        return findItems(sql.toString(), ids.toArray());
+    }
+
+    @Override
+    public List<Item> findAll() {
+        return findItems(SELECT_ITEMS + " ORDER BY name");
+    }
+
+    @Override
+    public List<Item> findByCategory(ItemCategory category) {
+        return findItems(SELECT_ITEMS + " WHERE category = ? ORDER BY name", category.name());
+    }
+
+    @Override
+    public List<Item> findByNameContaining(String name) {
+        return findItems(SELECT_ITEMS + " WHERE LOWER(name) LIKE ? ORDER BY name", like(name));
+    }
+
+    @Override
+    public List<Item> findInStock() {
+        return findItems(SELECT_ITEMS + " WHERE stock > 0 ORDER BY name");
+    }
+
+    @Override
+    public List<Item> findLowStock() {
+        return findItems(SELECT_ITEMS + " WHERE " + LOW_STOCK + " ORDER BY stock");
+    }
+
+    @Override
+    public List<Item> findOutOfStock() {
+        return findItems(SELECT_ITEMS + " WHERE stock = 0 ORDER BY name");
+    }
+
+    @Override
+    public List<Item> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return findItems(SELECT_ITEMS + " WHERE price BETWEEN ? AND ? ORDER BY price", minPrice, maxPrice);
+    }
+
+    @Override
+    public List<Item> search(String searchTerm) {
+        String term = like(searchTerm);
+        return findItems(SELECT_ITEMS + " WHERE LOWER(name) LIKE ? OR LOWER(code) LIKE ? " +
+                "OR LOWER(description) LIKE ? ORDER BY name", term, term, term);
+    }
+
+    @Override
+    public List<Item> searchByNameOrCodeAndCategory(String searchTerm, ItemCategory category) {
+        String term = like(searchTerm);
+        if (category == null) {
+            return findItems(SELECT_ITEMS + " WHERE LOWER(name) LIKE ? OR LOWER(code) LIKE ? ORDER BY name",
+                    term, term);
+        }
+        return findItems(SELECT_ITEMS + " WHERE (LOWER(name) LIKE ? OR LOWER(code) LIKE ?) " +
+                "AND category = ? ORDER BY name", term, term, category.name());
+    }
+
+    @Override
+    public boolean updateStock(Long itemId, Integer newStock) {
+        return executeUpdate("UPDATE items SET stock = ?, version = version + 1 WHERE id = ?", newStock, itemId) > 0;
+    }
+
+    @Override
+    public boolean decreaseStock(Long itemId, Integer quantity) {
+        return executeUpdate("UPDATE items SET stock = stock - ?, version = version + 1 WHERE id = ? AND stock >= ?",
+                quantity, itemId, quantity) > 0;
+    }
+
+    @Override
+    public boolean increaseStock(Long itemId, Integer quantity) {
+        return executeUpdate("UPDATE items SET stock = stock + ?, version = version + 1 WHERE id = ?", quantity, itemId) > 0;
+    }
+
+    @Override
+    public boolean isReferencedByBills(Long itemId) {
+        return queryLong("SELECT COUNT(*) FROM " + BillTables.ALL_BILL_ITEMS + " WHERE item_id = ?", itemId) > 0;
+    }
+
+    @Override
+    public long count() {
+        return queryLong("SELECT COUNT(*) FROM items");
+    }
+
+    @Override
+    public long countByCategory(ItemCategory category) {
+        return queryLong("SELECT COUNT(*) FROM items WHERE category = ?", category.name());
+    }
+
+    @Override
+    public long countInStock() {
+        return queryLong("SELECT COUNT(*) FROM items WHERE stock > 0");
+    }
+
+    @Override
+    public long countLowStock() {
+        return queryLong("SELECT COUNT(*) FROM items WHERE " + LOW_STOCK);
+    }
+
+    @Override
+    public boolean existsByCode(String code) {
+        return queryLong("SELECT COUNT(*) FROM items WHERE code = ?", code) > 0;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return queryLong("SELECT COUNT(*) FROM items WHERE id = ?", id) > 0;
+    }
+
+    @Override
+    public List<Item> findWithPagination(int offset, int limit) {
+        return findItems(SELECT_ITEMS + " ORDER BY id LIMIT ? OFFSET ?", limit, offset);
+    }
+
+    @Override
+    public BigDecimal getTotalInventoryValue() {
+        return queryDecimal("SELECT COALESCE(SUM(price * stock), 0) FROM items");
+    }
+
+    @Override
+    public BigDecimal getInventoryValueByCategory(ItemCategory category) {
+        return queryDecimal("SELECT COALESCE(SUM(price * stock), 0) FROM items WHERE category = ?",
+                category.name());
+    }
+
+    // Helper methods
+
+    private void bindItem(PreparedStatement ps, Item item) throws SQLException {
+        ps.setString(1, item.getCode());
+        ps.setString(2, item.getName());
+        ps.setString(3, item.getCategory().name());
+        ps.setBigDecimal(4, item.getPrice());
+        ps.setInt(5, item.getStock());
+        ps.setInt(6, item.getMinStock() != null ? item.getMinStock() : 5);
+        ps.setString(7, item.getDescription());
+    }
+
+    private List<Item> findItems(String sql, Object... params) {
+        List<Item> items = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    items.add(mapItem(rs));
+                }
+            }
+            return items;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding items: " + e.getMessage(), e);
+        }
+    }
+
+    private int executeUpdate(String sql, Object... params) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, params);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating items: " + e.getMessage(), e);
+        }
+    }
+
+    private long queryLong(String sql, Object... params) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting items: " + e.getMessage(), e);
+        }
+    }
+
+    private BigDecimal queryDecimal(String sql, Object... params) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                BigDecimal value = rs.next() ? rs.getBigDecimal(1) : null;
+                return value != null ? value : BigDecimal.ZERO;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error calculating inventory value: " + e.getMessage(), e);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+    }
+
+    private static String like(String term) {
+        return "%" + (term != null ? term.trim().toLowerCase() : "") + "%";
+    }
+
+    private static Item mapItem(ResultSet rs) throws SQLException {
+        Item item = new Item(rs.getLong("id"), rs.getString("code"), rs.getString("name"),
+                ItemCategory.valueOf(rs.getString("category")), rs.getBigDecimal("price"),
+                rs.getInt("stock"), rs.getInt("min_stock"), rs.getString("description"));
+        item.setVersion(rs.getInt("version"));
+        return item;
+    }
+}
@@ -0,0 +1,380 @@
+package com.icbt.cis6003.pahanaedubookshop.filter;
+
+import com.icbt.cis6003.pahanaedubookshop.util.IdempotencyStore;
+import com.icbt.cis6003.pahanaedubookshop.util.IdempotencyStore.Claim;
+import com.icbt.cis6003.pahanaedubookshop.util.IdempotencyStore.StoredResponse;
+import com.icbt.cis6003.pahanaedubookshop.util.JsonUtil;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes POST and PATCH requests that carry an Idempotency-Key header safe to retry.
+ * The first request with a key runs and its response is kept in the IdempotencyStore;
+ * a retry with the same key gets that response back, marked with
+ * Idempotent-Replayed: true, without running the request again. A retry that arrives
+ * while the first request is still running waits for its response.
+ *
+ * A key belongs to the method, path, query and body it was first sent with; reusing
+ * it for a different request is rejected with 422. Server errors, conflicts (409) and
+ * rate limiting (429) are not stored: they describe a moment rather than the request,
+ * so a retry with the same key runs again.
+ *
+ * The body is buffered to hash it, so bodies over -Dbookshop.idempotency.maxBodyBytes
+ * are rejected with 413. POST /api/bills/sync is passed through untouched: its body
+ * streams into the binder, and each offline bill carries a sync ID the sync dedupes on.
+ */
+public class IdempotencyFilter implements Filter {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int DEFAULT_MAX_BODY_BYTES = 1024 * 1024;
+    private static final String SYNC_PATH = "/api/bills/sync";
+    private static final long WAIT_SECONDS = 30;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private IdempotencyStore store;
+    private int maxBodyBytes;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        store = IdempotencyStore.getInstance();
+        maxBodyBytes = Integer.getInteger("bookshop.idempotency.maxBodyBytes", DEFAULT_MAX_BODY_BYTES);
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        String key = request.getHeader(KEY_HEADER);
+        String method = request.getMethod();
+        if (key == null || !("POST".equals(method) || "PATCH".equals(method)) || isSync(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        HttpServletRequest bufferedRequest = request;
+        byte[] body = null;
+        if (!isFormRequest(request)) {
+            body = request.getContentLengthLong() > maxBodyBytes ? null :
+                    readAtMost(request.getInputStream(), maxBodyBytes);
+            if (body == null) {
+                sendError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                        "Request bodies sent with an " + KEY_HEADER + " cannot exceed " + maxBodyBytes + " bytes");
+                return;
+            }
+            bufferedRequest = new BufferedBodyRequest(request, body);
+        }
+        String fingerprint = fingerprint(request, body);
+
+        while (true) {
+            Claim claim = store.claim(key, fingerprint);
+            if (!claim.matches(fingerprint)) {
+                sendError(response, 422, KEY_HEADER + " was already used for a different request");
+                return;
+            }
+            if (claim.isOwner()) {
+                execute(claim, bufferedRequest, response, chain);
+                return;
+            }
+            StoredResponse stored;
+            try {
+                stored = claim.await(WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                sendError(response, HttpServletResponse.SC_CONFLICT,
+                        "A request with this " + KEY_HEADER + " is still in progress");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException("Interrupted while waiting for an idempotent request", e);
+            }
+            if (stored != null) {
+                replay(stored, response);
+                return;
+            }
+            // the first request failed without a stored response; claim the key again
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    // Helper methods
+
+    private void execute(Claim claim, HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        CapturingResponse capturing = new CapturingResponse(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(request, capturing);
+            capturing.flushBuffer();
+            int status = capturing.getStatus();
+            if (isStorable(status)) {
+                claim.complete(new StoredResponse(status, capturing.getContentType(), capturing.getCapturedBody()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                claim.release();
+            }
+        }
+    }
+
+    private static boolean isStorable(int status) {
+        return status < 500 && status != HttpServletResponse.SC_CONFLICT && status != SC_TOO_MANY_REQUESTS;
+    }
+
+    private void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        MessageDigest digest = sha256();
+        update(digest, request.getMethod());
+        update(digest, request.getRequestURI());
+        update(digest, request.getQueryString());
+        if (body != null) {
+            digest.update(body);
+        } else {
+            // form posts are read by the container, so hash the parameters in a fixed order
+            Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+            for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+                update(digest, parameter.getKey());
+                update(digest, Arrays.toString(parameter.getValue()));
+            }
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static boolean isFormRequest(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase().startsWith("application/x-www-form-urlencoded");
+    }
+
+    private static boolean isSync(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length()).equals(SYNC_PATH);
+    }
+
+    /**
+     * Read a body of at most limit bytes, or return null if it is longer
+     */
+    private static byte[] readAtMost(InputStream in, int limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (out.size() + read > limit) {
+                return null;
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static void sendError(HttpServletResponse response, int statusCode, String message) throws IOException {
+        response.setStatus(statusCode);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (PrintWriter out = response.getWriter()) {
+            out.print(JsonUtil.createErrorResponse(message).toString());
+        }
+    }
+
+    /**
+     * Request whose body was read up front, so it can be hashed and then read again
+     */
+    private static class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Buffered request bodies are read synchronously");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? encoding : StandardCharsets.ISO_8859_1.name()));
+        }
+    }
+
+    /**
+     * Response that passes the body through to the client and keeps a copy of it
+     */
+    private static class CapturingResponse extends HttpServletResponseWrapper {
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private ServletOutputStream tee;
+        private boolean streamRequested;
+        private PrintWriter writer;
+
+        CapturingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            streamRequested = true;
+            return tee();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (streamRequested) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            if (writer == null) {
+                // encode as the container would, with the charset set on the response
+                writer = new PrintWriter(new OutputStreamWriter(tee(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (tee != null) {
+                tee.flush();
+            }
+            super.flushBuffer();
+        }
+
+        byte[] getCapturedBody() {
+            return copy.toByteArray();
+        }
+
+        private ServletOutputStream tee() throws IOException {
+            if (tee == null) {
+                ServletOutputStream target = super.getOutputStream();
+                tee = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        target.write(b);
+                        copy.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        target.write(b, off, len);
+                        copy.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        target.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        target.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        target.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return tee;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.icbt.cis6003.pahanaedubookshop.filter;
+
+import com.icbt.cis6003.pahanaedubookshop.util.JsonUtil;
+import com.icbt.cis6003.pahanaedubookshop.util.TokenBucketLimiter;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the bill, item and customer APIs. Every client gets its own
+ * token bucket in each rate class, so one terminal or report script sending too
+ * many requests is slowed down without taking capacity from the other tills.
+ * Clients are told apart by the X-Terminal-Id header, or by remote address if they
+ * do not send one. The header is not trusted blindly: each remote address gets its
+ * own bucket for at most -Dbookshop.ratelimit.terminalsPerAddress terminal IDs (32 by
+ * default), and any further ID it sends shares the address's bucket, so a client
+ * cannot reset its limit by making up new IDs. A request over its client's rate is
+ * answered with 429 Too Many Requests and a Retry-After header, before it reaches a
+ * servlet or the database.
+ *
+ * Rates and bursts are set per class with -Dbookshop.ratelimit.{pos|lookup|report}.rate
+ * and .burst; -Dbookshop.ratelimit.enabled=false turns the filter off.
+ */
+public class RateLimitFilter implements Filter {
+
+    public static final String TERMINAL_HEADER = "X-Terminal-Id";
+
+    private static final int MAX_CLIENTS = 10_000;
+    private static final int DEFAULT_TERMINALS_PER_ADDRESS = 32;
+    private static final int MAX_TERMINAL_ID_LENGTH = 64;
+
+    // first path segments of reports and background jobs, under any of the resources
+    private static final Set<String> REPORT_PATHS = new HashSet<>(Arrays.asList(
+            "today", "recent", "statistics", "sales-total", "sales-summary", "archive",
+            "segments", "top", "top-sellers", "slow-movers", "low-stock", "totals"));
+
+    /**
+     * Route groups that are limited separately
+     */
+    public enum RateClass {
+        /** bill creation, line changes and other writes from the till */
+        POS(10, 20),
+        /** single records and searches */
+        LOOKUP(20, 40),
+        /** reports, full listings and batch jobs */
+        REPORT(1, 5);
+
+        private final int defaultRate;
+        private final int defaultBurst;
+
+        RateClass(int defaultRate, int defaultBurst) {
+            this.defaultRate = defaultRate;
+            this.defaultBurst = defaultBurst;
+        }
+
+        private TokenBucketLimiter createLimiter() {
+            String prefix = "bookshop.ratelimit." + name().toLowerCase() + ".";
+            return new TokenBucketLimiter(Integer.getInteger(prefix + "rate", defaultRate),
+                    Integer.getInteger(prefix + "burst", defaultBurst), MAX_CLIENTS);
+        }
+    }
+
+    private boolean enabled;
+    private int terminalsPerAddress;
+    private Map<RateClass, TokenBucketLimiter> limiters;
+    private final ConcurrentHashMap<String, Set<String>> terminalsByAddress = new ConcurrentHashMap<>();
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        enabled = Boolean.parseBoolean(System.getProperty("bookshop.ratelimit.enabled", "true"));
+        terminalsPerAddress = Integer.getInteger("bookshop.ratelimit.terminalsPerAddress",
+                DEFAULT_TERMINALS_PER_ADDRESS);
+        limiters = new EnumMap<>(RateClass.class);
+        for (RateClass rateClass : RateClass.values()) {
+            limiters.put(rateClass, rateClass.createLimiter());
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        if (!enabled) {
+            chain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        String client = clientOf(request.getRemoteAddr(), request.getHeader(TERMINAL_HEADER));
+        RateClass rateClass = classify(request.getMethod(), request.getRequestURI(),
+                request.getContextPath().length());
+        long wait = limiters.get(rateClass).tryAcquire(client, System.nanoTime());
+        if (wait > 0) {
+            sendTooManyRequests((HttpServletResponse) servletResponse, rateClass, wait);
+            return;
+        }
+        chain.doFilter(servletRequest, servletResponse);
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Rate class of a request
+     * @param method the HTTP method
+     * @param uri the request URI, e.g. /pahana-edu-bookshop/api/bills/12/items
+     * @param offset length of the context path at the start of the URI
+     * @return the class the request is limited in
+     */
+    public static RateClass classify(String method, String uri, int offset) {
+        // skip "/api/" and the resource name to reach the first path segment
+        int resourceEnd = uri.indexOf('/', offset + 5);
+        String segment = "";
+        if (resourceEnd >= 0) {
+            int segmentEnd = uri.indexOf('/', resourceEnd + 1);
+            segment = uri.substring(resourceEnd + 1, segmentEnd >= 0 ? segmentEnd : uri.length());
+        }
+        if (REPORT_PATHS.contains(segment)) {
+            return RateClass.REPORT;
+        }
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return RateClass.POS;
+        }
+        if (segment.isEmpty() && uri.startsWith("/api/bills", offset)) {
+            // every bill, or every bill of a customer
+            return RateClass.REPORT;
+        }
+        return RateClass.LOOKUP;
+    }
+
+    // Helper methods
+
+    /**
+     * Bucket key of a request: its terminal ID if that is one of the first
+     * terminalsPerAddress IDs seen from its address, otherwise the address
+     */
+    private String clientOf(String address, String terminal) {
+        if (terminal == null || terminal.isEmpty() || terminal.length() > MAX_TERMINAL_ID_LENGTH) {
+            return address;
+        }
+        Set<String> terminals = terminalsByAddress.get(address);
+        if (terminals == null) {
+            if (terminalsByAddress.size() >= MAX_CLIENTS) {
+                // known terminals register again on their next request
+                terminalsByAddress.clear();
+            }
+            terminals = terminalsByAddress.computeIfAbsent(address, key -> ConcurrentHashMap.newKeySet());
+        }
+        if (!terminals.contains(terminal)) {
+            synchronized (terminals) {
+                if (!terminals.contains(terminal) && terminals.size() >= terminalsPerAddress) {
+                    return address;
+                }
+                terminals.add(terminal);
+            }
+        }
+        return terminal + '@' + address;
+    }
+
+    private static void sendTooManyRequests(HttpServletResponse response, RateClass rateClass, long waitNanos)
+            throws IOException {
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfter));
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (PrintWriter out = response.getWriter()) {
+            out.print(JsonUtil.createErrorResponse("Too many " + rateClass.name().toLowerCase() +
+                    " requests from this terminal, retry in " + retryAfter + " s").toString());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.icbt.cis6003.pahanaedubookshop.filter;
+
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+
+/**
+ * Runs each API request as one unit of work, so all DAO calls made while handling
+ * it share a single connection. The connection is only opened if the request
+ * actually reaches the database, and is released when the response is done.
+ */
+public class UnitOfWorkFilter implements Filter {
+
+    private TransactionManager transactionManager;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        transactionManager = TransactionManager.getInstance();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try (TransactionManager.Scope scope = transactionManager.openScope()) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
@@ -0,0 +1,151 @@
+package com.icbt.cis6003.pahanaedubookshop.journal;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.zip.CRC32;
+
+/**
+ * A single bill state change as stored in the bill event journal.
+ * Encoded as a fixed-size binary record:
+ * type(1) timestamp(8) billId(8) refId(8) quantity(4) amountCents(8) crc32(4).
+ * {@code refId} is the customer ID for CREATED events and the item ID for line events;
+ * a DRAFT_SAVED event carries the draft ID as {@code billId} and the database ID the
+ * bill was saved under as {@code refId}. A DRAFT_EXPIRED event closes a draft that
+ * was dropped after its time-to-live, with the customer ID as {@code refId}.
+ */
+public class BillEvent {
+
+    public static final int RECORD_SIZE = 41;
+    private static final int PAYLOAD_SIZE = RECORD_SIZE - 4;
+
+    private final EventType type;
+    private final long timestamp;
+    private final long billId;
+    private final long refId;
+    private final int quantity;
+    private final long amountCents;
+
+    public BillEvent(EventType type, long timestamp, long billId, long refId,
+                     int quantity, long amountCents) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.billId = billId;
+        this.refId = refId;
+        this.quantity = quantity;
+        this.amountCents = amountCents;
+    }
+
+    // Getters
+    public EventType getType() { return type; }
+    public long getTimestamp() { return timestamp; }
+    public long getBillId() { return billId; }
+    public long getRefId() { return refId; }
+    public int getQuantity() { return quantity; }
+    public long getAmountCents() { return amountCents; }
+
+    public Instant getInstant() {
+        return Instant.ofEpochMilli(timestamp);
+    }
+
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(amountCents, 2);
+    }
+
+    /**
+     * Write this event at the buffer's current position
+     */
+    public void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.put(type.code)
+              .putLong(timestamp)
+              .putLong(billId)
+              .putLong(refId)
+              .putInt(quantity)
+              .putLong(amountCents);
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    /**
+     * Read an event at the buffer's current position.
+     * Returns null at the end of the written data or on a torn/corrupt record.
+     */
+    public static BillEvent readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_SIZE) {
+            return null;
+        }
+        int start = buffer.position();
+        EventType type = EventType.fromCode(buffer.get(start));
+        if (type == null || buffer.getInt(start + PAYLOAD_SIZE) != checksum(buffer, start)) {
+            return null;
+        }
+
+        buffer.get(); // type
+        BillEvent event = new BillEvent(type, buffer.getLong(), buffer.getLong(),
+                buffer.getLong(), buffer.getInt(), buffer.getLong());
+        buffer.getInt(); // crc
+        return event;
+    }
+
+    /**
+     * Convert a money amount to whole cents, treating null as zero
+     */
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static int checksum(ByteBuffer buffer, int start) {
+        CRC32 crc = new CRC32();
+        for (int i = start; i < start + PAYLOAD_SIZE; i++) {
+            crc.update(buffer.get(i));
+        }
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public String toString() {
+        return "BillEvent{" +
+                "type=" + type +
+                ", timestamp=" + getInstant() +
+                ", billId=" + billId +
+                ", refId=" + refId +
+                ", quantity=" + quantity +
+                ", amount=" + getAmount() +
+                '}';
+    }
+
+    // Enums
+    public enum EventType {
+        CREATED((byte) 1),
+        ITEM_ADDED((byte) 2),
+        ITEM_QUANTITY_UPDATED((byte) 3),
+        ITEM_REMOVED((byte) 4),
+        FINALIZED((byte) 5),
+        CANCELLED((byte) 6),
+        DRAFT_SAVED((byte) 7),
+        DRAFT_EXPIRED((byte) 8);
+
+        private final byte code;
+
+        EventType(byte code) {
+            this.code = code;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public static EventType fromCode(byte code) {
+            for (EventType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.icbt.cis6003.pahanaedubookshop.journal;
+
+import com.icbt.cis6003.pahanaedubookshop.journal.BillEvent.EventType;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.service.BillLifecycleListener;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only, write-behind journal of bill events.
+ * Callers only enqueue onto a lock-free queue; a single writer thread drains it
+ * into memory-mapped segment files and forces them to disk in groups, either
+ * every {@code syncEveryRecords} records or every {@code syncIntervalMillis}.
+ * An event that cannot be written is dropped and counted; a flush that is waiting
+ * when a write or sync fails throws instead of waiting for the disk to recover.
+ */
+public class BillEventJournal implements BillLifecycleListener, AutoCloseable {
+
+    public static final String DIRECTORY_PROPERTY = "pahana.journal.dir";
+    static final String SEGMENT_PREFIX = "bill-events-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int DEFAULT_SEGMENT_RECORDS = 256 * 1024; // ~10 MB per segment
+    private static final int DEFAULT_SYNC_EVERY_RECORDS = 64;
+    private static final long DEFAULT_SYNC_INTERVAL_MILLIS = 50;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int syncEveryRecords;
+    private final long syncIntervalNanos;
+
+    private final Queue<BillEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final Object syncMonitor = new Object();
+    private final Thread writer;
+
+    private volatile boolean running = true;
+    private volatile boolean syncRequested;
+    private volatile long durable;
+    private volatile Exception lastFailure;
+
+    // owned by the writer thread after construction
+    private int segmentNumber;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+
+    public BillEventJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_RECORDS, DEFAULT_SYNC_EVERY_RECORDS, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    public BillEventJournal(Path directory, int segmentRecords, int syncEveryRecords,
+                            long syncIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentRecords * BillEvent.RECORD_SIZE;
+        this.syncEveryRecords = Math.max(1, syncEveryRecords);
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, syncIntervalMillis));
+
+        Files.createDirectories(directory);
+        openLastSegment();
+
+        writer = new Thread(this::writeLoop, "bill-event-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Open a journal in the directory given by the {@value #DIRECTORY_PROPERTY}
+     * system property, defaulting to a folder under java.io.tmpdir
+     */
+    public static BillEventJournal openDefault() throws IOException {
+        String dir = System.getProperty(DIRECTORY_PROPERTY,
+                Paths.get(System.getProperty("java.io.tmpdir"), "pahana-bill-journal").toString());
+        return new BillEventJournal(Paths.get(dir));
+    }
+
+    /**
+     * Enqueue an event; never blocks
+     */
+    public void append(BillEvent event) {
+        queue.offer(event);
+        enqueued.incrementAndGet();
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Block until every event enqueued before this call has been forced to disk
+     * @throws IOException if a write or sync fails while waiting, or the writer has stopped
+     */
+    public void flush() throws InterruptedException, IOException {
+        long target = enqueued.get();
+        long failuresBefore = failures.get();
+        synchronized (syncMonitor) {
+            while (durable < target && writer.isAlive() && failures.get() == failuresBefore) {
+                syncRequested = true;
+                LockSupport.unpark(writer);
+                syncMonitor.wait(10);
+            }
+        }
+        if (failures.get() != failuresBefore) {
+            throw new IOException("Bill event journal write failed", lastFailure);
+        }
+        if (durable < target) {
+            throw new IOException("Bill event journal writer has stopped");
+        }
+    }
+
+    /**
+     * Get the number of events dropped because they could not be written
+     */
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (channel != null) {
+            segment.force();
+            channel.close();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // BillLifecycleListener
+
+    @Override
+    public void onBillCreated(Bill bill) {
+        append(event(EventType.CREATED, bill, bill.getCustomerId(), 0, bill.getTotalAmount()));
+    }
+
+    @Override
+    public void onItemAdded(Bill bill, BillItem billItem) {
+        append(event(EventType.ITEM_ADDED, bill, billItem.getItemId(),
+                billItem.getQuantity(), billItem.getTotal()));
+    }
+
+    @Override
+    public void onItemQuantityUpdated(Bill bill, BillItem billItem, int previousQuantity) {
+        append(event(EventType.ITEM_QUANTITY_UPDATED, bill, billItem.getItemId(),
+                billItem.getQuantity(), billItem.getTotal()));
+    }
+
+    @Override
+    public void onItemRemoved(Bill bill, BillItem billItem) {
+        append(event(EventType.ITEM_REMOVED, bill, billItem.getItemId(),
+                billItem.getQuantity(), billItem.getTotal()));
+    }
+
+    @Override
+    public void onDraftSaved(Long draftId, Bill bill) {
+        append(new BillEvent(EventType.DRAFT_SAVED, System.currentTimeMillis(), draftId,
+                bill.getId() != null ? bill.getId() : 0, 0, 0));
+    }
+
+    @Override
+    public void onDraftExpired(Bill bill) {
+        append(event(EventType.DRAFT_EXPIRED, bill, bill.getCustomerId(),
+                bill.getTotalItemCount(), bill.getTotalAmount()));
+    }
+
+    @Override
+    public void onBillFinalized(Bill bill) {
+        append(event(EventType.FINALIZED, bill, bill.getCustomerId(),
+                bill.getTotalItemCount(), bill.getTotalAmount()));
+    }
+
+    @Override
+    public void onBillCancelled(Bill bill, BillStatus previousStatus) {
+        append(event(EventType.CANCELLED, bill, bill.getCustomerId(),
+                bill.getTotalItemCount(), bill.getTotalAmount()));
+    }
+
+    // Writer thread
+
+    private void writeLoop() {
+        long written = 0;
+        long unsynced = 0;
+        long lastSync = System.nanoTime();
+
+        while (running || !queue.isEmpty()) {
+            try {
+                BillEvent event;
+                while ((event = queue.poll()) != null) {
+                    // a dropped event still counts, so later flushes are not held up by it
+                    written++;
+                    try {
+                        write(event);
+                    } catch (IOException | RuntimeException e) {
+                        failedWrites.incrementAndGet();
+                        fail(e);
+                        continue;
+                    }
+                    if (++unsynced >= syncEveryRecords) {
+                        sync(written);
+                        unsynced = 0;
+                        lastSync = System.nanoTime();
+                    }
+                }
+
+                long sinceSync = System.nanoTime() - lastSync;
+                if (syncRequested || !running || (unsynced > 0 && sinceSync >= syncIntervalNanos)) {
+                    syncRequested = false;
+                    sync(written);
+                    unsynced = 0;
+                    lastSync = System.nanoTime();
+                }
+
+                if (running && queue.isEmpty()) {
+                    LockSupport.parkNanos(this, unsynced > 0 ? syncIntervalNanos - sinceSync : syncIntervalNanos);
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+                LockSupport.parkNanos(this, syncIntervalNanos);
+            }
+        }
+    }
+
+    private void fail(Exception e) {
+        System.err.println("Bill event journal write failed: " + e.getMessage());
+        synchronized (syncMonitor) {
+            lastFailure = e;
+            failures.incrementAndGet();
+            syncMonitor.notifyAll();
+        }
+    }
+
+    private void write(BillEvent event) throws IOException {
+        if (segment.remaining() < BillEvent.RECORD_SIZE) {
+            segment.force();
+            channel.close();
+            openSegment(segmentNumber + 1);
+        }
+        event.writeTo(segment);
+    }
+
+    private void sync(long written) {
+        segment.force();
+        synchronized (syncMonitor) {
+            durable = written;
+            syncMonitor.notifyAll();
+        }
+    }
+
+    // Segment handling
+
+    private void openLastSegment() throws IOException {
+        List<Path> segments = BillEventJournalReader.listSegments(directory);
+        if (segments.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        openSegment(BillEventJournalReader.segmentNumber(last));
+        // skip over records that were already written before a restart
+        BillEvent existing;
+        do {
+            existing = BillEvent.readFrom(segment);
+        } while (existing != null);
+    }
+
+    private void openSegment(int number) throws IOException {
+        segmentNumber = number;
+        Path path = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    private static BillEvent event(EventType type, Bill bill, Long refId, int quantity,
+                                   BigDecimal amount) {
+        return new BillEvent(type, System.currentTimeMillis(),
+                bill.getId() != null ? bill.getId() : 0,
+                refId != null ? refId : 0,
+                quantity, BillEvent.toCents(amount));
+    }
+}
@@ -0,0 +1,109 @@
+package com.icbt.cis6003.pahanaedubookshop.journal;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads the bill event journal back in append order, e.g. to reconcile
+ * the bills table against the recorded history.
+ */
+public class BillEventJournalReader {
+
+    private final Path directory;
+
+    public BillEventJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Pass every journaled event to the consumer, oldest first.
+     * Reading of a segment stops at its first empty or corrupt record.
+     */
+    public void replay(Consumer<BillEvent> consumer) throws IOException {
+        for (Path path : listSegments(directory)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                BillEvent event;
+                while ((event = BillEvent.readFrom(buffer)) != null) {
+                    consumer.accept(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read all journaled events into a list
+     */
+    public List<BillEvent> readAll() throws IOException {
+        List<BillEvent> events = new ArrayList<>();
+        replay(events::add);
+        return events;
+    }
+
+    /**
+     * Replay the journal into the last known status of every bill.
+     * A draft that was saved is reported under its database ID only, and a draft that
+     * expired is not reported. Bills that were created but never finalized, cancelled or
+     * expired, i.e. drafts still open when the application stopped, are reported as DRAFT.
+     */
+    public Map<Long, BillStatus> reconstructStatuses() throws IOException {
+        Map<Long, BillStatus> statuses = new HashMap<>();
+        replay(event -> {
+            switch (event.getType()) {
+                case CREATED:
+                    // draft IDs start over when the application restarts
+                    statuses.put(event.getBillId(), BillStatus.DRAFT);
+                    break;
+                case DRAFT_SAVED:
+                case DRAFT_EXPIRED:
+                    statuses.remove(event.getBillId());
+                    break;
+                case FINALIZED:
+                    statuses.put(event.getBillId(), BillStatus.FINALIZED);
+                    break;
+                case CANCELLED:
+                    statuses.put(event.getBillId(), BillStatus.CANCELLED);
+                    break;
+                default:
+                    statuses.putIfAbsent(event.getBillId(), BillStatus.DRAFT);
+            }
+        });
+        return statuses;
+    }
+
+    // Segment helpers shared with the writer
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        String glob = BillEventJournal.SEGMENT_PREFIX + "*" + BillEventJournal.SEGMENT_SUFFIX;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    static int segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(BillEventJournal.SEGMENT_PREFIX.length(),
+                name.length() - BillEventJournal.SEGMENT_SUFFIX.length()));
+    }
+}
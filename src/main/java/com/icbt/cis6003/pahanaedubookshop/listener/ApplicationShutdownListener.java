@@ -0,0 +1,25 @@
+package com.icbt.cis6003.pahanaedubookshop.listener;
+
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillingServiceImpl;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Releases the billing service's background resources when the application is
+ * undeployed: stops the draft bill evictor and forces journaled bill events still
+ * queued to disk.
+ */
+@WebListener
+public class ApplicationShutdownListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        BillingServiceImpl.getInstance().shutdown();
+    }
+}
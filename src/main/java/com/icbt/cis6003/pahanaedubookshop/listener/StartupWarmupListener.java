@@ -0,0 +1,68 @@
+package com.icbt.cis6003.pahanaedubookshop.listener;
+
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService;
+import com.icbt.cis6003.pahanaedubookshop.service.WarmupService;
+import com.icbt.cis6003.pahanaedubookshop.service.WarmupService.WarmupStatus;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillArchiveServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.WarmupServiceImpl;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the warm-up when the application is deployed, with a SyntheticRequestWarmer
+ * for the requests through the controllers. The warm-up runs in the background, so deployment is not held up and /api/health/ready can report progress;
+ * load balancers should wait for it before sending cashiers' requests. A warm-up that
+ * fails, e.g. because the database is not up yet, is retried every ten seconds.
+ * After the warm-up, and then once a day, the same thread adds the monthly partitions
+ * of bills and bill_items ahead of time; a failed check is logged and left to the next
+ * day's, which is well within the months of lead.
+ */
+@WebListener
+public class StartupWarmupListener implements ServletContextListener {
+
+    private static final long RETRY_SECONDS = 10;
+    private static final long PARTITION_CHECK_HOURS = 24;
+
+    private ScheduledExecutorService executor;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        WarmupService warmupService = WarmupServiceImpl.getInstance();
+        SyntheticRequestWarmer requestWarmer = new SyntheticRequestWarmer(event.getServletContext());
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "startup-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                WarmupStatus status = warmupService.warmUp(requestWarmer);
+                if (status.getState() == WarmupStatus.State.FAILED && !executor.isShutdown()) {
+                    executor.schedule(this, RETRY_SECONDS, TimeUnit.SECONDS);
+                }
+            }
+        });
+        BillArchiveService archiveService = BillArchiveServiceImpl.getInstance();
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                archiveService.ensurePartitions();
+            } catch (RuntimeException e) {
+                // an exception would cancel the schedule
+                System.err.println("Error adding monthly partitions: " + e.getMessage());
+            }
+        }, 0, PARTITION_CHECK_HOURS, TimeUnit.HOURS);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.icbt.cis6003.pahanaedubookshop.listener;
+
+import com.icbt.cis6003.pahanaedubookshop.controller.BillingController;
+import com.icbt.cis6003.pahanaedubookshop.controller.CustomerController;
+import com.icbt.cis6003.pahanaedubookshop.controller.ItemController;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.service.WarmupService.RequestWarmer;
+import com.icbt.cis6003.pahanaedubookshop.service.WarmupService.WarmupSamples;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Proxy;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Warms the controllers up with synthetic GET requests for StartupWarmupListener. The
+ * requests never write and are not sent over the network; they go straight to
+ * controller instances of its own, with minimal request and response objects. The
+ * replay (searches, single items, customers and bills, receipts) runs one thread per
+ * controller.
+ */
+public class SyntheticRequestWarmer implements RequestWarmer {
+
+    private final ServletContext context;
+    private final TransactionManager transactionManager = TransactionManager.getInstance();
+    private Map<String, HttpServlet> servlets;
+
+    public SyntheticRequestWarmer(ServletContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void fillResponseCache(LongAdder requests, LongAdder failed) {
+        HttpServlet items = servlets().get("items");
+        for (String path : new String[] {"/", "/categories", "/statistics", "/count"}) {
+            run(items, path, requests, failed);
+        }
+        run(servlets().get("customers"), "/count", requests, failed);
+    }
+
+    @Override
+    public void replay(WarmupSamples samples, int iterations, long deadlineNanos, LongAdder requests,
+                       LongAdder failed) {
+        Map<String, List<String>> paths = new LinkedHashMap<>();
+        paths.put("items", itemPaths(samples.getItems()));
+        paths.put("customers", customerPaths(samples.getCustomers()));
+        paths.put("bills", billPaths(samples.getBills()));
+        ExecutorService pool = Executors.newFixedThreadPool(paths.size(), runnable -> {
+            Thread thread = new Thread(runnable, "warmup-requests");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (Map.Entry<String, List<String>> group : paths.entrySet()) {
+                HttpServlet servlet = servlets().get(group.getKey());
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < iterations && System.nanoTime() < deadlineNanos; i++) {
+                        for (String path : group.getValue()) {
+                            run(servlet, path, requests, failed);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warm-up interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Helper methods
+
+    /**
+     * The controllers, initialized on first use; a warm-up that fails starts over with them
+     */
+    private synchronized Map<String, HttpServlet> servlets() {
+        if (servlets == null) {
+            try {
+                Map<String, HttpServlet> initialized = new LinkedHashMap<>();
+                initialized.put("items", initServlet(new ItemController(), "ItemController", context));
+                initialized.put("customers", initServlet(new CustomerController(), "CustomerController", context));
+                initialized.put("bills", initServlet(new BillingController(), "BillingController", context));
+                servlets = initialized;
+            } catch (ServletException e) {
+                throw new IllegalStateException("Error initializing controllers for the warm-up: " + e.getMessage(), e);
+            }
+        }
+        return servlets;
+    }
+
+    private static List<String> itemPaths(List<Item> items) {
+        List<String> paths = new ArrayList<>();
+        for (Item item : items) {
+            paths.add("/" + item.getId());
+            addSearch(paths, item.getName());
+        }
+        return paths;
+    }
+
+    private static List<String> customerPaths(List<Customer> customers) {
+        List<String> paths = new ArrayList<>();
+        for (Customer customer : customers) {
+            paths.add("/" + customer.getId());
+            paths.add("/" + customer.getId() + "/totals");
+            addSearch(paths, customer.getName());
+        }
+        return paths;
+    }
+
+    private static List<String> billPaths(List<Bill> bills) {
+        List<String> paths = new ArrayList<>();
+        for (Bill bill : bills) {
+            paths.add("/" + bill.getId());
+            paths.add("/" + bill.getId() + "/receipt?format=text");
+            paths.add("/" + bill.getId() + "/receipt?format=html");
+        }
+        return paths;
+    }
+
+    /**
+     * Run a GET request through a servlet as one unit of work, like UnitOfWorkFilter does
+     * @param path path below the servlet mapping, with an optional query string
+     */
+    private void run(HttpServlet servlet, String path, LongAdder requests, LongAdder failed) {
+        int[] responseStatus = {HttpServletResponse.SC_OK};
+        try (TransactionManager.Scope scope = transactionManager.openScope()) {
+            servlet.service(syntheticRequest(servlet.getServletContext(), path), syntheticResponse(responseStatus));
+        } catch (IOException | ServletException | RuntimeException e) {
+            responseStatus[0] = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+        requests.increment();
+        if (responseStatus[0] >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+            failed.increment();
+        }
+    }
+
+    private static HttpServlet initServlet(HttpServlet servlet, String name, ServletContext context)
+            throws ServletException {
+        servlet.init(new ServletConfig() {
+            @Override
+            public String getServletName() {
+                return name;
+            }
+
+            @Override
+            public ServletContext getServletContext() {
+                return context;
+            }
+
+            @Override
+            public String getInitParameter(String parameter) {
+                return null;
+            }
+
+            @Override
+            public java.util.Enumeration<String> getInitParameterNames() {
+                return Collections.emptyEnumeration();
+            }
+        });
+        return servlet;
+    }
+
+    /**
+     * A GET request without headers or body. Only the getters the controllers use
+     * are answered; everything else returns null, false or zero.
+     */
+    private static HttpServletRequest syntheticRequest(ServletContext context, String path) {
+        int query = path.indexOf('?');
+        String pathInfo = query >= 0 ? path.substring(0, query) : path;
+        String queryString = query >= 0 ? path.substring(query + 1) : null;
+        Map<String, String[]> parameters = parseQuery(queryString);
+        return (HttpServletRequest) Proxy.newProxyInstance(SyntheticRequestWarmer.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMethod": return "GET";
+                        case "getProtocol": return "HTTP/1.1";
+                        case "getPathInfo": return "/".equals(pathInfo) ? null : pathInfo;
+                        case "getQueryString": return queryString;
+                        case "getContextPath": return context.getContextPath();
+                        case "getServletContext": return context;
+                        case "getParameter":
+                            String[] values = parameters.get((String) args[0]);
+                            return values != null ? values[0] : null;
+                        case "getParameterValues": return parameters.get((String) args[0]);
+                        case "getParameterMap": return parameters;
+                        case "getParameterNames": return Collections.enumeration(parameters.keySet());
+                        case "getHeaders": return Collections.emptyEnumeration();
+                        case "getHeaderNames": return Collections.emptyEnumeration();
+                        case "getDateHeader":
+                        case "getIntHeader":
+                            return method.getReturnType() == long.class ? (Object) (-1L) : (Object) (-1);
+                        case "getRemoteAddr": return "127.0.0.1";
+                        default: return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * A response that keeps its status and discards its body
+     */
+    private static HttpServletResponse syntheticResponse(int[] responseStatus) {
+        ServletOutputStream discard = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(discard, StandardCharsets.UTF_8));
+        return (HttpServletResponse) Proxy.newProxyInstance(SyntheticRequestWarmer.class.getClassLoader(),
+                new Class<?>[] {HttpServletResponse.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setStatus":
+                        case "sendError":
+                            responseStatus[0] = (Integer) args[0];
+                            return null;
+                        case "getStatus": return responseStatus[0];
+                        case "getOutputStream": return discard;
+                        case "getWriter": return writer;
+                        case "getCharacterEncoding": return StandardCharsets.UTF_8.name();
+                        default: return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Map<String, String[]> parseQuery(String queryString) {
+        Map<String, String[]> parameters = new LinkedHashMap<>();
+        if (queryString == null) {
+            return parameters;
+        }
+        try {
+            for (String pair : queryString.split("&")) {
+                String[] keyValue = pair.split("=", 2);
+                parameters.put(URLDecoder.decode(keyValue[0], "UTF-8"),
+                        new String[] {keyValue.length > 1 ? URLDecoder.decode(keyValue[1], "UTF-8") : ""});
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return parameters;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    /**
+     * Add a search for the start of a name's first word, the way cashiers type it
+     */
+    private static void addSearch(List<String> paths, String name) {
+        String term = name != null ? name.trim() : "";
+        int space = term.indexOf(' ');
+        term = space > 0 ? term.substring(0, space) : term;
+        term = term.substring(0, Math.min(term.length(), 4)).toLowerCase();
+        // an empty search lists everything, which is not what a till does
+        if (!term.isEmpty()) {
+            try {
+                paths.add("/?search=" + URLEncoder.encode(term, "UTF-8"));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.icbt.cis6003.pahanaedubookshop.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A closed month whose bills and bill items have been moved to the archive tables
+ */
+public class ArchivedPeriod {
+    private LocalDate periodStart;
+    private int billCount;
+    private int itemCount;
+    private LocalDateTime archivedAt;
+
+    // Default constructor
+    public ArchivedPeriod() {
+    }
+
+    // Full constructor
+    public ArchivedPeriod(LocalDate periodStart, int billCount, int itemCount, LocalDateTime archivedAt) {
+        this.periodStart = periodStart;
+        this.billCount = billCount;
+        this.itemCount = itemCount;
+        this.archivedAt = archivedAt;
+    }
+
+    // Getters and Setters
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    /**
+     * First day after the period
+     */
+    public LocalDate getPeriodEnd() {
+        return periodStart.plusMonths(1);
+    }
+
+    public int getBillCount() {
+        return billCount;
+    }
+
+    public void setBillCount(int billCount) {
+        this.billCount = billCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivedPeriod{periodStart=" + periodStart + ", billCount=" + billCount +
+               ", itemCount=" + itemCount + ", archivedAt=" + archivedAt + "}";
+    }
+}
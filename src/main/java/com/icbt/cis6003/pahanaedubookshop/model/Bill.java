@@ -23,6 +23,7 @@ public class Bill {
     private BigDecimal totalAmount;
     private BigDecimal taxRate;
     private BillStatus status;
+    private Integer version;
 
     // Default constructor
     public Bill() {
@@ -139,6 +140,14 @@ public class Bill {
         this.status = status;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     // Business methods
     public void addItem(BillItem item) {
         if (items == null) {
@@ -15,6 +15,7 @@ public class BillItem {
     private BigDecimal unitPrice;
     private Integer quantity;
     private BigDecimal total;
+    private Item.ItemCategory itemCategory;
 
     // Default constructor
     public BillItem() {
@@ -111,6 +112,14 @@ public class BillItem {
         this.total = total;
     }
 
+    public Item.ItemCategory getItemCategory() {
+        return itemCategory;
+    }
+
+    public void setItemCategory(Item.ItemCategory itemCategory) {
+        this.itemCategory = itemCategory;
+    }
+
     // Business methods
     public void calculateTotal() {
         if (unitPrice != null && quantity != null) {
@@ -161,13 +170,15 @@ public class BillItem {
             throw new IllegalArgumentException("Insufficient stock for item: " + item.getName());
         }
 
-        return new BillItem(
+        BillItem billItem = new BillItem(
             item.getId(),
             item.getCode(),
             item.getName(),
             item.getPrice(),
             quantity
         );
+        billItem.setItemCategory(item.getCategory());
+        return billItem;
     }
 
     // Override methods
@@ -14,6 +14,7 @@ public class Customer {
     private String phone;
     private String email;
     private LocalDate registrationDate;
+    private Integer version;
 
     // Default constructor
     public Customer() {
@@ -98,6 +99,14 @@ public class Customer {
         this.registrationDate = registrationDate;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     // Validation methods
     public boolean isValid() {
         return accountNumber != null && !accountNumber.trim().isEmpty() &&
@@ -0,0 +1,163 @@
+package com.icbt.cis6003.pahanaedubookshop.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * RFM (recency, frequency, monetary) scores of one customer and the segment they
+ * put the customer in. Each score is the quintile (1-5, 5 best) of the customer's
+ * latest sale date, number of sales and amount spent among all scored customers.
+ */
+public class CustomerSegment {
+    private Long customerId;
+    private Segment segment;
+    private int recencyScore;
+    private int frequencyScore;
+    private int monetaryScore;
+    private long billCount;
+    private BigDecimal totalAmount;
+    private LocalDate lastBillDate;
+
+    // Default constructor
+    public CustomerSegment() {
+        this.totalAmount = BigDecimal.ZERO;
+    }
+
+    // Full constructor
+    public CustomerSegment(Long customerId, Segment segment, int recencyScore, int frequencyScore,
+                           int monetaryScore, long billCount, BigDecimal totalAmount, LocalDate lastBillDate) {
+        this.customerId = customerId;
+        this.segment = segment;
+        this.recencyScore = recencyScore;
+        this.frequencyScore = frequencyScore;
+        this.monetaryScore = monetaryScore;
+        this.billCount = billCount;
+        this.totalAmount = totalAmount;
+        this.lastBillDate = lastBillDate;
+    }
+
+    // Getters and Setters
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Segment getSegment() {
+        return segment;
+    }
+
+    public void setSegment(Segment segment) {
+        this.segment = segment;
+    }
+
+    public int getRecencyScore() {
+        return recencyScore;
+    }
+
+    public void setRecencyScore(int recencyScore) {
+        this.recencyScore = recencyScore;
+    }
+
+    public int getFrequencyScore() {
+        return frequencyScore;
+    }
+
+    public void setFrequencyScore(int frequencyScore) {
+        this.frequencyScore = frequencyScore;
+    }
+
+    public int getMonetaryScore() {
+        return monetaryScore;
+    }
+
+    public void setMonetaryScore(int monetaryScore) {
+        this.monetaryScore = monetaryScore;
+    }
+
+    public long getBillCount() {
+        return billCount;
+    }
+
+    public void setBillCount(long billCount) {
+        this.billCount = billCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public LocalDate getLastBillDate() {
+        return lastBillDate;
+    }
+
+    public void setLastBillDate(LocalDate lastBillDate) {
+        this.lastBillDate = lastBillDate;
+    }
+
+    // Business methods
+    public String getRfmCode() {
+        return "" + recencyScore + frequencyScore + monetaryScore;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerSegment{" +
+                "customerId=" + customerId +
+                ", segment=" + segment +
+                ", rfm=" + getRfmCode() +
+                ", billCount=" + billCount +
+                ", totalAmount=" + totalAmount +
+                ", lastBillDate=" + lastBillDate +
+                '}';
+    }
+
+    // Enum for segments, decided by the recency and frequency scores
+    public enum Segment {
+        CHAMPIONS("Champions"),
+        LOYAL("Loyal"),
+        NEW("New"),
+        PROMISING("Promising"),
+        AT_RISK("At Risk"),
+        HIBERNATING("Hibernating"),
+        LOST("Lost");
+
+        private final String displayName;
+
+        Segment(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * Segment of a customer with the given recency and frequency scores (1-5)
+         */
+        public static Segment of(int recencyScore, int frequencyScore) {
+            if (recencyScore >= 4 && frequencyScore >= 4) {
+                return CHAMPIONS;
+            }
+            if (recencyScore == 5 && frequencyScore == 1) {
+                return NEW;
+            }
+            if (recencyScore >= 3 && frequencyScore >= 3) {
+                return LOYAL;
+            }
+            if (recencyScore >= 3) {
+                return PROMISING;
+            }
+            if (frequencyScore >= 3) {
+                return AT_RISK;
+            }
+            return recencyScore == 1 ? LOST : HIBERNATING;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.icbt.cis6003.pahanaedubookshop.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Running purchase totals of one customer over its sales bills (FINALIZED and PAID)
+ */
+public class CustomerTotals {
+    private Long customerId;
+    private long billCount;
+    private BigDecimal totalAmount;
+    private LocalDate lastBillDate;
+
+    // Default constructor
+    public CustomerTotals() {
+        this.totalAmount = BigDecimal.ZERO;
+    }
+
+    // Full constructor
+    public CustomerTotals(Long customerId, long billCount, BigDecimal totalAmount, LocalDate lastBillDate) {
+        this.customerId = customerId;
+        this.billCount = billCount;
+        this.totalAmount = totalAmount;
+        this.lastBillDate = lastBillDate;
+    }
+
+    /**
+     * Totals of a customer without any sales
+     */
+    public static CustomerTotals empty(Long customerId) {
+        return new CustomerTotals(customerId, 0, BigDecimal.ZERO, null);
+    }
+
+    // Getters and Setters
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public long getBillCount() {
+        return billCount;
+    }
+
+    public void setBillCount(long billCount) {
+        this.billCount = billCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public LocalDate getLastBillDate() {
+        return lastBillDate;
+    }
+
+    public void setLastBillDate(LocalDate lastBillDate) {
+        this.lastBillDate = lastBillDate;
+    }
+
+    // Business methods
+    public BigDecimal getAverageBillAmount() {
+        if (billCount == 0) {
+            return BigDecimal.ZERO;
+        }
+        return totalAmount.divide(BigDecimal.valueOf(billCount), 2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CustomerTotals that = (CustomerTotals) o;
+        return billCount == that.billCount &&
+                Objects.equals(customerId, that.customerId) &&
+                (totalAmount == null ? that.totalAmount == null :
+                        that.totalAmount != null && totalAmount.compareTo(that.totalAmount) == 0) &&
+                Objects.equals(lastBillDate, that.lastBillDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(customerId, billCount, lastBillDate);
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerTotals{" +
+                "customerId=" + customerId +
+                ", billCount=" + billCount +
+                ", totalAmount=" + totalAmount +
+                ", lastBillDate=" + lastBillDate +
+                '}';
+    }
+}
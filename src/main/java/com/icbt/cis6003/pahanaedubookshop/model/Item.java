@@ -15,6 +15,7 @@ public class Item {
     private Integer stock;
     private Integer minStock;
     private String description;
+    private Integer version;
 
     // Default constructor
     public Item() {
@@ -109,6 +110,14 @@ public class Item {
         this.description = description;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     // Validation methods
     public boolean isValid() {
         return code != null && !code.trim().isEmpty() &&
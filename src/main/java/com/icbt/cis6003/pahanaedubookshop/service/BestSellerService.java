@@ -0,0 +1,116 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import java.util.List;
+
+/**
+ * Service interface for best-seller and slow-mover analytics.
+ * Sold quantities are maintained in memory as bills are finalized,
+ * so queries never scan bill_items.
+ */
+public interface BestSellerService {
+
+    /**
+     * Record the items of a finalized bill as sold
+     * @param bill the finalized bill
+     */
+    void recordSale(Bill bill);
+
+    /**
+     * Reverse the items of a previously finalized bill
+     * @param bill the cancelled bill
+     */
+    void reverseSale(Bill bill);
+
+    /**
+     * Replace the counts with those of the bill history and register every catalogue
+     * item (e.g. on startup). Sales recorded while the history is read may be missed.
+     */
+    void rebuild();
+
+    /**
+     * Register a catalogue item so it is reported as a slow mover even before its first sale
+     * @param itemId the item ID
+     */
+    void registerItem(Long itemId);
+
+    /**
+     * Remove an item from the analytics (e.g. after it is deleted)
+     * @param itemId the item ID
+     */
+    void unregisterItem(Long itemId);
+
+    /**
+     * Get the exact all-time sold quantity for an item
+     * @param itemId the item ID
+     * @return total quantity sold on finalized bills
+     */
+    long getTotalSold(Long itemId);
+
+    /**
+     * Get the best selling items for a window
+     * @param window the sales window
+     * @param limit the maximum number of items to return
+     * @return items ordered by quantity sold, highest first
+     */
+    List<ItemSales> getTopSellers(SalesWindow window, int limit);
+
+    /**
+     * Get the slowest moving registered items for a window
+     * @param window the sales window
+     * @param limit the maximum number of items to return
+     * @return items ordered by quantity sold, lowest first
+     */
+    List<ItemSales> getSlowMovers(SalesWindow window, int limit);
+
+    /**
+     * Rolling windows supported by the analytics
+     */
+    enum SalesWindow {
+        TODAY("today", 1),
+        LAST_7_DAYS("7days", 7),
+        LAST_30_DAYS("30days", 30);
+
+        private final String parameter;
+        private final int days;
+
+        SalesWindow(String parameter, int days) {
+            this.parameter = parameter;
+            this.days = days;
+        }
+
+        public String getParameter() { return parameter; }
+        public int getDays() { return days; }
+
+        /**
+         * Resolve a request parameter value, defaulting to the last 7 days
+         */
+        public static SalesWindow fromParameter(String value) {
+            if (value != null) {
+                for (SalesWindow window : values()) {
+                    if (window.parameter.equalsIgnoreCase(value.trim())) {
+                        return window;
+                    }
+                }
+            }
+            return LAST_7_DAYS;
+        }
+    }
+
+    /**
+     * Inner class for per-item sales figures
+     */
+    class ItemSales {
+        private Long itemId;
+        private long quantitySold;
+
+        public ItemSales(Long itemId, long quantitySold) {
+            this.itemId = itemId;
+            this.quantitySold = quantitySold;
+        }
+
+        // Getters
+        public Long getItemId() { return itemId; }
+        public long getQuantitySold() { return quantitySold; }
+    }
+}
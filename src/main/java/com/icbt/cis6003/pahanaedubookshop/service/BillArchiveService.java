@@ -0,0 +1,132 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.archive.ItemTotals;
+import com.icbt.cis6003.pahanaedubookshop.model.ArchivedPeriod;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service interface for hot/cold archival of bills. Closed months are moved out of
+ * bills and bill_items into compressed archive tables that only reports read, so the
+ * tables the till works on stay the size of the recent months however long the
+ * history grows. Archived months are also exported to local columnar files, which
+ * report scans read instead of the archive tables.
+ */
+public interface BillArchiveService {
+
+    /**
+     * Archive every closed month older than the hot window, oldest first. A month is
+     * closed once it has no DRAFT bills; the run stops at the first month that is not,
+     * so the archive always ends at a single boundary date. Archived months are then
+     * exported to columnar files.
+     * @param hotMonths number of whole months kept hot before the current month
+     * @return outcome of the run
+     * @throws IllegalStateException if another run is in progress
+     */
+    ArchiveResult archiveClosedPeriods(int hotMonths);
+
+    /**
+     * Export every archived month that has no current columnar file, e.g. on a new
+     * application server or after the files were removed
+     * @return number of months exported
+     * @throws IllegalStateException if an archival run is in progress
+     */
+    int exportColumnarPeriods();
+
+    /**
+     * Add the monthly partitions of bills and bill_items up to a few months ahead of
+     * today, so new bills never land in the catch-all partition. Safe to run repeatedly;
+     * does nothing while an archival run is in progress, since the run adds them itself.
+     * @return true if the partitions were checked
+     */
+    boolean ensurePartitions();
+
+    /**
+     * Summarize the sales of archived months from their columnar files, starting at
+     * the start date and stopping at the first month that is not archived or has no
+     * columnar file. The rest of the range is left to the database.
+     * @param startDate first day of the range
+     * @param endDate last day of the range
+     * @param topItems number of best selling items to include, 0 for none
+     * @return totals of the covered part of the range
+     */
+    ArchivedSales getArchivedSales(LocalDate startDate, LocalDate endDate, int topItems);
+
+    /**
+     * Get all archived months
+     * @return archived periods, oldest first
+     */
+    List<ArchivedPeriod> getArchivedPeriods();
+
+    /**
+     * Outcome of an archival run
+     */
+    class ArchiveResult {
+        private final List<ArchivedPeriod> periods;
+        private final LocalDate blockedPeriod;
+        private final LocalDate hotFrom;     // first day not archived, null if nothing is
+        private final int exportedPeriods;
+        private final long elapsedMillis;
+
+        public ArchiveResult(List<ArchivedPeriod> periods, LocalDate blockedPeriod, LocalDate hotFrom,
+                             int exportedPeriods, long elapsedMillis) {
+            this.periods = periods;
+            this.blockedPeriod = blockedPeriod;
+            this.hotFrom = hotFrom;
+            this.exportedPeriods = exportedPeriods;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public List<ArchivedPeriod> getPeriods() { return periods; }
+        public LocalDate getBlockedPeriod() { return blockedPeriod; }
+        public LocalDate getHotFrom() { return hotFrom; }
+        public int getExportedPeriods() { return exportedPeriods; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public long getBills() {
+            return periods.stream().mapToLong(ArchivedPeriod::getBillCount).sum();
+        }
+
+        public long getItems() {
+            return periods.stream().mapToLong(ArchivedPeriod::getItemCount).sum();
+        }
+
+        @Override
+        public String toString() {
+            return "ArchiveResult{periods=" + periods.size() + ", bills=" + getBills() + ", items=" + getItems() +
+                    ", blockedPeriod=" + blockedPeriod + ", hotFrom=" + hotFrom +
+                    ", exportedPeriods=" + exportedPeriods + ", elapsedMillis=" + elapsedMillis + "}";
+        }
+    }
+
+    /**
+     * Sales totals of the part of a range read from columnar files
+     */
+    class ArchivedSales {
+        private final LocalDate startDate;
+        private final LocalDate coveredUntil;
+        private final long bills;
+        private final long salesBills;
+        private final BigDecimal salesTotal;
+        private final List<ItemTotals> topItems;
+
+        public ArchivedSales(LocalDate startDate, LocalDate coveredUntil, long bills, long salesBills,
+                             BigDecimal salesTotal, List<ItemTotals> topItems) {
+            this.startDate = startDate;
+            this.coveredUntil = coveredUntil;
+            this.bills = bills;
+            this.salesBills = salesBills;
+            this.salesTotal = salesTotal;
+            this.topItems = topItems;
+        }
+
+        public LocalDate getStartDate() { return startDate; }
+        /** First day not covered; equal to the start date if nothing was */
+        public LocalDate getCoveredUntil() { return coveredUntil; }
+        public long getBills() { return bills; }
+        public long getSalesBills() { return salesBills; }
+        public BigDecimal getSalesTotal() { return salesTotal; }
+        public List<ItemTotals> getTopItems() { return topItems; }
+    }
+}
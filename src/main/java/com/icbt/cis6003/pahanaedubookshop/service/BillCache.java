@@ -0,0 +1,56 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import java.util.Optional;
+
+/**
+ * Cache of settled (FINALIZED or PAID) bills with their items.
+ * Settled bills do not change apart from being cancelled, so entries never
+ * expire; the least recently used bills are dropped once the memory budget
+ * is exceeded. Callers receive copies and may modify them freely.
+ */
+public interface BillCache {
+
+    /**
+     * Get a cached bill
+     * @param billId the bill ID
+     * @return Optional containing a copy of the bill if cached
+     */
+    Optional<Bill> get(Long billId);
+
+    /**
+     * Cache a bill if it is settled; other bills are ignored
+     * @param bill the bill with its items loaded
+     */
+    void put(Bill bill);
+
+    /**
+     * Remove a bill from the cache (e.g. when it is cancelled)
+     * @param billId the bill ID
+     */
+    void invalidate(Long billId);
+
+    /**
+     * Get the number of cached bills
+     * @return number of bills
+     */
+    int size();
+
+    /**
+     * Get the estimated memory held by cached bills
+     * @return estimated size in bytes
+     */
+    long getEstimatedBytes();
+
+    /**
+     * Get the number of lookups answered from the cache
+     * @return hit count
+     */
+    long getHitCount();
+
+    /**
+     * Get the number of lookups that missed the cache
+     * @return miss count
+     */
+    long getMissCount();
+}
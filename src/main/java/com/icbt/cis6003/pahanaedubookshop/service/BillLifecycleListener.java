@@ -0,0 +1,76 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+
+/**
+ * Listener notified by the billing service when a bill changes state.
+ * All methods are no-ops by default so implementations only override what they need.
+ */
+public interface BillLifecycleListener {
+
+    /**
+     * Called after a new draft bill has been created
+     * @param bill the created bill
+     */
+    default void onBillCreated(Bill bill) {
+    }
+
+    /**
+     * Called after an item line has been added to a draft bill
+     * @param bill the updated bill
+     * @param billItem the added line
+     */
+    default void onItemAdded(Bill bill, BillItem billItem) {
+    }
+
+    /**
+     * Called after the quantity of a line in a draft bill has changed
+     * @param bill the updated bill
+     * @param billItem the line with its new quantity
+     * @param previousQuantity the quantity before the change
+     */
+    default void onItemQuantityUpdated(Bill bill, BillItem billItem, int previousQuantity) {
+    }
+
+    /**
+     * Called after an item line has been removed from a draft bill
+     * @param bill the updated bill
+     * @param billItem the removed line
+     */
+    default void onItemRemoved(Bill bill, BillItem billItem) {
+    }
+
+    /**
+     * Called when a draft bill has been saved under its database ID, just before
+     * onBillFinalized is called for it
+     * @param draftId the ID the bill had as a draft
+     * @param bill the saved bill with its database ID
+     */
+    default void onDraftSaved(Long draftId, Bill bill) {
+    }
+
+    /**
+     * Called when a draft bill expired without being finalized or cancelled and was
+     * dropped. Nothing about it was ever saved.
+     * @param bill the expired draft including its items
+     */
+    default void onDraftExpired(Bill bill) {
+    }
+
+    /**
+     * Called after a bill has been finalized and its stock has been updated
+     * @param bill the finalized bill including its items
+     */
+    default void onBillFinalized(Bill bill) {
+    }
+
+    /**
+     * Called after a bill has been cancelled
+     * @param bill the cancelled bill including its items
+     * @param previousStatus the status the bill had before cancellation
+     */
+    default void onBillCancelled(Bill bill, BillStatus previousStatus) {
+    }
+}
@@ -51,7 +51,20 @@ public interface BillingService {
     Bill updateItemQuantityInBill(Long billId, Long itemId, Integer newQuantity);
     
     /**
-     * Finalize bill (calculate totals and update stock)
+     * Apply a batch of add/update/remove line changes to a bill atomically.
+     * Stock for all affected items is validated with a single query; if any
+     * change fails, none are applied.
+     * @param billId the bill ID
+     * @param changes the line changes, applied in order
+     * @return the updated bill
+     * @throws IllegalArgumentException if a change is malformed
+     * @throws RuntimeException if bill/item not found or insufficient stock
+     */
+    Bill applyItemChanges(Long billId, List<BillItemChange> changes);
+    
+    /**
+     * Finalize bill (calculate totals and update stock).
+     * Registered {@link BillLifecycleListener}s are notified once the bill is finalized.
      * @param billId the bill ID
      * @return the finalized bill
      * @throws RuntimeException if bill not found or already finalized
@@ -59,7 +72,24 @@ public interface BillingService {
     Bill finalizeBill(Long billId);
     
     /**
-     * Cancel bill
+     * Save finalized bills that a till made while it was offline. A bill whose sync ID
+     * was saved before is not saved again. Bills are saved a chunk per transaction, and
+     * each chunk's stock is checked with a single query, in upload order, under the locks
+     * of that chunk's items; a bill that the remaining stock cannot cover is
+     * rejected and the others are still saved. Lines are priced from the catalog, and a
+     * bill with a line charged at another price is rejected.
+     * Registered {@link BillLifecycleListener}s are notified of each saved bill.
+     * @param bills the bills with their client-generated sync IDs, in the order they were made
+     * @return one outcome per uploaded bill, in the same order
+     * @throws IllegalArgumentException if the batch holds more bills than one sync may save
+     * @throws RuntimeException if the database fails; bills saved before the failure are
+     *         reported as DUPLICATE when the batch is uploaded again
+     */
+    List<SyncOutcome> syncOfflineBills(List<OfflineBill> bills);
+    
+    /**
+     * Cancel bill.
+     * Registered {@link BillLifecycleListener}s are notified once the bill is cancelled.
      * @param billId the bill ID
      * @return the cancelled bill
      * @throws RuntimeException if bill not found or cannot be cancelled
@@ -248,13 +278,20 @@ public interface BillingService {
     SalesStatistics getSalesStatistics();
     
     /**
-     * Generate bill report
+     * Generate bill report. Archived months at the start of the range that have a
+     * columnar file are summarized from it; their bills are counted but not listed.
      * @param startDate the start date
      * @param endDate the end date
      * @return bill report data
      */
     BillReport generateBillReport(LocalDate startDate, LocalDate endDate);
     
+    /**
+     * Register a listener for bill state changes
+     * @param listener the listener to notify after each bill or line change
+     */
+    void addBillLifecycleListener(BillLifecycleListener listener);
+    
     /**
      * Inner class for sales statistics
      */
@@ -289,6 +326,79 @@ public interface BillingService {
         public BigDecimal getAverageBillAmount() { return averageBillAmount; }
     }
     
+    /**
+     * Inner class for a single line change in a batch bill update
+     */
+    class BillItemChange {
+        private Operation operation;
+        private Long itemId;
+        private Integer quantity;
+        
+        public BillItemChange(Operation operation, Long itemId, Integer quantity) {
+            this.operation = operation;
+            this.itemId = itemId;
+            this.quantity = quantity;
+        }
+        
+        // Getters
+        public Operation getOperation() { return operation; }
+        public Long getItemId() { return itemId; }
+        public Integer getQuantity() { return quantity; }
+        
+        public enum Operation {
+            ADD, UPDATE, REMOVE
+        }
+    }
+    
+    /**
+     * Inner class for a finalized bill made by a till while it was offline. The bill
+     * carries its customer ID, bill date, creation time and lines with the item ID,
+     * quantity and, if the till charged it, the unit price.
+     */
+    class OfflineBill {
+        private String syncId;
+        private Bill bill;
+        
+        public OfflineBill(String syncId, Bill bill) {
+            this.syncId = syncId;
+            this.bill = bill;
+        }
+        
+        // Getters
+        public String getSyncId() { return syncId; }
+        public Bill getBill() { return bill; }
+    }
+    
+    /**
+     * Inner class for the outcome of syncing one offline bill
+     */
+    class SyncOutcome {
+        private String syncId;
+        private Status status;
+        private Bill bill;
+        private Long billId;
+        private String error;
+        
+        public SyncOutcome(String syncId, Status status, Bill bill, Long billId, String error) {
+            this.syncId = syncId;
+            this.status = status;
+            this.bill = bill;
+            this.billId = billId;
+            this.error = error;
+        }
+        
+        // Getters
+        public String getSyncId() { return syncId; }
+        public Status getStatus() { return status; }
+        public Bill getBill() { return bill; }        // the saved bill, only when CREATED
+        public Long getBillId() { return billId; }    // also set for a DUPLICATE
+        public String getError() { return error; }    // why a bill was REJECTED
+        
+        public enum Status {
+            CREATED, DUPLICATE, REJECTED
+        }
+    }
+    
     /**
      * Inner class for bill report
      */
@@ -299,15 +409,23 @@ public interface BillingService {
         private BigDecimal totalAmount;
         private BigDecimal averageAmount;
         private List<Bill> bills;
+        private long archivedBills;
         
         public BillReport(LocalDate startDate, LocalDate endDate, long totalBills,
                          BigDecimal totalAmount, BigDecimal averageAmount, List<Bill> bills) {
+            this(startDate, endDate, totalBills, totalAmount, averageAmount, bills, 0);
+        }
+        
+        public BillReport(LocalDate startDate, LocalDate endDate, long totalBills,
+                         BigDecimal totalAmount, BigDecimal averageAmount, List<Bill> bills,
+                         long archivedBills) {
             this.startDate = startDate;
             this.endDate = endDate;
             this.totalBills = totalBills;
             this.totalAmount = totalAmount;
             this.averageAmount = averageAmount;
             this.bills = bills;
+            this.archivedBills = archivedBills;
         }
         
         // Getters
@@ -317,5 +435,6 @@ public interface BillingService {
         public BigDecimal getTotalAmount() { return totalAmount; }
         public BigDecimal getAverageAmount() { return averageAmount; }
         public List<Bill> getBills() { return bills; }
+        public long getArchivedBills() { return archivedBills; }  // counted in totalBills, not listed
     }
 }
@@ -0,0 +1,91 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment.Segment;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service interface for RFM customer segmentation. A segmentation run scans the
+ * sales bills of a trailing window once, scores every customer who bought in the
+ * window by quintile of recency, frequency and amount spent, and replaces the
+ * stored segments.
+ */
+public interface CustomerSegmentationService {
+
+    /**
+     * Recompute the segments of all customers
+     * @param windowDays number of days of sales bills to include, ending today
+     * @param parallelism number of threads used for scoring
+     * @return outcome of the run
+     * @throws IllegalStateException if another run is in progress
+     */
+    SegmentationResult runSegmentation(int windowDays, int parallelism);
+
+    /**
+     * Get the segment of a customer from the last run
+     * @param customerId the customer ID
+     * @return Optional containing the segment if the customer was scored
+     */
+    Optional<CustomerSegment> getCustomerSegment(Long customerId);
+
+    /**
+     * Get the customers of a segment from the last run
+     * @param segment the segment
+     * @param limit maximum number of customers
+     * @return customers ordered by total amount, highest first
+     */
+    List<CustomerSegment> getCustomersInSegment(Segment segment, int limit);
+
+    /**
+     * Count the customers in each segment from the last run
+     * @return customer count for every segment, zero for empty ones
+     */
+    Map<Segment, Long> getSegmentCounts();
+
+    /**
+     * Outcome of a segmentation run, with the time spent in each phase
+     */
+    class SegmentationResult {
+        private final int windowDays;
+        private final int parallelism;
+        private final long bills;
+        private final long customers;
+        private final Map<Segment, Long> segmentCounts;
+        private final long scanMillis;
+        private final long scoreMillis;
+        private final long writeMillis;
+
+        public SegmentationResult(int windowDays, int parallelism, long bills, long customers,
+                                  Map<Segment, Long> segmentCounts, long scanMillis, long scoreMillis,
+                                  long writeMillis) {
+            this.windowDays = windowDays;
+            this.parallelism = parallelism;
+            this.bills = bills;
+            this.customers = customers;
+            this.segmentCounts = segmentCounts;
+            this.scanMillis = scanMillis;
+            this.scoreMillis = scoreMillis;
+            this.writeMillis = writeMillis;
+        }
+
+        public int getWindowDays() { return windowDays; }
+        public int getParallelism() { return parallelism; }
+        public long getBills() { return bills; }
+        public long getCustomers() { return customers; }
+        public Map<Segment, Long> getSegmentCounts() { return segmentCounts; }
+        public long getScanMillis() { return scanMillis; }
+        public long getScoreMillis() { return scoreMillis; }
+        public long getWriteMillis() { return writeMillis; }
+        public long getElapsedMillis() { return scanMillis + scoreMillis + writeMillis; }
+
+        @Override
+        public String toString() {
+            return "SegmentationResult{windowDays=" + windowDays + ", parallelism=" + parallelism +
+                    ", bills=" + bills + ", customers=" + customers + ", segments=" + segmentCounts +
+                    ", scanMillis=" + scanMillis + ", scoreMillis=" + scoreMillis +
+                    ", writeMillis=" + writeMillis + "}";
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.icbt.cis6003.pahanaedubookshop.service;
 
+import com.icbt.cis6003.pahanaedubookshop.dao.OptimisticLockException;
 import com.icbt.cis6003.pahanaedubookshop.model.Customer;
 import java.time.LocalDate;
 import java.util.List;
@@ -20,10 +21,13 @@ public interface CustomerService {
     Customer createCustomer(Customer customer);
     
     /**
-     * Update an existing customer
+     * Update an existing customer.
+     * If the customer carries a version, the update only applies while the stored customer
+     * is still at that version; without one the current version is used.
      * @param customer the customer to update
-     * @return the updated customer
+     * @return the updated customer with its new version
      * @throws IllegalArgumentException if customer data is invalid
+     * @throws OptimisticLockException if the customer was changed since its version was read
      * @throws RuntimeException if customer not found or account number conflicts
      */
     Customer updateCustomer(Customer customer);
@@ -0,0 +1,79 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerTotals;
+import java.util.List;
+
+/**
+ * Service interface for customer lifetime totals (number of sales bills, amount
+ * spent and last purchase date). Totals are kept in the customer_totals table,
+ * updated in the same transaction as the bill that changes them, and mirrored in
+ * memory, so reading them costs one row instead of a scan over the customer's bills.
+ */
+public interface CustomerTotalsService {
+
+    /**
+     * Get the totals of a customer
+     * @param customerId the customer ID
+     * @return the totals, with zero bills if the customer has not bought anything
+     */
+    CustomerTotals getTotals(Long customerId);
+
+    /**
+     * Get the customers who have spent the most
+     * @param limit maximum number of customers
+     * @return totals ordered by total amount, highest first
+     */
+    List<CustomerTotals> getTopCustomers(int limit);
+
+    /**
+     * Recompute every customer's totals from the bills table, in parallel chunks
+     * of customer IDs that each commit on their own
+     * @param threads number of chunks rebuilt at the same time
+     * @return outcome of the backfill
+     */
+    JobResult backfill(int threads);
+
+    /**
+     * Compare the stored totals with totals computed from the bills table
+     * @param threads number of chunks checked at the same time
+     * @param repair true to rebuild the totals of customers that do not match
+     * @return outcome of the verification
+     */
+    JobResult verify(int threads, boolean repair);
+
+    /**
+     * Outcome of a backfill or verification run
+     */
+    class JobResult {
+        private final long chunks;
+        private final long customers;
+        private final List<Long> mismatchedCustomerIds;
+        private final long mismatches;
+        private final boolean repaired;
+        private final long elapsedMillis;
+
+        public JobResult(long chunks, long customers, long mismatches, List<Long> mismatchedCustomerIds,
+                         boolean repaired, long elapsedMillis) {
+            this.chunks = chunks;
+            this.customers = customers;
+            this.mismatches = mismatches;
+            this.mismatchedCustomerIds = mismatchedCustomerIds;
+            this.repaired = repaired;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getChunks() { return chunks; }
+        public long getCustomers() { return customers; }
+        public long getMismatches() { return mismatches; }
+        public List<Long> getMismatchedCustomerIds() { return mismatchedCustomerIds; }
+        public boolean isRepaired() { return repaired; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return "JobResult{chunks=" + chunks + ", customers=" + customers + ", mismatches=" + mismatches +
+                    (mismatches > 0 ? ", sample=" + mismatchedCustomerIds : "") +
+                    ", repaired=" + repaired + ", elapsedMillis=" + elapsedMillis + "}";
+        }
+    }
+}
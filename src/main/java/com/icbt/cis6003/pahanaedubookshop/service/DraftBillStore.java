@@ -0,0 +1,122 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.BillItemChange;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Store for DRAFT bills that live only in memory until they are finalized.
+ * Cart edits never touch the database; a draft is written once, in a single
+ * transaction, when it is finalized. Drafts that are not touched for the
+ * configured time-to-live expire and are discarded. Bills returned by the store
+ * are copies; changing them does not change the draft.
+ */
+public interface DraftBillStore {
+
+    /**
+     * Create a new draft bill for a customer
+     * @param customer the customer
+     * @return a copy of the draft bill with its draft ID
+     */
+    Bill createDraft(Customer customer);
+
+    /**
+     * Get a draft bill by ID
+     * @param draftId the draft ID
+     * @return Optional containing a copy of the draft if present and not expired
+     */
+    Optional<Bill> getDraft(Long draftId);
+
+    /**
+     * Check whether an ID belongs to the draft ID range
+     * @param id the bill ID
+     * @return true if the ID was issued by this store
+     */
+    boolean isDraftId(Long id);
+
+    /**
+     * Add an item to a draft, merging with an existing line for the same item
+     * @param draftId the draft ID
+     * @param item the item
+     * @param quantity the quantity to add
+     * @return a copy of the updated draft
+     * @throws RuntimeException if the draft is not found or stock is insufficient
+     */
+    Bill addItem(Long draftId, Item item, int quantity);
+
+    /**
+     * Update the quantity of a line in a draft
+     * @param draftId the draft ID
+     * @param itemId the item ID
+     * @param newQuantity the new quantity
+     * @return a copy of the updated draft
+     * @throws RuntimeException if the draft or line is not found
+     */
+    Bill updateItemQuantity(Long draftId, Long itemId, int newQuantity);
+
+    /**
+     * Remove a line from a draft
+     * @param draftId the draft ID
+     * @param itemId the item ID
+     * @return a copy of the updated draft
+     * @throws RuntimeException if the draft or line is not found
+     */
+    Bill removeItem(Long draftId, Long itemId);
+
+    /**
+     * Apply a batch of line changes to a draft atomically
+     * @param draftId the draft ID
+     * @param changes the line changes, applied in order
+     * @param items the current state of every item referenced by the changes, keyed by ID
+     * @return a copy of the updated draft
+     * @throws RuntimeException if the draft or an item is not found, a line is missing,
+     *         or the resulting quantities exceed stock; the draft is then left unchanged
+     */
+    Bill applyItemChanges(Long draftId, List<BillItemChange> changes, Map<Long, Item> items);
+
+    /**
+     * Finalize a draft and persist it (header, lines and stock) in one transaction.
+     * The draft is removed from the store once it has been saved.
+     * @param draftId the draft ID
+     * @return the persisted bill with its database ID
+     * @throws RuntimeException if the draft is not found, invalid, or cannot be saved
+     */
+    Bill finalizeDraft(Long draftId);
+
+    /**
+     * Discard a draft without persisting it. Waits for a finalize of the same draft
+     * that is under way, and refuses the draft once it has been saved.
+     * @param draftId the draft ID
+     * @return true if the draft was discarded, false if it was not found, expired or
+     *         was finalized
+     */
+    boolean discard(Long draftId);
+
+    /**
+     * Remove drafts that have not been touched within the time-to-live, telling the
+     * listeners about each one through onDraftExpired
+     * @return the number of drafts removed
+     */
+    int evictExpired();
+
+    /**
+     * Register a listener for draft edits, finalization and discards
+     * @param listener the listener
+     */
+    void addBillLifecycleListener(BillLifecycleListener listener);
+
+    /**
+     * Stop expiring drafts in the background, e.g. when the application is undeployed
+     */
+    void shutdown();
+
+    /**
+     * Get the number of drafts currently held
+     * @return number of drafts
+     */
+    int size();
+}
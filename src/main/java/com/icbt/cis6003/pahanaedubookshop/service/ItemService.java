@@ -1,5 +1,6 @@
 package com.icbt.cis6003.pahanaedubookshop.service;
 
+import com.icbt.cis6003.pahanaedubookshop.dao.OptimisticLockException;
 import com.icbt.cis6003.pahanaedubookshop.model.Item;
 import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
 import java.math.BigDecimal;
@@ -21,10 +22,13 @@ public interface ItemService {
     Item createItem(Item item);
     
     /**
-     * Update an existing item
+     * Update an existing item.
+     * If the item carries a version, the update only applies while the stored item
+     * is still at that version; without one the current version is used.
      * @param item the item to update
-     * @return the updated item
+     * @return the updated item with its new version
      * @throws IllegalArgumentException if item data is invalid
+     * @throws OptimisticLockException if the item was changed since its version was read
      * @throws RuntimeException if item not found or code conflicts
      */
     Item updateItem(Item item);
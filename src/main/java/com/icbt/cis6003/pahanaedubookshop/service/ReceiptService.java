@@ -0,0 +1,53 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service interface for server-side receipt rendering
+ */
+public interface ReceiptService {
+
+    /**
+     * Write the receipt of a bill. Receipts of settled bills are rendered once per
+     * bill version and then served from memory.
+     * @param bill the bill with its lines
+     * @param format the receipt format
+     * @param out the stream the receipt is written to
+     */
+    void writeReceipt(Bill bill, ReceiptFormat format, OutputStream out) throws IOException;
+
+    /**
+     * Supported receipt formats
+     */
+    enum ReceiptFormat {
+        TEXT("text", "text/plain"),
+        HTML("html", "text/html");
+
+        private final String parameter;
+        private final String contentType;
+
+        ReceiptFormat(String parameter, String contentType) {
+            this.parameter = parameter;
+            this.contentType = contentType;
+        }
+
+        public String getParameter() { return parameter; }
+        public String getContentType() { return contentType; }
+
+        /**
+         * Resolve a request parameter value, defaulting to plain text
+         */
+        public static ReceiptFormat fromParameter(String value) {
+            if (value != null) {
+                for (ReceiptFormat format : values()) {
+                    if (format.parameter.equalsIgnoreCase(value.trim())) {
+                        return format;
+                    }
+                }
+            }
+            return TEXT;
+        }
+    }
+}
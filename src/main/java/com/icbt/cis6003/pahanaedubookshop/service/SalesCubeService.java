@@ -0,0 +1,136 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service interface for the pre-aggregated sales cube.
+ * Bill totals are bucketed by day and dimensioned by status and item category,
+ * so any [start, end] range is answered in O(log days) without scanning bills.
+ * DRAFT bills are not part of the cube; "sales" means FINALIZED and PAID bills.
+ */
+public interface SalesCubeService {
+
+    /**
+     * Rebuild the cube from the daily totals of the bill history (e.g. on startup).
+     * Changes recorded while the history is read may be missed.
+     */
+    void rebuild();
+
+    /**
+     * Move a bill between status dimensions
+     * @param bill the bill including its items
+     * @param fromStatus the previous status (null or DRAFT if it was not counted yet)
+     * @param toStatus the new status
+     */
+    void recordStatusChange(Bill bill, BillStatus fromStatus, BillStatus toStatus);
+
+    /**
+     * Get total sales (FINALIZED and PAID) between two dates
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return total amount of sales in the range
+     */
+    BigDecimal getSalesTotal(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Get the number of sales bills (FINALIZED and PAID) between two dates
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return number of sales bills in the range
+     */
+    long getSalesCount(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Get the average sales bill amount between two dates
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return average amount, zero if there are no bills
+     */
+    BigDecimal getAverageBillAmount(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Get the total amount of bills with a given status between two dates
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param status the bill status
+     * @return total amount for the status
+     */
+    BigDecimal getTotalByStatus(LocalDate startDate, LocalDate endDate, BillStatus status);
+
+    /**
+     * Get the number of bills with a given status between two dates
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param status the bill status
+     * @return number of bills for the status
+     */
+    long getCountByStatus(LocalDate startDate, LocalDate endDate, BillStatus status);
+
+    /**
+     * Get line sales (before tax) for a category between two dates
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param category the item category
+     * @return total of sold lines in the category
+     */
+    BigDecimal getCategorySalesTotal(LocalDate startDate, LocalDate endDate, ItemCategory category);
+
+    /**
+     * Get sales totals split into day, month or year buckets
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param granularity the bucket size
+     * @return one bucket per period in the range, oldest first
+     */
+    List<SalesBucket> getSalesBuckets(LocalDate startDate, LocalDate endDate, Granularity granularity);
+
+    /**
+     * Bucket sizes for range summaries
+     */
+    enum Granularity {
+        DAY, MONTH, YEAR;
+
+        /**
+         * Resolve a request parameter value, defaulting to DAY
+         */
+        public static Granularity fromParameter(String value) {
+            if (value != null) {
+                for (Granularity granularity : values()) {
+                    if (granularity.name().equalsIgnoreCase(value.trim())) {
+                        return granularity;
+                    }
+                }
+            }
+            return DAY;
+        }
+    }
+
+    /**
+     * Inner class for one period of a range summary
+     */
+    class SalesBucket {
+        private LocalDate periodStart;
+        private LocalDate periodEnd;
+        private long billCount;
+        private BigDecimal totalAmount;
+
+        public SalesBucket(LocalDate periodStart, LocalDate periodEnd,
+                           long billCount, BigDecimal totalAmount) {
+            this.periodStart = periodStart;
+            this.periodEnd = periodEnd;
+            this.billCount = billCount;
+            this.totalAmount = totalAmount;
+        }
+
+        // Getters
+        public LocalDate getPeriodStart() { return periodStart; }
+        public LocalDate getPeriodEnd() { return periodEnd; }
+        public long getBillCount() { return billCount; }
+        public BigDecimal getTotalAmount() { return totalAmount; }
+    }
+}
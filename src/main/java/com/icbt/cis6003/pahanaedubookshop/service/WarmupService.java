@@ -0,0 +1,148 @@
+package com.icbt.cis6003.pahanaedubookshop.service;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service interface for warming the application up before it takes traffic. A
+ * warm-up opens the first database connections, restores the in-memory analytics and
+ * fills the caches the cashiers' requests read. Requests through the controllers are
+ * left to a RequestWarmer from the web layer. The application reports itself ready
+ * once the warm-up is done.
+ */
+public interface WarmupService {
+
+    /**
+     * How much is warmed up before the application is ready
+     */
+    enum Mode {
+        /** ready once the sales analytics are restored, the first requests warm up */
+        OFF,
+        /** database connections and caches only */
+        FAST,
+        /** database connections, caches and synthetic requests */
+        FULL;
+
+        /**
+         * Parse a mode name, case insensitive
+         * @throws IllegalArgumentException if the name is not a mode
+         */
+        public static Mode fromName(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    /**
+     * Warm the application up in the configured mode. Called once at startup, and
+     * again after a warm-up that failed.
+     * @param requestWarmer sends the synthetic requests of modes FAST and FULL
+     * @return the status after the warm-up
+     */
+    WarmupStatus warmUp(RequestWarmer requestWarmer);
+
+    /**
+     * Get the status of the current or last warm-up
+     */
+    WarmupStatus getStatus();
+
+    /**
+     * Sends synthetic read-only requests through the web layer during a warm-up
+     */
+    interface RequestWarmer {
+
+        /**
+         * Send the catalog, count and statistics requests that fill the response cache
+         * @param requests counts the requests sent
+         * @param failed counts the requests answered with a server error
+         */
+        void fillResponseCache(LongAdder requests, LongAdder failed);
+
+        /**
+         * Replay the till's read-only requests for the sampled records, so the JIT
+         * compiles them before the first cashier arrives
+         * @param samples records read by the preload
+         * @param iterations rounds of the requests to send at most
+         * @param deadlineNanos System.nanoTime() at which to stop
+         * @param requests counts the requests sent
+         * @param failed counts the requests answered with a server error
+         */
+        void replay(WarmupSamples samples, int iterations, long deadlineNanos, LongAdder requests, LongAdder failed);
+    }
+
+    /**
+     * Latest records read by the preload, for the synthetic requests to ask for
+     */
+    class WarmupSamples {
+        private final List<Item> items;
+        private final List<Customer> customers;
+        private final List<Bill> bills;
+
+        public WarmupSamples(List<Item> items, List<Customer> customers, List<Bill> bills) {
+            this.items = items;
+            this.customers = customers;
+            this.bills = bills;
+        }
+
+        public List<Item> getItems() { return items; }
+        public List<Customer> getCustomers() { return customers; }
+        public List<Bill> getBills() { return bills; }
+    }
+
+    /**
+     * Progress of a warm-up, with the time spent in each phase
+     */
+    class WarmupStatus {
+
+        /**
+         * Where a warm-up is
+         */
+        public enum State { STARTING, WARMING, READY, FAILED }
+
+        private final Mode mode;
+        private final State state;
+        private final int attempts;
+        private final long databaseMillis;
+        private final long preloadMillis;
+        private final long requestMillis;
+        private final long syntheticRequests;
+        private final long failedRequests;
+        private final String error;
+
+        public WarmupStatus(Mode mode, State state, int attempts, long databaseMillis, long preloadMillis,
+                            long requestMillis, long syntheticRequests, long failedRequests, String error) {
+            this.mode = mode;
+            this.state = state;
+            this.attempts = attempts;
+            this.databaseMillis = databaseMillis;
+            this.preloadMillis = preloadMillis;
+            this.requestMillis = requestMillis;
+            this.syntheticRequests = syntheticRequests;
+            this.failedRequests = failedRequests;
+            this.error = error;
+        }
+
+        public Mode getMode() { return mode; }
+        public State getState() { return state; }
+        public boolean isReady() { return state == State.READY; }
+        public int getAttempts() { return attempts; }
+        public long getDatabaseMillis() { return databaseMillis; }
+        public long getPreloadMillis() { return preloadMillis; }
+        public long getRequestMillis() { return requestMillis; }
+        public long getSyntheticRequests() { return syntheticRequests; }
+        public long getFailedRequests() { return failedRequests; }
+        public String getError() { return error; }
+        public long getElapsedMillis() { return databaseMillis + preloadMillis + requestMillis; }
+
+        @Override
+        public String toString() {
+            return "WarmupStatus{mode=" + mode + ", state=" + state + ", attempts=" + attempts +
+                    ", databaseMillis=" + databaseMillis + ", preloadMillis=" + preloadMillis +
+                    ", requestMillis=" + requestMillis + ", syntheticRequests=" + syntheticRequests +
+                    ", failedRequests=" + failedRequests + (error != null ? ", error=" + error : "") + "}";
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.ItemDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.ItemDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.service.BestSellerService;
+import com.icbt.cis6003.pahanaedubookshop.service.BillLifecycleListener;
+import com.icbt.cis6003.pahanaedubookshop.util.SpaceSavingSketch;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory best-seller analytics.
+ * All-time sold quantities are exact per item; rolling windows are answered
+ * from one Space-Saving sketch per day, kept in a 30-day ring. Both are rebuilt
+ * from the bill history at startup, and updated as bills are finalized and cancelled.
+ * Updates share a read lock and only exclude a rebuild swapping in the new totals,
+ * so no bill is split between the old and new totals.
+ */
+public class BestSellerServiceImpl implements BestSellerService, BillLifecycleListener {
+
+    private static final int RING_DAYS = 30;
+    private static final int DEFAULT_SKETCH_CAPACITY = 512;
+
+    private static final BestSellerServiceImpl INSTANCE = new BestSellerServiceImpl();
+
+    private final BillDAO billDAO;
+    private final ItemDAO itemDAO;
+    private final int sketchCapacity;
+    private final Clock clock;
+    private final AtomicReferenceArray<DayBucket> ring = new AtomicReferenceArray<>(RING_DAYS);
+    // held for reading by updates and for writing by rebuild() while it swaps totals
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // replaced as a whole by rebuild()
+    private volatile Map<Long, LongAdder> totalSold = new ConcurrentHashMap<>();
+
+    public BestSellerServiceImpl() {
+        this(new BillDAOImpl(), new ItemDAOImpl(), DEFAULT_SKETCH_CAPACITY, Clock.systemDefaultZone());
+    }
+
+    public BestSellerServiceImpl(BillDAO billDAO, ItemDAO itemDAO, int sketchCapacity, Clock clock) {
+        this.billDAO = billDAO;
+        this.itemDAO = itemDAO;
+        this.sketchCapacity = sketchCapacity;
+        this.clock = clock;
+    }
+
+    /**
+     * Shared instance used by the controllers and the billing service
+     */
+    public static BestSellerServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    // BillLifecycleListener
+
+    @Override
+    public void onBillFinalized(Bill bill) {
+        recordSale(bill);
+    }
+
+    @Override
+    public void onBillCancelled(Bill bill, BillStatus previousStatus) {
+        if (previousStatus == BillStatus.FINALIZED || previousStatus == BillStatus.PAID) {
+            reverseSale(bill);
+        }
+    }
+
+    // BestSellerService
+
+    @Override
+    public void rebuild() {
+        // only catalogue items are counted, so deleted items do not come back
+        Map<Long, LongAdder> totals = new ConcurrentHashMap<>();
+        for (Item item : itemDAO.findAll()) {
+            totals.put(item.getId(), new LongAdder());
+        }
+        for (Map.Entry<Long, Long> sold : billDAO.sumSoldQuantitiesByItem().entrySet()) {
+            LongAdder total = totals.get(sold.getKey());
+            if (total != null) {
+                total.add(sold.getValue());
+            }
+        }
+
+        long today = LocalDate.now(clock).toEpochDay();
+        DayBucket[] buckets = new DayBucket[RING_DAYS];
+        for (Map.Entry<LocalDate, Map<Long, Long>> day :
+                billDAO.findDailySoldQuantities(LocalDate.ofEpochDay(today - RING_DAYS + 1)).entrySet()) {
+            long epochDay = day.getKey().toEpochDay();
+            if (epochDay > today) {
+                continue;
+            }
+            DayBucket bucket = new DayBucket(epochDay, new SpaceSavingSketch(sketchCapacity));
+            for (Map.Entry<Long, Long> sold : day.getValue().entrySet()) {
+                bucket.sketch.offer(sold.getKey(), sold.getValue());
+            }
+            buckets[slot(epochDay)] = bucket;
+        }
+
+        lock.writeLock().lock();
+        try {
+            totalSold = totals;
+            for (int slot = 0; slot < RING_DAYS; slot++) {
+                ring.set(slot, buckets[slot]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void recordSale(Bill bill) {
+        if (bill == null || bill.getItems() == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            DayBucket bucket = bucketFor(bill.getBillDate(), true);
+            for (BillItem billItem : bill.getItems()) {
+                if (billItem.getItemId() == null || billItem.getQuantity() == null) {
+                    continue;
+                }
+                totalSold.computeIfAbsent(billItem.getItemId(), id -> new LongAdder())
+                        .add(billItem.getQuantity());
+                if (bucket != null) {
+                    bucket.sketch.offer(billItem.getItemId(), billItem.getQuantity());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reverseSale(Bill bill) {
+        if (bill == null || bill.getItems() == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            DayBucket bucket = bucketFor(bill.getBillDate(), false);
+            for (BillItem billItem : bill.getItems()) {
+                if (billItem.getItemId() == null || billItem.getQuantity() == null) {
+                    continue;
+                }
+                LongAdder sold = totalSold.get(billItem.getItemId());
+                if (sold != null) {
+                    sold.add(-billItem.getQuantity());
+                }
+                if (bucket != null) {
+                    bucket.sketch.retract(billItem.getItemId(), billItem.getQuantity());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void registerItem(Long itemId) {
+        if (itemId == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            totalSold.computeIfAbsent(itemId, id -> new LongAdder());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void unregisterItem(Long itemId) {
+        if (itemId == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            totalSold.remove(itemId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getTotalSold(Long itemId) {
+        LongAdder sold = itemId != null ? totalSold.get(itemId) : null;
+        return sold != null ? sold.sum() : 0;
+    }
+
+    @Override
+    public List<ItemSales> getTopSellers(SalesWindow window, int limit) {
+        Map<Long, Long> counts = windowCounts(window);
+        List<ItemSales> result = new ArrayList<>(counts.size());
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            if (entry.getValue() > 0) {
+                result.add(new ItemSales(entry.getKey(), entry.getValue()));
+            }
+        }
+        result.sort(Comparator.comparingLong(ItemSales::getQuantitySold).reversed()
+                .thenComparing(ItemSales::getItemId));
+        return limit(result, limit);
+    }
+
+    @Override
+    public List<ItemSales> getSlowMovers(SalesWindow window, int limit) {
+        Map<Long, Long> counts = windowCounts(window);
+        List<ItemSales> result = new ArrayList<>(totalSold.size());
+        for (Long itemId : totalSold.keySet()) {
+            result.add(new ItemSales(itemId, counts.getOrDefault(itemId, 0L)));
+        }
+        result.sort(Comparator.comparingLong(ItemSales::getQuantitySold)
+                .thenComparing(ItemSales::getItemId));
+        return limit(result, limit);
+    }
+
+    // Helper methods
+
+    private Map<Long, Long> windowCounts(SalesWindow window) {
+        long today = LocalDate.now(clock).toEpochDay();
+        Map<Long, Long> counts = new HashMap<>();
+        for (long day = today - window.getDays() + 1; day <= today; day++) {
+            DayBucket bucket = ring.get(slot(day));
+            if (bucket != null && bucket.epochDay == day) {
+                bucket.sketch.mergeInto(counts);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Find the ring bucket for a bill date, optionally claiming the slot.
+     * Dates outside the ring, or older than the day currently in the slot, have no bucket.
+     */
+    private DayBucket bucketFor(LocalDate billDate, boolean create) {
+        long day = (billDate != null ? billDate : LocalDate.now(clock)).toEpochDay();
+        long today = LocalDate.now(clock).toEpochDay();
+        if (day > today || day <= today - RING_DAYS) {
+            return null;
+        }
+
+        int slot = slot(day);
+        while (true) {
+            DayBucket current = ring.get(slot);
+            if (current != null && current.epochDay == day) {
+                return current;
+            }
+            if (!create || (current != null && current.epochDay > day)) {
+                return null;
+            }
+            DayBucket fresh = new DayBucket(day, new SpaceSavingSketch(sketchCapacity));
+            if (ring.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static int slot(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) RING_DAYS);
+    }
+
+    private static List<ItemSales> limit(List<ItemSales> list, int limit) {
+        return limit > 0 && list.size() > limit ? new ArrayList<>(list.subList(0, limit)) : list;
+    }
+
+    private static final class DayBucket {
+        private final long epochDay;
+        private final SpaceSavingSketch sketch;
+
+        private DayBucket(long epochDay, SpaceSavingSketch sketch) {
+            this.epochDay = epochDay;
+            this.sketch = sketch;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.archive.ColumnarBillArchive;
+import com.icbt.cis6003.pahanaedubookshop.archive.ColumnarPeriod;
+import com.icbt.cis6003.pahanaedubookshop.archive.ColumnarPeriodWriter;
+import com.icbt.cis6003.pahanaedubookshop.archive.ItemTotals;
+import com.icbt.cis6003.pahanaedubookshop.archive.SalesTotals;
+import com.icbt.cis6003.pahanaedubookshop.dao.BillArchiveDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillArchiveDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.ArchivedPeriod;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * BillArchiveService implementation.
+ * Each month is moved in its own transaction, so a long backlog does not hold one
+ * huge transaction and a failure keeps the months already archived. Partition DDL
+ * runs between the transactions: monthly partitions are added ahead of time before
+ * the run (and daily by StartupWarmupListener), and each archived month's emptied partitions are dropped after it commits.
+ * After the run every archived month without a current columnar file is exported;
+ * a failed export is only logged, since reports fall back to the database.
+ */
+public class BillArchiveServiceImpl implements BillArchiveService {
+
+    // partitions are kept this many months ahead of today
+    private static final int PARTITION_LEAD_MONTHS = 3;
+
+    private static final BillArchiveServiceImpl INSTANCE = new BillArchiveServiceImpl(new BillArchiveDAOImpl());
+
+    private final BillArchiveDAO billArchiveDAO;
+    private final TransactionManager transactionManager = TransactionManager.getInstance();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BillArchiveServiceImpl(BillArchiveDAO billArchiveDAO) {
+        this.billArchiveDAO = billArchiveDAO;
+    }
+
+    public static BillArchiveServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public ArchiveResult archiveClosedPeriods(int hotMonths) {
+        if (hotMonths < 0) {
+            throw new IllegalArgumentException("Hot months cannot be negative");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An archival run is already in progress");
+        }
+        try {
+            long start = System.nanoTime();
+            LocalDate today = LocalDate.now();
+            LocalDate cutoff = today.withDayOfMonth(1).minusMonths(hotMonths);
+            billArchiveDAO.ensureMonthlyPartitions(today.plusMonths(PARTITION_LEAD_MONTHS));
+
+            List<ArchivedPeriod> periods = new ArrayList<>();
+            LocalDate blocked = null;
+            Optional<LocalDate> oldest = billArchiveDAO.findOldestBillDate();
+            LocalDate period = oldest.map(date -> date.withDayOfMonth(1)).orElse(cutoff);
+            while (period.isBefore(cutoff)) {
+                LocalDate periodStart = period;
+                if (billArchiveDAO.countOpenBills(periodStart, periodStart.plusMonths(1)) > 0) {
+                    blocked = periodStart;
+                    break;
+                }
+                periods.add(transactionManager.inTransaction(() -> billArchiveDAO.archivePeriod(periodStart)));
+                billArchiveDAO.dropPartitions(periodStart);
+                period = period.plusMonths(1);
+            }
+
+            List<ArchivedPeriod> archived = billArchiveDAO.findArchivedPeriods();
+            LocalDate hotFrom = archived.isEmpty() ? null : archived.get(archived.size() - 1).getPeriodEnd();
+            int exported = exportMissing(archived);
+            return new ArchiveResult(periods, blocked, hotFrom, exported, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public int exportColumnarPeriods() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An archival run is already in progress");
+        }
+        try {
+            return exportMissing(billArchiveDAO.findArchivedPeriods());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public boolean ensurePartitions() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            billArchiveDAO.ensureMonthlyPartitions(LocalDate.now().plusMonths(PARTITION_LEAD_MONTHS));
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public ArchivedSales getArchivedSales(LocalDate startDate, LocalDate endDate, int topItems) {
+        Map<LocalDate, ArchivedPeriod> archived = new HashMap<>();
+        for (ArchivedPeriod period : getArchivedPeriods()) {
+            archived.put(period.getPeriodStart(), period);
+        }
+        ColumnarBillArchive columnarArchive = ColumnarBillArchive.getInstance();
+        SalesTotals totals = new SalesTotals();
+        Map<Long, ItemTotals> itemTotals = new HashMap<>();
+
+        LocalDate end = endDate.plusDays(1);
+        LocalDate covered = startDate;
+        while (covered.isBefore(end)) {
+            ArchivedPeriod period = archived.get(covered.withDayOfMonth(1));
+            Optional<ColumnarPeriod> file = period != null ? columnarArchive.open(period) : Optional.empty();
+            if (!file.isPresent()) {
+                break;
+            }
+            LocalDate to = period.getPeriodEnd().isBefore(end) ? period.getPeriodEnd() : end;
+            file.get().sumSales(covered, to, totals);
+            if (topItems > 0) {
+                file.get().sumByItem(covered, to, itemTotals);
+            }
+            covered = to;
+        }
+        return new ArchivedSales(startDate, covered, totals.getBills(), totals.getSalesBills(),
+                totals.getSalesTotal(), ItemTotals.top(itemTotals.values(), topItems));
+    }
+
+    @Override
+    public List<ArchivedPeriod> getArchivedPeriods() {
+        return transactionManager.inReadOnly(billArchiveDAO::findArchivedPeriods);
+    }
+
+    // Helper methods
+
+    private int exportMissing(List<ArchivedPeriod> archived) {
+        ColumnarBillArchive columnarArchive = ColumnarBillArchive.getInstance();
+        int exported = 0;
+        for (ArchivedPeriod period : archived) {
+            if (columnarArchive.open(period).isPresent()) {
+                continue;
+            }
+            ColumnarPeriodWriter writer = new ColumnarPeriodWriter(period.getPeriodStart());
+            long[] lastBillId = {0};
+            // read from the primary: a lagging replica may not have the month's rows yet
+            transactionManager.inTransaction(() -> {
+                billArchiveDAO.scanArchivedLines(period.getPeriodStart(), (billId, epochDay, status, billTotalCents,
+                        itemId, itemCode, quantity, unitPriceCents, lineTotalCents) -> {
+                    // a bill's lines arrive together, right after each other
+                    if (lastBillId[0] != billId) {
+                        writer.addBill(billId, epochDay, status, billTotalCents);
+                        lastBillId[0] = billId;
+                    }
+                    if (itemId != 0) {
+                        writer.addLine(itemId, itemCode, quantity, unitPriceCents, lineTotalCents);
+                    }
+                });
+                return null;
+            });
+            try {
+                columnarArchive.write(period, writer);
+                exported++;
+            } catch (IOException e) {
+                System.err.println("Columnar export of " + period.getPeriodStart() + " failed: " + e.getMessage());
+            }
+        }
+        return exported;
+    }
+}
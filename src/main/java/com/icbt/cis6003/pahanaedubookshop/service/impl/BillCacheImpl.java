@@ -0,0 +1,161 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.service.BillCache;
+import com.icbt.cis6003.pahanaedubookshop.service.BillLifecycleListener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU implementation of BillCache bounded by an estimated memory budget.
+ * Bills are stored as private snapshots and copied on the way in and out, so no
+ * caller can change a cached bill. Registered as a lifecycle listener it picks up
+ * bills as they are finalized and drops them when they are cancelled.
+ */
+public class BillCacheImpl implements BillCache, BillLifecycleListener {
+
+    private static final long DEFAULT_BUDGET_BYTES = 32L * 1024 * 1024;
+
+    // rough heap cost of a bill header and of one line, including strings and decimals
+    private static final int BILL_BYTES = 640;
+    private static final int LINE_BYTES = 320;
+
+    private final long budgetBytes;
+    private final LinkedHashMap<Long, Bill> bills = new LinkedHashMap<>(256, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long estimatedBytes;
+
+    public BillCacheImpl() {
+        this(DEFAULT_BUDGET_BYTES);
+    }
+
+    public BillCacheImpl(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    // BillLifecycleListener
+
+    @Override
+    public void onBillFinalized(Bill bill) {
+        put(bill);
+    }
+
+    @Override
+    public void onBillCancelled(Bill bill, BillStatus previousStatus) {
+        if (bill.getId() != null) {
+            invalidate(bill.getId());
+        }
+    }
+
+    // BillCache
+
+    @Override
+    public Optional<Bill> get(Long billId) {
+        Bill cached;
+        synchronized (this) {
+            cached = bills.get(billId);
+        }
+        if (cached == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(copyOf(cached));
+    }
+
+    @Override
+    public void put(Bill bill) {
+        if (bill == null || bill.getId() == null || !isSettled(bill.getStatus())) {
+            return;
+        }
+        Bill snapshot = copyOf(bill);
+        long size = estimateSize(snapshot);
+        if (size > budgetBytes) {
+            return;
+        }
+        synchronized (this) {
+            Bill previous = bills.put(snapshot.getId(), snapshot);
+            if (previous != null) {
+                estimatedBytes -= estimateSize(previous);
+            }
+            estimatedBytes += size;
+
+            Iterator<Bill> eldest = bills.values().iterator();
+            while (estimatedBytes > budgetBytes && eldest.hasNext()) {
+                estimatedBytes -= estimateSize(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(Long billId) {
+        Bill removed = bills.remove(billId);
+        if (removed != null) {
+            estimatedBytes -= estimateSize(removed);
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return bills.size();
+    }
+
+    @Override
+    public synchronized long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    // Helper methods
+
+    private static boolean isSettled(BillStatus status) {
+        return status == BillStatus.FINALIZED || status == BillStatus.PAID;
+    }
+
+    private static long estimateSize(Bill bill) {
+        return BILL_BYTES + (long) LINE_BYTES * bill.getItems().size();
+    }
+
+    private static Bill copyOf(Bill bill) {
+        Bill copy = new Bill(bill.getCustomerId(), bill.getCustomerName(), bill.getCustomerAccountNumber());
+        copy.setId(bill.getId());
+        copy.setBillDate(bill.getBillDate());
+        copy.setCreatedAt(bill.getCreatedAt());
+        copy.setTaxRate(bill.getTaxRate());
+        copy.setStatus(bill.getStatus());
+        copy.setVersion(bill.getVersion());
+
+        List<BillItem> items = new ArrayList<>(bill.getItems().size());
+        for (BillItem billItem : bill.getItems()) {
+            BillItem line = new BillItem(billItem.getId(), billItem.getBillId(), billItem.getItemId(),
+                    billItem.getItemCode(), billItem.getItemName(), billItem.getUnitPrice(), billItem.getQuantity());
+            line.setTotal(billItem.getTotal());
+            line.setItemCategory(billItem.getItemCategory());
+            items.add(line);
+        }
+        // keep the stored totals rather than recalculating them
+        copy.setItems(items);
+        copy.setSubtotal(bill.getSubtotal());
+        copy.setTaxAmount(bill.getTaxAmount());
+        copy.setTotalAmount(bill.getTotalAmount());
+        return copy;
+    }
+}
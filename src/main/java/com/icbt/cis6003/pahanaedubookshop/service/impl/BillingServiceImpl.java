@@ -0,0 +1,685 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerTotalsDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.InsufficientStockException;
+import com.icbt.cis6003.pahanaedubookshop.dao.ItemDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.OptimisticLockException;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerTotalsDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.ItemDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.journal.BillEventJournal;
+import com.icbt.cis6003.pahanaedubookshop.model.ArchivedPeriod;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerTotals;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService.ArchivedSales;
+import com.icbt.cis6003.pahanaedubookshop.service.BillCache;
+import com.icbt.cis6003.pahanaedubookshop.service.BillLifecycleListener;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService;
+import com.icbt.cis6003.pahanaedubookshop.service.DraftBillStore;
+import com.icbt.cis6003.pahanaedubookshop.util.ResourceVersionTracker;
+import com.icbt.cis6003.pahanaedubookshop.util.StripedLockManager;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * BillingService implementation.
+ * DRAFT bills are edited in the DraftBillStore and only reach the database when
+ * they are finalized; everything else is read from and written through the DAOs.
+ * Edits lock only the bill: their stock check reserves nothing, so it needs no item
+ * lock. Stock is taken when a bill is saved, under the locks of the items it holds
+ * (after the bill lock), by a conditional decrement that cannot oversell.
+ */
+public class BillingServiceImpl implements BillingService {
+
+    private static final int BILL_LOCK_STRIPES = 64;
+    private static final int ITEM_LOCK_STRIPES = 256;
+    private static final int DEFAULT_SYNC_MAX_BILLS = 5000;
+    private static final int DEFAULT_SYNC_CHUNK_SIZE = 250;
+
+    private static final BillingServiceImpl INSTANCE = createDefault();
+
+    private final BillDAO billDAO;
+    private final ItemDAO itemDAO;
+    private final CustomerDAO customerDAO;
+    private final CustomerTotalsDAO customerTotalsDAO;
+    private final DraftBillStore draftBillStore;
+    private final BillCache billCache;
+    private final BillArchiveService billArchiveService;
+    private final TransactionManager transactionManager = TransactionManager.getInstance();
+    private final StripedLockManager billLocks = new StripedLockManager("bill", BILL_LOCK_STRIPES);
+    private final StripedLockManager itemLocks = new StripedLockManager("item", ITEM_LOCK_STRIPES);
+    private final List<BillLifecycleListener> listeners = new CopyOnWriteArrayList<>();
+    private final int syncMaxBills = Integer.getInteger("bookshop.sync.maxBills", DEFAULT_SYNC_MAX_BILLS);
+    private final int syncChunkSize = Math.max(1, Integer.getInteger("bookshop.sync.chunkSize", DEFAULT_SYNC_CHUNK_SIZE));
+    private final Object syncLock = new Object();
+    private BillEventJournal journal;
+
+    public BillingServiceImpl(BillDAO billDAO, ItemDAO itemDAO, CustomerDAO customerDAO,
+                              CustomerTotalsDAO customerTotalsDAO, DraftBillStore draftBillStore,
+                              BillCache billCache, BillArchiveService billArchiveService) {
+        this.billDAO = billDAO;
+        this.itemDAO = itemDAO;
+        this.customerDAO = customerDAO;
+        this.customerTotalsDAO = customerTotalsDAO;
+        this.draftBillStore = draftBillStore;
+        this.billCache = billCache;
+        this.billArchiveService = billArchiveService;
+    }
+
+    public static BillingServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    private static BillingServiceImpl createDefault() {
+        BillDAO billDAO = new BillDAOImpl();
+        BillCacheImpl billCache = new BillCacheImpl();
+        BillingServiceImpl service = new BillingServiceImpl(billDAO, new ItemDAOImpl(), new CustomerDAOImpl(),
+                new CustomerTotalsDAOImpl(), new DraftBillStoreImpl(billDAO), billCache,
+                BillArchiveServiceImpl.getInstance());
+        service.addBillLifecycleListener(billCache);
+        service.addBillLifecycleListener(BestSellerServiceImpl.getInstance());
+        service.addBillLifecycleListener(SalesCubeServiceImpl.getInstance());
+        service.addBillLifecycleListener(CustomerTotalsServiceImpl.getInstance());
+        try {
+            service.journal = BillEventJournal.openDefault();
+            service.addBillLifecycleListener(service.journal);
+        } catch (IOException e) {
+            System.err.println("Bill event journal unavailable, bill events are not journaled: " + e.getMessage());
+        }
+        return service;
+    }
+
+    @Override
+    public Bill createBill(Long customerId) {
+        Customer customer = customerDAO.findById(customerId)
+                .orElseThrow(() -> new RuntimeException("Customer not found: " + customerId));
+        return draftBillStore.createDraft(customer);
+    }
+
+    @Override
+    public Bill addItemToBill(Long billId, Long itemId, Integer quantity) {
+        requireDraft(billId);
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        return billLocks.withLock(billId, () -> {
+            Item item = itemDAO.findById(itemId)
+                    .orElseThrow(() -> new RuntimeException("Item not found: " + itemId));
+            return draftBillStore.addItem(billId, item, quantity);
+        });
+    }
+
+    @Override
+    public Bill removeItemFromBill(Long billId, Long itemId) {
+        requireDraft(billId);
+        return billLocks.withLock(billId, () -> draftBillStore.removeItem(billId, itemId));
+    }
+
+    @Override
+    public Bill updateItemQuantityInBill(Long billId, Long itemId, Integer newQuantity) {
+        requireDraft(billId);
+        if (newQuantity == null || newQuantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        return billLocks.withLock(billId, () -> {
+            Item item = itemDAO.findById(itemId)
+                    .orElseThrow(() -> new RuntimeException("Item not found: " + itemId));
+            if (!item.canFulfillOrder(newQuantity)) {
+                throw new RuntimeException("Insufficient stock for item: " + item.getName());
+            }
+            return draftBillStore.updateItemQuantity(billId, itemId, newQuantity);
+        });
+    }
+
+    @Override
+    public Bill applyItemChanges(Long billId, List<BillItemChange> changes) {
+        requireDraft(billId);
+        if (changes == null || changes.isEmpty()) {
+            return requireDraft(billId);
+        }
+
+        return billLocks.withLock(billId, () -> {
+            Bill draft = requireDraft(billId);
+            // one stock lookup covers every line the batch can touch
+            Set<Long> itemIds = new LinkedHashSet<>();
+            for (BillItemChange change : changes) {
+                if (change.getItemId() != null) {
+                    itemIds.add(change.getItemId());
+                }
+            }
+            for (BillItem billItem : draft.getItems()) {
+                itemIds.add(billItem.getItemId());
+            }
+            Map<Long, Item> items = new HashMap<>();
+            for (Item item : itemDAO.findByIds(itemIds)) {
+                items.put(item.getId(), item);
+            }
+            return draftBillStore.applyItemChanges(billId, changes, items);
+        });
+    }
+
+    @Override
+    public Bill finalizeBill(Long billId) {
+        requireDraft(billId);
+        Bill bill = billLocks.withLock(billId, () ->
+                itemLocks.withLocks(itemIdsOf(requireDraft(billId)), () -> draftBillStore.finalizeDraft(billId)));
+        bumpItemVersions(bill);
+        return bill;
+    }
+
+    @Override
+    public List<SyncOutcome> syncOfflineBills(List<OfflineBill> bills) {
+        if (bills.size() > syncMaxBills) {
+            throw new IllegalArgumentException("At most " + syncMaxBills + " bills can be synced at once");
+        }
+        SyncOutcome[] outcomes = new SyncOutcome[bills.size()];
+        // the first upload of each sync ID is saved, repeats share its outcome
+        Map<String, Integer> firstIndex = new HashMap<>();
+        List<Integer> pending = new ArrayList<>();
+        Set<Long> customerIds = new LinkedHashSet<>();
+        for (int i = 0; i < bills.size(); i++) {
+            OfflineBill offlineBill = bills.get(i);
+            if (firstIndex.putIfAbsent(offlineBill.getSyncId(), i) == null) {
+                pending.add(i);
+                customerIds.add(offlineBill.getBill().getCustomerId());
+            }
+        }
+
+        Map<Long, Customer> customers = new HashMap<>();
+        for (Customer customer : customerDAO.findByIds(customerIds)) {
+            customers.put(customer.getId(), customer);
+        }
+        LocalDate hotFrom = firstUnarchivedDay();
+
+        List<Bill> created = new ArrayList<>();
+        try {
+            for (int from = 0; from < pending.size(); from += syncChunkSize) {
+                List<Integer> chunk = pending.subList(from, Math.min(pending.size(), from + syncChunkSize));
+                syncChunk(bills, chunk, customers, hotFrom, firstIndex, outcomes, created);
+            }
+        } finally {
+            // bills saved before a database failure are announced all the same
+            for (Bill bill : created) {
+                bumpItemVersions(bill);
+                for (BillLifecycleListener listener : listeners) {
+                    listener.onBillFinalized(bill);
+                }
+            }
+        }
+
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == null) {
+                SyncOutcome first = outcomes[firstIndex.get(bills.get(i).getSyncId())];
+                outcomes[i] = new SyncOutcome(first.getSyncId(),
+                        first.getStatus() == SyncOutcome.Status.REJECTED ? SyncOutcome.Status.REJECTED
+                                : SyncOutcome.Status.DUPLICATE,
+                        null, first.getBillId(), first.getError());
+            }
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    @Override
+    public Bill cancelBill(Long billId) {
+        if (draftBillStore.isDraftId(billId)) {
+            // under the bill lock, so a finalize of the same draft runs entirely before or after
+            return billLocks.withLock(billId, () -> {
+                Bill draft = requireDraft(billId);
+                if (!draftBillStore.discard(billId)) {
+                    throw new IllegalStateException("Draft bill " + billId + " was finalized or has expired");
+                }
+                draft.setStatus(BillStatus.CANCELLED);
+                return draft;
+            });
+        }
+
+        return billLocks.withLock(billId, () -> {
+            Bill bill = getBillById(billId)
+                    .orElseThrow(() -> new RuntimeException("Bill not found: " + billId));
+            BillStatus previousStatus = bill.getStatus();
+            if (previousStatus == BillStatus.CANCELLED) {
+                throw new IllegalStateException("Bill is already cancelled");
+            }
+            itemLocks.withLocks(itemIdsOf(bill), () -> transactionManager.inTransaction(() -> {
+                // claim the cancellation first so a conflicting update cannot restock twice
+                bill.setStatus(BillStatus.CANCELLED);
+                try {
+                    billDAO.update(bill);
+                } catch (OptimisticLockException e) {
+                    billCache.invalidate(billId);
+                    throw e;
+                }
+                for (BillItem billItem : bill.getItems()) {
+                    itemDAO.increaseStock(billItem.getItemId(), billItem.getQuantity());
+                }
+                if (previousStatus == BillStatus.FINALIZED || previousStatus == BillStatus.PAID) {
+                    customerTotalsDAO.recordCancellation(bill.getCustomerId(), bill.getTotalAmount(),
+                            bill.getBillDate());
+                }
+                return bill;
+            }));
+            bumpItemVersions(bill);
+
+            for (BillLifecycleListener listener : listeners) {
+                listener.onBillCancelled(bill, previousStatus);
+            }
+            return bill;
+        });
+    }
+
+    @Override
+    public Optional<Bill> getBillById(Long billId) {
+        if (draftBillStore.isDraftId(billId)) {
+            return draftBillStore.getDraft(billId);
+        }
+        Optional<Bill> cached = billCache.get(billId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Bill> bill = billDAO.findById(billId);
+        bill.ifPresent(billCache::put);
+        return bill;
+    }
+
+    @Override
+    public List<Bill> getAllBills() {
+        return billDAO.findAll();
+    }
+
+    @Override
+    public List<Bill> getBillsByCustomer(Long customerId) {
+        return remember(billDAO.findByCustomerId(customerId));
+    }
+
+    @Override
+    public List<Bill> getBillsByStatus(BillStatus status) {
+        return billDAO.findByStatus(status);
+    }
+
+    @Override
+    public List<Bill> getBillsByDate(LocalDate date) {
+        return billDAO.findByDate(date);
+    }
+
+    @Override
+    public List<Bill> getBillsByDateRange(LocalDate startDate, LocalDate endDate) {
+        return billDAO.findByDateBetween(startDate, endDate);
+    }
+
+    @Override
+    public List<Bill> getRecentBills(int limit) {
+        return remember(billDAO.findRecentBills(limit));
+    }
+
+    @Override
+    public List<Bill> getTodaysBills() {
+        return remember(billDAO.findTodaysBills());
+    }
+
+    @Override
+    public List<Bill> getCurrentMonthBills() {
+        return billDAO.findCurrentMonthBills();
+    }
+
+    @Override
+    public List<Bill> searchBillsByCustomerName(String customerName) {
+        return billDAO.findByCustomerNameContaining(customerName);
+    }
+
+    @Override
+    public List<Bill> getBillsWithPagination(int page, int size) {
+        return remember(billDAO.findWithPagination(Math.max(0, page) * size, size));
+    }
+
+    @Override
+    public long getTotalBillCount() {
+        return billDAO.count();
+    }
+
+    @Override
+    public long getBillCountByStatus(BillStatus status) {
+        return billDAO.countByStatus(status);
+    }
+
+    @Override
+    public long getTodaysBillCount() {
+        return billDAO.countTodaysBills();
+    }
+
+    @Override
+    public long getCurrentMonthBillCount() {
+        return billDAO.countCurrentMonthBills();
+    }
+
+    @Override
+    public BigDecimal getTodaysSalesTotal() {
+        return billDAO.getTodaysSalesTotal();
+    }
+
+    @Override
+    public BigDecimal getCurrentMonthSalesTotal() {
+        return billDAO.getCurrentMonthSalesTotal();
+    }
+
+    @Override
+    public BigDecimal getCurrentYearSalesTotal() {
+        return billDAO.getCurrentYearSalesTotal();
+    }
+
+    @Override
+    public BigDecimal getSalesTotalByDateRange(LocalDate startDate, LocalDate endDate) {
+        return billDAO.getSalesTotalBetween(startDate, endDate);
+    }
+
+    @Override
+    public BigDecimal getCustomerTotalPurchases(Long customerId) {
+        // one row from the customer_totals rollup instead of a sum over the customer's bills
+        return customerTotalsDAO.findByCustomerId(customerId)
+                .map(CustomerTotals::getTotalAmount)
+                .orElse(BigDecimal.ZERO);
+    }
+
+    @Override
+    public BigDecimal getAverageBillAmount() {
+        return billDAO.getAverageBillAmount();
+    }
+
+    @Override
+    public BigDecimal getCurrentMonthAverageBillAmount() {
+        return billDAO.getCurrentMonthAverageBillAmount();
+    }
+
+    @Override
+    public Bill calculateBillTotals(Bill bill) {
+        bill.calculateTotals();
+        return bill;
+    }
+
+    @Override
+    public boolean validateBill(Bill bill) {
+        return bill != null && bill.isValid();
+    }
+
+    @Override
+    public boolean canModifyBill(Long billId) {
+        return getBillById(billId).map(Bill::canBeModified).orElse(false);
+    }
+
+    @Override
+    public boolean canCancelBill(Long billId) {
+        return getBillById(billId).map(bill -> bill.getStatus() != BillStatus.CANCELLED).orElse(false);
+    }
+
+    /**
+     * Get the lock manager guarding edits to a single bill, for contention metrics
+     */
+    public StripedLockManager getBillLockManager() {
+        return billLocks;
+    }
+
+    /**
+     * Get the lock manager guarding stock decrements per item, for contention metrics
+     */
+    public StripedLockManager getItemLockManager() {
+        return itemLocks;
+    }
+
+    /**
+     * Stop expiring drafts and close the bill event journal, forcing the events
+     * still queued to disk
+     */
+    public void shutdown() {
+        draftBillStore.shutdown();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing bill event journal: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void addBillLifecycleListener(BillLifecycleListener listener) {
+        listeners.add(listener);
+        draftBillStore.addBillLifecycleListener(listener);
+    }
+
+    @Override
+    public SalesStatistics getSalesStatistics() {
+        return transactionManager.inReadOnly(() -> new SalesStatistics(billDAO.count(),
+                billDAO.countTodaysBills(), billDAO.countCurrentMonthBills(),
+                billDAO.getSalesTotalBetween(LocalDate.of(1970, 1, 1), LocalDate.now()),
+                billDAO.getTodaysSalesTotal(), billDAO.getCurrentMonthSalesTotal(),
+                billDAO.getAverageBillAmount()));
+    }
+
+    @Override
+    public BillReport generateBillReport(LocalDate startDate, LocalDate endDate) {
+        // archived months come from their columnar files, the rest from the database
+        ArchivedSales archived = billArchiveService.getArchivedSales(startDate, endDate, 0);
+        LocalDate from = archived.getCoveredUntil();
+        return transactionManager.inReadOnly(() -> {
+            List<Bill> bills = from.isAfter(endDate) ? new ArrayList<>() : billDAO.findByDateBetween(from, endDate);
+            BigDecimal totalAmount = from.isAfter(endDate) ? archived.getSalesTotal() :
+                    archived.getSalesTotal().add(billDAO.getSalesTotalBetween(from, endDate));
+            long salesCount = archived.getSalesBills() + bills.stream()
+                    .filter(bill -> bill.getStatus() == BillStatus.FINALIZED || bill.getStatus() == BillStatus.PAID)
+                    .count();
+            BigDecimal averageAmount = salesCount == 0 ? BigDecimal.ZERO :
+                    totalAmount.divide(BigDecimal.valueOf(salesCount), 2, RoundingMode.HALF_UP);
+            return new BillReport(startDate, endDate, archived.getBills() + bills.size(), totalAmount,
+                    averageAmount, bills, archived.getBills());
+        });
+    }
+
+    // Helper methods
+
+    private List<Bill> remember(List<Bill> bills) {
+        // list pages arrive with their items loaded, so settled bills can seed the cache
+        for (Bill bill : bills) {
+            billCache.put(bill);
+        }
+        return bills;
+    }
+
+    /**
+     * Price an offline bill from the catalog and take its lines out of the remaining
+     * stock, or leave the stock untouched and throw if the bill cannot be saved
+     */
+    private static Bill prepareSyncedBill(Bill offlineBill, Map<Long, Customer> customers, Map<Long, Item> items,
+                                          Map<Long, Integer> stock, LocalDate hotFrom) {
+        Customer customer = customers.get(offlineBill.getCustomerId());
+        if (customer == null) {
+            throw new RuntimeException("Customer not found: " + offlineBill.getCustomerId());
+        }
+        LocalDate billDate = offlineBill.getBillDate();
+        if (billDate.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Bill date is in the future: " + billDate);
+        }
+        if (hotFrom != null && billDate.isBefore(hotFrom)) {
+            throw new IllegalArgumentException("Bill date is in an archived month: " + billDate);
+        }
+
+        Bill bill = new Bill(customer.getId(), customer.getName(), customer.getAccountNumber());
+        bill.setBillDate(billDate);
+        bill.setCreatedAt(offlineBill.getCreatedAt());
+        // a bill has one line per item, as drafts do
+        Map<Long, BillItem> lines = new LinkedHashMap<>();
+        for (BillItem line : offlineBill.getItems()) {
+            Item item = items.get(line.getItemId());
+            if (item == null) {
+                throw new RuntimeException("Item not found: " + line.getItemId());
+            }
+            // lines are priced from the catalog; a till that charged another price is refused, not trusted
+            if (line.getUnitPrice() != null && line.getUnitPrice().compareTo(item.getPrice()) != 0) {
+                throw new IllegalArgumentException("Item " + item.getId() + " was charged at " + line.getUnitPrice() +
+                        ", the catalog price is " + item.getPrice());
+            }
+            BillItem billItem = lines.get(item.getId());
+            if (billItem == null) {
+                billItem = new BillItem(item.getId(), item.getCode(), item.getName(), item.getPrice(),
+                        line.getQuantity());
+                billItem.setItemCategory(item.getCategory());
+                lines.put(item.getId(), billItem);
+            } else {
+                billItem.updateQuantity(billItem.getQuantity() + line.getQuantity());
+            }
+        }
+        for (BillItem billItem : lines.values()) {
+            if (billItem.getQuantity() > stock.get(billItem.getItemId())) {
+                throw new RuntimeException("Insufficient stock for item: " + billItem.getItemName());
+            }
+        }
+        for (BillItem billItem : lines.values()) {
+            stock.merge(billItem.getItemId(), -billItem.getQuantity(), Integer::sum);
+        }
+        bill.setItems(new ArrayList<>(lines.values()));
+        bill.finalizeBill();
+        return bill;
+    }
+
+    /**
+     * Check, price and save one chunk of offline bills in one transaction. The duplicate
+     * check and the save run under the sync lock, so two uploads of the same bills cannot
+     * both pass the check; stock is read and taken under the locks of the chunk's items
+     * only, so finalizes of other items, and of these between chunks, are not held up by
+     * a long sync. A chunk that fails is saved again one bill at a time, so only the bills
+     * short of stock are rejected; any other failure is thrown once the bills saved so
+     * far are added to created.
+     */
+    private void syncChunk(List<OfflineBill> bills, List<Integer> chunk, Map<Long, Customer> customers,
+                           LocalDate hotFrom, Map<String, Integer> firstIndex, SyncOutcome[] outcomes,
+                           List<Bill> created) {
+        Set<String> syncIds = new LinkedHashSet<>();
+        Set<Long> itemIds = new LinkedHashSet<>();
+        for (int i : chunk) {
+            syncIds.add(bills.get(i).getSyncId());
+            itemIds.addAll(itemIdsOf(bills.get(i).getBill()));
+        }
+        synchronized (syncLock) {
+            Map<String, Long> syncedBillIds = billDAO.findSyncedBillIds(syncIds);
+            itemLocks.withLocks(itemIds, () -> {
+                // one stock lookup covers every line of the chunk
+                Map<Long, Item> items = new HashMap<>();
+                Map<Long, Integer> stock = new HashMap<>();
+                for (Item item : itemDAO.findByIds(itemIds)) {
+                    items.put(item.getId(), item);
+                    stock.put(item.getId(), item.getStock());
+                }
+                Map<String, Bill> accepted = new LinkedHashMap<>();
+                for (int i : chunk) {
+                    OfflineBill offlineBill = bills.get(i);
+                    Long billId = syncedBillIds.get(offlineBill.getSyncId());
+                    if (billId != null) {
+                        outcomes[i] = new SyncOutcome(offlineBill.getSyncId(), SyncOutcome.Status.DUPLICATE,
+                                null, billId, null);
+                        continue;
+                    }
+                    try {
+                        accepted.put(offlineBill.getSyncId(),
+                                prepareSyncedBill(offlineBill.getBill(), customers, items, stock, hotFrom));
+                    } catch (RuntimeException e) {
+                        outcomes[i] = rejected(offlineBill.getSyncId(), e.getMessage());
+                    }
+                }
+                saveSyncedBills(accepted, firstIndex, outcomes, created);
+                return null;
+            });
+        }
+    }
+
+    private void saveSyncedBills(Map<String, Bill> accepted, Map<String, Integer> firstIndex,
+                                 SyncOutcome[] outcomes, List<Bill> created) {
+        if (accepted.isEmpty()) {
+            return;
+        }
+        try {
+            billDAO.saveSyncedBills(accepted);
+        } catch (RuntimeException chunkFailure) {
+            // find the bills that cannot be saved; any other failure is the database's and
+            // fails the whole sync, so the till retries it (saved chunks come back DUPLICATE)
+            for (Map.Entry<String, Bill> entry : accepted.entrySet()) {
+                try {
+                    billDAO.saveSyncedBills(Collections.singletonMap(entry.getKey(), entry.getValue()));
+                } catch (InsufficientStockException e) {
+                    outcomes[firstIndex.get(entry.getKey())] = rejected(entry.getKey(), e.getMessage());
+                }
+            }
+        } finally {
+            // a bill keeps its ID only if its transaction committed
+            for (Map.Entry<String, Bill> entry : accepted.entrySet()) {
+                Bill bill = entry.getValue();
+                if (bill.getId() != null) {
+                    outcomes[firstIndex.get(entry.getKey())] = new SyncOutcome(entry.getKey(),
+                            SyncOutcome.Status.CREATED, bill, bill.getId(), null);
+                    created.add(bill);
+                }
+            }
+        }
+    }
+
+    /**
+     * First day after the archived months, or null if nothing has been archived
+     */
+    private LocalDate firstUnarchivedDay() {
+        LocalDate hotFrom = null;
+        for (ArchivedPeriod period : billArchiveService.getArchivedPeriods()) {
+            if (hotFrom == null || period.getPeriodEnd().isAfter(hotFrom)) {
+                hotFrom = period.getPeriodEnd();
+            }
+        }
+        return hotFrom;
+    }
+
+    private static SyncOutcome rejected(String syncId, String error) {
+        return new SyncOutcome(syncId, SyncOutcome.Status.REJECTED, null, null, error);
+    }
+
+    private static List<Long> itemIdsOf(Bill bill) {
+        List<Long> itemIds = new ArrayList<>(bill.getItems().size());
+        for (BillItem billItem : bill.getItems()) {
+            itemIds.add(billItem.getItemId());
+        }
+        return itemIds;
+    }
+
+    private void bumpItemVersions(Bill bill) {
+        // stock levels changed, so cached item representations are stale
+        ResourceVersionTracker versionTracker = ResourceVersionTracker.getInstance();
+        for (BillItem billItem : bill.getItems()) {
+            versionTracker.bump(ResourceVersionTracker.ITEMS, billItem.getItemId());
+        }
+    }
+
+    private Bill requireDraft(Long billId) {
+        if (!draftBillStore.isDraftId(billId)) {
+            throw new IllegalStateException("Only draft bills can be modified");
+        }
+        return draftBillStore.getDraft(billId)
+                .orElseThrow(() -> new RuntimeException("Draft bill not found: " + billId));
+    }
+}
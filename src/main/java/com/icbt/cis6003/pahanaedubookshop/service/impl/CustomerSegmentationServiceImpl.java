@@ -0,0 +1,149 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerSegmentDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerSegmentDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerSegment.Segment;
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerSegmentationService;
+import com.icbt.cis6003.pahanaedubookshop.util.RfmScorer;
+import com.icbt.cis6003.pahanaedubookshop.util.SalesStatsMap;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * CustomerSegmentationService implementation.
+ * The run has three phases: one forward-only scan of the window's sales bills in ID
+ * order into a primitive map keyed by customer ID, quintile scoring on a fork/join
+ * pool of the requested size, and a batched rewrite of customer_segments in a single
+ * transaction. Only the scoring phase is parallel; the scan is bound by the database
+ * cursor and the write by the insert rate.
+ */
+public class CustomerSegmentationServiceImpl implements CustomerSegmentationService {
+
+    private static final int EXPECTED_CUSTOMERS = 1 << 16;
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private static final CustomerSegmentationServiceImpl INSTANCE =
+            new CustomerSegmentationServiceImpl(new CustomerSegmentDAOImpl());
+
+    private final CustomerSegmentDAO customerSegmentDAO;
+    private final TransactionManager transactionManager = TransactionManager.getInstance();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CustomerSegmentationServiceImpl(CustomerSegmentDAO customerSegmentDAO) {
+        this.customerSegmentDAO = customerSegmentDAO;
+    }
+
+    public static CustomerSegmentationServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public SegmentationResult runSegmentation(int windowDays, int parallelism) {
+        if (windowDays <= 0) {
+            throw new IllegalArgumentException("Window must be at least one day");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A segmentation run is already in progress");
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long start = System.nanoTime();
+            SalesStatsMap stats = new SalesStatsMap(EXPECTED_CUSTOMERS);
+            LocalDate since = LocalDate.now().minusDays(windowDays - 1);
+            long bills = transactionManager.inReadOnly(() -> customerSegmentDAO.scanSalesSince(since, stats::add));
+
+            long scanned = System.nanoTime();
+            CustomerSegment[] segments = score(stats, pool);
+
+            long scored = System.nanoTime();
+            transactionManager.inTransaction(() -> {
+                customerSegmentDAO.replaceAll(Arrays.asList(segments), WRITE_BATCH_SIZE);
+                return null;
+            });
+            long end = System.nanoTime();
+
+            Map<Segment, Long> counts = emptyCounts();
+            for (CustomerSegment segment : segments) {
+                counts.merge(segment.getSegment(), 1L, Long::sum);
+            }
+            return new SegmentationResult(windowDays, parallelism, bills, segments.length, counts,
+                    millis(start, scanned), millis(scanned, scored), millis(scored, end));
+        } finally {
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+
+    @Override
+    public Optional<CustomerSegment> getCustomerSegment(Long customerId) {
+        return transactionManager.inReadOnly(() -> customerSegmentDAO.findByCustomerId(customerId));
+    }
+
+    @Override
+    public List<CustomerSegment> getCustomersInSegment(Segment segment, int limit) {
+        return transactionManager.inReadOnly(() -> customerSegmentDAO.findBySegment(segment, limit));
+    }
+
+    @Override
+    public Map<Segment, Long> getSegmentCounts() {
+        Map<Segment, Long> counts = emptyCounts();
+        counts.putAll(transactionManager.inReadOnly(customerSegmentDAO::countBySegment));
+        return counts;
+    }
+
+    // Helper methods
+
+    /**
+     * Score every customer in the map and return the segments ordered by customer ID,
+     * the primary key order the batch insert writes fastest in
+     */
+    private static CustomerSegment[] score(SalesStatsMap stats, ForkJoinPool pool) {
+        int n = stats.size();
+        long[] customerIds = new long[n];
+        long[] counts = new long[n];
+        long[] amounts = new long[n];
+        long[] lastDays = new long[n];
+        stats.export(customerIds, counts, amounts, lastDays);
+
+        byte[][] scores = RfmScorer.score(lastDays, counts, amounts, pool);
+        byte[] recency = scores[0];
+        byte[] frequency = scores[1];
+        byte[] monetary = scores[2];
+
+        return pool.submit(() -> {
+            CustomerSegment[] segments = new CustomerSegment[n];
+            IntStream.range(0, n).parallel().forEach(i -> segments[i] = new CustomerSegment(customerIds[i],
+                    Segment.of(recency[i], frequency[i]), recency[i], frequency[i], monetary[i], counts[i],
+                    BigDecimal.valueOf(amounts[i], 2), LocalDate.ofEpochDay(lastDays[i])));
+            Arrays.parallelSort(segments, Comparator.comparing(CustomerSegment::getCustomerId));
+            return segments;
+        }).join();
+    }
+
+    private static Map<Segment, Long> emptyCounts() {
+        Map<Segment, Long> counts = new EnumMap<>(Segment.class);
+        for (Segment segment : Segment.values()) {
+            counts.put(segment, 0L);
+        }
+        return counts;
+    }
+
+    private static long millis(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,190 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerService;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+import com.icbt.cis6003.pahanaedubookshop.util.ValidationUtil;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * CustomerService implementation.
+ * Updates are optimistic: they apply only if the customer is still at the version
+ * the caller read, and otherwise fail with OptimisticLockException.
+ */
+public class CustomerServiceImpl implements CustomerService {
+
+    private static final String ACCOUNT_PREFIX = "CUST";
+
+    private static final CustomerServiceImpl INSTANCE = new CustomerServiceImpl(new CustomerDAOImpl());
+
+    private final CustomerDAO customerDAO;
+    private final TransactionManager transactionManager = TransactionManager.getInstance();
+
+    public CustomerServiceImpl(CustomerDAO customerDAO) {
+        this.customerDAO = customerDAO;
+    }
+
+    public static CustomerServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Customer createCustomer(Customer customer) {
+        validateCustomer(customer);
+        return transactionManager.inTransaction(() -> {
+            if (customerDAO.existsByAccountNumber(customer.getAccountNumber())) {
+                throw new RuntimeException("Account number already exists: " + customer.getAccountNumber());
+            }
+            return customerDAO.save(customer);
+        });
+    }
+
+    @Override
+    public Customer updateCustomer(Customer customer) {
+        validateCustomer(customer);
+        return transactionManager.inTransaction(() -> {
+            Customer current = requireCustomer(customer.getId());
+            Optional<Customer> sameAccount = customerDAO.findByAccountNumber(customer.getAccountNumber());
+            if (sameAccount.isPresent() && !sameAccount.get().getId().equals(customer.getId())) {
+                throw new RuntimeException("Account number already exists: " + customer.getAccountNumber());
+            }
+            if (customer.getVersion() == null) {
+                // callers that do not send a version keep last-write-wins semantics
+                customer.setVersion(current.getVersion());
+            }
+            return customerDAO.update(customer);
+        });
+    }
+
+    @Override
+    public boolean deleteCustomer(Long customerId) {
+        return transactionManager.inTransaction(() -> {
+            // a finalize adds to the customer's totals by reading the locked row, so it
+            // waits for the delete and then fails, or the delete waits for it and sees its bill
+            if (!customerDAO.lockById(customerId)) {
+                throw new RuntimeException("Customer not found: " + customerId);
+            }
+            if (!canDeleteCustomer(customerId)) {
+                throw new RuntimeException("Customer has associated bills and cannot be deleted");
+            }
+            return customerDAO.delete(customerId);
+        });
+    }
+
+    @Override
+    public Optional<Customer> getCustomerById(Long customerId) {
+        return customerDAO.findById(customerId);
+    }
+
+    @Override
+    public Optional<Customer> getCustomerByAccountNumber(String accountNumber) {
+        return customerDAO.findByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public List<Customer> getAllCustomers() {
+        return customerDAO.findAll();
+    }
+
+    @Override
+    public List<Customer> searchCustomers(String searchTerm) {
+        return customerDAO.search(searchTerm);
+    }
+
+    @Override
+    public List<Customer> getCustomersByRegistrationDateRange(LocalDate startDate, LocalDate endDate) {
+        return customerDAO.findByRegistrationDateBetween(startDate, endDate);
+    }
+
+    @Override
+    public List<Customer> getRecentCustomers(int limit) {
+        return customerDAO.findRecentCustomers(limit);
+    }
+
+    @Override
+    public List<Customer> getCustomersWithPagination(int page, int size) {
+        return customerDAO.findWithPagination(Math.max(page, 0) * size, size);
+    }
+
+    @Override
+    public long getTotalCustomerCount() {
+        return customerDAO.count();
+    }
+
+    @Override
+    public long getNewCustomersThisMonth() {
+        return customerDAO.countByCurrentMonth();
+    }
+
+    @Override
+    public long getNewCustomersToday() {
+        return customerDAO.findByRegistrationDate(LocalDate.now()).size();
+    }
+
+    @Override
+    public boolean isAccountNumberAvailable(String accountNumber) {
+        return !customerDAO.existsByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public String generateNextAccountNumber() {
+        int next = 1;
+        for (Customer customer : customerDAO.findAll()) {
+            String accountNumber = customer.getAccountNumber();
+            if (accountNumber != null && accountNumber.startsWith(ACCOUNT_PREFIX)) {
+                try {
+                    next = Math.max(next, Integer.parseInt(accountNumber.substring(ACCOUNT_PREFIX.length())) + 1);
+                } catch (NumberFormatException e) {
+                    // account numbers that do not follow the pattern are ignored
+                }
+            }
+        }
+        return String.format("%s%03d", ACCOUNT_PREFIX, next);
+    }
+
+    @Override
+    public boolean validateCustomer(Customer customer) {
+        if (!ValidationUtil.validateCustomer(customer)) {
+            throw new IllegalArgumentException("Customer requires account number, name, address and phone");
+        }
+        return true;
+    }
+
+    @Override
+    public CustomerStatistics getCustomerStatistics() {
+        return transactionManager.inReadOnly(() -> {
+            long total = customerDAO.count();
+            long newThisMonth = customerDAO.countByCurrentMonth();
+            long existing = total - newThisMonth;
+            double growthRate = existing > 0 ? newThisMonth * 100.0 / existing : 0.0;
+            return new CustomerStatistics(total, newThisMonth, getNewCustomersToday(), growthRate);
+        });
+    }
+
+    @Override
+    public boolean canDeleteCustomer(Long customerId) {
+        return !customerDAO.isReferencedByBills(customerId);
+    }
+
+    @Override
+    public List<Customer> getCustomersByPhone(String phone) {
+        return customerDAO.findByPhone(phone);
+    }
+
+    @Override
+    public List<Customer> getCustomersByName(String name) {
+        return customerDAO.findByNameContaining(name);
+    }
+
+    // Helper methods
+
+    private Customer requireCustomer(Long customerId) {
+        return customerDAO.findById(customerId)
+                .orElseThrow(() -> new RuntimeException("Customer not found: " + customerId));
+    }
+}
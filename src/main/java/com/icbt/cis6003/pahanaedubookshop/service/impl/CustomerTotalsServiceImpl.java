@@ -0,0 +1,194 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerTotalsDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerTotalsDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.CustomerTotals;
+import com.icbt.cis6003.pahanaedubookshop.service.BillLifecycleListener;
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerTotalsService;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * CustomerTotalsService implementation.
+ * The database row is the source of truth; it is written by the billing transactions
+ * through CustomerTotalsDAO. The in-memory mirror is filled on read and an entry is
+ * dropped after every committed change to that customer's bills. Loading and dropping
+ * go through the same map entry, so a load that raced with a commit is always
+ * dropped afterwards rather than left stale.
+ */
+public class CustomerTotalsServiceImpl implements CustomerTotalsService, BillLifecycleListener {
+
+    private static final int MAX_MIRRORED_CUSTOMERS = 100_000;
+    private static final long CHUNK_SIZE = 10_000;
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+
+    private static final CustomerTotalsServiceImpl INSTANCE = new CustomerTotalsServiceImpl(new CustomerTotalsDAOImpl());
+
+    private final CustomerTotalsDAO customerTotalsDAO;
+    private final TransactionManager transactionManager = TransactionManager.getInstance();
+    private final Map<Long, CustomerTotals> mirror = new ConcurrentHashMap<>();
+
+    public CustomerTotalsServiceImpl(CustomerTotalsDAO customerTotalsDAO) {
+        this.customerTotalsDAO = customerTotalsDAO;
+    }
+
+    public static CustomerTotalsServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    // BillLifecycleListener
+
+    @Override
+    public void onBillFinalized(Bill bill) {
+        mirror.remove(bill.getCustomerId());
+    }
+
+    @Override
+    public void onBillCancelled(Bill bill, BillStatus previousStatus) {
+        if (previousStatus == BillStatus.FINALIZED || previousStatus == BillStatus.PAID) {
+            mirror.remove(bill.getCustomerId());
+        }
+    }
+
+    // CustomerTotalsService
+
+    @Override
+    public CustomerTotals getTotals(Long customerId) {
+        CustomerTotals totals = mirror.get(customerId);
+        if (totals == null) {
+            if (mirror.size() >= MAX_MIRRORED_CUSTOMERS) {
+                return load(customerId);
+            }
+            totals = mirror.computeIfAbsent(customerId, this::load);
+        }
+        return copy(totals);
+    }
+
+    @Override
+    public List<CustomerTotals> getTopCustomers(int limit) {
+        return customerTotalsDAO.findTopByTotalAmount(limit);
+    }
+
+    @Override
+    public JobResult backfill(int threads) {
+        long start = System.currentTimeMillis();
+        long[] range = customerTotalsDAO.findCustomerIdRange();
+        List<Long> counts = runChunks(range, threads, (from, to) ->
+                (long) transactionManager.inTransaction(() -> customerTotalsDAO.rebuildRange(from, to)));
+        mirror.clear();
+        long customers = 0;
+        for (long count : counts) {
+            customers += count;
+        }
+        return new JobResult(counts.size(), customers, 0, Collections.emptyList(), false,
+                System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public JobResult verify(int threads, boolean repair) {
+        long start = System.currentTimeMillis();
+        long[] range = customerTotalsDAO.findCustomerIdRange();
+        List<Long> sample = Collections.synchronizedList(new ArrayList<>());
+        List<Long> counts = runChunks(range, threads, (from, to) -> {
+            List<Long> mismatched = transactionManager.inReadOnly(() -> findMismatches(from, to));
+            if (repair) {
+                for (Long customerId : mismatched) {
+                    transactionManager.inTransaction(() -> customerTotalsDAO.rebuildRange(customerId, customerId));
+                    mirror.remove(customerId);
+                }
+            }
+            synchronized (sample) {
+                for (Long customerId : mismatched) {
+                    if (sample.size() < MAX_REPORTED_MISMATCHES) {
+                        sample.add(customerId);
+                    }
+                }
+            }
+            return (long) mismatched.size();
+        });
+        long mismatches = 0;
+        for (long count : counts) {
+            mismatches += count;
+        }
+        return new JobResult(counts.size(), Math.max(0, range[1] - range[0] + 1), mismatches,
+                new ArrayList<>(sample), repair && mismatches > 0, System.currentTimeMillis() - start);
+    }
+
+    // Helper methods
+
+    private interface ChunkTask {
+        long run(long fromCustomerId, long toCustomerId);
+    }
+
+    private List<Long> runChunks(long[] range, int threads, ChunkTask task) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (long from = range[0]; from <= range[1]; from += CHUNK_SIZE) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(range[1], from + CHUNK_SIZE - 1);
+                futures.add(executor.submit(() -> task.run(chunkFrom, chunkTo)));
+            }
+            List<Long> results = new ArrayList<>(futures.size());
+            for (Future<Long> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Customer totals job interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Customer totals job failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Long> findMismatches(long fromCustomerId, long toCustomerId) {
+        Map<Long, CustomerTotals> computed = customerTotalsDAO.computeRange(fromCustomerId, toCustomerId);
+        Map<Long, CustomerTotals> stored = customerTotalsDAO.findStoredRange(fromCustomerId, toCustomerId);
+        Set<Long> customerIds = new HashSet<>(computed.keySet());
+        customerIds.addAll(stored.keySet());
+
+        List<Long> mismatched = new ArrayList<>();
+        for (Long customerId : customerIds) {
+            CustomerTotals expected = computed.getOrDefault(customerId, CustomerTotals.empty(customerId));
+            CustomerTotals actual = stored.getOrDefault(customerId, CustomerTotals.empty(customerId));
+            if (!sameTotals(expected, actual)) {
+                mismatched.add(customerId);
+            }
+        }
+        Collections.sort(mismatched);
+        return mismatched;
+    }
+
+    private static boolean sameTotals(CustomerTotals expected, CustomerTotals actual) {
+        if (expected.getBillCount() == 0 && actual.getBillCount() == 0) {
+            // a row left at zero after its last sale was cancelled
+            return actual.getTotalAmount().signum() == 0;
+        }
+        return expected.equals(actual);
+    }
+
+    private CustomerTotals load(Long customerId) {
+        return customerTotalsDAO.findByCustomerId(customerId).orElse(CustomerTotals.empty(customerId));
+    }
+
+    private static CustomerTotals copy(CustomerTotals totals) {
+        return new CustomerTotals(totals.getCustomerId(), totals.getBillCount(), totals.getTotalAmount(),
+                totals.getLastBillDate());
+    }
+}
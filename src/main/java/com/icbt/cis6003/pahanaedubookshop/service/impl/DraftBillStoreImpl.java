@@ -0,0 +1,466 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.service.BillLifecycleListener;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.BillItemChange;
+import com.icbt.cis6003.pahanaedubookshop.service.DraftBillStore;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent-map implementation of DraftBillStore.
+ * Draft IDs are issued from a range far above the database sequence so they never
+ * clash with persisted bill IDs, and below 2^53 so JavaScript clients hold them
+ * exactly. Each draft is guarded by its own monitor, and callers only ever get
+ * copies taken under it, never the draft being edited. A draft is closed under its
+ * monitor when it is saved, discarded or expires, and refuses every later call.
+ * Registered listeners (e.g. the bill event journal) see every edit and how each
+ * draft ended. Drafts live only in memory and are lost when the application stops.
+ */
+public class DraftBillStoreImpl implements DraftBillStore {
+
+    public static final long DRAFT_ID_BASE = 1_000_000_000_000_000L;
+    // Number.MAX_SAFE_INTEGER, the largest ID a JavaScript client holds exactly
+    public static final long MAX_DRAFT_ID = (1L << 53) - 1;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+
+    private final BillDAO billDAO;
+    private final Duration ttl;
+    private final Clock clock;
+    private final AtomicLong nextDraftId = new AtomicLong(DRAFT_ID_BASE);
+    private final Map<Long, DraftEntry> drafts = new ConcurrentHashMap<>();
+    private final List<BillLifecycleListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService evictor;
+
+    public DraftBillStoreImpl(BillDAO billDAO) {
+        this(billDAO, DEFAULT_TTL, Clock.systemDefaultZone());
+    }
+
+    public DraftBillStoreImpl(BillDAO billDAO, Duration ttl, Clock clock) {
+        this.billDAO = billDAO;
+        this.ttl = ttl;
+        this.clock = clock;
+
+        long period = Math.max(1, ttl.toMillis() / 4);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "draft-bill-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleAtFixedRate(this::evictExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void addBillLifecycleListener(BillLifecycleListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+
+    @Override
+    public Bill createDraft(Customer customer) {
+        if (customer == null || customer.getId() == null) {
+            throw new IllegalArgumentException("Customer is required");
+        }
+        long draftId = nextDraftId.incrementAndGet();
+        if (draftId > MAX_DRAFT_ID) {
+            throw new IllegalStateException("Draft IDs are exhausted, restart the application");
+        }
+        Bill bill = new Bill(customer.getId(), customer.getName(), customer.getAccountNumber());
+        bill.setId(draftId);
+        bill.calculateTotals();
+        DraftEntry entry = new DraftEntry(bill, clock.millis());
+        synchronized (entry) {
+            drafts.put(bill.getId(), entry);
+            for (BillLifecycleListener listener : listeners) {
+                listener.onBillCreated(bill);
+            }
+            return snapshotOf(bill);
+        }
+    }
+
+    @Override
+    public Optional<Bill> getDraft(Long draftId) {
+        DraftEntry entry = liveEntry(draftId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        synchronized (entry) {
+            return entry.closed ? Optional.empty() : Optional.of(snapshotOf(entry.bill));
+        }
+    }
+
+    @Override
+    public boolean isDraftId(Long id) {
+        return id != null && id > DRAFT_ID_BASE && id <= MAX_DRAFT_ID;
+    }
+
+    @Override
+    public Bill addItem(Long draftId, Item item, int quantity) {
+        DraftEntry entry = requireEntry(draftId);
+        synchronized (entry) {
+            requireOpen(entry, draftId);
+            Bill bill = entry.bill;
+            BillItem existing = findLine(bill, item.getId());
+            if (existing != null) {
+                int newQuantity = existing.getQuantity() + quantity;
+                if (!item.canFulfillOrder(newQuantity)) {
+                    throw new RuntimeException("Insufficient stock for item: " + item.getName());
+                }
+                int previousQuantity = existing.getQuantity();
+                existing.updateQuantity(newQuantity);
+                bill.calculateTotals();
+                touch(entry);
+                for (BillLifecycleListener listener : listeners) {
+                    listener.onItemQuantityUpdated(bill, existing, previousQuantity);
+                }
+            } else {
+                BillItem billItem = BillItem.fromItem(item, quantity);
+                billItem.setBillId(bill.getId());
+                bill.addItem(billItem);
+                touch(entry);
+                for (BillLifecycleListener listener : listeners) {
+                    listener.onItemAdded(bill, billItem);
+                }
+            }
+            return snapshotOf(bill);
+        }
+    }
+
+    @Override
+    public Bill updateItemQuantity(Long draftId, Long itemId, int newQuantity) {
+        DraftEntry entry = requireEntry(draftId);
+        synchronized (entry) {
+            requireOpen(entry, draftId);
+            Bill bill = entry.bill;
+            BillItem billItem = requireLine(bill, itemId);
+            int previousQuantity = billItem.getQuantity();
+            billItem.updateQuantity(newQuantity);
+            bill.calculateTotals();
+            touch(entry);
+            for (BillLifecycleListener listener : listeners) {
+                listener.onItemQuantityUpdated(bill, billItem, previousQuantity);
+            }
+            return snapshotOf(bill);
+        }
+    }
+
+    @Override
+    public Bill removeItem(Long draftId, Long itemId) {
+        DraftEntry entry = requireEntry(draftId);
+        synchronized (entry) {
+            requireOpen(entry, draftId);
+            Bill bill = entry.bill;
+            BillItem billItem = requireLine(bill, itemId);
+            bill.removeItem(billItem);
+            touch(entry);
+            for (BillLifecycleListener listener : listeners) {
+                listener.onItemRemoved(bill, billItem);
+            }
+            return snapshotOf(bill);
+        }
+    }
+
+    @Override
+    public Bill applyItemChanges(Long draftId, List<BillItemChange> changes, Map<Long, Item> items) {
+        DraftEntry entry = requireEntry(draftId);
+        synchronized (entry) {
+            requireOpen(entry, draftId);
+            Bill bill = entry.bill;
+
+            // work on copies so a failing change leaves the draft untouched
+            Map<Long, BillItem> lines = new LinkedHashMap<>();
+            Map<Long, BillItem> previousLines = new HashMap<>();
+            for (BillItem billItem : bill.getItems()) {
+                lines.put(billItem.getItemId(), copyOf(billItem));
+                previousLines.put(billItem.getItemId(), billItem);
+            }
+
+            for (BillItemChange change : changes) {
+                applyChange(bill, lines, change, items);
+            }
+            for (BillItem billItem : lines.values()) {
+                Item item = items.get(billItem.getItemId());
+                if (item != null && !item.canFulfillOrder(billItem.getQuantity())) {
+                    throw new RuntimeException("Insufficient stock for item: " + item.getName());
+                }
+            }
+
+            bill.setItems(new ArrayList<>(lines.values()));
+            touch(entry);
+            notifyLineChanges(bill, previousLines, lines);
+            return snapshotOf(bill);
+        }
+    }
+
+    @Override
+    public Bill finalizeDraft(Long draftId) {
+        DraftEntry entry = requireEntry(draftId);
+        synchronized (entry) {
+            requireOpen(entry, draftId);
+            Bill bill = entry.bill;
+            if (!bill.isValid()) {
+                throw new IllegalArgumentException("Bill must have a customer and at least one item");
+            }
+
+            bill.setId(null);
+            bill.finalizeBill();
+            try {
+                billDAO.saveFinalizedBill(bill);
+            } catch (RuntimeException e) {
+                // keep the draft editable so the cashier can fix it and retry
+                bill.setId(draftId);
+                bill.setStatus(BillStatus.DRAFT);
+                throw e;
+            }
+            close(draftId, entry);
+
+            for (BillLifecycleListener listener : listeners) {
+                listener.onDraftSaved(draftId, bill);
+                listener.onBillFinalized(bill);
+            }
+            return bill;
+        }
+    }
+
+    @Override
+    public boolean discard(Long draftId) {
+        DraftEntry entry = draftId != null ? drafts.get(draftId) : null;
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            // a finalize holds the monitor until the bill is saved, and closes the draft
+            if (entry.closed) {
+                return false;
+            }
+            close(draftId, entry);
+            for (BillLifecycleListener listener : listeners) {
+                listener.onBillCancelled(entry.bill, BillStatus.DRAFT);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public int evictExpired() {
+        long now = clock.millis();
+        int evicted = 0;
+        for (Map.Entry<Long, DraftEntry> draft : drafts.entrySet()) {
+            if (isExpired(draft.getValue(), now) && expire(draft.getKey(), draft.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public int size() {
+        return drafts.size();
+    }
+
+    // Helper methods
+
+    private DraftEntry liveEntry(Long draftId) {
+        if (draftId == null) {
+            return null;
+        }
+        DraftEntry entry = drafts.get(draftId);
+        if (entry != null && isExpired(entry, clock.millis())) {
+            expire(draftId, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Close an expired draft and tell the listeners, unless it was closed or touched meanwhile
+     */
+    private boolean expire(Long draftId, DraftEntry entry) {
+        synchronized (entry) {
+            if (entry.closed || !isExpired(entry, clock.millis())) {
+                return false;
+            }
+            close(draftId, entry);
+            for (BillLifecycleListener listener : listeners) {
+                listener.onDraftExpired(entry.bill);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Remove a draft from the store; the caller holds the entry's monitor
+     */
+    private void close(Long draftId, DraftEntry entry) {
+        entry.closed = true;
+        drafts.remove(draftId, entry);
+    }
+
+    /**
+     * Refuse a draft that was saved, discarded or expired since it was looked up;
+     * the caller holds the entry's monitor
+     */
+    private static void requireOpen(DraftEntry entry, Long draftId) {
+        if (entry.closed) {
+            throw new RuntimeException("Draft bill not found: " + draftId);
+        }
+    }
+
+    private DraftEntry requireEntry(Long draftId) {
+        DraftEntry entry = liveEntry(draftId);
+        if (entry == null) {
+            throw new RuntimeException("Draft bill not found: " + draftId);
+        }
+        return entry;
+    }
+
+    private boolean isExpired(DraftEntry entry, long now) {
+        return now - entry.lastAccess > ttl.toMillis();
+    }
+
+    private void touch(DraftEntry entry) {
+        entry.lastAccess = clock.millis();
+    }
+
+    private static void applyChange(Bill bill, Map<Long, BillItem> lines, BillItemChange change,
+                                    Map<Long, Item> items) {
+        if (change.getOperation() == null || change.getItemId() == null) {
+            throw new IllegalArgumentException("Each change needs an operation and an itemId");
+        }
+        BillItem line = lines.get(change.getItemId());
+        switch (change.getOperation()) {
+            case ADD:
+                Item item = items.get(change.getItemId());
+                if (item == null) {
+                    throw new RuntimeException("Item not found: " + change.getItemId());
+                }
+                if (line != null) {
+                    line.updateQuantity(line.getQuantity() + requirePositive(change));
+                } else {
+                    BillItem billItem = new BillItem(item.getId(), item.getCode(), item.getName(),
+                            item.getPrice(), requirePositive(change));
+                    billItem.setBillId(bill.getId());
+                    billItem.setItemCategory(item.getCategory());
+                    lines.put(item.getId(), billItem);
+                }
+                break;
+            case UPDATE:
+                requireChangeLine(bill, line, change).updateQuantity(requirePositive(change));
+                break;
+            case REMOVE:
+                requireChangeLine(bill, line, change);
+                lines.remove(change.getItemId());
+                break;
+        }
+    }
+
+    private static int requirePositive(BillItemChange change) {
+        if (change.getQuantity() == null || change.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive for item " + change.getItemId());
+        }
+        return change.getQuantity();
+    }
+
+    private static BillItem requireChangeLine(Bill bill, BillItem line, BillItemChange change) {
+        if (line == null) {
+            throw new RuntimeException("Item " + change.getItemId() + " is not on bill " + bill.getId());
+        }
+        return line;
+    }
+
+    private void notifyLineChanges(Bill bill, Map<Long, BillItem> previousLines, Map<Long, BillItem> lines) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (BillItem billItem : lines.values()) {
+            BillItem previous = previousLines.get(billItem.getItemId());
+            for (BillLifecycleListener listener : listeners) {
+                if (previous == null) {
+                    listener.onItemAdded(bill, billItem);
+                } else if (!previous.getQuantity().equals(billItem.getQuantity())) {
+                    listener.onItemQuantityUpdated(bill, billItem, previous.getQuantity());
+                }
+            }
+        }
+        for (BillItem previous : previousLines.values()) {
+            if (!lines.containsKey(previous.getItemId())) {
+                for (BillLifecycleListener listener : listeners) {
+                    listener.onItemRemoved(bill, previous);
+                }
+            }
+        }
+    }
+
+    private static Bill snapshotOf(Bill bill) {
+        Bill copy = new Bill(bill.getCustomerId(), bill.getCustomerName(), bill.getCustomerAccountNumber());
+        copy.setId(bill.getId());
+        copy.setBillDate(bill.getBillDate());
+        copy.setCreatedAt(bill.getCreatedAt());
+        copy.setStatus(bill.getStatus());
+        copy.setVersion(bill.getVersion());
+        copy.setTaxRate(bill.getTaxRate());
+        List<BillItem> items = new ArrayList<>(bill.getItems().size());
+        for (BillItem billItem : bill.getItems()) {
+            items.add(copyOf(billItem));
+        }
+        copy.setItems(items);
+        return copy;
+    }
+
+    private static BillItem copyOf(BillItem billItem) {
+        BillItem copy = new BillItem(billItem.getId(), billItem.getBillId(), billItem.getItemId(),
+                billItem.getItemCode(), billItem.getItemName(), billItem.getUnitPrice(), billItem.getQuantity());
+        copy.setItemCategory(billItem.getItemCategory());
+        return copy;
+    }
+
+    private static BillItem findLine(Bill bill, Long itemId) {
+        for (BillItem billItem : bill.getItems()) {
+            if (billItem.getItemId().equals(itemId)) {
+                return billItem;
+            }
+        }
+        return null;
+    }
+
+    private static BillItem requireLine(Bill bill, Long itemId) {
+        BillItem billItem = findLine(bill, itemId);
+        if (billItem == null) {
+            throw new RuntimeException("Item " + itemId + " is not on bill " + bill.getId());
+        }
+        return billItem;
+    }
+
+    private static final class DraftEntry {
+        private final Bill bill;
+        private volatile long lastAccess;
+        private boolean closed;  // guarded by the entry's monitor
+
+        private DraftEntry(Bill bill, long lastAccess) {
+            this.bill = bill;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.ItemDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.ItemDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.service.BestSellerService;
+import com.icbt.cis6003.pahanaedubookshop.service.ItemService;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+import com.icbt.cis6003.pahanaedubookshop.util.ValidationUtil;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ItemService implementation.
+ * Full updates are optimistic: they apply only if the item is still at the version
+ * the caller read, and otherwise fail with OptimisticLockException. Stock deltas are
+ * applied relative to the stored stock, so they never conflict and need no retry.
+ * Items are registered with the best-seller analytics once they are created, so they
+ * show up as slow movers before their first sale.
+ */
+public class ItemServiceImpl implements ItemService {
+
+    private static final ItemServiceImpl INSTANCE =
+            new ItemServiceImpl(new ItemDAOImpl(), BestSellerServiceImpl.getInstance());
+
+    private final ItemDAO itemDAO;
+    private final BestSellerService bestSellerService;
+    private final TransactionManager transactionManager = TransactionManager.getInstance();
+
+    public ItemServiceImpl(ItemDAO itemDAO, BestSellerService bestSellerService) {
+        this.itemDAO = itemDAO;
+        this.bestSellerService = bestSellerService;
+    }
+
+    public static ItemServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Item createItem(Item item) {
+        validateItem(item);
+        Item created = transactionManager.inTransaction(() -> {
+            if (itemDAO.existsByCode(item.getCode())) {
+                throw new RuntimeException("Item code already exists: " + item.getCode());
+            }
+            return itemDAO.save(item);
+        });
+        bestSellerService.registerItem(created.getId());
+        return created;
+    }
+
+    @Override
+    public Item updateItem(Item item) {
+        validateItem(item);
+        return transactionManager.inTransaction(() -> {
+            Item current = requireItem(item.getId());
+            Optional<Item> sameCode = itemDAO.findByCode(item.getCode());
+            if (sameCode.isPresent() && !sameCode.get().getId().equals(item.getId())) {
+                throw new RuntimeException("Item code already exists: " + item.getCode());
+            }
+            if (item.getVersion() == null) {
+                // callers that do not send a version keep last-write-wins semantics
+                item.setVersion(current.getVersion());
+            }
+            return itemDAO.update(item);
+        });
+    }
+
+    @Override
+    public boolean deleteItem(Long itemId) {
+        boolean deleted = transactionManager.inTransaction(() -> {
+            // a finalize decrements the stock of the locked row, so it waits for the
+            // delete and then fails, or the delete waits for it and sees its lines
+            if (!itemDAO.lockById(itemId)) {
+                throw new RuntimeException("Item not found: " + itemId);
+            }
+            if (!canDeleteItem(itemId)) {
+                throw new RuntimeException("Item has associated bills and cannot be deleted");
+            }
+            return itemDAO.delete(itemId);
+        });
+        if (deleted) {
+            bestSellerService.unregisterItem(itemId);
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<Item> getItemById(Long itemId) {
+        return itemDAO.findById(itemId);
+    }
+
+    @Override
+    public Optional<Item> getItemByCode(String code) {
+        return itemDAO.findByCode(code);
+    }
+
+    @Override
+    public List<Item> getAllItems() {
+        return itemDAO.findAll();
+    }
+
+    @Override
+    public List<Item> getItemsByCategory(ItemCategory category) {
+        return itemDAO.findByCategory(category);
+    }
+
+    @Override
+    public List<Item> searchItems(String searchTerm) {
+        return itemDAO.search(searchTerm);
+    }
+
+    @Override
+    public List<Item> searchItems(String searchTerm, ItemCategory category) {
+        return itemDAO.searchByNameOrCodeAndCategory(searchTerm, category);
+    }
+
+    @Override
+    public List<Item> getItemsInStock() {
+        return itemDAO.findInStock();
+    }
+
+    @Override
+    public List<Item> getLowStockItems() {
+        return itemDAO.findLowStock();
+    }
+
+    @Override
+    public List<Item> getOutOfStockItems() {
+        return itemDAO.findOutOfStock();
+    }
+
+    @Override
+    public List<Item> getItemsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return itemDAO.findByPriceRange(minPrice, maxPrice);
+    }
+
+    @Override
+    public Item updateItemStock(Long itemId, Integer newStock) {
+        if (newStock == null || newStock < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        return transactionManager.inTransaction(() -> {
+            if (!itemDAO.updateStock(itemId, newStock)) {
+                throw new RuntimeException("Item not found: " + itemId);
+            }
+            return requireItem(itemId);
+        });
+    }
+
+    @Override
+    public Item increaseStock(Long itemId, Integer quantity) {
+        requirePositive(quantity);
+        return transactionManager.inTransaction(() -> {
+            if (!itemDAO.increaseStock(itemId, quantity)) {
+                throw new RuntimeException("Item not found: " + itemId);
+            }
+            return requireItem(itemId);
+        });
+    }
+
+    @Override
+    public Item decreaseStock(Long itemId, Integer quantity) {
+        requirePositive(quantity);
+        return transactionManager.inTransaction(() -> {
+            if (!itemDAO.decreaseStock(itemId, quantity)) {
+                Item item = requireItem(itemId);
+                throw new RuntimeException("Insufficient stock for item: " + item.getName());
+            }
+            return requireItem(itemId);
+        });
+    }
+
+    @Override
+    public boolean hasSufficientStock(Long itemId, Integer requiredQuantity) {
+        return itemDAO.findById(itemId)
+                .map(item -> item.canFulfillOrder(requiredQuantity))
+                .orElse(false);
+    }
+
+    @Override
+    public boolean reserveStock(Long itemId, Integer quantity) {
+        decreaseStock(itemId, quantity);
+        return true;
+    }
+
+    @Override
+    public List<Item> getItemsWithPagination(int page, int size) {
+        return itemDAO.findWithPagination(Math.max(page, 0) * size, size);
+    }
+
+    @Override
+    public long getTotalItemCount() {
+        return itemDAO.count();
+    }
+
+    @Override
+    public long getItemCountByCategory(ItemCategory category) {
+        return itemDAO.countByCategory(category);
+    }
+
+    @Override
+    public long getInStockItemCount() {
+        return itemDAO.countInStock();
+    }
+
+    @Override
+    public long getLowStockItemCount() {
+        return itemDAO.countLowStock();
+    }
+
+    @Override
+    public boolean isItemCodeAvailable(String code) {
+        return !itemDAO.existsByCode(code);
+    }
+
+    @Override
+    public String generateNextItemCode(ItemCategory category) {
+        String prefix = codePrefix(category);
+        int next = 1;
+        for (Item item : itemDAO.findByCategory(category)) {
+            String code = item.getCode();
+            if (code != null && code.startsWith(prefix)) {
+                try {
+                    next = Math.max(next, Integer.parseInt(code.substring(prefix.length())) + 1);
+                } catch (NumberFormatException e) {
+                    // codes that do not follow the pattern are ignored
+                }
+            }
+        }
+        return String.format("%s%03d", prefix, next);
+    }
+
+    @Override
+    public boolean validateItem(Item item) {
+        if (!ValidationUtil.validateItem(item)) {
+            throw new IllegalArgumentException("Item requires code, name, category, price and stock");
+        }
+        return true;
+    }
+
+    @Override
+    public InventoryStatistics getInventoryStatistics() {
+        return transactionManager.inReadOnly(() -> {
+            long total = itemDAO.count();
+            long inStock = itemDAO.countInStock();
+            return new InventoryStatistics(total, inStock, itemDAO.countLowStock(), total - inStock,
+                    itemDAO.getTotalInventoryValue());
+        });
+    }
+
+    @Override
+    public boolean canDeleteItem(Long itemId) {
+        return !itemDAO.isReferencedByBills(itemId);
+    }
+
+    @Override
+    public BigDecimal getTotalInventoryValue() {
+        return itemDAO.getTotalInventoryValue();
+    }
+
+    @Override
+    public BigDecimal getInventoryValueByCategory(ItemCategory category) {
+        return itemDAO.getInventoryValueByCategory(category);
+    }
+
+    // Helper methods
+
+    private Item requireItem(Long itemId) {
+        return itemDAO.findById(itemId)
+                .orElseThrow(() -> new RuntimeException("Item not found: " + itemId));
+    }
+
+    private static void requirePositive(Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+    }
+
+    private static String codePrefix(ItemCategory category) {
+        switch (category) {
+            case TEXTBOOK: return "BOOK";
+            case REFERENCE: return "REF";
+            case STATIONERY: return "STAT";
+            default: return "DIG";
+        }
+    }
+}
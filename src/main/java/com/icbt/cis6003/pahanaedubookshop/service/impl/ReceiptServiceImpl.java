@@ -0,0 +1,114 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.service.ReceiptService;
+import com.icbt.cis6003.pahanaedubookshop.util.ReceiptTemplate;
+import com.icbt.cis6003.pahanaedubookshop.util.ReceiptTemplate.Escaping;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ReceiptService implementation.
+ * Both templates are compiled when the service is created, so a broken template
+ * fails at startup. Draft receipts are rendered straight into the output stream on
+ * every request. A settled bill only changes by moving to another status, which bumps
+ * its version, so its receipt is rendered once and cached under the bill ID with the
+ * version and status it was rendered from.
+ */
+public class ReceiptServiceImpl implements ReceiptService {
+
+    private static final int MAX_CACHED_RECEIPTS = 4096;
+
+    private static final ReceiptServiceImpl INSTANCE = new ReceiptServiceImpl(
+            ReceiptTemplate.load("/receipts/receipt-80mm.txt", Escaping.NONE),
+            ReceiptTemplate.load("/receipts/receipt.html", Escaping.HTML));
+
+    private final Map<ReceiptFormat, ReceiptTemplate> templates = new EnumMap<>(ReceiptFormat.class);
+
+    // least recently used receipts are evicted first
+    private final Map<CacheKey, CachedReceipt> cache = new LinkedHashMap<CacheKey, CachedReceipt>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedReceipt> eldest) {
+            return size() > MAX_CACHED_RECEIPTS;
+        }
+    };
+
+    public ReceiptServiceImpl(ReceiptTemplate textTemplate, ReceiptTemplate htmlTemplate) {
+        templates.put(ReceiptFormat.TEXT, textTemplate);
+        templates.put(ReceiptFormat.HTML, htmlTemplate);
+    }
+
+    public static ReceiptServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void writeReceipt(Bill bill, ReceiptFormat format, OutputStream out) throws IOException {
+        ReceiptTemplate template = templates.get(format);
+        if (bill.getStatus() == BillStatus.DRAFT || bill.getId() == null) {
+            template.render(bill, out);
+            return;
+        }
+
+        CacheKey key = new CacheKey(bill.getId(), format);
+        CachedReceipt cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached == null || !cached.matches(bill)) {
+            ByteArrayOutputStream rendered = new ByteArrayOutputStream(1024);
+            template.render(bill, rendered);
+            cached = new CachedReceipt(bill.getVersion(), bill.getStatus(), rendered.toByteArray());
+            synchronized (cache) {
+                cache.put(key, cached);
+            }
+        }
+        out.write(cached.body);
+    }
+
+    private static final class CacheKey {
+        private final long billId;
+        private final ReceiptFormat format;
+
+        private CacheKey(long billId, ReceiptFormat format) {
+            this.billId = billId;
+            this.format = format;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return billId == other.billId && format == other.format;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(billId) * 31 + format.ordinal();
+        }
+    }
+
+    private static final class CachedReceipt {
+        private final Integer version;
+        private final BillStatus status;
+        private final byte[] body;
+
+        private CachedReceipt(Integer version, BillStatus status, byte[] body) {
+            this.version = version;
+            this.status = status;
+            this.body = body;
+        }
+
+        private boolean matches(Bill bill) {
+            return status == bill.getStatus() && (version == null ? bill.getVersion() == null
+                    : version.equals(bill.getVersion()));
+        }
+    }
+}
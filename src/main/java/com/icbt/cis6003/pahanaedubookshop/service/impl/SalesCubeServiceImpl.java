@@ -0,0 +1,297 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.service.BillLifecycleListener;
+import com.icbt.cis6003.pahanaedubookshop.service.SalesCubeService;
+import com.icbt.cis6003.pahanaedubookshop.util.FenwickTree;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory sales cube backed by Fenwick trees indexed by day.
+ * Amounts are held as cents so sums stay exact. The cube is rebuilt from SQL
+ * aggregates at startup and then kept up to date as bills change state.
+ */
+public class SalesCubeServiceImpl implements SalesCubeService, BillLifecycleListener {
+
+    private static final LocalDate DEFAULT_BASE_DATE = LocalDate.of(2020, 1, 1);
+    private static final int INITIAL_DAYS = 366 * 8;
+
+    private static final SalesCubeServiceImpl INSTANCE = new SalesCubeServiceImpl();
+
+    private final BillDAO billDAO;
+    private final LocalDate baseDate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // [status ordinal] -> per-day totals
+    private FenwickTree[] statusAmounts;
+    private FenwickTree[] statusCounts;
+    // [category ordinal] -> per-day line totals of sales bills
+    private FenwickTree[] categoryAmounts;
+
+    public SalesCubeServiceImpl() {
+        this(new BillDAOImpl(), DEFAULT_BASE_DATE);
+    }
+
+    public SalesCubeServiceImpl(BillDAO billDAO, LocalDate baseDate) {
+        this.billDAO = billDAO;
+        this.baseDate = baseDate;
+        reset(INITIAL_DAYS);
+    }
+
+    /**
+     * Shared instance used by the controllers and the billing service
+     */
+    public static SalesCubeServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    // BillLifecycleListener
+
+    @Override
+    public void onBillFinalized(Bill bill) {
+        recordStatusChange(bill, BillStatus.DRAFT, BillStatus.FINALIZED);
+    }
+
+    @Override
+    public void onBillCancelled(Bill bill, BillStatus previousStatus) {
+        recordStatusChange(bill, previousStatus, BillStatus.CANCELLED);
+    }
+
+    // SalesCubeService
+
+    @Override
+    public void rebuild() {
+        // per-day values first, so each tree is built in one pass
+        int days = Math.max(INITIAL_DAYS, dayIndex(LocalDate.now()) + 1);
+        long[][] amounts = new long[BillStatus.values().length][days];
+        long[][] counts = new long[BillStatus.values().length][days];
+        long[][] categories = new long[ItemCategory.values().length][days];
+        billDAO.scanDailyTotals(new BillDAO.DailyTotalsVisitor() {
+            @Override
+            public void visitStatus(LocalDate billDate, BillStatus status, long billCount, BigDecimal totalAmount) {
+                int day = historyDay(billDate, days);
+                if (day >= 0) {
+                    amounts[status.ordinal()][day] += toCents(totalAmount);
+                    counts[status.ordinal()][day] += billCount;
+                }
+            }
+
+            @Override
+            public void visitCategory(LocalDate billDate, ItemCategory category, BigDecimal lineTotal) {
+                int day = historyDay(billDate, days);
+                if (day >= 0) {
+                    categories[category.ordinal()][day] += toCents(lineTotal);
+                }
+            }
+        });
+
+        FenwickTree[] newStatusAmounts = buildTrees(amounts);
+        FenwickTree[] newStatusCounts = buildTrees(counts);
+        FenwickTree[] newCategoryAmounts = buildTrees(categories);
+        lock.writeLock().lock();
+        try {
+            statusAmounts = newStatusAmounts;
+            statusCounts = newStatusCounts;
+            categoryAmounts = newCategoryAmounts;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void recordStatusChange(Bill bill, BillStatus fromStatus, BillStatus toStatus) {
+        if (bill == null || fromStatus == toStatus) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(bill, fromStatus, -1);
+            apply(bill, toStatus, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public BigDecimal getSalesTotal(LocalDate startDate, LocalDate endDate) {
+        return getTotalByStatus(startDate, endDate, BillStatus.FINALIZED)
+                .add(getTotalByStatus(startDate, endDate, BillStatus.PAID));
+    }
+
+    @Override
+    public long getSalesCount(LocalDate startDate, LocalDate endDate) {
+        return getCountByStatus(startDate, endDate, BillStatus.FINALIZED)
+                + getCountByStatus(startDate, endDate, BillStatus.PAID);
+    }
+
+    @Override
+    public BigDecimal getAverageBillAmount(LocalDate startDate, LocalDate endDate) {
+        long count = getSalesCount(startDate, endDate);
+        if (count == 0) {
+            return BigDecimal.ZERO;
+        }
+        return getSalesTotal(startDate, endDate)
+                .divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public BigDecimal getTotalByStatus(LocalDate startDate, LocalDate endDate, BillStatus status) {
+        return fromCents(rangeSum(statusAmounts, status.ordinal(), startDate, endDate));
+    }
+
+    @Override
+    public long getCountByStatus(LocalDate startDate, LocalDate endDate, BillStatus status) {
+        return rangeSum(statusCounts, status.ordinal(), startDate, endDate);
+    }
+
+    @Override
+    public BigDecimal getCategorySalesTotal(LocalDate startDate, LocalDate endDate, ItemCategory category) {
+        return fromCents(rangeSum(categoryAmounts, category.ordinal(), startDate, endDate));
+    }
+
+    @Override
+    public List<SalesBucket> getSalesBuckets(LocalDate startDate, LocalDate endDate, Granularity granularity) {
+        List<SalesBucket> buckets = new ArrayList<>();
+        LocalDate periodStart = startDate;
+        while (!periodStart.isAfter(endDate)) {
+            LocalDate periodEnd;
+            switch (granularity) {
+                case YEAR:
+                    periodEnd = periodStart.withDayOfYear(periodStart.lengthOfYear());
+                    break;
+                case MONTH:
+                    periodEnd = periodStart.withDayOfMonth(periodStart.lengthOfMonth());
+                    break;
+                default:
+                    periodEnd = periodStart;
+            }
+            if (periodEnd.isAfter(endDate)) {
+                periodEnd = endDate;
+            }
+            buckets.add(new SalesBucket(periodStart, periodEnd,
+                    getSalesCount(periodStart, periodEnd), getSalesTotal(periodStart, periodEnd)));
+            periodStart = periodEnd.plusDays(1);
+        }
+        return buckets;
+    }
+
+    // Helper methods
+
+    private void reset(int days) {
+        statusAmounts = newTrees(BillStatus.values().length, days);
+        statusCounts = newTrees(BillStatus.values().length, days);
+        categoryAmounts = newTrees(ItemCategory.values().length, days);
+    }
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) a bill under a status. Caller holds the write lock.
+     */
+    private void apply(Bill bill, BillStatus status, int sign) {
+        if (status == null || status == BillStatus.DRAFT) {
+            return;
+        }
+        int day = dayIndex(bill.getBillDate());
+        if (day < 0) {
+            System.err.println("Bill " + bill.getId() + " predates sales cube base date " + baseDate);
+            return;
+        }
+        ensureCapacity(day + 1);
+
+        statusAmounts[status.ordinal()].add(day, sign * toCents(bill.getTotalAmount()));
+        statusCounts[status.ordinal()].add(day, sign);
+
+        if (isSale(status) && bill.getItems() != null) {
+            for (BillItem billItem : bill.getItems()) {
+                if (billItem.getItemCategory() != null) {
+                    categoryAmounts[billItem.getItemCategory().ordinal()]
+                            .add(day, sign * toCents(billItem.getTotal()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Day index of a bill date read from the history, or -1 if it is outside the cube
+     */
+    private int historyDay(LocalDate billDate, int days) {
+        int day = dayIndex(billDate);
+        if (day < 0 || day >= days) {
+            System.err.println("Bills of " + billDate + " are outside the sales cube from " + baseDate);
+            return -1;
+        }
+        return day;
+    }
+
+    private void ensureCapacity(int days) {
+        if (days <= statusCounts[0].size()) {
+            return;
+        }
+        int newSize = Math.max(days, statusCounts[0].size() * 2);
+        for (FenwickTree[] trees : new FenwickTree[][] {statusAmounts, statusCounts, categoryAmounts}) {
+            for (FenwickTree tree : trees) {
+                tree.ensureCapacity(newSize);
+            }
+        }
+    }
+
+    private long rangeSum(FenwickTree[] trees, int ordinal, LocalDate startDate, LocalDate endDate) {
+        lock.readLock().lock();
+        try {
+            FenwickTree tree = trees[ordinal];
+            int from = Math.max(0, dayIndex(startDate));
+            int to = Math.min(tree.size() - 1, dayIndex(endDate));
+            return tree.rangeSum(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int dayIndex(LocalDate date) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        long index = day.toEpochDay() - baseDate.toEpochDay();
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE - 1, index));
+    }
+
+    private static boolean isSale(BillStatus status) {
+        return status == BillStatus.FINALIZED || status == BillStatus.PAID;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static FenwickTree[] buildTrees(long[][] values) {
+        FenwickTree[] trees = new FenwickTree[values.length];
+        for (int i = 0; i < values.length; i++) {
+            trees[i] = FenwickTree.of(values[i]);
+        }
+        return trees;
+    }
+
+    private static FenwickTree[] newTrees(int count, int days) {
+        FenwickTree[] trees = new FenwickTree[count];
+        for (int i = 0; i < count; i++) {
+            trees[i] = new FenwickTree(days);
+        }
+        return trees;
+    }
+}
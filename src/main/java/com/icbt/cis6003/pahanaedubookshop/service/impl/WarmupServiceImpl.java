@@ -0,0 +1,206 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.service.BestSellerService;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService;
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerService;
+import com.icbt.cis6003.pahanaedubookshop.service.CustomerTotalsService;
+import com.icbt.cis6003.pahanaedubookshop.service.ItemService;
+import com.icbt.cis6003.pahanaedubookshop.service.SalesCubeService;
+import com.icbt.cis6003.pahanaedubookshop.service.WarmupService;
+import com.icbt.cis6003.pahanaedubookshop.service.WarmupService.WarmupStatus.State;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+import com.icbt.cis6003.pahanaedubookshop.util.TransactionManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WarmupService implementation. A warm-up has three phases:
+ * - database: open a connection to the primary, and to the replica if one is
+ *   configured, and run a query on each. Connections are opened per unit of work, so
+ *   this loads the driver classes and, on the embedded profile, creates the database.
+ * - preload: restore the in-memory sales analytics from the bill history, then,
+ *   in parallel, sample the latest items, load the totals of recent customers into the
+ *   mirror and read the first page of bills into the bill cache. The RequestWarmer
+ *   then fills the response cache.
+ * - requests (FULL only): the RequestWarmer replays the till's read-only requests for
+ *   the sampled records until each has run -Dbookshop.warmup.iterations times
+ *   (default 500) or -Dbookshop.warmup.maxSeconds (default 20) have passed.
+ * The analytics hold state rather than cached copies, so they are restored in mode
+ * OFF too.
+ */
+public class WarmupServiceImpl implements WarmupService {
+
+    private static final int SAMPLE_SIZE = 20;
+    private static final int DEFAULT_ITERATIONS = 500;
+    private static final long DEFAULT_MAX_SECONDS = 20;
+
+    private static final WarmupServiceImpl INSTANCE = new WarmupServiceImpl(
+            Mode.fromName(System.getProperty("bookshop.warmup", Mode.FULL.name())),
+            Integer.getInteger("bookshop.warmup.iterations", DEFAULT_ITERATIONS),
+            Long.getLong("bookshop.warmup.maxSeconds", DEFAULT_MAX_SECONDS));
+
+    private final Mode mode;
+    private final int iterations;
+    private final long maxSeconds;
+    private final ItemService itemService = ItemServiceImpl.getInstance();
+    private final CustomerService customerService = CustomerServiceImpl.getInstance();
+    private final CustomerTotalsService customerTotalsService = CustomerTotalsServiceImpl.getInstance();
+    private final BillingService billingService = BillingServiceImpl.getInstance();
+    private final BestSellerService bestSellerService = BestSellerServiceImpl.getInstance();
+    private final SalesCubeService salesCubeService = SalesCubeServiceImpl.getInstance();
+    private final TransactionManager transactionManager = TransactionManager.getInstance();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private volatile WarmupStatus status;
+
+    public WarmupServiceImpl(Mode mode, int iterations, long maxSeconds) {
+        this.mode = mode;
+        this.iterations = iterations;
+        this.maxSeconds = maxSeconds;
+        this.status = new WarmupStatus(mode, State.STARTING, 0, 0, 0, 0, 0, 0, null);
+    }
+
+    public static WarmupServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public synchronized WarmupStatus warmUp(RequestWarmer requestWarmer) {
+        int attempt = attempts.incrementAndGet();
+        if (mode == Mode.OFF) {
+            long start = System.nanoTime();
+            try {
+                restoreAnalytics();
+                status = new WarmupStatus(mode, State.READY, attempt, 0, millis(start, System.nanoTime()),
+                        0, 0, 0, null);
+            } catch (RuntimeException e) {
+                status = new WarmupStatus(mode, State.FAILED, attempt, 0, millis(start, System.nanoTime()),
+                        0, 0, 0, e.getMessage() != null ? e.getMessage() : e.toString());
+                System.err.println("Restoring analytics failed: " + status.getError());
+            }
+            return status;
+        }
+        status = new WarmupStatus(mode, State.WARMING, attempt, 0, 0, 0, 0, 0, null);
+        ExecutorService pool = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "warmup-" + attempt);
+            thread.setDaemon(true);
+            return thread;
+        });
+        LongAdder requests = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long start = System.nanoTime();
+        long connected = start;
+        long preloaded;
+        try {
+            openConnections();
+            connected = System.nanoTime();
+
+            restoreAnalytics();
+            WarmupSamples samples = preload(pool);
+            requestWarmer.fillResponseCache(requests, failed);
+            preloaded = System.nanoTime();
+
+            if (mode == Mode.FULL) {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxSeconds);
+                requestWarmer.replay(samples, iterations, deadline, requests, failed);
+            }
+            long end = System.nanoTime();
+            status = new WarmupStatus(mode, State.READY, attempt, millis(start, connected),
+                    millis(connected, preloaded), millis(preloaded, end), requests.sum(), failed.sum(), null);
+        } catch (RuntimeException | SQLException e) {
+            long end = System.nanoTime();
+            // the time goes to the phase that failed
+            boolean databaseFailed = connected == start;
+            status = new WarmupStatus(mode, State.FAILED, attempt, millis(start, databaseFailed ? end : connected),
+                    databaseFailed ? 0 : millis(connected, end), 0, requests.sum(), failed.sum(),
+                    e.getMessage() != null ? e.getMessage() : e.toString());
+            System.err.println("Warm-up failed after " + millis(start, end) + " ms: " + status.getError());
+        } finally {
+            pool.shutdownNow();
+        }
+        System.out.println("Warm-up finished: " + status);
+        return status;
+    }
+
+    @Override
+    public WarmupStatus getStatus() {
+        return status;
+    }
+
+    // Helper methods
+
+    private void openConnections() throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("SELECT 1");
+        }
+        if (DatabaseConnection.isReplicaConfigured()) {
+            // goes to the primary instead while the replica is too far behind
+            transactionManager.inReadOnly(() -> {
+                try (Connection connection = DatabaseConnection.getConnection();
+                     Statement stmt = connection.createStatement()) {
+                    return stmt.execute("SELECT 1");
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error opening replica connection: " + e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Rebuild the analytics that are kept in memory only from the bill history
+     */
+    private void restoreAnalytics() {
+        bestSellerService.rebuild();
+        salesCubeService.rebuild();
+    }
+
+    /**
+     * Fill the item, customer and bill caches in parallel, and keep the records read
+     */
+    private WarmupSamples preload(ExecutorService pool) throws SQLException {
+        Future<List<Item>> items = pool.submit(() ->
+                transactionManager.inReadOnly(() -> itemService.getItemsWithPagination(0, SAMPLE_SIZE)));
+        Future<List<Customer>> customers = pool.submit(() -> {
+            List<Customer> recent = transactionManager.inReadOnly(() -> customerService.getRecentCustomers(SAMPLE_SIZE));
+            for (Customer customer : recent) {
+                customerTotalsService.getTotals(customer.getId());
+            }
+            return recent;
+        });
+        Future<List<Bill>> bills = pool.submit(() ->
+                transactionManager.inReadOnly(() -> billingService.getBillsWithPagination(0, SAMPLE_SIZE)));
+        return new WarmupSamples(await(items), await(customers), await(bills));
+    }
+
+    private static <T> T await(Future<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warm-up interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    private static long millis(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,191 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Database settings, resolved once from (highest precedence first) system properties
+ * such as -Dbookshop.db.url, environment variables such as BOOKSHOP_DB_URL, an optional
+ * database.properties on the classpath, and finally the profile defaults.
+ *
+ * Profiles:
+ * - mysql (default): the local MySQL server
+ * - embedded: an in-memory H2 database in MySQL mode, created from embedded-schema.sql
+ *   on first use and optionally filled by SyntheticDataGenerator. Build with
+ *   -Pembedded-db so the H2 driver is on the classpath.
+ */
+public class DatabaseConfig {
+
+    public static final String PROFILE_MYSQL = "mysql";
+    public static final String PROFILE_EMBEDDED = "embedded";
+
+    private static final String PREFIX = "bookshop.db.";
+
+    private static final String MYSQL_URL = "jdbc:mysql://localhost:3306/pahana_edu_bookshop";
+    private static final String MYSQL_DRIVER = "com.mysql.cj.jdbc.Driver";
+
+    private static final String EMBEDDED_URL =
+            "jdbc:h2:mem:pahana_edu_bookshop;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String EMBEDDED_DRIVER = "org.h2.Driver";
+
+    private final String profile;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String driver;
+    private final String replicaUrl;
+    private final long seedCustomers;
+    private final long seedItems;
+    private final long seedBills;
+    private final int seedHistoryDays;
+
+    private DatabaseConfig(String profile, String url, String username, String password, String driver,
+                           String replicaUrl, long seedCustomers, long seedItems, long seedBills,
+                           int seedHistoryDays) {
+        this.profile = profile;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.driver = driver;
+        this.replicaUrl = replicaUrl;
+        this.seedCustomers = seedCustomers;
+        this.seedItems = seedItems;
+        this.seedBills = seedBills;
+        this.seedHistoryDays = seedHistoryDays;
+    }
+
+    /**
+     * Resolve the settings from system properties, environment and database.properties
+     */
+    public static DatabaseConfig load() {
+        Properties file = loadPropertiesFile();
+        String profile = setting(file, "profile", PROFILE_MYSQL).toLowerCase();
+        boolean embedded = PROFILE_EMBEDDED.equals(profile);
+        if (!embedded && !PROFILE_MYSQL.equals(profile)) {
+            throw new IllegalArgumentException("Unknown database profile: " + profile);
+        }
+        return new DatabaseConfig(profile,
+                setting(file, "url", embedded ? EMBEDDED_URL : MYSQL_URL),
+                setting(file, "username", embedded ? "sa" : "root"),
+                setting(file, "password", embedded ? "" : "1234"),
+                setting(file, "driver", embedded ? EMBEDDED_DRIVER : MYSQL_DRIVER),
+                setting(file, "replica.url", null),
+                Long.parseLong(setting(file, "seed.customers", "0")),
+                Long.parseLong(setting(file, "seed.items", "0")),
+                Long.parseLong(setting(file, "seed.bills", "0")),
+                Integer.parseInt(setting(file, "seed.historyDays",
+                        String.valueOf(SyntheticDataGenerator.DEFAULT_HISTORY_DAYS))));
+    }
+
+    /**
+     * Settings for a private in-memory embedded database, e.g. for a load test run
+     * @param name database name, so several embedded databases can coexist in one JVM
+     * @param replicaName name of a second embedded database to use as read replica, or null
+     */
+    public static DatabaseConfig embedded(String name, String replicaName) {
+        return new DatabaseConfig(PROFILE_EMBEDDED, embeddedUrl(name), "sa", "", EMBEDDED_DRIVER,
+                replicaName != null ? embeddedUrl(replicaName) : null, 0, 0, 0,
+                SyntheticDataGenerator.DEFAULT_HISTORY_DAYS);
+    }
+
+    /**
+     * Copy of these settings that seeds the embedded database with synthetic data on first use
+     */
+    public DatabaseConfig withSeed(long customers, long items, long bills) {
+        return new DatabaseConfig(profile, url, username, password, driver, replicaUrl, customers, items, bills,
+                seedHistoryDays);
+    }
+
+    /**
+     * Copy of these settings whose seed bills are spread over the given number of days
+     */
+    public DatabaseConfig withSeedHistory(int historyDays) {
+        return new DatabaseConfig(profile, url, username, password, driver, replicaUrl, seedCustomers, seedItems,
+                seedBills, historyDays);
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public boolean isEmbedded() {
+        return PROFILE_EMBEDDED.equals(profile);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getDriver() {
+        return driver;
+    }
+
+    public String getReplicaUrl() {
+        return replicaUrl;
+    }
+
+    public boolean hasReplica() {
+        return replicaUrl != null && !replicaUrl.trim().isEmpty();
+    }
+
+    public long getSeedCustomers() {
+        return seedCustomers;
+    }
+
+    public long getSeedItems() {
+        return seedItems;
+    }
+
+    public long getSeedBills() {
+        return seedBills;
+    }
+
+    public int getSeedHistoryDays() {
+        return seedHistoryDays;
+    }
+
+    @Override
+    public String toString() {
+        // no credentials
+        return "DatabaseConfig{profile=" + profile + ", url=" + url +
+                (hasReplica() ? ", replicaUrl=" + replicaUrl : "") + "}";
+    }
+
+    // Helper methods
+
+    private static String embeddedUrl(String name) {
+        return "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    private static String setting(Properties file, String key, String defaultValue) {
+        String value = System.getProperty(PREFIX + key);
+        if (value == null) {
+            value = System.getenv("BOOKSHOP_DB_" + key.replace('.', '_').toUpperCase());
+        }
+        if (value == null) {
+            value = file.getProperty(PREFIX + key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    private static Properties loadPropertiesFile() {
+        Properties properties = new Properties();
+        try (InputStream in = DatabaseConfig.class.getClassLoader().getResourceAsStream("database.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read database.properties: " + e.getMessage());
+        }
+        return properties;
+    }
+}
@@ -3,32 +3,148 @@ package com.icbt.cis6003.pahanaedubookshop.util;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
 
 public class DatabaseConnection {
 
-    // database configuration
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/pahana_edu_bookshop";
-    private static final String DB_USERNAME = "root";
-    private static final String DB_PASSWORD = "1234";
-    private static final String DB_DRIVER = "com.mysql.cj.jdbc.Driver";
+    // MySQL connection parameters added when the configured URL has none
+    private static final String DB_PARAMETERS = "useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+
+    // database configuration, see DatabaseConfig for how it is resolved
+    private static volatile DatabaseConfig config;
+    private static volatile boolean primaryReady;
+    private static volatile boolean replicaReady;
+
+    private static final LongAdder requests = new LongAdder();
+    private static final LongAdder acquisitions = new LongAdder();
+    private static final LongAdder replicaAcquisitions = new LongAdder();
 
     static {
+        configure(DatabaseConfig.load());
+    }
+
+    /**
+     * Switch to another database configuration, e.g. an embedded database for a load test.
+     * Connections that are already open keep pointing at the previous database.
+     */
+    public static synchronized void configure(DatabaseConfig newConfig) {
         try {
-            Class.forName(DB_DRIVER);
-            System.out.println("MySQL JDBC driver loaded successfully");
+            Class.forName(newConfig.getDriver());
+            System.out.println("JDBC driver loaded successfully: " + newConfig.getDriver());
         } catch (ClassNotFoundException e) {
-            System.err.println("MySQL JDBC driver not found: " + e.getMessage());
+            System.err.println("JDBC driver not found: " + e.getMessage());
             throw new RuntimeException("Database driver not found", e);
         }
+        config = newConfig;
+        primaryReady = !newConfig.isEmbedded();
+        replicaReady = !newConfig.isEmbedded();
     }
 
+    /**
+     * Get the active database configuration
+     */
+    public static DatabaseConfig getConfig() {
+        return config;
+    }
 
     /**
-     * Get a database connection
+     * Get a database connection.
+     * Inside a TransactionManager unit of work this is the connection bound to the
+     * current thread, and closing it is a no-op; otherwise a new connection is opened.
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC",
-                                         DB_USERNAME, DB_PASSWORD);
+        requests.increment();
+        Connection bound = TransactionManager.getInstance().currentConnection();
+        return bound != null ? bound : openConnection();
+    }
+
+    /**
+     * Get the number of getConnection() calls so far. Each one opened a physical
+     * connection before DAO calls shared the connection of their unit of work.
+     */
+    public static long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Get the number of physical connections opened so far
+     */
+    public static long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Get the number of physical connections opened to the read replica so far
+     */
+    public static long getReplicaAcquisitionCount() {
+        return replicaAcquisitions.sum();
+    }
+
+    /**
+     * Check whether a read replica is configured
+     */
+    public static boolean isReplicaConfigured() {
+        return config.hasReplica();
+    }
+
+    /**
+     * Open a new physical connection to the primary
+     */
+    static Connection openConnection() throws SQLException {
+        DatabaseConfig current = config;
+        acquisitions.increment();
+        Connection connection = DriverManager.getConnection(
+                withParameters(current.getUrl()), current.getUsername(), current.getPassword());
+        if (!primaryReady) {
+            prepareEmbedded(connection, current, true);
+        }
+        return connection;
+    }
+
+    /**
+     * Open a new physical connection to the read replica
+     * @throws SQLException if no replica is configured or it cannot be reached
+     */
+    static Connection openReplicaConnection() throws SQLException {
+        if (!isReplicaConfigured()) {
+            throw new SQLException("No read replica configured");
+        }
+        DatabaseConfig current = config;
+        replicaAcquisitions.increment();
+        Connection connection = DriverManager.getConnection(
+                withParameters(current.getReplicaUrl().trim()), current.getUsername(), current.getPassword());
+        if (!replicaReady) {
+            prepareEmbedded(connection, current, false);
+        }
+        return connection;
+    }
+
+    private static String withParameters(String url) {
+        if (!url.startsWith("jdbc:mysql:") || url.indexOf('?') >= 0) {
+            return url;
+        }
+        return url + "?" + DB_PARAMETERS;
+    }
+
+    /**
+     * Create the schema of an embedded database on its first connection
+     */
+    private static synchronized void prepareEmbedded(Connection connection, DatabaseConfig current,
+                                                     boolean primary) throws SQLException {
+        if (current != config || (primary ? primaryReady : replicaReady)) {
+            return;
+        }
+        try {
+            EmbeddedDatabase.bootstrap(connection, current, primary);
+        } catch (SQLException e) {
+            closeConnection(connection);
+            throw e;
+        }
+        if (primary) {
+            primaryReady = true;
+        } else {
+            replicaReady = true;
+        }
     }
 
     /**
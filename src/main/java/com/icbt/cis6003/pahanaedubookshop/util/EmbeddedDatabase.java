@@ -0,0 +1,74 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prepares an embedded database on its first connection: creates the tables from
+ * embedded-schema.sql and, if seed counts are configured (-Dbookshop.db.seed.customers,
+ * .items, .bills, and optionally .historyDays), fills them with SyntheticDataGenerator. A replica database gets the
+ * same generated data, since the generator is deterministic for a given seed.
+ */
+public class EmbeddedDatabase {
+
+    private static final String SCHEMA_RESOURCE = "embedded-schema.sql";
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Create the schema and seed data if they are not there yet
+     * @param primary true for the primary database, false for the read replica
+     */
+    public static void bootstrap(Connection connection, DatabaseConfig config, boolean primary) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : loadStatements()) {
+                statement.execute(sql);
+            }
+        }
+        if (config.getSeedBills() > 0 || config.getSeedCustomers() > 0 || config.getSeedItems() > 0) {
+            new SyntheticDataGenerator(config.getSeedCustomers(), config.getSeedItems(), config.getSeedBills(),
+                    SyntheticDataGenerator.DEFAULT_SEED, config.getSeedHistoryDays()).generate(connection);
+        }
+        System.out.println("Embedded " + (primary ? "primary" : "replica") + " database ready in " +
+                (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Read the DDL statements of the embedded schema
+     */
+    static List<String> loadStatements() throws SQLException {
+        InputStream in = EmbeddedDatabase.class.getClassLoader().getResourceAsStream(SCHEMA_RESOURCE);
+        if (in == null) {
+            throw new SQLException("Schema resource not found: " + SCHEMA_RESOURCE);
+        }
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                    continue;
+                }
+                current.append(line).append('\n');
+                if (trimmed.endsWith(";")) {
+                    statements.add(current.substring(0, current.lastIndexOf(";")));
+                    current.setLength(0);
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not read " + SCHEMA_RESOURCE, e);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,95 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+/**
+ * Binary indexed (Fenwick) tree of long values.
+ * Point updates and prefix/range sums are O(log n). Not thread-safe;
+ * callers synchronize access.
+ */
+public class FenwickTree {
+
+    private long[] tree; // 1-based
+
+    public FenwickTree(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        this.tree = new long[size + 1];
+    }
+
+    /**
+     * Build a tree holding the given point values, in O(n)
+     */
+    public static FenwickTree of(long[] values) {
+        FenwickTree fenwickTree = new FenwickTree(values.length);
+        System.arraycopy(values, 0, fenwickTree.tree, 1, values.length);
+        accumulate(fenwickTree.tree);
+        return fenwickTree;
+    }
+
+    /**
+     * Number of positions in the tree
+     */
+    public int size() {
+        return tree.length - 1;
+    }
+
+    /**
+     * Add a delta at a 0-based position
+     */
+    public void add(int index, long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Sum of positions [0, index]
+     */
+    public long prefixSum(int index) {
+        long sum = 0;
+        for (int i = Math.min(index + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Sum of positions [from, to], both inclusive
+     */
+    public long rangeSum(int from, int to) {
+        if (to < from || to < 0) {
+            return 0;
+        }
+        return prefixSum(to) - (from > 0 ? prefixSum(from - 1) : 0);
+    }
+
+    /**
+     * Grow the tree so it holds at least {@code newSize} positions, keeping existing values
+     */
+    public void ensureCapacity(int newSize) {
+        int oldSize = size();
+        if (newSize <= oldSize) {
+            return;
+        }
+
+        // recover point values, then rebuild in O(n)
+        long[] grown = new long[newSize + 1];
+        for (int i = 1; i <= oldSize; i++) {
+            grown[i] = rangeSum(i - 1, i - 1);
+        }
+        accumulate(grown);
+        this.tree = grown;
+    }
+
+    /**
+     * Turn 1-based point values into tree nodes in place
+     */
+    private static void accumulate(long[] nodes) {
+        for (int i = 1; i < nodes.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < nodes.length) {
+                nodes[parent] += nodes[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import com.icbt.cis6003.pahanaedubookshop.util.ResourceVersionTracker.Version;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Utility class for HTTP conditional GET handling
+ */
+public class HttpCacheUtil {
+
+    /**
+     * Set the validators for a resource version and answer 304 Not Modified when the
+     * request's If-None-Match (or, without it, If-Modified-Since) shows the client's
+     * copy is current. Responses must be revalidated on every use.
+     * @return true if a 304 was sent and the caller must not write a body
+     */
+    public static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response,
+                                           Version version) {
+        response.setHeader("ETag", version.getETag());
+        response.setDateHeader("Last-Modified", version.getLastModified());
+        response.setHeader("Cache-Control", "no-cache");
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        boolean notModified;
+        if (ifNoneMatch != null) {
+            notModified = matchesAny(ifNoneMatch, version.getETag());
+        } else {
+            long ifModifiedSince = parseDateHeader(request, "If-Modified-Since");
+            // HTTP dates have one-second precision
+            notModified = ifModifiedSince >= 0 && version.getLastModified() / 1000 <= ifModifiedSince / 1000;
+        }
+
+        if (notModified) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        return notModified;
+    }
+
+    /**
+     * Check an If-None-Match header value against an ETag using weak comparison
+     */
+    public static boolean matchesAny(String ifNoneMatch, String etag) {
+        String header = ifNoneMatch.trim();
+        if (header.equals("*")) {
+            return true;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long parseDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bounded, expiring store of responses to requests sent with an Idempotency-Key.
+ * The first request with a key claims it and runs; its response is stored for the
+ * time to live (-Dbookshop.idempotency.ttlMinutes, 24 hours by default). Requests
+ * with the same key that arrive while it runs wait for its response instead of
+ * running again. When more than -Dbookshop.idempotency.maxEntries keys (10000 by
+ * default) are held, the oldest completed ones are dropped first.
+ *
+ * Entries are queued in the order they were claimed, which with a single time to
+ * live is also the order they expire in, so both limits are enforced by polling
+ * the head of the queue on every claim.
+ */
+public class IdempotencyStore {
+
+    private static final long DEFAULT_TTL_MINUTES = 24 * 60;
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final IdempotencyStore INSTANCE = new IdempotencyStore(
+            Integer.getInteger("bookshop.idempotency.maxEntries", DEFAULT_MAX_ENTRIES),
+            TimeUnit.MINUTES.toMillis(Long.getLong("bookshop.idempotency.ttlMinutes", DEFAULT_TTL_MINUTES)));
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> claimOrder = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyStore(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Idempotency store size and time to live must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public static IdempotencyStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Claim a key for a request, or find the request that already holds it
+     * @param key the idempotency key
+     * @param fingerprint identifies the request the key was sent with
+     * @return the entry of the key; the caller runs the request only if it owns it
+     */
+    public Claim claim(String key, String fingerprint) {
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry claimed = new Entry(key, fingerprint, now + ttlMillis);
+            Entry existing = entries.putIfAbsent(key, claimed);
+            if (existing == null) {
+                claimOrder.add(claimed);
+                evict(now);
+                return new Claim(claimed, true);
+            }
+            if (existing.isExpired(now)) {
+                entries.remove(key, existing);
+                continue;
+            }
+            return new Claim(existing, false);
+        }
+    }
+
+    /**
+     * Number of keys currently held
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drop every stored response
+     */
+    public void clear() {
+        entries.clear();
+        claimOrder.clear();
+    }
+
+    // Helper methods
+
+    private void evict(long now) {
+        // in-flight entries are requeued, so look at each queued entry at most once
+        for (int checked = claimOrder.size(); checked > 0; checked--) {
+            Entry oldest = claimOrder.peek();
+            if (oldest == null || !(oldest.isExpired(now) || entries.size() > maxEntries)) {
+                return;
+            }
+            claimOrder.poll();
+            if (entries.get(oldest.key) != oldest) {
+                continue;
+            }
+            if (oldest.result.isDone()) {
+                entries.remove(oldest.key, oldest);
+            } else {
+                claimOrder.add(oldest);
+            }
+        }
+    }
+
+    /**
+     * A response kept for replay
+     */
+    public static class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        public StoredResponse(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public int getStatus() { return status; }
+        public String getContentType() { return contentType; }
+        public byte[] getBody() { return body; }
+    }
+
+    /**
+     * Outcome of claiming a key. The owner must call complete or release exactly once;
+     * everyone else waits for the response.
+     */
+    public class Claim {
+        private final Entry entry;
+        private final boolean owner;
+
+        private Claim(Entry entry, boolean owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        public boolean isOwner() { return owner; }
+
+        /**
+         * Check whether the key was first sent with the same request
+         */
+        public boolean matches(String fingerprint) {
+            return entry.fingerprint.equals(fingerprint);
+        }
+
+        /**
+         * Store the response of the request that owns the key
+         */
+        public void complete(StoredResponse response) {
+            entry.result.complete(response);
+        }
+
+        /**
+         * Give the key up without storing a response, so the next request with it runs again
+         */
+        public void release() {
+            entries.remove(entry.key, entry);
+            entry.result.complete(null);
+        }
+
+        /**
+         * Wait for the response of the request that owns the key
+         * @return the stored response, or null if the owner released the key
+         * @throws TimeoutException if the owner is still running after the timeout
+         */
+        public StoredResponse await(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+            try {
+                return entry.result.get(timeout, unit);
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String fingerprint;
+        private final long expiresAt;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        private Entry(String key, String fingerprint, long expiresAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt && result.isDone();
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.BillItemChange;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.OfflineBill;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.servlet.http.HttpServletRequest;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Utility class for binding JSON request bodies to model objects.
+ * Bodies are read from the request InputStream with a streaming JsonParser and
+ * copied field by field into the target object, so no intermediate JsonObject
+ * tree is built. Unknown fields are skipped. Bound objects are checked with
+ * ValidationUtil before they are returned.
+ */
+public class JsonBodyBinder {
+
+    /**
+     * Check whether a request carries a JSON body
+     */
+    public static boolean isJsonRequest(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase().startsWith("application/json");
+    }
+
+    /**
+     * Bind an item, e.g. {"code":"BOOK001","name":"...","category":"TEXTBOOK","price":25.99,"stock":50}
+     * @throws IllegalArgumentException if the body is malformed or the item is invalid
+     */
+    public static Item readItem(InputStream in) {
+        Item item = new Item();
+        bind(in, parser -> readObject(parser, (key, event) -> {
+            switch (key) {
+                case "code": item.setCode(readString(parser, event)); break;
+                case "name": item.setName(readString(parser, event)); break;
+                case "category":
+                    String category = readString(parser, event);
+                    item.setCategory(category != null ? Item.ItemCategory.valueOf(category.toUpperCase()) : null);
+                    break;
+                case "price": item.setPrice(readDecimal(parser, event)); break;
+                case "stock": item.setStock(readInteger(parser, event)); break;
+                case "minStock": item.setMinStock(readInteger(parser, event)); break;
+                case "description": item.setDescription(readString(parser, event)); break;
+                case "version": item.setVersion(readInteger(parser, event)); break;
+                default: skipValue(parser, event);
+            }
+        }));
+        if (!ValidationUtil.validateItem(item)) {
+            throw new IllegalArgumentException("Item requires code, name, category, price and stock");
+        }
+        return item;
+    }
+
+    /**
+     * Bind a customer, e.g. {"accountNumber":"CUST001","name":"...","address":"...","phone":"..."}
+     * @throws IllegalArgumentException if the body is malformed or the customer is invalid
+     */
+    public static Customer readCustomer(InputStream in) {
+        Customer customer = new Customer();
+        bind(in, parser -> readObject(parser, (key, event) -> {
+            switch (key) {
+                case "accountNumber": customer.setAccountNumber(readString(parser, event)); break;
+                case "name": customer.setName(readString(parser, event)); break;
+                case "address": customer.setAddress(readString(parser, event)); break;
+                case "phone": customer.setPhone(readString(parser, event)); break;
+                case "email": customer.setEmail(readString(parser, event)); break;
+                case "version": customer.setVersion(readInteger(parser, event)); break;
+                default: skipValue(parser, event);
+            }
+        }));
+        if (!ValidationUtil.validateCustomer(customer)) {
+            throw new IllegalArgumentException("Customer requires account number, name, address and phone");
+        }
+        return customer;
+    }
+
+    /**
+     * Bind a new bill, e.g. {"customerId":1,"items":[{"itemId":3,"quantity":2}]}.
+     * Lines carry only the item ID and quantity; prices come from the catalog.
+     * @throws IllegalArgumentException if the body is malformed or a line is invalid
+     */
+    public static Bill readBill(InputStream in) {
+        Bill bill = new Bill();
+        bind(in, parser -> readObject(parser, (key, event) -> {
+            switch (key) {
+                case "customerId": bill.setCustomerId(readLong(parser, event)); break;
+                case "items":
+                    if (event == Event.VALUE_NULL) {
+                        break;
+                    }
+                    expect(event, Event.START_ARRAY);
+                    Event next;
+                    while ((next = parser.next()) != Event.END_ARRAY) {
+                        bill.getItems().add(readBillLine(parser, next));
+                    }
+                    break;
+                default: skipValue(parser, event);
+            }
+        }));
+        if (bill.getCustomerId() == null) {
+            throw new IllegalArgumentException("Customer ID required");
+        }
+        for (BillItem billItem : bill.getItems()) {
+            requireValidChange(new BillItemChange(BillItemChange.Operation.ADD,
+                    billItem.getItemId(), billItem.getQuantity()));
+        }
+        return bill;
+    }
+
+    /**
+     * Bind a single bill line, e.g. {"itemId":3,"quantity":2} or {"quantity":2}
+     * @throws IllegalArgumentException if the body is malformed
+     */
+    public static BillItem readBillItem(InputStream in) {
+        BillItem[] line = new BillItem[1];
+        bind(in, parser -> line[0] = readBillLine(parser, parser.next()));
+        return line[0];
+    }
+
+    /**
+     * Bind a batch of line changes, e.g. [{"op":"add","itemId":1,"quantity":2},{"op":"remove","itemId":3}]
+     * @throws IllegalArgumentException if the body is malformed or a change is invalid
+     */
+    public static List<BillItemChange> readItemChanges(InputStream in) {
+        List<BillItemChange> changes = new ArrayList<>();
+        bind(in, parser -> {
+            expect(parser.next(), Event.START_ARRAY);
+            Event event;
+            while ((event = parser.next()) != Event.END_ARRAY) {
+                BillItemChange.Operation[] operation = new BillItemChange.Operation[1];
+                Long[] itemId = new Long[1];
+                Integer[] quantity = new Integer[1];
+                readObject(parser, event, (key, value) -> {
+                    switch (key) {
+                        case "op":
+                            String op = readString(parser, value);
+                            operation[0] = op != null ? BillItemChange.Operation.valueOf(op.toUpperCase()) : null;
+                            break;
+                        case "itemId": itemId[0] = readLong(parser, value); break;
+                        case "quantity": quantity[0] = readInteger(parser, value); break;
+                        default: skipValue(parser, value);
+                    }
+                });
+                changes.add(requireValidChange(new BillItemChange(operation[0], itemId[0], quantity[0])));
+            }
+        });
+        return changes;
+    }
+
+    /**
+     * Bind bills made by a till while it was offline, e.g.
+     * [{"syncId":"3f1c...","customerId":1,"billDate":"2026-03-02","createdAt":"2026-03-02T10:15:30",
+     *   "items":[{"itemId":3,"quantity":2,"unitPrice":25.99}]}].
+     * The sync ID is a UUID generated by the till. billDate defaults to the day of
+     * createdAt, and a line without a unitPrice is priced from the catalog.
+     * @throws IllegalArgumentException if the body is malformed or a bill is invalid
+     */
+    public static List<OfflineBill> readOfflineBills(InputStream in) {
+        List<OfflineBill> bills = new ArrayList<>();
+        bind(in, parser -> {
+            expect(parser.next(), Event.START_ARRAY);
+            Event event;
+            while ((event = parser.next()) != Event.END_ARRAY) {
+                Bill bill = new Bill();
+                String[] syncId = new String[1];
+                String[] billDate = new String[1];
+                String[] createdAt = new String[1];
+                readObject(parser, event, (key, value) -> {
+                    switch (key) {
+                        case "syncId": syncId[0] = readString(parser, value); break;
+                        case "customerId": bill.setCustomerId(readLong(parser, value)); break;
+                        case "billDate": billDate[0] = readString(parser, value); break;
+                        case "createdAt": createdAt[0] = readString(parser, value); break;
+                        case "items":
+                            expect(value, Event.START_ARRAY);
+                            Event next;
+                            while ((next = parser.next()) != Event.END_ARRAY) {
+                                bill.getItems().add(readOfflineLine(parser, next));
+                            }
+                            break;
+                        default: skipValue(parser, value);
+                    }
+                });
+                if (createdAt[0] != null) {
+                    bill.setCreatedAt(LocalDateTime.parse(createdAt[0]));
+                    bill.setBillDate(bill.getCreatedAt().toLocalDate());
+                }
+                if (billDate[0] != null) {
+                    bill.setBillDate(LocalDate.parse(billDate[0]));
+                }
+                bills.add(new OfflineBill(requireSyncId(syncId[0]), requireOfflineBill(bill)));
+            }
+        });
+        return bills;
+    }
+
+    // Helper methods
+
+    private interface Body {
+        void read(JsonParser parser);
+    }
+
+    private interface FieldReader {
+        void field(String key, Event value);
+    }
+
+    private static void bind(InputStream in, Body body) {
+        try (JsonParser parser = Json.createParser(in)) {
+            body.read(parser);
+            if (parser.hasNext()) {
+                throw new IllegalArgumentException("Unexpected content after JSON body");
+            }
+        } catch (JsonException | NoSuchElementException | IllegalStateException | ArithmeticException
+                 | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid JSON body: " + e.getMessage(), e);
+        }
+    }
+
+    private static void readObject(JsonParser parser, FieldReader reader) {
+        readObject(parser, parser.next(), reader);
+    }
+
+    private static void readObject(JsonParser parser, Event start, FieldReader reader) {
+        expect(start, Event.START_OBJECT);
+        Event event;
+        while ((event = parser.next()) != Event.END_OBJECT) {
+            expect(event, Event.KEY_NAME);
+            String key = parser.getString();
+            reader.field(key, parser.next());
+        }
+    }
+
+    private static BillItem readBillLine(JsonParser parser, Event start) {
+        return readBillLine(parser, start, false);
+    }
+
+    private static BillItem readBillLine(JsonParser parser, Event start, boolean withPrice) {
+        Long[] itemId = new Long[1];
+        Integer[] quantity = new Integer[1];
+        BigDecimal[] unitPrice = new BigDecimal[1];
+        readObject(parser, start, (key, value) -> {
+            switch (key) {
+                case "itemId": itemId[0] = readLong(parser, value); break;
+                case "quantity": quantity[0] = readInteger(parser, value); break;
+                case "unitPrice":
+                    if (withPrice) {
+                        unitPrice[0] = readDecimal(parser, value);
+                    } else {
+                        skipValue(parser, value);
+                    }
+                    break;
+                default: skipValue(parser, value);
+            }
+        });
+        return new BillItem(itemId[0], null, null, withPrice ? unitPrice[0] : BigDecimal.ZERO, quantity[0]);
+    }
+
+    private static BillItem readOfflineLine(JsonParser parser, Event start) {
+        BillItem line = readBillLine(parser, start, true);
+        if (line.getItemId() == null || line.getQuantity() == null || line.getQuantity() <= 0
+                || (line.getUnitPrice() != null && line.getUnitPrice().signum() < 0)) {
+            throw new IllegalArgumentException("Each line needs an itemId, a positive quantity and no negative unitPrice");
+        }
+        return line;
+    }
+
+    private static String requireSyncId(String syncId) {
+        // UUID.fromString also takes shortened forms, so check the canonical length too
+        try {
+            if (syncId != null && syncId.length() == 36) {
+                return UUID.fromString(syncId).toString();
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Each bill needs a syncId in UUID form, found: " + syncId);
+    }
+
+    private static Bill requireOfflineBill(Bill bill) {
+        if (bill.getCustomerId() == null || bill.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Each bill needs a customerId and at least one line");
+        }
+        return bill;
+    }
+
+    private static BillItemChange requireValidChange(BillItemChange change) {
+        if (!ValidationUtil.validateItemChange(change)) {
+            throw new IllegalArgumentException("Each line needs an itemId and, unless removed, a positive quantity");
+        }
+        return change;
+    }
+
+    private static void expect(Event actual, Event expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " but found " + actual);
+        }
+    }
+
+    private static String readString(JsonParser parser, Event event) {
+        if (event == Event.VALUE_NULL) {
+            return null;
+        }
+        if (event != Event.VALUE_STRING && event != Event.VALUE_NUMBER) {
+            throw new IllegalArgumentException("Expected a string but found " + event);
+        }
+        return parser.getString();
+    }
+
+    private static BigDecimal readDecimal(JsonParser parser, Event event) {
+        if (event == Event.VALUE_NULL) {
+            return null;
+        }
+        if (event == Event.VALUE_STRING) {
+            return new BigDecimal(parser.getString());
+        }
+        expect(event, Event.VALUE_NUMBER);
+        return parser.getBigDecimal();
+    }
+
+    private static Long readLong(JsonParser parser, Event event) {
+        BigDecimal value = readDecimal(parser, event);
+        return value != null ? value.longValueExact() : null;
+    }
+
+    private static Integer readInteger(JsonParser parser, Event event) {
+        BigDecimal value = readDecimal(parser, event);
+        return value != null ? value.intValueExact() : null;
+    }
+
+    private static void skipValue(JsonParser parser, Event event) {
+        if (event != Event.START_OBJECT && event != Event.START_ARRAY) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            Event next = parser.next();
+            if (next == Event.START_OBJECT || next == Event.START_ARRAY) {
+                depth++;
+            } else if (next == Event.END_OBJECT || next == Event.END_ARRAY) {
+                depth--;
+            }
+        }
+    }
+}
@@ -49,4 +49,19 @@ public class JsonUtil {
                 .add("error", message)
                 .build();
     }
+
+    /**
+     * Create conflict response JSON carrying the current state of the resource
+     */
+    public static JsonObject createConflictResponse(String message, JsonObject current) {
+        JsonObjectBuilder builder = Json.createObjectBuilder()
+                .add("success", false)
+                .add("error", message);
+
+        if (current != null) {
+            builder.add("data", current);
+        }
+
+        return builder.build();
+    }
 }
@@ -0,0 +1,312 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receipt template compiled once into a list of segments, so rendering a bill is a
+ * walk over an array: literal text is stored pre-encoded as UTF-8 and field lookups
+ * are resolved to accessors at compile time. Output goes straight to a stream.
+ *
+ * Syntax: {@code {{field}}} inserts a value, {@code {{field:<N}}}, {@code {{field:>N}}}
+ * and {@code {{field:^N}}} pad or cut it to N characters aligned left, right or
+ * centered, for fixed-width receipts. {@code {{#items}}...{{/items}}} repeats its body
+ * for every bill line; inside it the line fields are available as well. A section tag
+ * alone on its line does not leave an empty line behind.
+ */
+public final class ReceiptTemplate {
+
+    public enum Escaping { NONE, HTML }
+
+    private static final String ITEMS_SECTION = "items";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+    private static final byte[] SPACES = new byte[256];
+
+    private static final Map<String, Field> BILL_FIELDS = new HashMap<>();
+    private static final Map<String, Field> LINE_FIELDS = new HashMap<>();
+
+    static {
+        Arrays.fill(SPACES, (byte) ' ');
+
+        BILL_FIELDS.put("id", (bill, line) -> String.valueOf(bill.getId()));
+        BILL_FIELDS.put("date", (bill, line) -> String.valueOf(bill.getBillDate()));
+        BILL_FIELDS.put("time", (bill, line) -> bill.getCreatedAt() != null ? bill.getCreatedAt().format(TIME) : "");
+        BILL_FIELDS.put("status", (bill, line) -> bill.getStatus().getDisplayName());
+        BILL_FIELDS.put("customerName", (bill, line) -> bill.getCustomerName());
+        BILL_FIELDS.put("customerAccount", (bill, line) -> bill.getCustomerAccountNumber());
+        BILL_FIELDS.put("itemCount", (bill, line) -> String.valueOf(bill.getTotalItemCount()));
+        BILL_FIELDS.put("subtotal", (bill, line) -> money(bill.getSubtotal()));
+        BILL_FIELDS.put("taxLabel", (bill, line) -> "Tax (" +
+                bill.getTaxRate().movePointRight(2).stripTrailingZeros().toPlainString() + "%)");
+        BILL_FIELDS.put("taxAmount", (bill, line) -> money(bill.getTaxAmount()));
+        BILL_FIELDS.put("total", (bill, line) -> money(bill.getTotalAmount()));
+
+        LINE_FIELDS.put("itemCode", (bill, line) -> line.getItemCode());
+        LINE_FIELDS.put("itemName", (bill, line) -> line.getItemName());
+        LINE_FIELDS.put("quantity", (bill, line) -> String.valueOf(line.getQuantity()));
+        LINE_FIELDS.put("unitPrice", (bill, line) -> money(line.getUnitPrice()));
+        LINE_FIELDS.put("total", (bill, line) -> money(line.getTotal()));
+    }
+
+    private final Segment[] segments;
+
+    private ReceiptTemplate(Segment[] segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Compile template source
+     * @throws IllegalArgumentException if the template refers to an unknown field or
+     *         its sections do not match
+     */
+    public static ReceiptTemplate compile(String source, Escaping escaping) {
+        return new ReceiptTemplate(new Parser(source, escaping).parse(false));
+    }
+
+    /**
+     * Compile a template from the classpath
+     */
+    public static ReceiptTemplate load(String resource, Escaping escaping) {
+        try (InputStream in = ReceiptTemplate.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Receipt template not found: " + resource);
+            }
+            ByteArrayOutputStream source = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                source.write(buffer, 0, read);
+            }
+            return compile(new String(source.toByteArray(), StandardCharsets.UTF_8), escaping);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading receipt template " + resource + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Render a bill
+     */
+    public void render(Bill bill, OutputStream out) throws IOException {
+        write(segments, bill, null, out);
+    }
+
+    // Helper methods
+
+    private static void write(Segment[] segments, Bill bill, BillItem line, OutputStream out) throws IOException {
+        for (Segment segment : segments) {
+            segment.write(bill, line, out);
+        }
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).toPlainString() : "0.00";
+    }
+
+    private static String escapeHtml(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '&': replacement = "&amp;"; break;
+                case '<': replacement = "&lt;"; break;
+                case '>': replacement = "&gt;"; break;
+                case '"': replacement = "&quot;"; break;
+                case '\'': replacement = "&#39;"; break;
+                default: replacement = null;
+            }
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+    private static void pad(OutputStream out, int count) throws IOException {
+        while (count > 0) {
+            int chunk = Math.min(count, SPACES.length);
+            out.write(SPACES, 0, chunk);
+            count -= chunk;
+        }
+    }
+
+    private interface Field {
+        String value(Bill bill, BillItem line);
+    }
+
+    private interface Segment {
+        void write(Bill bill, BillItem line, OutputStream out) throws IOException;
+    }
+
+    private static final class Literal implements Segment {
+        private final byte[] bytes;
+
+        private Literal(String text) {
+            this.bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(Bill bill, BillItem line, OutputStream out) throws IOException {
+            out.write(bytes);
+        }
+    }
+
+    private static final class Value implements Segment {
+        private final Field field;
+        private final char align;   // '<', '>', '^', or 0 for no padding
+        private final int width;
+        private final boolean html;
+
+        private Value(Field field, char align, int width, boolean html) {
+            this.field = field;
+            this.align = align;
+            this.width = width;
+            this.html = html;
+        }
+
+        @Override
+        public void write(Bill bill, BillItem line, OutputStream out) throws IOException {
+            String value = field.value(bill, line);
+            if (value == null) {
+                value = "";
+            }
+            int padding = 0;
+            if (align != 0) {
+                if (value.length() > width) {
+                    value = value.substring(0, width);
+                }
+                padding = width - value.length();
+            }
+            int before = align == '>' ? padding : align == '^' ? padding / 2 : 0;
+            pad(out, before);
+            out.write((html ? escapeHtml(value) : value).getBytes(StandardCharsets.UTF_8));
+            pad(out, padding - before);
+        }
+    }
+
+    private static final class Items implements Segment {
+        private final Segment[] body;
+
+        private Items(Segment[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public void write(Bill bill, BillItem line, OutputStream out) throws IOException {
+            for (BillItem item : bill.getItems()) {
+                ReceiptTemplate.write(body, bill, item, out);
+            }
+        }
+    }
+
+    private static final class Parser {
+        private final String source;
+        private final boolean html;
+        private int position;
+
+        private Parser(String source, Escaping escaping) {
+            this.source = source;
+            this.html = escaping == Escaping.HTML;
+        }
+
+        /**
+         * Parse up to the end of the source, or up to the closing tag of the section
+         * being parsed, leaving the position after it
+         */
+        private Segment[] parse(boolean inItems) {
+            List<Segment> segments = new ArrayList<>();
+            while (position < source.length()) {
+                int open = source.indexOf("{{", position);
+                if (open < 0) {
+                    segments.add(new Literal(source.substring(position)));
+                    position = source.length();
+                    break;
+                }
+                int close = source.indexOf("}}", open);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed tag at " + open);
+                }
+                String tag = source.substring(open + 2, close).trim();
+                boolean section = tag.equals("#" + ITEMS_SECTION) || tag.equals("/" + ITEMS_SECTION);
+                int end = close + 2;
+                String text = source.substring(position, open);
+                if (section && standalone(open, end)) {
+                    // drop the tag's line: the indentation before it and the line break after it
+                    text = text.substring(0, text.lastIndexOf('\n') + 1);
+                    end = source.indexOf('\n', end) + 1;
+                }
+                if (!text.isEmpty()) {
+                    segments.add(new Literal(text));
+                }
+                position = end;
+
+                if (tag.equals("#" + ITEMS_SECTION)) {
+                    if (inItems) {
+                        throw new IllegalArgumentException("Nested {{#" + ITEMS_SECTION + "}} at " + open);
+                    }
+                    segments.add(new Items(parse(true)));
+                } else if (tag.equals("/" + ITEMS_SECTION)) {
+                    if (!inItems) {
+                        throw new IllegalArgumentException("Unexpected {{/" + ITEMS_SECTION + "}} at " + open);
+                    }
+                    return segments.toArray(new Segment[0]);
+                } else {
+                    segments.add(value(tag, inItems, open));
+                }
+            }
+            if (inItems) {
+                throw new IllegalArgumentException("Unclosed {{#" + ITEMS_SECTION + "}}");
+            }
+            return segments.toArray(new Segment[0]);
+        }
+
+        private Value value(String tag, boolean inItems, int at) {
+            String name = tag;
+            char align = 0;
+            int width = 0;
+            int colon = tag.indexOf(':');
+            if (colon >= 0) {
+                name = tag.substring(0, colon).trim();
+                String format = tag.substring(colon + 1).trim();
+                if (format.length() < 2 || "<>^".indexOf(format.charAt(0)) < 0) {
+                    throw new IllegalArgumentException("Bad format '" + format + "' at " + at);
+                }
+                align = format.charAt(0);
+                width = Integer.parseInt(format.substring(1));
+            }
+            Field field = inItems && LINE_FIELDS.containsKey(name) ? LINE_FIELDS.get(name) : BILL_FIELDS.get(name);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "' at " + at);
+            }
+            return new Value(field, align, width, html);
+        }
+
+        private boolean standalone(int open, int end) {
+            int lineStart = source.lastIndexOf('\n', open - 1) + 1;
+            int lineEnd = source.indexOf('\n', end);
+            return lineEnd >= 0 && source.substring(lineStart, open).trim().isEmpty()
+                    && source.substring(end, lineEnd).trim().isEmpty();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether read-only work may be sent to the read replica.
+ * The replica is used only while its replication lag is within the staleness budget
+ * (-Dbookshop.db.replica.maxLagSeconds, 30 by default). Lag is sampled at most once
+ * per check interval; a replica that cannot be reached or is not replicating counts
+ * as too stale, so reads fall back to the primary until the next check.
+ */
+public class ReplicaLagMonitor {
+
+    private static final long DEFAULT_MAX_LAG_SECONDS = 30;
+    private static final long CHECK_INTERVAL_MILLIS = 5_000;
+
+    private static final ReplicaLagMonitor INSTANCE = new ReplicaLagMonitor(
+            Long.getLong("bookshop.db.replica.maxLagSeconds", DEFAULT_MAX_LAG_SECONDS));
+
+    private final long maxLagSeconds;
+    private volatile LongSupplier lagProbe = ReplicaLagMonitor::measureLag;
+    private volatile long lastCheckedAt;
+    private volatile long lastLagSeconds = -1;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(long maxLagSeconds) {
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public static ReplicaLagMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Check whether reads may currently go to the replica
+     */
+    public boolean isReplicaUsable() {
+        if (!DatabaseConnection.isReplicaConfigured()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - lastCheckedAt >= CHECK_INTERVAL_MILLIS) {
+            refresh();
+        }
+        return usable;
+    }
+
+    /**
+     * Get the staleness budget in seconds
+     */
+    public long getMaxLagSeconds() {
+        return maxLagSeconds;
+    }
+
+    /**
+     * Get the replication lag seen at the last check, or -1 if it was unknown
+     */
+    public long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    /**
+     * Replace the lag measurement, e.g. to simulate a lagging replica in tests.
+     * The next check samples the new probe.
+     */
+    synchronized void setLagProbe(LongSupplier probe) {
+        lagProbe = probe;
+        lastCheckedAt = 0;
+    }
+
+    /**
+     * Restore the lag measurement against the replica
+     */
+    void resetLagProbe() {
+        setLagProbe(ReplicaLagMonitor::measureLag);
+    }
+
+    // Helper methods
+
+    private synchronized void refresh() {
+        // another thread may have refreshed while this one waited
+        if (System.currentTimeMillis() - lastCheckedAt < CHECK_INTERVAL_MILLIS) {
+            return;
+        }
+        long lag = lagProbe.getAsLong();
+        lastLagSeconds = lag;
+        usable = lag >= 0 && lag <= maxLagSeconds;
+        lastCheckedAt = System.currentTimeMillis();
+    }
+
+    private static long measureLag() {
+        Connection connection = null;
+        try {
+            connection = DatabaseConnection.openReplicaConnection();
+            if (DatabaseConnection.getConfig().isEmbedded()) {
+                // embedded replicas are separate databases that never replicate
+                return 0;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                if (!rs.next()) {
+                    // not configured as a replica, e.g. a second standalone instance in development
+                    return 0;
+                }
+                long lag = rs.getLong("Seconds_Behind_Source");
+                return rs.wasNull() ? -1 : lag;
+            }
+        } catch (SQLException e) {
+            System.err.println("Read replica unavailable: " + e.getMessage());
+            return -1;
+        } finally {
+            DatabaseConnection.closeConnection(connection);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version tracking for cacheable API resources.
+ * Every write bumps the version of the collection and of the single resource it
+ * touched, so conditional GETs can be answered from here without reading the
+ * database. Versions carry the instance start time, which keeps ETags issued
+ * before a restart from matching afterwards.
+ * Versions live in this JVM only, so this assumes a single application instance
+ * that makes every write: a write through another instance, or straight to the
+ * database, is not seen here and clients keep getting 304s for stale copies.
+ */
+public class ResourceVersionTracker {
+
+    public static final String ITEMS = "items";
+    public static final String CUSTOMERS = "customers";
+    public static final String CATEGORIES = "categories";
+
+    private static final ResourceVersionTracker INSTANCE = new ResourceVersionTracker();
+
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), 36);
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    public static ResourceVersionTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record a write that affects a whole collection
+     * @param collection the collection name
+     */
+    public void bump(String collection) {
+        record(collection, sequence.incrementAndGet(), System.currentTimeMillis());
+    }
+
+    /**
+     * Record a write to a single resource; the collection is bumped with it
+     * @param collection the collection name
+     * @param id the resource ID
+     */
+    public void bump(String collection, Long id) {
+        long version = sequence.incrementAndGet();
+        long now = System.currentTimeMillis();
+        record(collection, version, now);
+        if (id != null) {
+            record(collection + "/" + id, version, now);
+        }
+    }
+
+    /**
+     * Get the current version of a collection
+     * @param collection the collection name
+     * @return the version
+     */
+    public Version getCollectionVersion(String collection) {
+        return lookup(collection);
+    }
+
+    /**
+     * Get the current version of a single resource
+     * @param collection the collection name
+     * @param id the resource ID
+     * @return the version
+     */
+    public Version getResourceVersion(String collection, Long id) {
+        return lookup(collection + "/" + id);
+    }
+
+    // Helper methods
+
+    private Version lookup(String key) {
+        Version version = versions.get(key);
+        return version != null ? version : new Version(etag(key, 0), startedAt, 0);
+    }
+
+    private void record(String key, long version, long lastModified) {
+        // concurrent writers may record out of order; the higher sequence wins
+        versions.merge(key, new Version(etag(key, version), lastModified, version),
+                (current, candidate) -> candidate.sequence > current.sequence ? candidate : current);
+    }
+
+    private String etag(String key, long version) {
+        return "\"" + key.replace('/', '-') + "-" + instanceTag + "-" + version + "\"";
+    }
+
+    /**
+     * Immutable snapshot of a resource version
+     */
+    public static final class Version {
+        private final String etag;
+        private final long lastModified;
+        private final long sequence;
+
+        private Version(String etag, long lastModified, long sequence) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.sequence = sequence;
+        }
+
+        public String getETag() { return etag; }
+        public long getLastModified() { return lastModified; }
+    }
+}
@@ -0,0 +1,116 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import com.icbt.cis6003.pahanaedubookshop.util.ResourceVersionTracker.Version;
+
+import javax.json.JsonObject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of pre-serialized JSON responses for hot, idempotent GET endpoints.
+ * Each entry holds the UTF-8 body and its gzip encoding, built once per version of
+ * the resource it was derived from. A write that bumps that version in the
+ * ResourceVersionTracker invalidates the entry; the next request rebuilds it.
+ * A hit neither serializes nor compresses: the stored array is handed to the
+ * servlet output stream as is, which still copies it into the container's
+ * response buffer.
+ */
+public class ResponseCache {
+
+    // bodies smaller than this do not gain from gzip
+    private static final int MIN_GZIP_SIZE = 256;
+
+    private static final ResponseCache INSTANCE = new ResponseCache();
+
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+    public static ResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the cached response for a key, building it if it is missing or stale
+     * @param key the cache key, usually the request path
+     * @param version the current version of the data behind the response
+     * @param builder builds the response body on a miss
+     * @return the cached response
+     */
+    public CachedResponse get(String key, Version version, Supplier<JsonObject> builder) {
+        CachedResponse cached = entries.get(key);
+        if (cached != null && cached.etag.equals(version.getETag())) {
+            return cached;
+        }
+        CachedResponse built = new CachedResponse(version.getETag(), builder.get().toString());
+        entries.put(key, built);
+        return built;
+    }
+
+    /**
+     * Drop every cached response
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Write a cached response, gzip-encoded when the client accepts it
+     */
+    public static void write(HttpServletRequest request, HttpServletResponse response,
+                             CachedResponse cached) throws IOException {
+        byte[] body = cached.body;
+        response.setHeader("Vary", "Accept-Encoding");
+        if (cached.gzipBody != null && acceptsGzip(request)) {
+            body = cached.gzipBody;
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(body.length);
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(body);
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error compressing response", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * A serialized response body with its optional gzip encoding
+     */
+    public static final class CachedResponse {
+        private final String etag;
+        private final byte[] body;
+        private final byte[] gzipBody;
+
+        private CachedResponse(String etag, String json) {
+            this.etag = etag;
+            this.body = json.getBytes(StandardCharsets.UTF_8);
+            byte[] compressed = body.length >= MIN_GZIP_SIZE ? gzip(body) : null;
+            this.gzipBody = compressed != null && compressed.length < body.length ? compressed : null;
+        }
+
+        public int getSize() { return body.length; }
+        public int getCompressedSize() { return gzipBody != null ? gzipBody.length : body.length; }
+    }
+}
@@ -0,0 +1,69 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Quintile scoring for RFM segmentation. Each dimension is copied, sorted with
+ * Arrays.parallelSort and every value is scored by binary search for its rank, so
+ * the work is O(n log n) per dimension and splits across the fork/join pool it runs
+ * in. The three dimensions are scored as separate fork/join tasks.
+ */
+public final class RfmScorer {
+
+    public static final int QUINTILES = 5;
+
+    private RfmScorer() {
+    }
+
+    /**
+     * Score the recency, frequency and monetary value of every customer
+     * @param recency latest sale day per customer (higher is more recent)
+     * @param frequency number of sales per customer
+     * @param monetary amount spent per customer
+     * @param pool the pool that does the sorting and scoring
+     * @return {recency, frequency, monetary} scores (1-5) in the same order as the input
+     */
+    public static byte[][] score(long[] recency, long[] frequency, long[] monetary, ForkJoinPool pool) {
+        return pool.submit(() -> {
+            ForkJoinTask<byte[]> r = ForkJoinTask.adapt(() -> quintiles(recency));
+            ForkJoinTask<byte[]> f = ForkJoinTask.adapt(() -> quintiles(frequency));
+            ForkJoinTask<byte[]> m = ForkJoinTask.adapt(() -> quintiles(monetary));
+            ForkJoinTask.invokeAll(r, f, m);
+            return new byte[][] {r.join(), f.join(), m.join()};
+        }).join();
+    }
+
+    /**
+     * Score values 1-5 by the quintile of their rank; higher values score higher.
+     * Equal values share the score of the first of them in sorted order. Runs in the
+     * calling thread's fork/join pool.
+     */
+    public static byte[] quintiles(long[] values) {
+        int n = values.length;
+        long[] sorted = values.clone();
+        Arrays.parallelSort(sorted);
+        byte[] scores = new byte[n];
+        IntStream.range(0, n).parallel().forEach(i ->
+                scores[i] = (byte) (1 + (long) QUINTILES * lowerBound(sorted, values[i]) / n));
+        return scores;
+    }
+
+    // Helper methods
+
+    private static int lowerBound(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
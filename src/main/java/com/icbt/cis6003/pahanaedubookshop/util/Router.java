@@ -0,0 +1,217 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request router for the servlet controllers.
+ * Route templates such as "/{id}/items/{itemId}" are compiled once into a segment
+ * trie. Dispatch walks the path by index, compares literal segments in place and
+ * parses numeric path variables directly from the characters, so no regex,
+ * substring or split is needed per request. Literal segments take precedence over
+ * variables, e.g. "/recent" wins over "/{id}".
+ * Dispatch does not allocate: variables are parsed into a holder that each thread
+ * reuses, so a handler must not keep its PathVariables after it returns.
+ */
+public class Router {
+
+    /**
+     * Handler for a routed request
+     */
+    public interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response, PathVariables variables)
+                throws IOException;
+    }
+
+    // Long.MAX_VALUE has 19 digits
+    private static final int MAX_VARIABLE_DIGITS = 19;
+
+    private final Node root = new Node();
+    private final ThreadLocal<PathVariables> variablesHolder = new ThreadLocal<>();
+    private int maxVariables;
+
+    public Router get(String template, Handler handler) {
+        return add("GET", template, handler);
+    }
+
+    public Router post(String template, Handler handler) {
+        return add("POST", template, handler);
+    }
+
+    public Router put(String template, Handler handler) {
+        return add("PUT", template, handler);
+    }
+
+    public Router patch(String template, Handler handler) {
+        return add("PATCH", template, handler);
+    }
+
+    public Router delete(String template, Handler handler) {
+        return add("DELETE", template, handler);
+    }
+
+    /**
+     * Register a handler for a method and route template.
+     * Variable segments are written as {name} and match non-negative integers.
+     * @throws IllegalArgumentException if the route is already registered
+     */
+    public Router add(String method, String template, Handler handler) {
+        Node node = root;
+        int variables = 0;
+        for (String segment : template.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (node.variable == null) {
+                    node.variable = new Node();
+                }
+                node = node.variable;
+                variables++;
+            } else {
+                node = node.literalChild(segment);
+            }
+        }
+        if (node.handlers.putIfAbsent(method, handler) != null) {
+            throw new IllegalArgumentException("Route already registered: " + method + " " + template);
+        }
+        maxVariables = Math.max(maxVariables, variables);
+        return this;
+    }
+
+    /**
+     * Dispatch a request to the handler registered for its method and path
+     * @param method the HTTP method
+     * @param path the path relative to the servlet, e.g. request.getPathInfo(); null means "/"
+     * @return false if no route matched, in which case nothing was written
+     */
+    public boolean dispatch(String method, String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        PathVariables variables = variablesHolder.get();
+        if (variables == null || variables.values.length < maxVariables) {
+            variables = new PathVariables(new long[maxVariables]);
+            variablesHolder.set(variables);
+        } else if (variables.inUse) {
+            // a handler dispatching again on the same thread gets its own holder
+            variables = new PathVariables(new long[maxVariables]);
+        }
+
+        Node node = match(root, path != null ? path : "/", 0, variables.values, 0);
+        Handler handler = node != null ? node.handlers.get(method) : null;
+        if (handler == null) {
+            return false;
+        }
+        variables.inUse = true;
+        try {
+            handler.handle(request, response, variables);
+        } finally {
+            variables.inUse = false;
+        }
+        return true;
+    }
+
+    // Helper methods
+
+    private static Node match(Node node, String path, int position, long[] values, int variableCount) {
+        int start = position;
+        int length = path.length();
+        while (start < length && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= length) {
+            // a trailing slash is only ignored at the root
+            return position == 0 || path.charAt(length - 1) != '/' ? node : null;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = length;
+        }
+
+        Node literal = node.findLiteral(path, start, end - start);
+        if (literal != null) {
+            Node matched = match(literal, path, end, values, variableCount);
+            if (matched != null) {
+                return matched;
+            }
+        }
+        if (node.variable != null && variableCount < values.length) {
+            long value = parseNumber(path, start, end);
+            if (value >= 0) {
+                values[variableCount] = value;
+                return match(node.variable, path, end, values, variableCount + 1);
+            }
+        }
+        return null;
+    }
+
+    // -1 if the segment is not a non-negative number that fits in a long
+    private static long parseNumber(String path, int start, int end) {
+        if (end - start > MAX_VARIABLE_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            int digit = c - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static final class Node {
+        private String[] literals = new String[0];
+        private Node[] literalNodes = new Node[0];
+        private Node variable;
+        private final Map<String, Handler> handlers = new HashMap<>();
+
+        private Node literalChild(String segment) {
+            for (int i = 0; i < literals.length; i++) {
+                if (literals[i].equals(segment)) {
+                    return literalNodes[i];
+                }
+            }
+            Node child = new Node();
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            literalNodes = Arrays.copyOf(literalNodes, literalNodes.length + 1);
+            literals[literals.length - 1] = segment;
+            literalNodes[literalNodes.length - 1] = child;
+            return child;
+        }
+
+        private Node findLiteral(String path, int start, int length) {
+            for (int i = 0; i < literals.length; i++) {
+                String literal = literals[i];
+                if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+                    return literalNodes[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Numeric path variables of a matched route, in template order
+     */
+    public static final class PathVariables {
+        private final long[] values;
+        private boolean inUse;
+
+        private PathVariables(long[] values) {
+            this.values = values;
+        }
+
+        public long getLong(int index) {
+            return values[index];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from a long key (customer ID) to sales statistics:
+ * number of sales, amount in cents and the latest sale date as an epoch day.
+ * Keys and values live in parallel primitive arrays, so a scan over millions of
+ * bills allocates nothing per bill. Not thread-safe; callers synchronize access.
+ */
+public class SalesStatsMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] counts;
+    private long[] amounts;
+    private int[] lastDays;
+    private int size;
+    private int resizeAt;
+
+    public SalesStatsMap(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedKeys / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Number of distinct keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Record one sale against a key
+     * @param key the key, any value except Long.MIN_VALUE
+     * @param epochDay the sale date as LocalDate.toEpochDay()
+     * @param amountCents the sale amount in cents
+     */
+    public void add(long key, int epochDay, long amountCents) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key not supported: " + key);
+        }
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            lastDays[slot] = epochDay;
+            if (++size > resizeAt) {
+                resize();
+                slot = slotOf(key);
+            }
+        } else if (epochDay > lastDays[slot]) {
+            lastDays[slot] = epochDay;
+        }
+        counts[slot]++;
+        amounts[slot] += amountCents;
+    }
+
+    /**
+     * Copy the entries into dense arrays, one index per key in no particular order
+     * @param keysOut array of size() keys
+     * @param countsOut array of size() sale counts
+     * @param amountsOut array of size() amounts in cents
+     * @param lastDaysOut array of size() latest sale days
+     */
+    public void export(long[] keysOut, long[] countsOut, long[] amountsOut, long[] lastDaysOut) {
+        int out = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                keysOut[out] = keys[slot];
+                countsOut[out] = counts[slot];
+                amountsOut[out] = amounts[slot];
+                lastDaysOut[out] = lastDays[slot];
+                out++;
+            }
+        }
+    }
+
+    // Helper methods
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        counts = new int[capacity];
+        amounts = new long[capacity];
+        lastDays = new int[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        long[] oldAmounts = amounts;
+        int[] oldLastDays = lastDays;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                amounts[slot] = oldAmounts[i];
+                lastDays[slot] = oldLastDays[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitters sketch keyed by a long id.
+ * Tracks at most {@code capacity} keys; when full, the key with the smallest
+ * count is replaced and the newcomer inherits that count as its error bound.
+ * Counts are exact while the number of distinct keys stays within capacity.
+ * Counters are also kept ordered by count, so every update, including an
+ * eviction, costs O(log capacity).
+ */
+public class SpaceSavingSketch {
+
+    private static final Comparator<Counter> BY_COUNT =
+            Comparator.comparingLong((Counter counter) -> counter.count).thenComparingLong(counter -> counter.key);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters;
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Add an amount to a key
+     */
+    public synchronized void offer(long key, long amount) {
+        if (amount <= 0) {
+            return;
+        }
+
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += amount;
+            byCount.add(counter);
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            add(new Counter(key, amount, 0));
+            return;
+        }
+
+        // evict the smallest counter and let the new key inherit its count
+        Counter smallest = byCount.pollFirst();
+        counters.remove(smallest.key);
+        add(new Counter(key, smallest.count + amount, smallest.count));
+    }
+
+    /**
+     * Subtract an amount from a tracked key, e.g. when a sale is reversed.
+     * Untracked keys are ignored; counts never go below zero.
+     */
+    public synchronized void retract(long key, long amount) {
+        Counter counter = counters.get(key);
+        if (counter == null || amount <= 0) {
+            return;
+        }
+        byCount.remove(counter);
+        counter.count = Math.max(0, counter.count - amount);
+        if (counter.count == 0) {
+            counters.remove(key);
+        } else {
+            byCount.add(counter);
+        }
+    }
+
+    /**
+     * Estimated count for a key (upper bound), 0 if the key is not tracked
+     */
+    public synchronized long estimate(long key) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter.count : 0;
+    }
+
+    /**
+     * Add every tracked count into the given map
+     */
+    public synchronized void mergeInto(Map<Long, Long> target) {
+        for (Counter counter : counters.values()) {
+            target.merge(counter.key, counter.count, Long::sum);
+        }
+    }
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Helper methods
+
+    private void add(Counter counter) {
+        counters.put(counter.key, counter);
+        byCount.add(counter);
+    }
+
+    private static final class Counter {
+        private final long key;
+        private final long error;
+        private long count;
+
+        private Counter(long key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of locks shared by hashing keys (e.g. item or bill IDs) onto stripes.
+ * Memory stays constant no matter how many keys are locked. Operations that need
+ * several keys take their stripes in ascending stripe order, so two such operations
+ * can never deadlock on each other. A lock that is not free on the first try
+ * counts as contended, and the time spent waiting for it is recorded.
+ */
+public class StripedLockManager {
+
+    private final String name;
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * @param name name used when reporting metrics
+     * @param stripeCount number of stripes, rounded up to a power of two
+     */
+    public StripedLockManager(String name, int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.name = name;
+        this.stripes = new ReentrantLock[size];
+        this.mask = stripes.length - 1;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Run an action while holding the stripe for one key
+     */
+    public <T> T withLock(long key, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeOf(key)];
+        acquire(lock);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run an action while holding the stripes for all keys, taken in stripe order
+     */
+    public <T> T withLocks(Collection<Long> keys, Supplier<T> action) {
+        int[] order = stripeOrder(keys);
+        int held = 0;
+        try {
+            for (int stripe : order) {
+                acquire(stripes[stripe]);
+                held++;
+            }
+            return action.get();
+        } finally {
+            for (int i = held - 1; i >= 0; i--) {
+                stripes[order[i]].unlock();
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    public long getContendedCount() {
+        return contendedAcquisitions.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    /**
+     * Get the share of acquisitions that had to wait, between 0 and 1
+     */
+    public double getContentionRatio() {
+        long total = acquisitions.sum();
+        return total == 0 ? 0.0 : (double) contendedAcquisitions.sum() / total;
+    }
+
+    // Helper methods
+
+    private void acquire(ReentrantLock lock) {
+        acquisitions.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+        contendedAcquisitions.increment();
+        long start = System.nanoTime();
+        lock.lock();
+        waitNanos.add(System.nanoTime() - start);
+    }
+
+    private int stripeOf(long key) {
+        // spread the bits so sequential IDs do not cluster on neighbouring stripes
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int[] stripeOrder(Collection<Long> keys) {
+        int[] order = new int[keys.size()];
+        int count = 0;
+        for (Long key : keys) {
+            if (key != null) {
+                order[count++] = stripeOf(key);
+            }
+        }
+        Arrays.sort(order, 0, count);
+
+        // drop duplicates so each stripe is taken once
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || order[unique - 1] != order[i]) {
+                order[unique++] = order[i];
+            }
+        }
+        return Arrays.copyOf(order, unique);
+    }
+}
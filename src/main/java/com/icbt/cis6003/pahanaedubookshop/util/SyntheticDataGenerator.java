@@ -0,0 +1,482 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Fills an empty database with synthetic customers, items, bills and bill items for
+ * load tests and benchmarks. The data is skewed the way a real shop's is:
+ * - item popularity and customer activity follow Zipf distributions, so a few best
+ *   sellers and regular customers account for most of the bill lines
+ * - customer sign-ups grow over the history (two years by default), and bills cluster around the
+ *   start of the school terms
+ * - most bills have one to three lines, with a long tail up to eight
+ *
+ * Every value is derived from the seed and the row id, so the same seed always gives
+ * the same data without keeping anything in memory, even for millions of rows.
+ *
+ * Usage: java ... SyntheticDataGenerator customers=1000000 items=50000 bills=3000000 [seed=42] [historyDays=730]
+ * against the database selected by DatabaseConfig, e.g. a file based H2 database.
+ */
+public class SyntheticDataGenerator {
+
+    public static final long DEFAULT_SEED = 42L;
+    public static final int DEFAULT_HISTORY_DAYS = 730;
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final int MAX_LINES_PER_BILL = 8;
+    private static final double ITEM_SKEW = 1.1;
+    private static final double CUSTOMER_SKEW = 0.8;
+    private static final BigDecimal TAX_RATE = new BigDecimal("0.1000");
+
+    private static final String[] CATEGORIES = {"TEXTBOOK", "REFERENCE", "STATIONERY", "DIGITAL"};
+    private static final double[] CATEGORY_SHARE = {0.40, 0.20, 0.30, 0.10};
+    private static final double[][] PRICE_RANGE = {{12, 60}, {15, 90}, {1, 15}, {5, 40}};
+    private static final String[] CATEGORY_CODES = {"BOOK", "REF", "STAT", "DIG"};
+
+    private static final String[] SUBJECTS = {"Mathematics", "Science", "English", "Sinhala", "Tamil",
+            "History", "Geography", "ICT", "Physics", "Chemistry", "Biology", "Commerce", "Accounting", "Art"};
+    private static final String[] STATIONERY = {"Blue Pen Pack", "A4 Notebook", "Pencil Set", "Geometry Set",
+            "Highlighter Set", "Exercise Book", "Drawing Book", "Eraser Pack", "Ruler", "Calculator"};
+    private static final String[] REFERENCE = {"Dictionary", "Atlas", "Thesaurus", "Encyclopedia",
+            "Formula Handbook", "Past Papers", "Study Guide"};
+    private static final String[] FIRST_NAMES = {"Nimal", "Kamal", "Sunil", "Amara", "Dilani", "Ruwan",
+            "Chamari", "Kasun", "Tharindu", "Nadeesha", "Priya", "Ravi", "Ayesha", "Mohamed", "Sanjeewa",
+            "Ishara", "Lakmal", "Harsha", "Fathima", "Dinesh"};
+    private static final String[] LAST_NAMES = {"Perera", "Fernando", "Silva", "Jayasinghe", "Bandara",
+            "Wickramasinghe", "Dissanayake", "Kumara", "Rajapaksa", "Gunawardena", "Herath", "Ranasinghe",
+            "Senanayake", "Mendis", "Rathnayake"};
+    private static final String[] CITIES = {"Colombo", "Kandy", "Galle", "Negombo", "Jaffna", "Matara",
+            "Kurunegala", "Anuradhapura", "Ratnapura", "Badulla"};
+    private static final String[] STREETS = {"Main Street", "Galle Road", "Kandy Road", "Temple Road",
+            "Station Road", "Lake Drive", "Hospital Road", "School Lane"};
+
+    private final long customers;
+    private final long items;
+    private final long bills;
+    private final long seed;
+    private final int historyDays;
+    private final LocalDate today = LocalDate.now();
+
+    public SyntheticDataGenerator(long customers, long items, long bills) {
+        this(customers, items, bills, DEFAULT_SEED, DEFAULT_HISTORY_DAYS);
+    }
+
+    public SyntheticDataGenerator(long customers, long items, long bills, long seed) {
+        this(customers, items, bills, seed, DEFAULT_HISTORY_DAYS);
+    }
+
+    public SyntheticDataGenerator(long customers, long items, long bills, long seed, int historyDays) {
+        if (customers < 0 || items < 0 || bills < 0) {
+            throw new IllegalArgumentException("Row counts must not be negative");
+        }
+        if (historyDays <= 0) {
+            throw new IllegalArgumentException("History must be at least one day");
+        }
+        if (bills > 0 && (customers == 0 || items == 0)) {
+            throw new IllegalArgumentException("Bills need at least one customer and one item");
+        }
+        this.customers = customers;
+        this.items = items;
+        this.bills = bills;
+        this.seed = seed;
+        this.historyDays = historyDays;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        long customers = 0;
+        long items = 0;
+        long bills = 0;
+        long seed = DEFAULT_SEED;
+        int historyDays = DEFAULT_HISTORY_DAYS;
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            }
+            long value = Long.parseLong(pair[1].replace("_", ""));
+            switch (pair[0]) {
+                case "customers": customers = value; break;
+                case "items": items = value; break;
+                case "bills": bills = value; break;
+                case "seed": seed = value; break;
+                case "historyDays": historyDays = (int) value; break;
+                default: throw new IllegalArgumentException("Unknown argument: " + pair[0]);
+            }
+        }
+        System.out.println("Generating into " + DatabaseConnection.getConfig());
+        Connection connection = DatabaseConnection.openConnection();
+        try {
+            Summary summary = new SyntheticDataGenerator(customers, items, bills, seed, historyDays)
+                    .generate(connection);
+            System.out.println(summary);
+        } finally {
+            DatabaseConnection.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Insert the synthetic data, committing in batches.
+     * Does nothing if the database already contains customers, items or bills.
+     */
+    public Summary generate(Connection connection) throws SQLException {
+        long start = System.currentTimeMillis();
+        if (hasData(connection)) {
+            System.out.println("Database already contains data, skipping synthetic data generation");
+            return new Summary(0, 0, 0, 0, 0);
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            insertCustomers(connection);
+            insertItems(connection);
+            long lines = insertBills(connection);
+            insertCustomerTotals(connection);
+            connection.commit();
+            return new Summary(customers, items, bills, lines, System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Row counts of one generator run
+     */
+    public static class Summary {
+        private final long customers;
+        private final long items;
+        private final long bills;
+        private final long billItems;
+        private final long elapsedMillis;
+
+        public Summary(long customers, long items, long bills, long billItems, long elapsedMillis) {
+            this.customers = customers;
+            this.items = items;
+            this.bills = bills;
+            this.billItems = billItems;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getCustomers() {
+            return customers;
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public long getBills() {
+            return bills;
+        }
+
+        public long getBillItems() {
+            return billItems;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Generated %d customers, %d items, %d bills and %d bill items in %d ms",
+                    customers, items, bills, billItems, elapsedMillis);
+        }
+    }
+
+    // Helper methods
+
+    private boolean hasData(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT (SELECT COUNT(*) FROM customers) + " +
+                     "(SELECT COUNT(*) FROM items) + (SELECT COUNT(*) FROM bills)")) {
+            return rs.next() && rs.getLong(1) > 0;
+        }
+    }
+
+    private void insertCustomers(Connection connection) throws SQLException {
+        String sql = "INSERT INTO customers (id, account_number, name, address, phone, email, registration_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (long id = 1; id <= customers; id++) {
+                String name = customerName(id);
+                stmt.setLong(1, id);
+                stmt.setString(2, accountNumber(id));
+                stmt.setString(3, name);
+                stmt.setString(4, (1 + pick(id, 11, 500)) + " " + STREETS[(int) pick(id, 12, STREETS.length)] +
+                        ", " + CITIES[(int) pick(id, 13, CITIES.length)]);
+                stmt.setString(5, String.format("+94 7%d %03d %04d",
+                        pick(id, 14, 9), pick(id, 15, 1000), pick(id, 16, 10000)));
+                if (unit(id, 17) < 0.7) {
+                    stmt.setString(6, name.toLowerCase().replace(' ', '.') + id + "@example.com");
+                } else {
+                    stmt.setNull(6, Types.VARCHAR);
+                }
+                stmt.setDate(7, Date.valueOf(registrationDate(id)));
+                addBatch(connection, stmt, id);
+            }
+            flush(connection, stmt);
+        }
+    }
+
+    private void insertItems(Connection connection) throws SQLException {
+        String sql = "INSERT INTO items (id, code, name, category, price, stock, min_stock, description) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (long id = 1; id <= items; id++) {
+                int category = itemCategory(id);
+                stmt.setLong(1, id);
+                stmt.setString(2, itemCode(id));
+                stmt.setString(3, itemName(id));
+                stmt.setString(4, CATEGORIES[category]);
+                stmt.setBigDecimal(5, itemPrice(id));
+                // about one item in twenty is sold out
+                stmt.setInt(6, unit(id, 24) < 0.05 ? 0 : 1 + (int) pick(id, 25, 500));
+                stmt.setInt(7, 5 + (int) pick(id, 26, 21));
+                stmt.setString(8, "Synthetic " + CATEGORIES[category].toLowerCase() + " item " + id);
+                addBatch(connection, stmt, id);
+            }
+            flush(connection, stmt);
+        }
+    }
+
+    private long insertBills(Connection connection) throws SQLException {
+        String billSql = "INSERT INTO bills (id, customer_id, customer_name, customer_account_number, bill_date, " +
+                "subtotal, tax_amount, total_amount, tax_rate, status, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String lineSql = "INSERT INTO bill_items (bill_id, bill_date, item_id, item_code, item_name, " +
+                "item_category, unit_price, quantity, total, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        ZipfSampler customerSampler = new ZipfSampler(customers, CUSTOMER_SKEW);
+        ZipfSampler itemSampler = new ZipfSampler(items, ITEM_SKEW);
+        long customerStride = coprimeStride(customers);
+        long itemStride = coprimeStride(items);
+        long lineCount = 0;
+        long[] lineItems = new long[MAX_LINES_PER_BILL];
+
+        try (PreparedStatement billStmt = connection.prepareStatement(billSql);
+             PreparedStatement lineStmt = connection.prepareStatement(lineSql)) {
+            for (long billId = 1; billId <= bills; billId++) {
+                // popular ranks are scattered over the id range rather than being the lowest ids
+                long customerId = permute(customerSampler.sample(unit(billId, 31)), customerStride, customers);
+                LocalDate billDate = billDate(billId, registrationDate(customerId));
+                Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(billDate, LocalTime.of(
+                        8 + (int) pick(billId, 33, 12), (int) pick(billId, 34, 60), (int) pick(billId, 35, 60))));
+
+                int lines = lineCount(billId);
+                int distinct = 0;
+                BigDecimal subtotal = BigDecimal.ZERO;
+                for (int attempt = 0; distinct < lines && attempt < lines * 4; attempt++) {
+                    long itemId = permute(itemSampler.sample(unit(billId, 40 + attempt)), itemStride, items);
+                    if (contains(lineItems, distinct, itemId)) {
+                        continue;
+                    }
+                    lineItems[distinct++] = itemId;
+                    int category = itemCategory(itemId);
+                    BigDecimal price = itemPrice(itemId);
+                    int quantity = quantity(billId, attempt, category);
+                    BigDecimal total = price.multiply(BigDecimal.valueOf(quantity));
+                    subtotal = subtotal.add(total);
+
+                    lineStmt.setLong(1, billId);
+                    lineStmt.setDate(2, Date.valueOf(billDate));
+                    lineStmt.setLong(3, itemId);
+                    lineStmt.setString(4, itemCode(itemId));
+                    lineStmt.setString(5, itemName(itemId));
+                    lineStmt.setString(6, CATEGORIES[category]);
+                    lineStmt.setBigDecimal(7, price);
+                    lineStmt.setInt(8, quantity);
+                    lineStmt.setBigDecimal(9, total);
+                    lineStmt.setTimestamp(10, createdAt);
+                    lineStmt.addBatch();
+                    lineCount++;
+                }
+
+                BigDecimal tax = subtotal.multiply(TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+                billStmt.setLong(1, billId);
+                billStmt.setLong(2, customerId);
+                billStmt.setString(3, customerName(customerId));
+                billStmt.setString(4, accountNumber(customerId));
+                billStmt.setDate(5, Date.valueOf(billDate));
+                billStmt.setBigDecimal(6, subtotal);
+                billStmt.setBigDecimal(7, tax);
+                billStmt.setBigDecimal(8, subtotal.add(tax));
+                billStmt.setBigDecimal(9, TAX_RATE);
+                billStmt.setString(10, billStatus(billId));
+                billStmt.setTimestamp(11, createdAt);
+                billStmt.addBatch();
+
+                if (billId % BATCH_SIZE == 0) {
+                    // bills first, their lines reference them
+                    billStmt.executeBatch();
+                    lineStmt.executeBatch();
+                    connection.commit();
+                    progress("bills", billId, bills);
+                }
+            }
+            billStmt.executeBatch();
+            lineStmt.executeBatch();
+            connection.commit();
+        }
+        return lineCount;
+    }
+
+    private void insertCustomerTotals(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO customer_totals (customer_id, bill_count, total_amount, " +
+                    "last_bill_date) SELECT customer_id, COUNT(*), SUM(total_amount), MAX(bill_date) " +
+                    "FROM bills WHERE status IN ('FINALIZED', 'PAID') GROUP BY customer_id");
+        }
+    }
+
+    private void addBatch(Connection connection, PreparedStatement stmt, long row) throws SQLException {
+        stmt.addBatch();
+        if (row % BATCH_SIZE == 0) {
+            stmt.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private void flush(Connection connection, PreparedStatement stmt) throws SQLException {
+        stmt.executeBatch();
+        connection.commit();
+    }
+
+    private static void progress(String table, long done, long total) {
+        if (done % (BATCH_SIZE * 100L) == 0) {
+            System.out.println("  " + table + ": " + done + " / " + total);
+        }
+    }
+
+    private String customerName(long id) {
+        return FIRST_NAMES[(int) pick(id, 1, FIRST_NAMES.length)] + " " +
+                LAST_NAMES[(int) pick(id, 2, LAST_NAMES.length)];
+    }
+
+    private static String accountNumber(long id) {
+        return String.format("CUST%07d", id);
+    }
+
+    private LocalDate registrationDate(long customerId) {
+        // ids follow sign-up order and sign-ups per day grow linearly over the history
+        double position = Math.sqrt((double) customerId / Math.max(customers, 1));
+        return today.minusDays(historyDays - (long) (position * historyDays));
+    }
+
+    private LocalDate billDate(long billId, LocalDate registered) {
+        long span = Math.max(1, registered.until(today, ChronoUnit.DAYS) + 1);
+        LocalDate date = registered.plusDays(pick(billId, 50, span));
+        // second draw for dates outside the term starts, so January and September get about twice the sales
+        if (date.getMonthValue() != 1 && date.getMonthValue() != 9 && unit(billId, 51) < 0.5) {
+            date = registered.plusDays(pick(billId, 52, span));
+        }
+        return date;
+    }
+
+    private int itemCategory(long id) {
+        double u = unit(id, 20);
+        for (int i = 0; i < CATEGORY_SHARE.length; i++) {
+            u -= CATEGORY_SHARE[i];
+            if (u < 0) {
+                return i;
+            }
+        }
+        return CATEGORY_SHARE.length - 1;
+    }
+
+    private String itemCode(long id) {
+        return String.format("%s%07d", CATEGORY_CODES[itemCategory(id)], id);
+    }
+
+    private String itemName(long id) {
+        String subject = SUBJECTS[(int) pick(id, 21, SUBJECTS.length)];
+        switch (itemCategory(id)) {
+            case 0: return subject + " Grade " + (6 + pick(id, 22, 8));
+            case 1: return subject + " " + REFERENCE[(int) pick(id, 22, REFERENCE.length)];
+            case 2: return STATIONERY[(int) pick(id, 22, STATIONERY.length)] + " #" + id;
+            default: return subject + " E-book Volume " + (1 + pick(id, 22, 5));
+        }
+    }
+
+    private BigDecimal itemPrice(long id) {
+        double[] range = PRICE_RANGE[itemCategory(id)];
+        // cheaper prices are more common within each category
+        double u = unit(id, 23);
+        return BigDecimal.valueOf(range[0] + (range[1] - range[0]) * u * u).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private int lineCount(long billId) {
+        int lines = 1;
+        while (lines < MAX_LINES_PER_BILL && unit(billId, 60 + lines) < 0.45) {
+            lines++;
+        }
+        return lines;
+    }
+
+    private int quantity(long billId, int line, int category) {
+        double u = unit(billId, 70 + line);
+        if ("STATIONERY".equals(CATEGORIES[category])) {
+            return 1 + (int) (u * u * 10);
+        }
+        return u < 0.8 ? 1 : u < 0.95 ? 2 : 3;
+    }
+
+    private String billStatus(long billId) {
+        double u = unit(billId, 80);
+        return u < 0.90 ? "FINALIZED" : u < 0.97 ? "PAID" : "CANCELLED";
+    }
+
+    private static boolean contains(long[] values, int length, long value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long coprimeStride(long n) {
+        long stride = 7_919;
+        while (n > 1 && gcd(stride, n) != 1) {
+            stride += 2;
+        }
+        return stride;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private static long permute(long rank, long stride, long n) {
+        return Math.floorMod((rank - 1) * stride, n) + 1;
+    }
+
+    private long pick(long id, int salt, long bound) {
+        return (long) (unit(id, salt) * bound);
+    }
+
+    private double unit(long id, int salt) {
+        return (mix(seed ^ (id * 0x9E3779B97F4A7C15L) ^ ((long) salt << 48)) >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long z) {
+        // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,91 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets for many clients at one rate. Each bucket holds up to burst tokens
+ * and gains rate tokens per second; a request takes one token or is turned away.
+ *
+ * A bucket is a single AtomicLong: the time at which it will be full again, with one
+ * token's worth of time added per request taken. Refill is therefore lazy, computed
+ * from the clock when the next request arrives, and taking a token is one
+ * compare-and-set, so no lock is held on the request path. A bucket that is full
+ * holds no state worth keeping; when more than maxClients buckets exist, full ones
+ * are dropped at most once a second.
+ */
+public class TokenBucketLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final int maxClients;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param ratePerSecond tokens added to each bucket per second
+     * @param burst tokens a full bucket holds
+     * @param maxClients buckets kept before full ones are dropped
+     */
+    public TokenBucketLimiter(double ratePerSecond, int burst, int maxClients) {
+        if (ratePerSecond <= 0 || burst <= 0 || maxClients <= 0) {
+            throw new IllegalArgumentException("Rate, burst and client limit must be positive");
+        }
+        this.nanosPerToken = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.burstNanos = nanosPerToken * burst;
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Take a token from a client's bucket
+     * @param client identifies the bucket
+     * @param nowNanos the current System.nanoTime()
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryAcquire(String client, long nowNanos) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            // full bucket: refilled since before any request could have been made
+            AtomicLong created = new AtomicLong(Long.MIN_VALUE);
+            bucket = buckets.putIfAbsent(client, created);
+            if (bucket == null) {
+                bucket = created;
+                if (buckets.size() > maxClients) {
+                    sweep(nowNanos);
+                }
+            }
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, nowNanos) + nanosPerToken;
+            long wait = next - burstNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Number of clients with a bucket
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    // Helper methods
+
+    private void sweep(long nowNanos) {
+        long last = lastSweep.get();
+        if (nowNanos - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, nowNanos)) {
+            return;
+        }
+        // a bucket refilled between the check and the removal only loses its history
+        buckets.values().removeIf(bucket -> bucket.get() <= nowNanos);
+    }
+}
@@ -0,0 +1,336 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound units of work over a single database connection.
+ * While a unit of work is active, DatabaseConnection.getConnection() hands every DAO
+ * call on the thread the same connection, opened lazily on first use. Closing that
+ * handle is a no-op; the connection is released when the outermost unit of work ends.
+ * Nested units of work join the outer one, except read-only work outside a transaction,
+ * which may be routed to the read replica. A failure inside a joined transaction marks
+ * the whole transaction rollback-only unless it was contained by withSavepoint.
+ */
+public class TransactionManager {
+
+    private static final TransactionManager INSTANCE = new TransactionManager();
+
+    private final ThreadLocal<Context> current = new ThreadLocal<>();
+    private final ReplicaLagMonitor replicaMonitor = ReplicaLagMonitor.getInstance();
+    private final LongAdder unitsOfWork = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+
+    public static TransactionManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Run work sharing one connection without a transaction, e.g. for a whole request.
+     * Transactions started inside reuse the same connection.
+     */
+    public <T> T withConnection(Supplier<T> work) {
+        try (Scope scope = openScope()) {
+            return work.get();
+        }
+    }
+
+    /**
+     * Share one connection on the calling thread until the returned scope is closed.
+     * Same as withConnection, for callers such as filters that throw checked exceptions.
+     */
+    public Scope openScope() {
+        if (current.get() != null) {
+            return () -> { };
+        }
+        Context context = new Context(false, false);
+        unitsOfWork.increment();
+        current.set(context);
+        return () -> {
+            current.remove();
+            context.close();
+        };
+    }
+
+    /**
+     * Run work in a transaction, committed if it returns and rolled back if it throws.
+     * Joins the active transaction if there is one.
+     * @throws IllegalStateException if called inside a read-only unit of work
+     */
+    public <T> T inTransaction(Supplier<T> work) {
+        Context context = current.get();
+        if (context == null) {
+            Context newContext = new Context(false, false);
+            return runInNewContext(newContext, () -> runTransaction(newContext, work));
+        }
+        if (context.readOnly) {
+            throw new IllegalStateException("Cannot write inside a read-only unit of work");
+        }
+        if (context.transactional) {
+            return join(context, work);
+        }
+        return runTransaction(context, work);
+    }
+
+    /**
+     * Run work that only reads, e.g. statistics and reports. It goes to the read replica
+     * while the replica is within its staleness budget, and otherwise to the primary on a
+     * connection flagged read-only. Inside a transaction it joins, so it sees the
+     * transaction's own writes.
+     */
+    public <T> T inReadOnly(Supplier<T> work) {
+        Context context = current.get();
+        if (context == null) {
+            return runInNewContext(new Context(true, replicaMonitor.isReplicaUsable()), work);
+        }
+        if (context.transactional || context.readOnly || !replicaMonitor.isReplicaUsable()) {
+            return work.get();
+        }
+        // step aside from the request's primary connection for the duration
+        return runInNewContext(new Context(true, true), work);
+    }
+
+    /**
+     * Run part of the active transaction so that a failure rolls back only that part.
+     * The exception is rethrown, and the surrounding transaction can still commit.
+     * @throws IllegalStateException if no transaction is active
+     */
+    public <T> T withSavepoint(Supplier<T> work) {
+        Context context = current.get();
+        if (context == null || !context.transactional) {
+            throw new IllegalStateException("Savepoints require an active transaction");
+        }
+        Connection connection = context.open();
+        boolean wasRollbackOnly = context.rollbackOnly;
+        Savepoint savepoint;
+        try {
+            savepoint = connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creating savepoint: " + e.getMessage(), e);
+        }
+        try {
+            T result = work.get();
+            releaseQuietly(connection, savepoint);
+            return result;
+        } catch (RuntimeException | Error e) {
+            try {
+                connection.rollback(savepoint);
+                context.rollbackOnly = wasRollbackOnly;
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+                context.rollbackOnly = true;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Check whether the calling thread is inside a transaction
+     */
+    public boolean isTransactionActive() {
+        Context context = current.get();
+        return context != null && context.transactional;
+    }
+
+    /**
+     * Get the number of outermost units of work started
+     */
+    public long getUnitOfWorkCount() {
+        return unitsOfWork.sum();
+    }
+
+    /**
+     * Get the number of physical connections opened by units of work
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    /**
+     * Get the average number of physical connections per unit of work, e.g. per request
+     */
+    public double getConnectionsPerUnitOfWork() {
+        long units = unitsOfWork.sum();
+        return units == 0 ? 0.0 : (double) connectionsOpened.sum() / units;
+    }
+
+    /**
+     * Scope of a shared connection; closing it releases the connection
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Get the handle of the connection bound to the calling thread, or null outside a unit of work
+     */
+    Connection currentConnection() throws SQLException {
+        Context context = current.get();
+        if (context == null) {
+            return null;
+        }
+        context.open();
+        return context.handle;
+    }
+
+    // Helper methods
+
+    private <T> T runInNewContext(Context context, Supplier<T> work) {
+        Context outer = current.get();
+        if (outer == null) {
+            unitsOfWork.increment();
+        }
+        current.set(context);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                current.remove();
+            } else {
+                current.set(outer);
+            }
+            context.close();
+        }
+    }
+
+    private <T> T runTransaction(Context context, Supplier<T> work) {
+        Connection connection = context.open();
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error starting transaction: " + e.getMessage(), e);
+        }
+        context.transactional = true;
+        context.rollbackOnly = false;
+        try {
+            T result = work.get();
+            if (context.rollbackOnly) {
+                throw new IllegalStateException("Transaction was marked rollback-only by a failed nested call");
+            }
+            connection.commit();
+            return result;
+        } catch (SQLException e) {
+            rollbackQuietly(connection, e);
+            throw new RuntimeException("Error committing transaction: " + e.getMessage(), e);
+        } catch (RuntimeException | Error e) {
+            rollbackQuietly(connection, e);
+            throw e;
+        } finally {
+            context.transactional = false;
+            context.rollbackOnly = false;
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                // ignored: the connection is closed at the end of the unit of work anyway
+            }
+        }
+    }
+
+    private static <T> T join(Context context, Supplier<T> work) {
+        try {
+            return work.get();
+        } catch (RuntimeException | Error e) {
+            context.rollbackOnly = true;
+            throw e;
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection, Throwable cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static void releaseQuietly(Connection connection, Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            // some drivers release savepoints on their own; the transaction is unaffected
+        }
+    }
+
+    private final class Context {
+        private final boolean readOnly;
+        private final boolean replica;
+        private Connection connection;
+        private Connection handle;
+        private boolean transactional;
+        private boolean rollbackOnly;
+
+        private Context(boolean readOnly, boolean replica) {
+            this.readOnly = readOnly;
+            this.replica = replica;
+        }
+
+        private Connection open() {
+            if (connection != null) {
+                return connection;
+            }
+            try {
+                connection = replica ? openReplicaOrPrimary() : DatabaseConnection.openConnection();
+                connectionsOpened.increment();
+                if (readOnly) {
+                    connection.setReadOnly(true);
+                }
+            } catch (SQLException e) {
+                DatabaseConnection.closeConnection(connection);
+                connection = null;
+                throw new RuntimeException("Error opening connection: " + e.getMessage(), e);
+            }
+            handle = managedHandle(connection);
+            return connection;
+        }
+
+        private Connection openReplicaOrPrimary() throws SQLException {
+            try {
+                return DatabaseConnection.openReplicaConnection();
+            } catch (SQLException e) {
+                System.err.println("Read replica unavailable, reading from primary: " + e.getMessage());
+                return DatabaseConnection.openConnection();
+            }
+        }
+
+        private void close() {
+            if (connection != null) {
+                DatabaseConnection.closeConnection(connection);
+                connection = null;
+                handle = null;
+            }
+        }
+    }
+
+    private static Connection managedHandle(Connection connection) {
+        // DAOs close what they get; transaction boundaries belong to the manager
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "commit":
+                        case "setAutoCommit":
+                        case "setReadOnly":
+                            throw new SQLException("Connection is managed by TransactionManager");
+                        case "rollback":
+                            if (args == null) {
+                                throw new SQLException("Connection is managed by TransactionManager");
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
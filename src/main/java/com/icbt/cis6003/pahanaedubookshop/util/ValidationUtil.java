@@ -4,6 +4,7 @@ import com.icbt.cis6003.pahanaedubookshop.model.Customer;
 import com.icbt.cis6003.pahanaedubookshop.model.Item;
 import com.icbt.cis6003.pahanaedubookshop.model.Bill;
 import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.BillItemChange;
 
 import java.math.BigDecimal;
 
@@ -62,6 +63,17 @@ public class ValidationUtil {
         return true;
     }
 
+    /**
+     * Simple bill line change validation
+     */
+    public static boolean validateItemChange(BillItemChange change) {
+        if (change == null) return false;
+        if (change.getOperation() == null || change.getItemId() == null) return false;
+        if (change.getOperation() == BillItemChange.Operation.REMOVE) return true;
+        if (change.getQuantity() == null || change.getQuantity() <= 0) return false;
+        return true;
+    }
+
     /**
      * Check if string is null or empty
      */
@@ -0,0 +1,36 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+/**
+ * Draws ranks 1..n with probability roughly proportional to 1 / rank^skew, by
+ * inverting the continuous power law so no per-rank table is needed even for
+ * millions of ranks. A skew of 0 is uniform; around 1 a few ranks dominate.
+ */
+public class ZipfSampler {
+
+    private final long n;
+    private final double skew;
+    private final double scale;
+
+    public ZipfSampler(long n, double skew) {
+        if (n < 1 || skew < 0) {
+            throw new IllegalArgumentException("Zipf sampler needs n >= 1 and skew >= 0");
+        }
+        this.n = n;
+        this.skew = skew;
+        this.scale = isHarmonic() ? Math.log(n + 1.0) : Math.pow(n + 1.0, 1 - skew) - 1;
+    }
+
+    /**
+     * Map a uniform value in [0, 1) to a rank in 1..n
+     */
+    public long sample(double uniform) {
+        double x = isHarmonic()
+                ? Math.exp(uniform * scale)
+                : Math.pow(uniform * scale + 1, 1 / (1 - skew));
+        return Math.min(n, Math.max(1, (long) x));
+    }
+
+    private boolean isHarmonic() {
+        return Math.abs(skew - 1) < 1e-9;
+    }
+}
@@ -1,8 +1,13 @@
 -- Create database
-CREATE DATABASE IF NOT EXISTS pahana_edu_bookshop_dinol;
-USE pahana_edu_bookshop_dinol;
+CREATE DATABASE IF NOT EXISTS pahana_edu_bookshop;
+USE pahana_edu_bookshop;
 
 -- Drop tables if they exist (for clean setup)
+DROP TABLE IF EXISTS customer_segments;
+DROP TABLE IF EXISTS customer_totals;
+DROP TABLE IF EXISTS bill_archive_periods;
+DROP TABLE IF EXISTS bill_items_archive;
+DROP TABLE IF EXISTS bills_archive;
 DROP TABLE IF EXISTS bill_items;
 DROP TABLE IF EXISTS bills;
 DROP TABLE IF EXISTS items;
@@ -17,6 +22,7 @@ CREATE TABLE customers (
     phone VARCHAR(20) NOT NULL,
     email VARCHAR(100),
     registration_date DATE NOT NULL DEFAULT (CURRENT_DATE),
+    version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     
@@ -36,6 +42,7 @@ CREATE TABLE items (
     stock INT NOT NULL DEFAULT 0,
     min_stock INT NOT NULL DEFAULT 5,
     description TEXT,
+    version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     
@@ -46,9 +53,13 @@ CREATE TABLE items (
     INDEX idx_price (price)
 );
 
--- Create bills table
+-- Create bills table, partitioned by month of bill_date so that date range queries
+-- only read the months they ask for. MySQL needs the partitioning column in every
+-- unique key and allows no foreign keys on partitioned tables, so the primary key is
+-- (id, bill_date) and references to customers are checked by the application.
+-- Monthly partitions are split off p_future by AddMonthlyPartitions below.
 CREATE TABLE bills (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT AUTO_INCREMENT,
     customer_id BIGINT NOT NULL,
     customer_name VARCHAR(100) NOT NULL,
     customer_account_number VARCHAR(20) NOT NULL,
@@ -58,34 +69,132 @@ CREATE TABLE bills (
     total_amount DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
     tax_rate DECIMAL(5, 4) NOT NULL DEFAULT 0.1000,
     status ENUM('DRAFT', 'FINALIZED', 'PAID', 'CANCELLED') NOT NULL DEFAULT 'DRAFT',
+    version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     
-    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE RESTRICT,
+    PRIMARY KEY (id, bill_date),
     INDEX idx_customer_id (customer_id),
     INDEX idx_bill_date (bill_date),
     INDEX idx_status (status),
     INDEX idx_total_amount (total_amount),
     INDEX idx_created_at (created_at)
+)
+PARTITION BY RANGE COLUMNS (bill_date) (
+    PARTITION p_history VALUES LESS THAN ('2024-01-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
 );
 
--- Create bill_items table
+-- Create bill_items table, partitioned like bills. The bill's date is repeated on
+-- each line so the lines of a month live in the same partition as their bills.
 CREATE TABLE bill_items (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT AUTO_INCREMENT,
     bill_id BIGINT NOT NULL,
+    bill_date DATE NOT NULL,
     item_id BIGINT NOT NULL,
     item_code VARCHAR(20) NOT NULL,
     item_name VARCHAR(200) NOT NULL,
+    item_category ENUM('TEXTBOOK', 'REFERENCE', 'STATIONERY', 'DIGITAL'),
     unit_price DECIMAL(10, 2) NOT NULL,
     quantity INT NOT NULL,
     total DECIMAL(10, 2) NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     
-    FOREIGN KEY (bill_id) REFERENCES bills(id) ON DELETE CASCADE,
-    FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE RESTRICT,
+    PRIMARY KEY (id, bill_date),
     INDEX idx_bill_id (bill_id),
     INDEX idx_item_id (item_id),
-    UNIQUE KEY unique_bill_item (bill_id, item_id)
+    UNIQUE KEY unique_bill_item (bill_id, item_id, bill_date)
+)
+PARTITION BY RANGE COLUMNS (bill_date) (
+    PARTITION p_history VALUES LESS THAN ('2024-01-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- Create archive tables for closed periods. The archival job moves whole months out
+-- of bills and bill_items into these compressed tables; only reports read them,
+-- through the all_bills and all_bill_items views.
+CREATE TABLE bills_archive (
+    id BIGINT PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    customer_name VARCHAR(100) NOT NULL,
+    customer_account_number VARCHAR(20) NOT NULL,
+    bill_date DATE NOT NULL,
+    subtotal DECIMAL(10, 2) NOT NULL,
+    tax_amount DECIMAL(10, 2) NOT NULL,
+    total_amount DECIMAL(10, 2) NOT NULL,
+    tax_rate DECIMAL(5, 4) NOT NULL,
+    status ENUM('DRAFT', 'FINALIZED', 'PAID', 'CANCELLED') NOT NULL,
+    version INT NOT NULL,
+    created_at TIMESTAMP NULL,
+    updated_at TIMESTAMP NULL,
+    
+    INDEX idx_bill_date (bill_date),
+    INDEX idx_customer_date (customer_id, bill_date)
+) ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;
+
+CREATE TABLE bill_items_archive (
+    id BIGINT PRIMARY KEY,
+    bill_id BIGINT NOT NULL,
+    bill_date DATE NOT NULL,
+    item_id BIGINT NOT NULL,
+    item_code VARCHAR(20) NOT NULL,
+    item_name VARCHAR(200) NOT NULL,
+    item_category ENUM('TEXTBOOK', 'REFERENCE', 'STATIONERY', 'DIGITAL'),
+    unit_price DECIMAL(10, 2) NOT NULL,
+    quantity INT NOT NULL,
+    total DECIMAL(10, 2) NOT NULL,
+    created_at TIMESTAMP NULL,
+    
+    INDEX idx_bill_id (bill_id),
+    INDEX idx_item_id (item_id)
+) ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;
+
+-- Create bill_archive_periods table (one row per archived month)
+CREATE TABLE bill_archive_periods (
+    period_start DATE PRIMARY KEY,
+    bill_count INT NOT NULL,
+    item_count INT NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create bill_sync_keys table (the client-generated UUID of each bill uploaded by a
+-- till after working offline). bills is partitioned by bill_date, so it cannot hold
+-- a unique key on the UUID itself.
+CREATE TABLE bill_sync_keys (
+    sync_id CHAR(36) PRIMARY KEY,
+    bill_id BIGINT NOT NULL,
+    bill_date DATE NOT NULL,
+    synced_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create customer_totals table (running totals of each customer's sales bills,
+-- kept up to date when bills are finalized or cancelled)
+CREATE TABLE customer_totals (
+    customer_id BIGINT PRIMARY KEY,
+    bill_count INT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14, 2) NOT NULL DEFAULT 0.00,
+    last_bill_date DATE,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
+    INDEX idx_total_amount (total_amount)
+);
+
+-- Create customer_segments table (recency, frequency and monetary scores of each
+-- customer with sales, rewritten as a whole by the segmentation job)
+CREATE TABLE customer_segments (
+    customer_id BIGINT PRIMARY KEY,
+    segment ENUM('CHAMPIONS', 'LOYAL', 'NEW', 'PROMISING', 'AT_RISK', 'HIBERNATING', 'LOST') NOT NULL,
+    recency_score TINYINT NOT NULL,
+    frequency_score TINYINT NOT NULL,
+    monetary_score TINYINT NOT NULL,
+    bill_count INT NOT NULL,
+    total_amount DECIMAL(14, 2) NOT NULL,
+    last_bill_date DATE NOT NULL,
+    computed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    
+    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
+    INDEX idx_segment_amount (segment, total_amount)
 );
 
 -- Insert sample data
@@ -121,24 +230,50 @@ INSERT INTO bills (customer_id, customer_name, customer_account_number, bill_dat
 (3, 'Michael Johnson', 'CUST003', '2024-08-17', 73.50, 7.35, 80.85, 'FINALIZED');
 
 -- Sample bill items
-INSERT INTO bill_items (bill_id, item_id, item_code, item_name, unit_price, quantity, total) VALUES
+INSERT INTO bill_items (bill_id, bill_date, item_id, item_code, item_name, unit_price, quantity, total) VALUES
 -- Bill 1 items
-(1, 1, 'BOOK001', 'Mathematics Grade 10', 25.99, 1, 25.99),
-(1, 2, 'BOOK002', 'English Literature Grade 11', 22.50, 1, 22.50),
-(1, 8, 'STAT001', 'Blue Pen Pack (10 pcs)', 3.99, 1, 3.99),
+(1, '2024-08-15', 1, 'BOOK001', 'Mathematics Grade 10', 25.99, 1, 25.99),
+(1, '2024-08-15', 2, 'BOOK002', 'English Literature Grade 11', 22.50, 1, 22.50),
+(1, '2024-08-15', 8, 'STAT001', 'Blue Pen Pack (10 pcs)', 3.99, 1, 3.99),
 
 -- Bill 2 items
-(2, 5, 'REF001', 'Oxford English Dictionary', 45.00, 1, 45.00),
-(3, 9, 'STAT002', 'A4 Notebook', 2.50, 1, 2.50),
+(2, '2024-08-16', 5, 'REF001', 'Oxford English Dictionary', 45.00, 1, 45.00),
+(3, '2024-08-17', 9, 'STAT002', 'A4 Notebook', 2.50, 1, 2.50),
 
 -- Bill 3 items
-(3, 4, 'BOOK004', 'History of Sri Lanka', 32.00, 1, 32.00),
-(3, 6, 'REF002', 'Mathematical Tables', 18.50, 1, 18.50),
-(3, 7, 'REF003', 'Atlas of the World', 35.75, 1, 35.75),
-(3, 11, 'STAT004', 'Geometry Set', 8.75, 1, 8.75);
+(3, '2024-08-17', 4, 'BOOK004', 'History of Sri Lanka', 32.00, 1, 32.00),
+(3, '2024-08-17', 6, 'REF002', 'Mathematical Tables', 18.50, 1, 18.50),
+(3, '2024-08-17', 7, 'REF003', 'Atlas of the World', 35.75, 1, 35.75),
+(3, '2024-08-17', 11, 'STAT004', 'Geometry Set', 8.75, 1, 8.75);
+
+-- Customer totals of the sample bills
+INSERT INTO customer_totals (customer_id, bill_count, total_amount, last_bill_date)
+SELECT customer_id, COUNT(*), SUM(total_amount), MAX(bill_date)
+FROM bills
+WHERE status IN ('FINALIZED', 'PAID')
+GROUP BY customer_id;
 
 -- Create views for reporting
 
+-- Hot and archived bills together, for reports that reach back into closed periods
+CREATE VIEW all_bills AS
+SELECT id, customer_id, customer_name, customer_account_number, bill_date, subtotal, tax_amount,
+       total_amount, tax_rate, status, version, created_at, updated_at
+FROM bills
+UNION ALL
+SELECT id, customer_id, customer_name, customer_account_number, bill_date, subtotal, tax_amount,
+       total_amount, tax_rate, status, version, created_at, updated_at
+FROM bills_archive;
+
+CREATE VIEW all_bill_items AS
+SELECT id, bill_id, bill_date, item_id, item_code, item_name, item_category, unit_price, quantity,
+       total, created_at
+FROM bill_items
+UNION ALL
+SELECT id, bill_id, bill_date, item_id, item_code, item_name, item_category, unit_price, quantity,
+       total, created_at
+FROM bill_items_archive;
+
 -- Customer summary view
 CREATE VIEW customer_summary AS
 SELECT 
@@ -147,12 +282,11 @@ SELECT
     c.name,
     c.phone,
     c.registration_date,
-    COUNT(b.id) as total_bills,
-    COALESCE(SUM(b.total_amount), 0) as total_purchases,
-    MAX(b.bill_date) as last_purchase_date
+    COALESCE(t.bill_count, 0) as total_bills,
+    COALESCE(t.total_amount, 0) as total_purchases,
+    t.last_bill_date as last_purchase_date
 FROM customers c
-LEFT JOIN bills b ON c.id = b.customer_id AND b.status = 'FINALIZED'
-GROUP BY c.id, c.account_number, c.name, c.phone, c.registration_date;
+LEFT JOIN customer_totals t ON c.id = t.customer_id;
 
 -- Item summary view
 CREATE VIEW item_summary AS
@@ -172,8 +306,9 @@ SELECT
     (i.price * i.stock) as total_value,
     COALESCE(SUM(bi.quantity), 0) as total_sold
 FROM items i
-LEFT JOIN bill_items bi ON i.id = bi.item_id
-LEFT JOIN bills b ON bi.bill_id = b.id AND b.status = 'FINALIZED'
+LEFT JOIN (all_bill_items bi
+    INNER JOIN all_bills b ON bi.bill_id = b.id AND b.status IN ('FINALIZED', 'PAID'))
+    ON i.id = bi.item_id
 GROUP BY i.id, i.code, i.name, i.category, i.price, i.stock, i.min_stock;
 
 -- Sales summary view
@@ -185,7 +320,7 @@ SELECT
     SUM(b.tax_amount) as total_tax,
     SUM(b.total_amount) as total_amount,
     AVG(b.total_amount) as average_bill_amount
-FROM bills b
+FROM all_bills b
 WHERE b.status = 'FINALIZED'
 GROUP BY DATE(b.bill_date)
 ORDER BY sale_date DESC;
@@ -215,7 +350,7 @@ BEGIN
     END IF;
     
     -- Update the stock
-    UPDATE items SET stock = new_stock WHERE id = p_item_id;
+    UPDATE items SET stock = new_stock, version = version + 1 WHERE id = p_item_id;
 END //
 
 -- Procedure to finalize a bill
@@ -236,7 +371,7 @@ BEGIN
     START TRANSACTION;
     
     -- Update bill status
-    UPDATE bills SET status = 'FINALIZED' WHERE id = p_bill_id;
+    UPDATE bills SET status = 'FINALIZED', version = version + 1 WHERE id = p_bill_id;
     
     -- Reduce stock for each item
     OPEN item_cursor;
@@ -253,8 +388,39 @@ BEGIN
     COMMIT;
 END //
 
+-- Procedure to split monthly partitions off p_future up to and including the month
+-- of p_until. Run by the application at startup, daily and before archiving; safe to
+-- run repeatedly.
+CREATE PROCEDURE AddMonthlyPartitions(
+    IN p_table VARCHAR(64),
+    IN p_until DATE
+)
+BEGIN
+    DECLARE v_from DATE;
+    
+    -- the upper bound of the last monthly partition, e.g. '2024-01-01'
+    SELECT STR_TO_DATE(TRIM(BOTH '''' FROM MAX(PARTITION_DESCRIPTION)), '%Y-%m-%d') INTO v_from
+    FROM information_schema.PARTITIONS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = p_table AND PARTITION_DESCRIPTION <> 'MAXVALUE';
+    
+    WHILE v_from <= p_until DO
+        SET @ddl = CONCAT('ALTER TABLE ', p_table, ' REORGANIZE PARTITION p_future INTO (',
+                          'PARTITION p', DATE_FORMAT(v_from, '%Y%m'), ' VALUES LESS THAN (''',
+                          DATE_ADD(v_from, INTERVAL 1 MONTH), '''), ',
+                          'PARTITION p_future VALUES LESS THAN (MAXVALUE))');
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+        SET v_from = DATE_ADD(v_from, INTERVAL 1 MONTH);
+    END WHILE;
+END //
+
 DELIMITER ;
 
+-- Monthly partitions from 2024 to three months ahead
+CALL AddMonthlyPartitions('bills', DATE_ADD(CURDATE(), INTERVAL 3 MONTH));
+CALL AddMonthlyPartitions('bill_items', DATE_ADD(CURDATE(), INTERVAL 3 MONTH));
+
 -- Create indexes for better performance
 CREATE INDEX idx_bills_customer_date ON bills(customer_id, bill_date);
 CREATE INDEX idx_bill_items_bill_item ON bill_items(bill_id, item_id);
@@ -0,0 +1,178 @@
+-- Schema for the embedded (H2, MySQL mode) database profile.
+-- Same tables, columns and indexes as database-schema.sql, without the sample data
+-- and stored procedures. H2 has no table partitioning, so bills and bill_items are
+-- plain tables here and keep their foreign keys. Run automatically on the first connection; statements are
+-- separated by semicolons at line ends and must be safe to run more than once.
+
+CREATE TABLE IF NOT EXISTS customers (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    account_number VARCHAR(20) NOT NULL UNIQUE,
+    name VARCHAR(100) NOT NULL,
+    address TEXT NOT NULL,
+    phone VARCHAR(20) NOT NULL,
+    email VARCHAR(100),
+    registration_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    version INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_customers_name ON customers(name);
+CREATE INDEX IF NOT EXISTS idx_customers_phone ON customers(phone);
+CREATE INDEX IF NOT EXISTS idx_customers_registration_date ON customers(registration_date);
+
+CREATE TABLE IF NOT EXISTS items (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(20) NOT NULL UNIQUE,
+    name VARCHAR(200) NOT NULL,
+    category ENUM('TEXTBOOK', 'REFERENCE', 'STATIONERY', 'DIGITAL') NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    stock INT NOT NULL DEFAULT 0,
+    min_stock INT NOT NULL DEFAULT 5,
+    description TEXT,
+    version INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_items_name ON items(name);
+CREATE INDEX IF NOT EXISTS idx_items_stock ON items(stock);
+CREATE INDEX IF NOT EXISTS idx_items_price ON items(price);
+CREATE INDEX IF NOT EXISTS idx_items_category_stock ON items(category, stock);
+
+CREATE TABLE IF NOT EXISTS bills (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    customer_name VARCHAR(100) NOT NULL,
+    customer_account_number VARCHAR(20) NOT NULL,
+    bill_date DATE NOT NULL,
+    subtotal DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
+    tax_amount DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
+    total_amount DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
+    tax_rate DECIMAL(5, 4) NOT NULL DEFAULT 0.1000,
+    status ENUM('DRAFT', 'FINALIZED', 'PAID', 'CANCELLED') NOT NULL DEFAULT 'DRAFT',
+    version INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE RESTRICT
+);
+
+CREATE INDEX IF NOT EXISTS idx_bills_bill_date ON bills(bill_date);
+CREATE INDEX IF NOT EXISTS idx_bills_status ON bills(status);
+CREATE INDEX IF NOT EXISTS idx_bills_total_amount ON bills(total_amount);
+CREATE INDEX IF NOT EXISTS idx_bills_created_at ON bills(created_at);
+CREATE INDEX IF NOT EXISTS idx_bills_customer_date ON bills(customer_id, bill_date);
+
+CREATE TABLE IF NOT EXISTS bill_items (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    bill_id BIGINT NOT NULL,
+    bill_date DATE NOT NULL,
+    item_id BIGINT NOT NULL,
+    item_code VARCHAR(20) NOT NULL,
+    item_name VARCHAR(200) NOT NULL,
+    item_category ENUM('TEXTBOOK', 'REFERENCE', 'STATIONERY', 'DIGITAL'),
+    unit_price DECIMAL(10, 2) NOT NULL,
+    quantity INT NOT NULL,
+    total DECIMAL(10, 2) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (bill_id) REFERENCES bills(id) ON DELETE CASCADE,
+    FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE RESTRICT,
+    CONSTRAINT unique_bill_item UNIQUE (bill_id, item_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_bill_items_item_id ON bill_items(item_id);
+CREATE INDEX IF NOT EXISTS idx_bill_items_bill_date ON bill_items(bill_date);
+
+CREATE TABLE IF NOT EXISTS bills_archive (
+    id BIGINT PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    customer_name VARCHAR(100) NOT NULL,
+    customer_account_number VARCHAR(20) NOT NULL,
+    bill_date DATE NOT NULL,
+    subtotal DECIMAL(10, 2) NOT NULL,
+    tax_amount DECIMAL(10, 2) NOT NULL,
+    total_amount DECIMAL(10, 2) NOT NULL,
+    tax_rate DECIMAL(5, 4) NOT NULL,
+    status ENUM('DRAFT', 'FINALIZED', 'PAID', 'CANCELLED') NOT NULL,
+    version INT NOT NULL,
+    created_at TIMESTAMP NULL,
+    updated_at TIMESTAMP NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_bills_archive_bill_date ON bills_archive(bill_date);
+CREATE INDEX IF NOT EXISTS idx_bills_archive_customer_date ON bills_archive(customer_id, bill_date);
+
+CREATE TABLE IF NOT EXISTS bill_items_archive (
+    id BIGINT PRIMARY KEY,
+    bill_id BIGINT NOT NULL,
+    bill_date DATE NOT NULL,
+    item_id BIGINT NOT NULL,
+    item_code VARCHAR(20) NOT NULL,
+    item_name VARCHAR(200) NOT NULL,
+    item_category ENUM('TEXTBOOK', 'REFERENCE', 'STATIONERY', 'DIGITAL'),
+    unit_price DECIMAL(10, 2) NOT NULL,
+    quantity INT NOT NULL,
+    total DECIMAL(10, 2) NOT NULL,
+    created_at TIMESTAMP NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_bill_items_archive_bill_id ON bill_items_archive(bill_id);
+CREATE INDEX IF NOT EXISTS idx_bill_items_archive_item_id ON bill_items_archive(item_id);
+
+CREATE TABLE IF NOT EXISTS bill_archive_periods (
+    period_start DATE PRIMARY KEY,
+    bill_count INT NOT NULL,
+    item_count INT NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS bill_sync_keys (
+    sync_id CHAR(36) PRIMARY KEY,
+    bill_id BIGINT NOT NULL,
+    bill_date DATE NOT NULL,
+    synced_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE OR REPLACE VIEW all_bills AS
+SELECT id, customer_id, customer_name, customer_account_number, bill_date, subtotal, tax_amount,
+       total_amount, tax_rate, status, version, created_at, updated_at
+FROM bills
+UNION ALL
+SELECT id, customer_id, customer_name, customer_account_number, bill_date, subtotal, tax_amount,
+       total_amount, tax_rate, status, version, created_at, updated_at
+FROM bills_archive;
+
+CREATE OR REPLACE VIEW all_bill_items AS
+SELECT id, bill_id, bill_date, item_id, item_code, item_name, item_category, unit_price, quantity,
+       total, created_at
+FROM bill_items
+UNION ALL
+SELECT id, bill_id, bill_date, item_id, item_code, item_name, item_category, unit_price, quantity,
+       total, created_at
+FROM bill_items_archive;
+
+CREATE TABLE IF NOT EXISTS customer_totals (
+    customer_id BIGINT PRIMARY KEY,
+    bill_count INT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14, 2) NOT NULL DEFAULT 0.00,
+    last_bill_date DATE,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_totals_total_amount ON customer_totals(total_amount);
+
+CREATE TABLE IF NOT EXISTS customer_segments (
+    customer_id BIGINT PRIMARY KEY,
+    segment ENUM('CHAMPIONS', 'LOYAL', 'NEW', 'PROMISING', 'AT_RISK', 'HIBERNATING', 'LOST') NOT NULL,
+    recency_score TINYINT NOT NULL,
+    frequency_score TINYINT NOT NULL,
+    monetary_score TINYINT NOT NULL,
+    bill_count INT NOT NULL,
+    total_amount DECIMAL(14, 2) NOT NULL,
+    last_bill_date DATE NOT NULL,
+    computed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_segments_segment_amount ON customer_segments(segment, total_amount);
@@ -0,0 +1,131 @@
+package com.icbt.cis6003.pahanaedubookshop.dao.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.BillArchiveServiceImpl;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Bill lookups after the months before the hot window were archived: lookups by ID
+ * fall back to the archive, lists cover the hot months only, and archived bills
+ * cannot be changed or deleted.
+ */
+public class BillDAOImplArchiveTest {
+
+    private static BillDAO billDAO;
+    private static Long archivedId;
+    private static Long hotId;
+
+    @BeforeClass
+    public static void setUp() throws SQLException {
+        DatabaseConnection.configure(DatabaseConfig.embedded("billarchivetest", null)
+                .withSeed(20, 20, 300).withSeedHistory(365));
+        new BillArchiveServiceImpl(new BillArchiveDAOImpl()).archiveClosedPeriods(2);
+        billDAO = new BillDAOImpl();
+        archivedId = firstId("bills_archive");
+        hotId = firstId("bills");
+    }
+
+    @Test
+    public void archivedBillIsFoundById() {
+        Optional<Bill> bill = billDAO.findById(archivedId);
+
+        assertTrue(bill.isPresent());
+        assertFalse(BillTables.isHot(bill.get().getBillDate()));
+        assertFalse(bill.get().getItems().isEmpty());
+        assertTrue(billDAO.existsById(archivedId));
+    }
+
+    @Test
+    public void billsByIdSpanHotAndArchivedMonths() {
+        List<Bill> bills = billDAO.findByIds(Arrays.asList(hotId, archivedId, -1L));
+
+        assertEquals(2, bills.size());
+        for (Bill bill : bills) {
+            assertFalse(bill.getItems().isEmpty());
+        }
+    }
+
+    @Test
+    public void listsCoverTheHotMonthsOnly() {
+        for (Bill bill : billDAO.findAll()) {
+            assertTrue(BillTables.isHot(bill.getBillDate()));
+        }
+        assertFalse(billDAO.existsById(-1L));
+    }
+
+    @Test
+    public void archivedBillCannotBeChanged() {
+        Bill bill = billDAO.findById(archivedId).get();
+        try {
+            billDAO.update(bill);
+            fail("archived bill was updated");
+        } catch (IllegalStateException expected) {
+            assertEquals(bill.getVersion(), billDAO.findById(archivedId).get().getVersion());
+        }
+    }
+
+    @Test
+    public void deleteRemovesTheBillWithItsLines() throws SQLException {
+        Long id = lastId("bills");
+
+        assertTrue(billDAO.delete(id));
+
+        assertFalse(billDAO.existsById(id));
+        assertEquals(0, countLines("bill_items", id));
+    }
+
+    @Test
+    public void archivedBillIsNotDeleted() throws SQLException {
+        long lines = countLines("bill_items_archive", archivedId);
+
+        assertFalse(billDAO.delete(archivedId));
+
+        assertTrue(billDAO.existsById(archivedId));
+        assertEquals(lines, countLines("bill_items_archive", archivedId));
+    }
+
+    private static Long firstId(String table) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MIN(id) FROM " + table)) {
+            assertTrue(rs.next());
+            long id = rs.getLong(1);
+            assertFalse("no bills in " + table, rs.wasNull());
+            return id;
+        }
+    }
+
+    private static Long lastId(String table) throws SQLException {
+        return queryLong("SELECT MAX(id) FROM " + table);
+    }
+
+    private static long countLines(String table, Long billId) throws SQLException {
+        return queryLong("SELECT COUNT(*) FROM " + table + " WHERE bill_id = " + billId);
+    }
+
+    private static long queryLong(String sql) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.icbt.cis6003.pahanaedubookshop.dao.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+import com.icbt.cis6003.pahanaedubookshop.util.QueryStatistics;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Query counts of the bill list finders: a page of bills costs one query for the
+ * headers and one for the items of the whole page, however many bills it holds.
+ */
+public class BillDAOImplTest {
+
+    private static BillDAO billDAO;
+
+    @BeforeClass
+    public static void setUp() {
+        DatabaseConnection.configure(DatabaseConfig.embedded("billdaotest", null).withSeed(50, 30, 400));
+        QueryStatistics.enable();
+        billDAO = new BillDAOImpl();
+    }
+
+    @Test
+    public void paginationLoadsItemsOfAPageInOneQuery() {
+        long headers = QueryStatistics.executions("from bills");
+        long items = QueryStatistics.executions("from bill_items");
+
+        List<Bill> page = billDAO.findWithPagination(50, 100);
+
+        assertEquals(100, page.size());
+        assertItemsLoaded(page);
+        assertEquals(1, QueryStatistics.executions("from bills") - headers);
+        assertEquals(1, QueryStatistics.executions("from bill_items") - items);
+    }
+
+    @Test
+    public void recentBillsLoadItemsInOneQuery() {
+        long items = QueryStatistics.executions("from bill_items");
+
+        List<Bill> recent = billDAO.findRecentBills(40);
+
+        assertEquals(40, recent.size());
+        assertItemsLoaded(recent);
+        assertEquals(1, QueryStatistics.executions("from bill_items") - items);
+    }
+
+    @Test
+    public void customerBillsLoadItemsInOneQuery() {
+        Long customerId = billDAO.findRecentBills(1).get(0).getCustomerId();
+        long items = QueryStatistics.executions("from bill_items");
+
+        List<Bill> bills = billDAO.findByCustomerId(customerId);
+
+        assertFalse(bills.isEmpty());
+        assertItemsLoaded(bills);
+        assertEquals(1, QueryStatistics.executions("from bill_items") - items);
+    }
+
+    @Test
+    public void billsByIdLoadInTwoQueries() {
+        List<Long> ids = billDAO.findWithPagination(0, 200).stream().map(Bill::getId).collect(Collectors.toList());
+        long before = QueryStatistics.executions();
+
+        List<Bill> bills = billDAO.findByIds(ids);
+
+        assertEquals(ids.size(), bills.size());
+        assertItemsLoaded(bills);
+        assertEquals(2, QueryStatistics.executions() - before);
+    }
+
+    private static void assertItemsLoaded(List<Bill> bills) {
+        for (Bill bill : bills) {
+            assertFalse("bill " + bill.getId() + " has no items", bill.getItems().isEmpty());
+        }
+    }
+}
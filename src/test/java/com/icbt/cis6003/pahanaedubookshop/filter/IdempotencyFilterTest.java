@@ -0,0 +1,130 @@
+package com.icbt.cis6003.pahanaedubookshop.filter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Request bodies are buffered only up to the cap, and the offline sync is not buffered.
+ */
+public class IdempotencyFilterTest {
+
+    private IdempotencyFilter filter;
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty("bookshop.idempotency.maxBodyBytes", "16");
+        filter = new IdempotencyFilter();
+        filter.init(null);
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("bookshop.idempotency.maxBodyBytes");
+    }
+
+    @Test
+    public void declaredLengthOverTheCapIsRejectedUnread() throws Exception {
+        HttpServletRequest request = post("/api/bills/", "{}", 17);
+        HttpServletResponse response = response();
+
+        ServletRequest passed = filter(request, response);
+
+        assertNull(passed);
+        verify(response).setStatus(413);
+        verify(request, never()).getInputStream();
+    }
+
+    @Test
+    public void bodyOverTheCapWithoutALengthIsRejected() throws Exception {
+        HttpServletRequest request = post("/api/bills/", "{\"customerId\":12345}", -1);
+        HttpServletResponse response = response();
+
+        assertNull(filter(request, response));
+        verify(response).setStatus(413);
+    }
+
+    @Test
+    public void bodyWithinTheCapIsPassedOn() throws Exception {
+        HttpServletRequest request = post("/api/bills/", "{\"customerId\":1}", -1);
+        HttpServletResponse response = response();
+
+        ServletRequest passed = filter(request, response);
+
+        assertFalse(passed == null || passed == request);
+        verify(response, never()).setStatus(413);
+    }
+
+    @Test
+    public void offlineSyncIsPassedThroughUnbuffered() throws Exception {
+        HttpServletRequest request = post("/api/bills/sync", "[{\"syncId\":\"a\",\"customerId\":1}]", -1);
+        HttpServletResponse response = response();
+
+        assertSame(request, filter(request, response));
+        verify(request, never()).getInputStream();
+    }
+
+    private ServletRequest filter(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        ServletRequest[] passed = {null};
+        filter.doFilter(request, response, (chainRequest, chainResponse) -> passed[0] = chainRequest);
+        return passed[0];
+    }
+
+    private static HttpServletRequest post(String path, String body, long contentLength) throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getRequestURI()).thenReturn("/pahana-edu-bookshop" + path);
+        when(request.getContextPath()).thenReturn("/pahana-edu-bookshop");
+        when(request.getContentType()).thenReturn("application/json");
+        when(request.getContentLengthLong()).thenReturn(contentLength);
+        when(request.getHeader(IdempotencyFilter.KEY_HEADER)).thenReturn(UUID.randomUUID().toString());
+        ByteArrayInputStream in = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        when(request.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException();
+            }
+        });
+        return request;
+    }
+
+    private static HttpServletResponse response() throws Exception {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        return response;
+    }
+}
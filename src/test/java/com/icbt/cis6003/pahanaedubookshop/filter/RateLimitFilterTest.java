@@ -0,0 +1,79 @@
+package com.icbt.cis6003.pahanaedubookshop.filter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Terminal IDs get their own buckets only up to the per-address cap.
+ */
+public class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty("bookshop.ratelimit.pos.rate", "1");
+        System.setProperty("bookshop.ratelimit.pos.burst", "1");
+        System.setProperty("bookshop.ratelimit.terminalsPerAddress", "2");
+        filter = new RateLimitFilter();
+        filter.init(null);
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("bookshop.ratelimit.pos.rate");
+        System.clearProperty("bookshop.ratelimit.pos.burst");
+        System.clearProperty("bookshop.ratelimit.terminalsPerAddress");
+    }
+
+    @Test
+    public void knownTerminalsBehindOneAddressHaveTheirOwnBuckets() throws Exception {
+        assertEquals(200, post("10.0.0.1", "till-1"));
+        assertEquals(200, post("10.0.0.1", "till-2"));
+        assertEquals(429, post("10.0.0.1", "till-1"));
+        assertEquals(429, post("10.0.0.1", "till-2"));
+    }
+
+    @Test
+    public void rotatingTerminalIdsSharesTheAddressBucket() throws Exception {
+        assertEquals(200, post("10.0.0.2", "till-1"));
+        assertEquals(200, post("10.0.0.2", "till-2"));
+        assertEquals(200, post("10.0.0.2", "made-up-1"));
+        assertEquals(429, post("10.0.0.2", "made-up-2"));
+        assertEquals(429, post("10.0.0.2", null));
+        // another address is not affected
+        assertEquals(200, post("10.0.0.3", "made-up-3"));
+    }
+
+    private int post(String address, String terminal) throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getRequestURI()).thenReturn("/pahana-edu-bookshop/api/bills/");
+        when(request.getContextPath()).thenReturn("/pahana-edu-bookshop");
+        when(request.getRemoteAddr()).thenReturn(address);
+        when(request.getHeader(RateLimitFilter.TERMINAL_HEADER)).thenReturn(terminal);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        boolean[] admitted = {false};
+        FilterChain chain = (admittedRequest, admittedResponse) -> admitted[0] = true;
+
+        filter.doFilter(request, response, chain);
+        if (admitted[0]) {
+            return 200;
+        }
+        verify(response).setStatus(429);
+        return 429;
+    }
+}
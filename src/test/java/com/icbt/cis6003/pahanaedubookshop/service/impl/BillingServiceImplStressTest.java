@@ -0,0 +1,146 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.ItemDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.CustomerTotalsDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.ItemDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 64 tills editing and finalizing bills for one hot item at the same moment. Draft
+ * edits only check stock, so they must all go through; finalizing takes the stock,
+ * so it must never sell more than there is.
+ */
+public class BillingServiceImplStressTest {
+
+    private static final int THREADS = 64;
+    private static final int EDITS_PER_THREAD = 50;
+
+    private static Long customerId;
+
+    private BillingServiceImpl billingService;
+    private ItemDAO itemDAO;
+    private ExecutorService executor;
+
+    @BeforeClass
+    public static void setUpDatabase() {
+        DatabaseConnection.configure(DatabaseConfig.embedded("billingstresstest", null).withSeed(10, 10, 0));
+        customerId = new CustomerDAOImpl().findAll().get(0).getId();
+    }
+
+    @Before
+    public void setUp() {
+        BillDAO billDAO = new BillDAOImpl();
+        itemDAO = new ItemDAOImpl();
+        billingService = new BillingServiceImpl(billDAO, itemDAO, new CustomerDAOImpl(), new CustomerTotalsDAOImpl(),
+                new DraftBillStoreImpl(billDAO), new BillCacheImpl(), mock(BillArchiveService.class));
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        billingService.shutdown();
+    }
+
+    @Test
+    public void concurrentEditsOfOneDraftAreAllApplied() throws Exception {
+        Item item = saveItem("STRESS-EDIT", 1_000_000);
+        Long draftId = billingService.createBill(customerId).getId();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < EDITS_PER_THREAD; i++) {
+                billingService.addItemToBill(draftId, item.getId(), 1);
+            }
+            return null;
+        });
+
+        Bill draft = billingService.getBillById(draftId).get();
+        assertEquals(1, draft.getItems().size());
+        assertEquals(THREADS * EDITS_PER_THREAD, draft.getItems().get(0).getQuantity().intValue());
+    }
+
+    @Test
+    public void concurrentFinalizesNeverOversell() throws Exception {
+        int stock = 100;
+        Item item = saveItem("STRESS-SELL", stock);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            Long draftId = billingService.createBill(customerId).getId();
+            int quantity = 1 + thread % 3;
+            try {
+                // once stock runs out, the edits are refused as well as the finalize
+                billingService.addItemToBill(draftId, item.getId(), 1);
+                billingService.updateItemQuantityInBill(draftId, item.getId(), quantity);
+                billingService.finalizeBill(draftId);
+                sold.addAndGet(quantity);
+            } catch (RuntimeException e) {
+                refused.incrementAndGet();
+            }
+            return null;
+        });
+
+        int remaining = itemDAO.findById(item.getId()).get().getStock();
+        assertTrue("oversold: " + sold.get() + " of " + stock, sold.get() <= stock);
+        assertEquals(stock - sold.get(), remaining);
+        assertTrue("every till was refused", refused.get() < THREADS);
+    }
+
+    // Helper methods
+
+    private interface TillWork {
+        Void run(int thread) throws Exception;
+    }
+
+    /**
+     * Run the work on every thread at once and rethrow the first failure
+     */
+    private void runConcurrently(TillWork work) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            Callable<Void> task = () -> {
+                start.await();
+                return work.run(thread);
+            };
+            results.add(executor.submit(task));
+        }
+        start.countDown();
+        for (Future<Void> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    private Item saveItem(String code, int stock) {
+        return itemDAO.save(new Item(code, "Stress item " + code, ItemCategory.STATIONERY, new BigDecimal("10.00"), stock));
+    }
+}
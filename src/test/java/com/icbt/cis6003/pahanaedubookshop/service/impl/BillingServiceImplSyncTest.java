@@ -0,0 +1,176 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerTotalsDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.InsufficientStockException;
+import com.icbt.cis6003.pahanaedubookshop.dao.ItemDAO;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.BillItem;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService;
+import com.icbt.cis6003.pahanaedubookshop.service.BillLifecycleListener;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.OfflineBill;
+import com.icbt.cis6003.pahanaedubookshop.service.BillingService.SyncOutcome;
+import com.icbt.cis6003.pahanaedubookshop.service.DraftBillStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Offline bill sync: lines are priced from the catalog, a bill short of stock is
+ * rejected on its own, each chunk reads the stock it saves against, and a database
+ * failure fails the sync instead of rejecting bills.
+ */
+public class BillingServiceImplSyncTest {
+
+    private static final BigDecimal PRICE = new BigDecimal("12.50");
+
+    private BillDAO billDAO;
+    private ItemDAO itemDAO;
+    private CustomerDAO customerDAO;
+    private BillLifecycleListener listener;
+    private BillingServiceImpl billingService;
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @Before
+    public void setUp() {
+        billDAO = mock(BillDAO.class);
+        itemDAO = mock(ItemDAO.class);
+        customerDAO = mock(CustomerDAO.class);
+        when(customerDAO.findByIds(any())).thenReturn(Collections.singletonList(
+                new Customer(1L, "ACC-1", "Customer", "Colombo", "0110000000", null, LocalDate.now())));
+        when(itemDAO.findByIds(any())).thenReturn(Collections.singletonList(
+                item(100)));
+        billingService = newBillingService();
+    }
+
+    @Test
+    public void linesArePricedFromTheCatalog() {
+        saveSucceedsUnless(null);
+
+        List<SyncOutcome> outcomes = billingService.syncOfflineBills(Arrays.asList(
+                offlineBill("unpriced", null), offlineBill("free", BigDecimal.ZERO), offlineBill("priced", PRICE)));
+
+        assertEquals(SyncOutcome.Status.CREATED, outcomes.get(0).getStatus());
+        assertEquals(0, PRICE.compareTo(outcomes.get(0).getBill().getItems().get(0).getUnitPrice()));
+        assertEquals(SyncOutcome.Status.REJECTED, outcomes.get(1).getStatus());
+        assertTrue(outcomes.get(1).getError(), outcomes.get(1).getError().contains("catalog price"));
+        assertEquals(SyncOutcome.Status.CREATED, outcomes.get(2).getStatus());
+    }
+
+    @Test
+    public void billShortOfStockIsRejectedAlone() {
+        saveSucceedsUnless("short", new InsufficientStockException(7L, "Book"));
+
+        List<SyncOutcome> outcomes = billingService.syncOfflineBills(Arrays.asList(
+                offlineBill("first", PRICE), offlineBill("short", PRICE), offlineBill("last", PRICE)));
+
+        assertEquals(SyncOutcome.Status.CREATED, outcomes.get(0).getStatus());
+        assertEquals(SyncOutcome.Status.REJECTED, outcomes.get(1).getStatus());
+        assertEquals(SyncOutcome.Status.CREATED, outcomes.get(2).getStatus());
+    }
+
+    @Test
+    public void everyChunkReadsTheStockItSavesAgainst() {
+        System.setProperty("bookshop.sync.chunkSize", "1");
+        try {
+            billingService = newBillingService();
+        } finally {
+            System.clearProperty("bookshop.sync.chunkSize");
+        }
+        // a cashier sells the last copies between the two chunks
+        when(itemDAO.findByIds(any())).thenReturn(Collections.singletonList(item(2)),
+                Collections.singletonList(item(0)));
+        saveSucceedsUnless(null);
+
+        List<SyncOutcome> outcomes = billingService.syncOfflineBills(Arrays.asList(
+                offlineBill("first", PRICE), offlineBill("second", PRICE)));
+
+        assertEquals(SyncOutcome.Status.CREATED, outcomes.get(0).getStatus());
+        assertEquals(SyncOutcome.Status.REJECTED, outcomes.get(1).getStatus());
+        assertTrue(outcomes.get(1).getError(), outcomes.get(1).getError().contains("Insufficient stock"));
+        verify(itemDAO, times(2)).findByIds(any());
+    }
+
+    @Test
+    public void databaseFailureFailsTheSyncAfterAnnouncingSavedBills() {
+        saveSucceedsUnless("broken", new RuntimeException("Connection lost"));
+        OfflineBill saved = offlineBill("saved", PRICE);
+
+        try {
+            billingService.syncOfflineBills(Arrays.asList(saved, offlineBill("broken", PRICE)));
+            fail("a database failure was reported as a rejected bill");
+        } catch (RuntimeException expected) {
+            assertEquals("Connection lost", expected.getMessage());
+        }
+        ArgumentCaptor<Bill> finalized = ArgumentCaptor.forClass(Bill.class);
+        verify(listener).onBillFinalized(finalized.capture());
+        assertNotNull(finalized.getValue().getId());
+    }
+
+    // Helper methods
+
+    private BillingServiceImpl newBillingService() {
+        BillingServiceImpl service = new BillingServiceImpl(billDAO, itemDAO, customerDAO,
+                mock(CustomerTotalsDAO.class), mock(DraftBillStore.class), new BillCacheImpl(),
+                mock(BillArchiveService.class));
+        listener = mock(BillLifecycleListener.class);
+        service.addBillLifecycleListener(listener);
+        return service;
+    }
+
+    private static Item item(int stock) {
+        return new Item(7L, "BOOK-7", "Book", ItemCategory.TEXTBOOK, PRICE, stock, 0, null);
+    }
+
+    /**
+     * Save every chunk without the failing sync ID, giving its bills IDs
+     */
+    private void saveSucceedsUnless(String failingSyncId, RuntimeException... failure) {
+        when(billDAO.saveSyncedBills(anyMap())).thenAnswer(invocation -> {
+            Map<String, Bill> bills = invocation.getArgument(0);
+            if (failingSyncId != null && bills.containsKey(failingSyncId)) {
+                throw failure[0];
+            }
+            for (Bill bill : bills.values()) {
+                bill.setId(nextId.getAndIncrement());
+            }
+            return new ArrayList<>(bills.values());
+        });
+    }
+
+    private static OfflineBill offlineBill(String syncId, BigDecimal unitPrice) {
+        Bill bill = new Bill();
+        bill.setCustomerId(1L);
+        bill.setBillDate(LocalDate.now());
+        BillItem line = new BillItem();
+        line.setItemId(7L);
+        line.setQuantity(2);
+        line.setUnitPrice(unitPrice);
+        bill.setItems(new ArrayList<>(Collections.singletonList(line)));
+        return new OfflineBill(syncId, bill);
+    }
+}
@@ -0,0 +1,94 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.CustomerTotalsDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.ItemDAO;
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.BillDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.service.BillArchiveService;
+import com.icbt.cis6003.pahanaedubookshop.service.DraftBillStore;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConfig;
+import com.icbt.cis6003.pahanaedubookshop.util.DatabaseConnection;
+import com.icbt.cis6003.pahanaedubookshop.util.QueryStatistics;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Query counts of bill reads through the service: settled bills are read from the
+ * database once and served from the bill cache afterwards.
+ */
+public class BillingServiceImplTest {
+
+    private BillingServiceImpl billingService;
+
+    @BeforeClass
+    public static void setUpDatabase() {
+        DatabaseConnection.configure(DatabaseConfig.embedded("billingservicetest", null).withSeed(50, 30, 400));
+        QueryStatistics.enable();
+    }
+
+    @Before
+    public void setUp() {
+        BillDAO billDAO = new BillDAOImpl();
+        billingService = new BillingServiceImpl(billDAO, mock(ItemDAO.class), mock(CustomerDAO.class),
+                mock(CustomerTotalsDAO.class), mock(DraftBillStore.class), new BillCacheImpl(),
+                mock(BillArchiveService.class));
+    }
+
+    @Test
+    public void settledBillIsReadFromTheDatabaseOnce() {
+        Long id = settledBill(billingService.getBillsWithPagination(0, 50));
+
+        billingService = new BillingServiceImpl(new BillDAOImpl(), mock(ItemDAO.class), mock(CustomerDAO.class),
+                mock(CustomerTotalsDAO.class), mock(DraftBillStore.class), new BillCacheImpl(),
+                mock(BillArchiveService.class));
+        long before = QueryStatistics.executions();
+        assertTrue(billingService.getBillById(id).isPresent());
+        assertEquals(2, QueryStatistics.executions() - before);
+
+        before = QueryStatistics.executions();
+        assertTrue(billingService.getBillById(id).isPresent());
+        assertEquals(0, QueryStatistics.executions() - before);
+    }
+
+    @Test
+    public void listPagesSeedTheBillCache() {
+        List<Bill> recent = billingService.getRecentBills(30);
+        long before = QueryStatistics.executions();
+
+        for (Bill bill : recent) {
+            if (bill.getStatus() == BillStatus.FINALIZED || bill.getStatus() == BillStatus.PAID) {
+                assertEquals(bill.getTotalAmount(), billingService.getBillById(bill.getId()).get().getTotalAmount());
+            }
+        }
+        assertEquals(0, QueryStatistics.executions() - before);
+    }
+
+    @Test
+    public void customerBillsCostTwoQueries() {
+        Long customerId = billingService.getRecentBills(1).get(0).getCustomerId();
+        long before = QueryStatistics.executions();
+
+        List<Bill> bills = billingService.getBillsByCustomer(customerId);
+
+        assertTrue(bills.size() > 1);
+        assertEquals(2, QueryStatistics.executions() - before);
+    }
+
+    private static Long settledBill(List<Bill> bills) {
+        return bills.stream()
+                .filter(bill -> bill.getStatus() == BillStatus.FINALIZED || bill.getStatus() == BillStatus.PAID)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no settled bill in the seed"))
+                .getId();
+    }
+}
@@ -0,0 +1,170 @@
+package com.icbt.cis6003.pahanaedubookshop.service.impl;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.BillDAO;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill;
+import com.icbt.cis6003.pahanaedubookshop.model.Bill.BillStatus;
+import com.icbt.cis6003.pahanaedubookshop.model.Customer;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.service.BillLifecycleListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * How a draft ends: finalized, discarded or expired, exactly once and with one event.
+ */
+public class DraftBillStoreImplTest {
+
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private BillDAO billDAO;
+    private BillLifecycleListener listener;
+    private MutableClock clock;
+    private DraftBillStoreImpl store;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        billDAO = mock(BillDAO.class);
+        listener = mock(BillLifecycleListener.class);
+        clock = new MutableClock();
+        store = new DraftBillStoreImpl(billDAO, TTL, clock);
+        store.addBillLifecycleListener(listener);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        store.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void discardWaitsForAFinalizeUnderWayAndThenRefuses() throws Exception {
+        Long draftId = draftWithOneLine();
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(billDAO.saveFinalizedBill(any())).thenAnswer(invocation -> {
+            saving.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            Bill bill = invocation.getArgument(0);
+            bill.setId(1L);
+            return bill;
+        });
+
+        Future<Bill> finalizing = executor.submit(() -> store.finalizeDraft(draftId));
+        assertTrue(saving.await(10, TimeUnit.SECONDS));
+        AtomicBoolean discarded = new AtomicBoolean(true);
+        Thread discarding = new Thread(() -> discarded.set(store.discard(draftId)));
+        discarding.start();
+        // the discard is now blocked on the draft while the bill is being saved
+        Thread.sleep(50);
+        release.countDown();
+        discarding.join(10_000);
+
+        assertFalse(discarded.get());
+        assertEquals(BillStatus.FINALIZED, finalizing.get(10, TimeUnit.SECONDS).getStatus());
+        assertFalse(store.getDraft(draftId).isPresent());
+        verify(listener).onBillFinalized(any());
+        verify(listener, never()).onBillCancelled(any(), any());
+    }
+
+    @Test
+    public void discardedDraftCannotBeFinalized() {
+        Long draftId = draftWithOneLine();
+
+        assertTrue(store.discard(draftId));
+        try {
+            store.finalizeDraft(draftId);
+            fail("a discarded draft was finalized");
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getMessage().contains("not found"));
+        }
+        assertFalse(store.discard(draftId));
+        verify(listener).onBillCancelled(any(), any());
+        verify(listener, never()).onBillFinalized(any());
+    }
+
+    @Test
+    public void expiredDraftsAreAnnouncedOnce() {
+        Long idle = draftWithOneLine();
+        clock.advance(TTL.minusMinutes(1));
+        Long recent = draftWithOneLine();
+        clock.advance(Duration.ofMinutes(2));
+
+        assertEquals(1, store.evictExpired());
+        assertEquals(0, store.evictExpired());
+        assertFalse(store.getDraft(idle).isPresent());
+        assertTrue(store.getDraft(recent).isPresent());
+        assertFalse(store.discard(idle));
+        verify(listener).onDraftExpired(any());
+        verify(listener, never()).onBillCancelled(any(), any());
+    }
+
+    @Test
+    public void draftIdsStayExactInJavaScript() {
+        Long draftId = draftWithOneLine();
+
+        assertTrue(draftId <= DraftBillStoreImpl.MAX_DRAFT_ID);
+        assertEquals(draftId.longValue(), (long) (double) draftId);
+        assertTrue(store.isDraftId(draftId));
+        assertFalse(store.isDraftId(1_000_000_000_000_000_001L));
+    }
+
+    // Helper methods
+
+    private Long draftWithOneLine() {
+        Customer customer = new Customer(1L, "ACC-1", "Customer", "Colombo", "0110000000", null, LocalDate.now());
+        Item item = new Item(7L, "BOOK-7", "Book", ItemCategory.TEXTBOOK, new BigDecimal("12.50"), 100, 0, null);
+        Long draftId = store.createDraft(customer).getId();
+        store.addItem(draftId, item, 2);
+        return draftId;
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-01-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import com.icbt.cis6003.pahanaedubookshop.util.IdempotencyStore.Claim;
+import com.icbt.cis6003.pahanaedubookshop.util.IdempotencyStore.StoredResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Claim, await and release of idempotency keys under concurrent requests.
+ */
+public class IdempotencyStoreTest {
+
+    private static final int THREADS = 64;
+
+    private IdempotencyStore store;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        store = new IdempotencyStore(1000, TimeUnit.MINUTES.toMillis(5));
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentClaimsHaveOneOwnerAndEveryoneGetsItsResponse() throws Exception {
+        StoredResponse response = response(201, "created");
+        AtomicInteger owners = new AtomicInteger();
+
+        List<StoredResponse> results = runConcurrently(() -> {
+            Claim claim = store.claim("key-1", "request-1");
+            if (claim.isOwner()) {
+                owners.incrementAndGet();
+                // give the other claims time to arrive while the owner runs
+                Thread.sleep(50);
+                claim.complete(response);
+                return response;
+            }
+            return claim.await(10, TimeUnit.SECONDS);
+        });
+
+        assertEquals(1, owners.get());
+        for (StoredResponse result : results) {
+            assertSame(response, result);
+        }
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void releasedKeyIsClaimedAgainByOneWaiter() throws Exception {
+        AtomicInteger owners = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        StoredResponse response = response(200, "ok");
+
+        // the first owner releases the key, as after a server error; the next one completes it
+        List<StoredResponse> results = runConcurrently(() -> {
+            while (true) {
+                Claim claim = store.claim("key-2", "request-2");
+                if (!claim.isOwner()) {
+                    StoredResponse stored = claim.await(10, TimeUnit.SECONDS);
+                    if (stored != null) {
+                        return stored;
+                    }
+                    continue;
+                }
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                Thread.sleep(20);
+                running.decrementAndGet();
+                if (owners.incrementAndGet() == 1) {
+                    claim.release();
+                    continue;
+                }
+                claim.complete(response);
+                return response;
+            }
+        });
+
+        assertEquals(2, owners.get());
+        assertEquals(0, overlaps.get());
+        for (StoredResponse result : results) {
+            assertSame(response, result);
+        }
+    }
+
+    @Test
+    public void waitersSeeAReleaseAsNoResponse() throws Exception {
+        Claim owner = store.claim("key-3", "request-3");
+        Claim waiter = store.claim("key-3", "request-3");
+        assertTrue(owner.isOwner());
+        assertFalse(waiter.isOwner());
+
+        Future<StoredResponse> waiting = executor.submit(() -> waiter.await(10, TimeUnit.SECONDS));
+        owner.release();
+
+        assertNull(waiting.get(10, TimeUnit.SECONDS));
+        assertEquals(0, store.size());
+        assertTrue(store.claim("key-3", "request-3").isOwner());
+    }
+
+    @Test
+    public void awaitTimesOutWhileTheOwnerRuns() throws Exception {
+        store.claim("key-4", "request-4");
+        Claim waiter = store.claim("key-4", "request-4");
+        try {
+            waiter.await(50, TimeUnit.MILLISECONDS);
+            fail("await returned while the owner was running");
+        } catch (TimeoutException expected) {
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    public void keyRemembersTheRequestItWasFirstSentWith() {
+        store.claim("key-5", "request-5");
+        Claim retry = store.claim("key-5", "request-6");
+
+        assertFalse(retry.isOwner());
+        assertFalse(retry.matches("request-6"));
+        assertTrue(retry.matches("request-5"));
+    }
+
+    @Test
+    public void oldestCompletedKeysAreDroppedButRunningOnesKept() {
+        IdempotencyStore small = new IdempotencyStore(2, TimeUnit.MINUTES.toMillis(5));
+        Claim running = small.claim("running", "request");
+        for (int i = 0; i < 5; i++) {
+            small.claim("done-" + i, "request").complete(response(200, "ok"));
+        }
+
+        assertTrue(small.size() <= 3);
+        assertFalse(small.claim("running", "request").isOwner());
+        running.complete(response(200, "ok"));
+    }
+
+    // Helper methods
+
+    /**
+     * Start the task on every thread at once and collect the results
+     */
+    private List<StoredResponse> runConcurrently(Callable<StoredResponse> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<StoredResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<StoredResponse> results = new ArrayList<>();
+        for (Future<StoredResponse> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private static StoredResponse response(int status, String body) {
+        return new StoredResponse(status, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+}
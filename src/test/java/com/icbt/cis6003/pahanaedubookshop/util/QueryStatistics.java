@@ -0,0 +1,69 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts the statements the embedded database has executed, from H2's query statistics.
+ * Tests take a snapshot before the call under test and compare it with one taken after.
+ */
+public final class QueryStatistics {
+
+    private static final String SUM_EXECUTIONS =
+            "SELECT COALESCE(SUM(execution_count), 0) FROM information_schema.query_statistics " +
+            "WHERE LOWER(sql_statement) LIKE ? AND LOWER(sql_statement) NOT LIKE '%query_statistics%' " +
+            // connection settings H2 runs from the URL on every new connection
+            "AND sql_statement NOT LIKE 'SET %'";
+
+    private QueryStatistics() {
+    }
+
+    public static void enable() {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET QUERY_STATISTICS TRUE");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Query statistics need the embedded database", e);
+        }
+    }
+
+    /**
+     * Executions so far of the statements containing a fragment, ignoring case
+     */
+    public static long executions(String fragment) {
+        return sumExecutions("%" + fragment.toLowerCase() + "%");
+    }
+
+    /**
+     * Executions so far of all statements
+     */
+    public static long executions() {
+        return executions("");
+    }
+
+    /**
+     * Executions so far of the statements that write: inserts, updates, deletes and merges
+     */
+    public static long writes() {
+        long writes = 0;
+        for (String verb : new String[] {"insert ", "update ", "delete ", "merge "}) {
+            writes += sumExecutions(verb + "%");
+        }
+        return writes;
+    }
+
+    private static long sumExecutions(String pattern) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SUM_EXECUTIONS)) {
+            ps.setString(1, pattern);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
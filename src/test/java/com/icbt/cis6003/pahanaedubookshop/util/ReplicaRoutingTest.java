@@ -0,0 +1,85 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import com.icbt.cis6003.pahanaedubookshop.dao.impl.ItemDAOImpl;
+import com.icbt.cis6003.pahanaedubookshop.model.Item;
+import com.icbt.cis6003.pahanaedubookshop.model.Item.ItemCategory;
+import com.icbt.cis6003.pahanaedubookshop.service.BestSellerService;
+import com.icbt.cis6003.pahanaedubookshop.service.ItemService;
+import com.icbt.cis6003.pahanaedubookshop.service.impl.ItemServiceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Where read-only statistics are served from, with a primary and a replica H2 instance.
+ * Embedded replicas never replicate, so items written to the primary are missing on the
+ * replica, and the item count tells which instance answered.
+ */
+public class ReplicaRoutingTest {
+
+    private final ReplicaLagMonitor monitor = ReplicaLagMonitor.getInstance();
+    private ItemService itemService;
+
+    @Before
+    public void setUp() {
+        DatabaseConnection.configure(DatabaseConfig.embedded("replica_routing_primary", "replica_routing_replica"));
+        ItemDAOImpl itemDAO = new ItemDAOImpl();
+        if (itemDAO.count() == 0) {
+            for (int i = 1; i <= 3; i++) {
+                itemDAO.save(new Item("RR" + i, "Replica routing " + i, ItemCategory.TEXTBOOK, new BigDecimal("10.00"), 5));
+            }
+        }
+        itemService = new ItemServiceImpl(itemDAO, mock(BestSellerService.class));
+    }
+
+    @After
+    public void tearDown() {
+        monitor.resetLagProbe();
+    }
+
+    @Test
+    public void statisticsAreReadFromTheReplicaWithinTheBudget() {
+        monitor.setLagProbe(() -> monitor.getMaxLagSeconds());
+        long replicaBefore = DatabaseConnection.getReplicaAcquisitionCount();
+        long primaryBefore = DatabaseConnection.getAcquisitionCount();
+
+        assertEquals(0, itemService.getInventoryStatistics().getTotalItems());
+
+        assertEquals(replicaBefore + 1, DatabaseConnection.getReplicaAcquisitionCount());
+        assertEquals(primaryBefore, DatabaseConnection.getAcquisitionCount());
+    }
+
+    @Test
+    public void statisticsFallBackToThePrimaryWhenTheReplicaLagsTooFar() {
+        monitor.setLagProbe(() -> monitor.getMaxLagSeconds() + 1);
+        long replicaBefore = DatabaseConnection.getReplicaAcquisitionCount();
+
+        assertEquals(3, itemService.getInventoryStatistics().getTotalItems());
+
+        assertEquals(replicaBefore, DatabaseConnection.getReplicaAcquisitionCount());
+    }
+
+    @Test
+    public void statisticsFallBackToThePrimaryWhenTheLagIsUnknown() {
+        monitor.setLagProbe(() -> -1);
+        long replicaBefore = DatabaseConnection.getReplicaAcquisitionCount();
+
+        assertEquals(3, itemService.getInventoryStatistics().getTotalItems());
+
+        assertEquals(replicaBefore, DatabaseConnection.getReplicaAcquisitionCount());
+    }
+
+    @Test
+    public void statisticsReturnToTheReplicaOnceItCatchesUp() {
+        monitor.setLagProbe(() -> monitor.getMaxLagSeconds() + 1);
+        assertEquals(3, itemService.getInventoryStatistics().getTotalItems());
+
+        monitor.setLagProbe(() -> 0);
+        assertEquals(0, itemService.getInventoryStatistics().getTotalItems());
+    }
+}
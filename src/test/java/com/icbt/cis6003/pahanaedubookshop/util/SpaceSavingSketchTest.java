@@ -0,0 +1,72 @@
+package com.icbt.cis6003.pahanaedubookshop.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Eviction order and error bounds of the Space-Saving sketch.
+ */
+public class SpaceSavingSketchTest {
+
+    @Test
+    public void newKeyReplacesTheSmallestCounter() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        sketch.offer(1, 10);
+        sketch.offer(2, 3);
+        sketch.offer(3, 7);
+        sketch.offer(2, 1);
+
+        sketch.offer(4, 2);
+
+        assertEquals(0, sketch.estimate(2));
+        assertEquals(6, sketch.estimate(4));
+        assertEquals(10, sketch.estimate(1));
+        assertEquals(3, sketch.size());
+    }
+
+    @Test
+    public void retractedKeyIsNoLongerTheEvictionCandidate() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer(1, 5);
+        sketch.offer(2, 8);
+        sketch.retract(2, 6);
+
+        sketch.offer(3, 1);
+
+        assertEquals(5, sketch.estimate(1));
+        assertEquals(3, sketch.estimate(3));
+        assertEquals(0, sketch.estimate(2));
+    }
+
+    @Test
+    public void estimatesStayUpperBoundsAndHeavyHittersAreKept() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(50);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // half the offers go to ten heavy keys, above the total / capacity share that is never evicted
+            long key = random.nextBoolean() ? random.nextInt(10) : 10 + random.nextInt(1000);
+            long amount = 1 + random.nextInt(3);
+            sketch.offer(key, amount);
+            exact.merge(key, amount, Long::sum);
+        }
+
+        long total = exact.values().stream().mapToLong(Long::longValue).sum();
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            if (estimate > 0) {
+                assertTrue(estimate >= entry.getValue());
+                assertTrue(estimate - entry.getValue() <= total / sketch.getCapacity());
+            }
+        }
+        for (long key = 0; key < 10; key++) {
+            assertTrue("heavy key " + key + " was evicted", sketch.estimate(key) > 0);
+        }
+    }
+}